@@ -1,11 +1,22 @@
 package com.ctrip.framework.apollo.adminservice.controller;
 
+import com.ctrip.framework.apollo.biz.entity.Item;
 import com.ctrip.framework.apollo.biz.entity.Namespace;
+import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.service.ItemService;
 import com.ctrip.framework.apollo.biz.service.NamespaceService;
+import com.ctrip.framework.apollo.biz.service.ReleaseService;
+import com.ctrip.framework.apollo.common.constants.GsonType;
+import com.ctrip.framework.apollo.common.dto.ItemDTO;
+import com.ctrip.framework.apollo.common.dto.ItemStatusDTO;
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
+import com.ctrip.framework.apollo.common.dto.NamespaceItemsDTO;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.common.exception.NotFoundException;
 import com.ctrip.framework.apollo.common.utils.BeanUtils;
+import com.ctrip.framework.apollo.core.utils.StringUtils;
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,16 +26,30 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 public class NamespaceController {
 
+  private static final Gson GSON = new Gson();
+
   private final NamespaceService namespaceService;
+  private final ItemService itemService;
+  private final ReleaseService releaseService;
 
-  public NamespaceController(final NamespaceService namespaceService) {
+  public NamespaceController(
+      final NamespaceService namespaceService,
+      final ItemService itemService,
+      final ReleaseService releaseService) {
     this.namespaceService = namespaceService;
+    this.itemService = itemService;
+    this.releaseService = releaseService;
   }
 
   @PostMapping("/apps/{appId}/clusters/{clusterName}/namespaces")
@@ -63,6 +88,37 @@ public class NamespaceController {
     return BeanUtils.batchTransform(NamespaceDTO.class, groups);
   }
 
+  /**
+   * Finds the namespaces of the cluster with their items compared to their latest releases, so that a cluster is
+   * rendered with one call instead of loading the items and the latest release of each namespace
+   */
+  @GetMapping("/apps/{appId}/clusters/{clusterName}/namespaces-with-items")
+  public List<NamespaceItemsDTO> findWithItems(@PathVariable("appId") String appId,
+                                               @PathVariable("clusterName") String clusterName) {
+    List<Namespace> namespaces = namespaceService.findNamespaces(appId, clusterName);
+    if (namespaces.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    Set<Long> namespaceIds = namespaces.stream().map(Namespace::getId).collect(Collectors.toSet());
+    //the items keep their line number order after grouping
+    Map<Long, List<Item>> itemsByNamespace = itemService.findItemsWithOrdered(namespaceIds).stream()
+        .collect(Collectors.groupingBy(Item::getNamespaceId));
+    Map<String, Release> latestReleases = releaseService.findLatestActiveReleases(appId, clusterName).stream()
+        .collect(Collectors.toMap(Release::getNamespaceName, Function.identity()));
+
+    List<NamespaceItemsDTO> result = Lists.newArrayListWithCapacity(namespaces.size());
+    for (Namespace namespace : namespaces) {
+      List<Item> items = itemsByNamespace.getOrDefault(namespace.getId(), Collections.emptyList());
+      Release latestRelease = latestReleases.get(namespace.getNamespaceName());
+      Map<String, String> releasedConfigurations = latestRelease == null ? Collections.emptyMap()
+          : GSON.fromJson(latestRelease.getConfigurations(), GsonType.CONFIG);
+
+      result.add(transformNamespaceItems(namespace, items, releasedConfigurations));
+    }
+    return result;
+  }
+
   //根据namespace的ID查找namespace
   @GetMapping("/namespaces/{namespaceId}")
   public NamespaceDTO get(@PathVariable("namespaceId") Long namespaceId) {
@@ -106,5 +162,52 @@ public class NamespaceController {
     return namespaceService.namespacePublishInfo(appId);
   }
 
+  private NamespaceItemsDTO transformNamespaceItems(Namespace namespace, List<Item> items,
+                                                   Map<String, String> releasedConfigurations) {
+    List<ItemStatusDTO> itemStatuses = Lists.newArrayListWithCapacity(items.size());
+    Set<String> keys = items.stream().map(Item::getKey).collect(Collectors.toSet());
+    int modifiedCnt = 0;
+
+    for (Item item : items) {
+      ItemStatusDTO itemStatus = new ItemStatusDTO();
+      itemStatus.setItem(BeanUtils.transform(ItemDTO.class, item));
+      String key = item.getKey();
+      String oldValue = releasedConfigurations.get(key);
+      //new item or modified
+      if (!StringUtils.isEmpty(key) && (oldValue == null || !Objects.equals(item.getValue(), oldValue))) {
+        itemStatus.setModified(true);
+        itemStatus.setOldValue(oldValue == null ? "" : oldValue);
+        itemStatus.setNewValue(item.getValue());
+        modifiedCnt++;
+      }
+      itemStatuses.add(itemStatus);
+    }
+
+    //deleted items
+    for (Map.Entry<String, String> entry : releasedConfigurations.entrySet()) {
+      if (keys.contains(entry.getKey())) {
+        continue;
+      }
+      ItemDTO deletedItem = new ItemDTO();
+      deletedItem.setKey(entry.getKey());
+      deletedItem.setValue(entry.getValue());
+
+      ItemStatusDTO itemStatus = new ItemStatusDTO();
+      itemStatus.setItem(deletedItem);
+      itemStatus.setDeleted(true);
+      itemStatus.setModified(true);
+      itemStatus.setOldValue(entry.getValue());
+      itemStatus.setNewValue("");
+      itemStatuses.add(itemStatus);
+      modifiedCnt++;
+    }
+
+    NamespaceItemsDTO namespaceItems = new NamespaceItemsDTO();
+    namespaceItems.setBaseInfo(BeanUtils.transform(NamespaceDTO.class, namespace));
+    namespaceItems.setItems(itemStatuses);
+    namespaceItems.setItemModifiedCnt(modifiedCnt);
+    return namespaceItems;
+  }
+
 
 }
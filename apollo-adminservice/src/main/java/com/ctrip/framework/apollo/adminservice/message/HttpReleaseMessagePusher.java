@@ -0,0 +1,71 @@
+package com.ctrip.framework.apollo.adminservice.message;
+
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.biz.message.ReleaseMessagePusher;
+import com.ctrip.framework.apollo.core.ServiceNameConsts;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes the release messages to all the config service instances registered in eureka
+ */
+@Component
+public class HttpReleaseMessagePusher implements ReleaseMessagePusher {
+  private static final Logger logger = LoggerFactory.getLogger(HttpReleaseMessagePusher.class);
+  private static final String RECEIVE_PATH = "/release-messages";
+  private static final int CONNECT_TIMEOUT = 1000; //1s
+  private static final int READ_TIMEOUT = 3000; //3s
+  //same date format as the http message converters
+  private static final Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").create();
+
+  private final DiscoveryClient discoveryClient;
+  private final RestTemplate restTemplate;
+  private final ExecutorService pushExecutorService;
+
+  public HttpReleaseMessagePusher(final DiscoveryClient discoveryClient) {
+    this.discoveryClient = discoveryClient;
+    SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+    requestFactory.setConnectTimeout(CONNECT_TIMEOUT);
+    requestFactory.setReadTimeout(READ_TIMEOUT);
+    restTemplate = new RestTemplate(requestFactory);
+    pushExecutorService = Executors.newSingleThreadExecutor(ApolloThreadFactory.create("HttpReleaseMessagePusher",
+        true));
+  }
+
+  @Override
+  public void push(ReleaseMessage message) {
+    pushExecutorService.submit(() -> {
+      List<ServiceInstance> instances = discoveryClient.getInstances(ServiceNameConsts.APOLLO_CONFIGSERVICE);
+      HttpHeaders headers = new HttpHeaders();
+      headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+      HttpEntity<String> request = new HttpEntity<>(gson.toJson(message), headers);
+
+      for (ServiceInstance instance : instances) {
+        String url = instance.getUri() + RECEIVE_PATH;
+        try {
+          restTemplate.postForEntity(url, request, Void.class);
+        } catch (Throwable ex) {
+          //the config service would load the message in its next database scan
+          Tracer.logError(ex);
+          logger.warn("Push release message {} to {} failed", message.getId(), url, ex);
+        }
+      }
+    });
+  }
+}
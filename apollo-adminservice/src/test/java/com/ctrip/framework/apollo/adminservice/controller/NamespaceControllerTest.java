@@ -1,10 +1,17 @@
 package com.ctrip.framework.apollo.adminservice.controller;
 
+import com.ctrip.framework.apollo.common.dto.ItemStatusDTO;
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
+import com.ctrip.framework.apollo.common.dto.NamespaceItemsDTO;
 import com.ctrip.framework.apollo.common.utils.InputValidator;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
 import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.List;
+
 import static org.hamcrest.Matchers.containsString;
 
 /**
@@ -28,4 +35,40 @@ public class NamespaceControllerTest extends AbstractControllerTest {
       Assert.assertThat(new String(e.getResponseBodyAsByteArray()), containsString(InputValidator.INVALID_CLUSTER_NAMESPACE_MESSAGE));
     }
   }
+
+  @Test
+  @Sql(scripts = "/controller/test-namespace-items.sql", executionPhase = ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/controller/cleanup.sql", executionPhase = ExecutionPhase.AFTER_TEST_METHOD)
+  public void testFindWithItems() {
+    NamespaceItemsDTO[] namespaces = restTemplate.getForObject(
+        url("/apps/{appId}/clusters/{clusterName}/namespaces-with-items"), NamespaceItemsDTO[].class,
+        "someAppId", "default");
+
+    Assert.assertEquals(2, namespaces.length);
+
+    NamespaceItemsDTO application = namespaces[0];
+    Assert.assertEquals("application", application.getBaseInfo().getNamespaceName());
+    Assert.assertEquals(3, application.getItemModifiedCnt());
+    List<ItemStatusDTO> items = application.getItems();
+    Assert.assertEquals(5, items.size());
+    assertItemStatus(items.get(0), "k1", false, false, null);
+    assertItemStatus(items.get(1), "k2", true, false, "v1");
+    assertItemStatus(items.get(2), "", false, false, null);
+    assertItemStatus(items.get(3), "k3", true, false, "");
+    assertItemStatus(items.get(4), "k4", true, true, "v4");
+
+    //never released
+    NamespaceItemsDTO someNamespace = namespaces[1];
+    Assert.assertEquals("someNamespace", someNamespace.getBaseInfo().getNamespaceName());
+    Assert.assertEquals(1, someNamespace.getItemModifiedCnt());
+    assertItemStatus(someNamespace.getItems().get(0), "k1", true, false, "");
+  }
+
+  private void assertItemStatus(ItemStatusDTO itemStatus, String key, boolean modified, boolean deleted,
+      String oldValue) {
+    Assert.assertEquals(key, itemStatus.getItem().getKey());
+    Assert.assertEquals(modified, itemStatus.isModified());
+    Assert.assertEquals(deleted, itemStatus.isDeleted());
+    Assert.assertEquals(oldValue, itemStatus.getOldValue());
+  }
 }
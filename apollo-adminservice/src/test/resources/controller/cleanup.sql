@@ -5,4 +5,5 @@ DELETE FROM Cluster;
 DELETE FROM App;
 DELETE FROM NamespaceLock;
 DELETE FROM ServerConfig;
+DELETE FROM Release;
 
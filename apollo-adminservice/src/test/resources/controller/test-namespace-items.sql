@@ -0,0 +1,18 @@
+INSERT INTO App (AppId, Name, OwnerName, OwnerEmail) VALUES ('someAppId','someAppName','someOwnerName','someOwnerName@ctrip.com');
+
+INSERT INTO Cluster (AppId, Name) VALUES ('someAppId', 'default');
+
+INSERT INTO AppNamespace (AppId, Name) VALUES ('someAppId', 'application');
+INSERT INTO AppNamespace (AppId, Name) VALUES ('someAppId', 'someNamespace');
+
+INSERT INTO Namespace (Id, AppId, ClusterName, NamespaceName) VALUES (200, 'someAppId', 'default', 'application');
+INSERT INTO Namespace (Id, AppId, ClusterName, NamespaceName) VALUES (201, 'someAppId', 'default', 'someNamespace');
+
+INSERT INTO Item (NamespaceId, `Key`, Value, Comment, LineNum) VALUES (200, 'k1', 'v1', 'comment1', 1);
+INSERT INTO Item (NamespaceId, `Key`, Value, Comment, LineNum) VALUES (200, 'k2', 'v2', 'comment2', 2);
+INSERT INTO Item (NamespaceId, `Key`, Value, Comment, LineNum) VALUES (200, '', '', '#comment', 3);
+INSERT INTO Item (NamespaceId, `Key`, Value, Comment, LineNum) VALUES (200, 'k3', 'v3', 'comment3', 4);
+INSERT INTO Item (NamespaceId, `Key`, Value, Comment, LineNum) VALUES (201, 'k1', 'v1', 'comment1', 1);
+
+INSERT INTO Release (Id, ReleaseKey, Name, Comment, AppId, ClusterName, NamespaceName, Configurations, IsAbandoned) VALUES (200, 'key1', 'release1', '', 'someAppId', 'default', 'application', '{"k1":"v1","k2":"v1","k4":"v4"}', 0);
+INSERT INTO Release (Id, ReleaseKey, Name, Comment, AppId, ClusterName, NamespaceName, Configurations, IsAbandoned) VALUES (201, 'key2', 'release2', '', 'someAppId', 'default', 'application', '{"k1":"v2"}', 1);
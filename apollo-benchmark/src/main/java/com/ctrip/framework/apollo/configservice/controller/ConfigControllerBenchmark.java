@@ -0,0 +1,87 @@
+package com.ctrip.framework.apollo.configservice.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.configservice.service.AppNamespaceServiceWithCache;
+import com.ctrip.framework.apollo.configservice.service.ConfigResponseCache;
+import com.ctrip.framework.apollo.configservice.service.config.ConfigService;
+import com.ctrip.framework.apollo.configservice.util.InstanceConfigAuditUtil;
+import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
+import com.ctrip.framework.apollo.configservice.util.ResponseCompressionUtil;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link ConfigController#mergeReleaseConfigurations} of a gray release over the main release, the merged
+ * configurations are cached by release keys, while the releases without release keys are merged on each call
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigControllerBenchmark {
+  @Param({"100", "10000"})
+  private int size;
+
+  @Param({"true", "false"})
+  private boolean cached;
+
+  private ConfigController configController;
+  private List<Release> releases;
+
+  @Setup
+  public void setUp() {
+    Gson gson = new Gson();
+    configController = new ConfigController(mock(ConfigService.class, withSettings().stubOnly()),
+        mock(AppNamespaceServiceWithCache.class, withSettings().stubOnly()),
+        mock(NamespaceUtil.class, withSettings().stubOnly()),
+        mock(InstanceConfigAuditUtil.class, withSettings().stubOnly()), new ConfigResponseCache(gson),
+        mock(ResponseCompressionUtil.class, withSettings().stubOnly()), gson);
+
+    Map<String, String> grayConfigurations = Maps.newHashMap();
+    Map<String, String> configurations = Maps.newHashMap();
+    for (int i = 0; i < size; i++) {
+      configurations.put("key" + i, "value" + i);
+      if (i % 10 == 0) {
+        grayConfigurations.put("key" + i, "grayValue" + i);
+      }
+    }
+
+    releases = Lists.newArrayList(assembleRelease("someGrayReleaseKey", gson.toJson(grayConfigurations)),
+        assembleRelease("someReleaseKey", gson.toJson(configurations)));
+  }
+
+  @Benchmark
+  public Map<String, String> mergeReleaseConfigurations() {
+    return configController.mergeReleaseConfigurations(releases);
+  }
+
+  private Release assembleRelease(String releaseKey, String configurations) {
+    Release release = new Release();
+    release.setAppId("someAppId");
+    release.setClusterName("someCluster");
+    release.setNamespaceName("application");
+    release.setReleaseKey(cached ? releaseKey : null);
+    release.setConfigurations(configurations);
+    return release;
+  }
+}
@@ -0,0 +1,91 @@
+package com.ctrip.framework.apollo.configservice.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.biz.message.Topics;
+import com.ctrip.framework.apollo.configservice.util.NotificationFanOutScheduler;
+import com.ctrip.framework.apollo.configservice.util.WatchKeyRegistry;
+import com.ctrip.framework.apollo.configservice.wrapper.DeferredResultWrapper;
+import com.google.gson.Gson;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the fan-out of {@link NotificationControllerV2#handleMessage} to the clients watching the released key,
+ * until all of them are notified. The rate of the notifications is not limited, so that only the overhead of the
+ * fan-out is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationControllerV2Benchmark {
+  private static final String SOME_WATCH_KEY = "someAppId+someCluster+application";
+  private static final int NOTIFICATION_BATCH = 100;
+
+  @Param({"100", "10000"})
+  private int watcherCount;
+
+  private NotificationFanOutScheduler notificationFanOutScheduler;
+  private NotificationControllerV2 controller;
+  private ReleaseMessage releaseMessage;
+
+  @Setup
+  public void setUp() {
+    BizConfig bizConfig = mock(BizConfig.class, withSettings().stubOnly());
+    when(bizConfig.releaseMessageNotificationBatch()).thenReturn(NOTIFICATION_BATCH);
+    when(bizConfig.releaseMessageNotificationWorkers()).thenReturn(4);
+    when(bizConfig.releaseMessageNotificationRate()).thenReturn(Integer.MAX_VALUE);
+    when(bizConfig.releaseMessageNotificationMaxDurationInMilli()).thenReturn(30000);
+    notificationFanOutScheduler = new NotificationFanOutScheduler(bizConfig);
+
+    releaseMessage = new ReleaseMessage(SOME_WATCH_KEY);
+    releaseMessage.setId(1);
+  }
+
+  @Setup(Level.Invocation)
+  public void registerWatchers() throws Exception {
+    //the notified watchers are not unregistered without the servlet container, so a new controller is used each time
+    controller = new NotificationControllerV2(null, null, null, null, new Gson(), notificationFanOutScheduler);
+
+    Field field = NotificationControllerV2.class.getDeclaredField("deferredResults");
+    field.setAccessible(true);
+    @SuppressWarnings("unchecked")
+    WatchKeyRegistry<DeferredResultWrapper> deferredResults = (WatchKeyRegistry<DeferredResultWrapper>) field
+        .get(controller);
+    for (int i = 0; i < watcherCount; i++) {
+      deferredResults.register(SOME_WATCH_KEY, new DeferredResultWrapper());
+    }
+  }
+
+  @Benchmark
+  public void handleMessage() {
+    long completedFanOuts = notificationFanOutScheduler.getCompletedFanOuts();
+    controller.handleMessage(releaseMessage, Topics.APOLLO_RELEASE_TOPIC);
+
+    //the large watcher sets are notified asynchronously
+    if (watcherCount > NOTIFICATION_BATCH) {
+      while (notificationFanOutScheduler.getCompletedFanOuts() == completedFanOuts) {
+        Thread.yield();
+      }
+    }
+  }
+}
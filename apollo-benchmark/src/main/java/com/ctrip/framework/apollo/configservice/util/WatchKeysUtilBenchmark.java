@@ -0,0 +1,103 @@
+package com.ctrip.framework.apollo.configservice.util;
+
+import com.ctrip.framework.apollo.common.entity.AppNamespace;
+import com.ctrip.framework.apollo.configservice.service.AppNamespaceServiceWithCache;
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link WatchKeysUtil#assembleAllWatchKeys} for a client watching several namespaces, half of which are
+ * public namespaces of other apps
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WatchKeysUtilBenchmark {
+  private static final String SOME_APP_ID = "someAppId";
+  private static final String SOME_PUBLIC_APP_ID = "somePublicAppId";
+  private static final String SOME_CLUSTER = "someCluster";
+  private static final String SOME_DATA_CENTER = "someDC";
+
+  @Param({"1", "10", "50"})
+  private int namespaceCount;
+
+  private WatchKeysUtil watchKeysUtil;
+  private Set<String> namespaces;
+
+  @Setup
+  public void setUp() {
+    namespaces = Sets.newHashSet(ConfigConsts.NAMESPACE_APPLICATION);
+    final Map<String, AppNamespace> privateNamespaces = Maps.newHashMap();
+    final Map<String, AppNamespace> publicNamespaces = Maps.newHashMap();
+    privateNamespaces.put(ConfigConsts.NAMESPACE_APPLICATION,
+        assembleAppNamespace(SOME_APP_ID, ConfigConsts.NAMESPACE_APPLICATION, false));
+    for (int i = 1; i < namespaceCount; i++) {
+      String namespace = "someNamespace" + i;
+      namespaces.add(namespace);
+      if (i % 2 == 0) {
+        privateNamespaces.put(namespace, assembleAppNamespace(SOME_APP_ID, namespace, false));
+      } else {
+        publicNamespaces.put(namespace, assembleAppNamespace(SOME_PUBLIC_APP_ID, namespace, true));
+      }
+    }
+
+    //a stub with lookups as cheap as the real cache, which is not started
+    AppNamespaceServiceWithCache appNamespaceService = new AppNamespaceServiceWithCache(null, null) {
+      @Override
+      public List<AppNamespace> findByAppIdAndNamespaces(String appId, Set<String> namespaceNames) {
+        return lookup(privateNamespaces, namespaceNames);
+      }
+
+      @Override
+      public List<AppNamespace> findPublicNamespacesByNames(Set<String> namespaceNames) {
+        return lookup(publicNamespaces, namespaceNames);
+      }
+    };
+    watchKeysUtil = new WatchKeysUtil(appNamespaceService);
+  }
+
+  @Benchmark
+  public Multimap<String, String> assembleAllWatchKeys() {
+    return watchKeysUtil.assembleAllWatchKeys(SOME_APP_ID, SOME_CLUSTER, namespaces, SOME_DATA_CENTER);
+  }
+
+  private static List<AppNamespace> lookup(Map<String, AppNamespace> appNamespaces, Set<String> namespaceNames) {
+    List<AppNamespace> result = Lists.newArrayList();
+    for (String namespaceName : namespaceNames) {
+      AppNamespace appNamespace = appNamespaces.get(namespaceName);
+      if (appNamespace != null) {
+        result.add(appNamespace);
+      }
+    }
+    return result;
+  }
+
+  private static AppNamespace assembleAppNamespace(String appId, String namespace, boolean isPublic) {
+    AppNamespace appNamespace = new AppNamespace();
+    appNamespace.setAppId(appId);
+    appNamespace.setName(namespace);
+    appNamespace.setPublic(isPublic);
+    return appNamespace;
+  }
+}
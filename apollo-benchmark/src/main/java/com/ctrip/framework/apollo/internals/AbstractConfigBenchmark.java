@@ -0,0 +1,93 @@
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the typed getters of {@link AbstractConfig}, whose parsed values are cached
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AbstractConfigBenchmark {
+  private static final String INT_KEY = "intKey";
+  private static final String LONG_KEY = "longKey";
+  private static final String DOUBLE_KEY = "doubleKey";
+  private static final String BOOLEAN_KEY = "booleanKey";
+  private static final String ARRAY_KEY = "arrayKey";
+  private static final String DATE_KEY = "dateKey";
+  private static final String DURATION_KEY = "durationKey";
+
+  private AbstractConfig config;
+
+  @Setup
+  public void setUp() {
+    Properties properties = DefaultConfigBenchmark.assembleProperties(100);
+    properties.setProperty(INT_KEY, "12345");
+    properties.setProperty(LONG_KEY, "1234567890123");
+    properties.setProperty(DOUBLE_KEY, "1.2345");
+    properties.setProperty(BOOLEAN_KEY, "true");
+    properties.setProperty(ARRAY_KEY, "a,b,c,d,e,f,g,h");
+    properties.setProperty(DATE_KEY, "2019-01-01 00:00:00");
+    properties.setProperty(DURATION_KEY, "1h30m");
+    config = new DefaultConfig(ConfigConsts.NAMESPACE_APPLICATION,
+        DefaultConfigBenchmark.mockConfigRepository(properties));
+  }
+
+  @Benchmark
+  public Integer getIntProperty() {
+    return config.getIntProperty(INT_KEY, null);
+  }
+
+  @Benchmark
+  public Long getLongProperty() {
+    return config.getLongProperty(LONG_KEY, null);
+  }
+
+  @Benchmark
+  public Double getDoubleProperty() {
+    return config.getDoubleProperty(DOUBLE_KEY, null);
+  }
+
+  @Benchmark
+  public Boolean getBooleanProperty() {
+    return config.getBooleanProperty(BOOLEAN_KEY, null);
+  }
+
+  @Benchmark
+  public String[] getArrayProperty() {
+    return config.getArrayProperty(ARRAY_KEY, ",", null);
+  }
+
+  @Benchmark
+  public Date getDateProperty() {
+    return config.getDateProperty(DATE_KEY, null);
+  }
+
+  @Benchmark
+  public long getDurationProperty() {
+    return config.getDurationProperty(DURATION_KEY, 0);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Integer getIntPropertyConcurrently() {
+    return config.getIntProperty(INT_KEY, null);
+  }
+}
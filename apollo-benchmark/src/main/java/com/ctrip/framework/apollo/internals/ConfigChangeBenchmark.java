@@ -0,0 +1,55 @@
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link AbstractConfig#calcPropertyChanges} of large namespaces, in which 1% of the keys are changed, added
+ * or deleted
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigChangeBenchmark {
+  @Param({"1000", "100000"})
+  private int size;
+
+  private AbstractConfig config;
+  private Properties previous;
+  private Properties current;
+
+  @Setup
+  public void setUp() {
+    previous = DefaultConfigBenchmark.assembleProperties(size);
+    current = DefaultConfigBenchmark.assembleProperties(size);
+    for (int i = 0; i < size; i += 100) {
+      current.setProperty("key" + i, "anotherValue" + i);
+      current.remove("key" + (i + 1));
+      current.setProperty("newKey" + i, "newValue" + i);
+    }
+    config = new DefaultConfig(ConfigConsts.NAMESPACE_APPLICATION,
+        DefaultConfigBenchmark.mockConfigRepository(previous));
+  }
+
+  @Benchmark
+  public List<ConfigChange> calcPropertyChanges() {
+    return config.calcPropertyChanges(ConfigConsts.NAMESPACE_APPLICATION, previous, current);
+  }
+}
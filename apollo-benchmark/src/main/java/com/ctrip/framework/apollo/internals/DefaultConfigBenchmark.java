@@ -0,0 +1,86 @@
+package com.ctrip.framework.apollo.internals;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the property lookups of {@link DefaultConfig}, which are done by the applications on each read
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultConfigBenchmark {
+  private static final String SOME_KEY = "someKey";
+  private static final String MISSING_KEY = "missingKey";
+  private static final String SYSTEM_PROPERTY_KEY = "apollo.benchmark.someSystemKey";
+
+  @Param({"100", "10000"})
+  private int size;
+
+  private DefaultConfig config;
+
+  @Setup
+  public void setUp() {
+    config = new DefaultConfig(ConfigConsts.NAMESPACE_APPLICATION, mockConfigRepository(assembleProperties(size)));
+    System.setProperty(SYSTEM_PROPERTY_KEY, "someSystemValue");
+  }
+
+  @Benchmark
+  public String getProperty() {
+    return config.getProperty(SOME_KEY, null);
+  }
+
+  @Benchmark
+  public String getMissingProperty() {
+    return config.getProperty(MISSING_KEY, "someDefaultValue");
+  }
+
+  @Benchmark
+  public String getSystemProperty() {
+    return config.getProperty(SYSTEM_PROPERTY_KEY, null);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public String getPropertyConcurrently() {
+    return config.getProperty(SOME_KEY, null);
+  }
+
+  static Properties assembleProperties(int size) {
+    Properties properties = new Properties();
+    for (int i = 0; i < size; i++) {
+      properties.setProperty("key" + i, "value" + i);
+    }
+    properties.setProperty(SOME_KEY, "someValue");
+    return properties;
+  }
+
+  static ConfigRepository mockConfigRepository(Properties properties) {
+    //stub only, so that the invocations are not recorded
+    ConfigRepository configRepository = mock(ConfigRepository.class, withSettings().stubOnly());
+    when(configRepository.getConfig()).thenReturn(properties);
+    when(configRepository.getSourceType()).thenReturn(ConfigSourceType.REMOTE);
+    return configRepository;
+  }
+}
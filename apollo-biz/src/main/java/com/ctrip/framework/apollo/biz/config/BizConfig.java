@@ -27,6 +27,13 @@ public class BizConfig extends RefreshableConfig {
   private static final int DEFAULT_RELEASE_MESSAGE_SCAN_INTERVAL_IN_MS = 1000; //1000ms
   private static final int DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH = 100;
   private static final int DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH_INTERVAL_IN_MILLI = 100;//100ms
+  private static final int DEFAULT_RELEASE_MESSAGE_RECONCILE_SCAN_INTERVAL_IN_MS = 10000; //10s
+  private static final int DEFAULT_RELEASE_MESSAGE_NOTIFICATION_WORKERS = 4;
+  private static final int DEFAULT_RELEASE_MESSAGE_NOTIFICATION_MAX_DURATION_IN_MILLI = 30000;//30s
+  private static final int DEFAULT_CONFIG_RESPONSE_COMPRESSION_MIN_SIZE = 1024;//1KB
+  private static final int DEFAULT_INSTANCE_CONFIG_AUDIT_MAX_SIZE = 10000;
+  private static final int DEFAULT_INSTANCE_CONFIG_AUDIT_BATCH = 500;
+  private static final int DEFAULT_INSTANCE_CONFIG_AUDIT_FLUSH_INTERVAL_IN_MILLI = 1000;//1s
 
   private Gson gson = new Gson();
   private static final Type namespaceValueLengthOverrideTypeReference =
@@ -130,6 +137,20 @@ public class BizConfig extends RefreshableConfig {
     return checkInt(interval, 100, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_SCAN_INTERVAL_IN_MS);
   }
 
+  /**
+   * @return whether the release messages are pushed to config services, in which case the database is only scanned in
+   * the reconcile interval
+   */
+  public boolean isReleaseMessagePushEnabled() {
+    return getBooleanProperty("apollo.release-message.push.enabled", false);
+  }
+
+  public int releaseMessageReconcileScanIntervalInMilli() {
+    int interval = getIntProperty("apollo.release-message.reconcile-scan.interval",
+        DEFAULT_RELEASE_MESSAGE_RECONCILE_SCAN_INTERVAL_IN_MS);
+    return checkInt(interval, 100, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_RECONCILE_SCAN_INTERVAL_IN_MS);
+  }
+
   public int releaseMessageNotificationBatch() {
     int batch = getIntProperty("apollo.release-message.notification.batch", DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH);
     return checkInt(batch, 1, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH);
@@ -140,10 +161,71 @@ public class BizConfig extends RefreshableConfig {
     return checkInt(interval, 10, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH_INTERVAL_IN_MILLI);
   }
 
+  public int releaseMessageNotificationWorkers() {
+    int workers = getIntProperty("apollo.release-message.notification.workers", DEFAULT_RELEASE_MESSAGE_NOTIFICATION_WORKERS);
+    return checkInt(workers, 1, 64, DEFAULT_RELEASE_MESSAGE_NOTIFICATION_WORKERS);
+  }
+
+  /**
+   * @return the number of clients notified per second on this node, defaults to batch per batch interval
+   */
+  public int releaseMessageNotificationRate() {
+    int defaultRate = releaseMessageNotificationBatch() * 1000 / releaseMessageNotificationBatchIntervalInMilli();
+    int rate = getIntProperty("apollo.release-message.notification.rate", defaultRate);
+    return checkInt(rate, 1, Integer.MAX_VALUE, defaultRate);
+  }
+
+  /**
+   * @return the time budget of notifying all the clients of one release message, the rate is raised if needed
+   */
+  public int releaseMessageNotificationMaxDurationInMilli() {
+    int duration = getIntProperty("apollo.release-message.notification.max-duration",
+        DEFAULT_RELEASE_MESSAGE_NOTIFICATION_MAX_DURATION_IN_MILLI);
+    return checkInt(duration, 1000, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_NOTIFICATION_MAX_DURATION_IN_MILLI);
+  }
+
   public boolean isConfigServiceCacheEnabled() {
     return getBooleanProperty("config-service.cache.enabled", false);
   }
 
+  /**
+   * @return whether to gzip the config responses for the clients which accept it
+   */
+  public boolean isConfigResponseCompressionEnabled() {
+    return getBooleanProperty("config-service.response.compression.enabled", true);
+  }
+
+  /**
+   * @return the min size in bytes of the config responses to be compressed, the smaller ones are not worth it
+   */
+  public int configResponseCompressionMinSize() {
+    int size = getIntProperty("config-service.response.compression.min-size",
+        DEFAULT_CONFIG_RESPONSE_COMPRESSION_MIN_SIZE);
+    return checkInt(size, 0, Integer.MAX_VALUE, DEFAULT_CONFIG_RESPONSE_COMPRESSION_MIN_SIZE);
+  }
+
+  /**
+   * @return the max number of pending instance config audits, the audits of new instances are dropped when exceeded
+   */
+  public int instanceConfigAuditMaxSize() {
+    int size = getIntProperty("instance.config.audit.max-size", DEFAULT_INSTANCE_CONFIG_AUDIT_MAX_SIZE);
+    return checkInt(size, 1, Integer.MAX_VALUE, DEFAULT_INSTANCE_CONFIG_AUDIT_MAX_SIZE);
+  }
+
+  /**
+   * @return the max number of rows written by one upsert statement of the instance config audits
+   */
+  public int instanceConfigAuditBatch() {
+    int batch = getIntProperty("instance.config.audit.batch", DEFAULT_INSTANCE_CONFIG_AUDIT_BATCH);
+    return checkInt(batch, 1, 5000, DEFAULT_INSTANCE_CONFIG_AUDIT_BATCH);
+  }
+
+  public int instanceConfigAuditFlushIntervalInMilli() {
+    int interval = getIntProperty("instance.config.audit.flush.interval",
+        DEFAULT_INSTANCE_CONFIG_AUDIT_FLUSH_INTERVAL_IN_MILLI);
+    return checkInt(interval, 100, Integer.MAX_VALUE, DEFAULT_INSTANCE_CONFIG_AUDIT_FLUSH_INTERVAL_IN_MILLI);
+  }
+
   int checkInt(int value, int min, int max, int defaultValue) {
     if (value >= min && value <= max) {
       return value;
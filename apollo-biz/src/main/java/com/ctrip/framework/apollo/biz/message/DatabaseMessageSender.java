@@ -1,5 +1,6 @@
 package com.ctrip.framework.apollo.biz.message;
 
+import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 import com.ctrip.framework.apollo.biz.repository.ReleaseMessageRepository;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
@@ -10,6 +11,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.PostConstruct;
 import java.util.List;
@@ -33,11 +36,18 @@ public class DatabaseMessageSender implements MessageSender {
   private final AtomicBoolean cleanStopped;
 
   private final ReleaseMessageRepository releaseMessageRepository;
+  private final BizConfig bizConfig;
+  private final List<ReleaseMessagePusher> releaseMessagePushers;
 
-  public DatabaseMessageSender(final ReleaseMessageRepository releaseMessageRepository) {
+  public DatabaseMessageSender(
+      final ReleaseMessageRepository releaseMessageRepository,
+      final BizConfig bizConfig,
+      final List<ReleaseMessagePusher> releaseMessagePushers) {
     cleanExecutorService = Executors.newSingleThreadExecutor(ApolloThreadFactory.create("DatabaseMessageSender", true));
     cleanStopped = new AtomicBoolean(false);
     this.releaseMessageRepository = releaseMessageRepository;
+    this.bizConfig = bizConfig;
+    this.releaseMessagePushers = releaseMessagePushers;
   }
 
   @Override
@@ -54,6 +64,9 @@ public class DatabaseMessageSender implements MessageSender {
     try {
       ReleaseMessage newMessage = releaseMessageRepository.save(new ReleaseMessage(message));
       toClean.offer(newMessage.getId());
+      if (bizConfig.isReleaseMessagePushEnabled()) {
+        pushAfterCommit(newMessage);
+      }
       transaction.setStatus(Transaction.SUCCESS);
     } catch (Throwable ex) {
       logger.error("Sending message to database failed", ex);
@@ -64,6 +77,34 @@ public class DatabaseMessageSender implements MessageSender {
     }
   }
 
+  /**
+   * The config services load the message from database once pushed, so it should be pushed after the transaction is
+   * committed
+   */
+  private void pushAfterCommit(ReleaseMessage message) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      push(message);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+      @Override
+      public void afterCommit() {
+        push(message);
+      }
+    });
+  }
+
+  private void push(ReleaseMessage message) {
+    for (ReleaseMessagePusher pusher : releaseMessagePushers) {
+      try {
+        pusher.push(message);
+      } catch (Throwable ex) {
+        Tracer.logError(ex);
+        logger.error("Push release message {} with {} failed", message.getId(), pusher.getClass(), ex);
+      }
+    }
+  }
+
   @PostConstruct
   private void initialize() {
     //程序启动的时候会启动一个线程，
@@ -0,0 +1,44 @@
+package com.ctrip.framework.apollo.biz.message;
+
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Pushes the release messages to the receivers in the same application context.
+ *
+ * Admin services and config services running in different application contexts, e.g. in apollo-assembly, are still
+ * reached by the http pusher.
+ */
+@Component
+public class LoopbackReleaseMessagePusher implements ReleaseMessagePusher {
+  private static final Logger logger = LoggerFactory.getLogger(LoopbackReleaseMessagePusher.class);
+  private final List<ReleaseMessageReceiver> receivers = Lists.newCopyOnWriteArrayList();
+
+  public void registerReceiver(ReleaseMessageReceiver receiver) {
+    if (!receivers.contains(receiver)) {
+      receivers.add(receiver);
+    }
+  }
+
+  public void unregisterReceiver(ReleaseMessageReceiver receiver) {
+    receivers.remove(receiver);
+  }
+
+  @Override
+  public void push(ReleaseMessage message) {
+    for (ReleaseMessageReceiver receiver : receivers) {
+      try {
+        receiver.receive(message);
+      } catch (Throwable ex) {
+        Tracer.logError(ex);
+        logger.error("Failed to push release message {} to receiver {}", message.getId(), receiver.getClass(), ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.ctrip.framework.apollo.biz.message;
+
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+
+/**
+ * Pushes the persisted release messages to the config services, so that they don't need to wait for the next database
+ * scan.
+ *
+ * Implementations should not block the caller nor throw exceptions, the database scan is the safety net when a push
+ * is lost.
+ */
+public interface ReleaseMessagePusher {
+  void push(ReleaseMessage message);
+}
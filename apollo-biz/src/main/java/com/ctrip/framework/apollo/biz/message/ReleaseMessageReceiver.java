@@ -0,0 +1,10 @@
+package com.ctrip.framework.apollo.biz.message;
+
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+
+/**
+ * Receives the release messages pushed by {@link ReleaseMessagePusher}
+ */
+public interface ReleaseMessageReceiver {
+  void receive(ReleaseMessage message);
+}
@@ -4,9 +4,11 @@ import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.CollectionUtils;
@@ -22,19 +24,25 @@ import com.google.common.collect.Lists;
 /**
  * @author Jason Song(song_s@ctrip.com)
  */
-public class ReleaseMessageScanner implements InitializingBean {
+public class ReleaseMessageScanner implements InitializingBean, DisposableBean, ReleaseMessageReceiver {
   private static final Logger logger = LoggerFactory.getLogger(ReleaseMessageScanner.class);
+  //pushed ids beyond the largest id scanned by this gap are treated as forged
+  private static final long MAX_PUSHED_ID_GAP = 10000;
   @Autowired
   private BizConfig bizConfig;
   @Autowired
   private ReleaseMessageRepository releaseMessageRepository;
+  @Autowired(required = false)
+  private LoopbackReleaseMessagePusher loopbackReleaseMessagePusher;
   private int databaseScanInterval;
   private List<ReleaseMessageListener> listeners;
   private ScheduledExecutorService executorService;
-  private long maxIdScanned;
+  private volatile long maxIdScanned;
+  private final AtomicBoolean pushedScanPending;
 
   public ReleaseMessageScanner() {
     listeners = Lists.newCopyOnWriteArrayList();
+    pushedScanPending = new AtomicBoolean(false);
     //ReleaseMessageScanner线程
     executorService = Executors.newScheduledThreadPool(1, ApolloThreadFactory
         .create("ReleaseMessageScanner", true));
@@ -42,24 +50,65 @@ public class ReleaseMessageScanner implements InitializingBean {
 
   @Override
   public void afterPropertiesSet() throws Exception {
-    //100毫秒
-    databaseScanInterval = bizConfig.releaseMessageScanIntervalInMilli();
+    //100毫秒，开启推送时数据库扫描只作为兜底
+    databaseScanInterval = bizConfig.isReleaseMessagePushEnabled() ?
+        bizConfig.releaseMessageReconcileScanIntervalInMilli() : bizConfig.releaseMessageScanIntervalInMilli();
     //获取最大的messageId
     maxIdScanned = loadLargestMessageId();
     //100毫秒一次的定时任务扫描releaseMessage
-    executorService.scheduleWithFixedDelay((Runnable) () -> {
-      Transaction transaction = Tracer.newTransaction("Apollo.ReleaseMessageScanner", "scanMessage");
-      try {
-        scanMessages();
-        transaction.setStatus(Transaction.SUCCESS);
-      } catch (Throwable ex) {
-        transaction.setStatus(ex);
-        logger.error("Scan and send message failed", ex);
-      } finally {
-        transaction.complete();
-      }
-    }, databaseScanInterval, databaseScanInterval, TimeUnit.MILLISECONDS);
+    executorService.scheduleWithFixedDelay(() -> scanMessagesWithTransaction("scanMessage"),
+        databaseScanInterval, databaseScanInterval, TimeUnit.MILLISECONDS);
+    if (loopbackReleaseMessagePusher != null) {
+      loopbackReleaseMessagePusher.registerReceiver(this);
+    }
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    if (loopbackReleaseMessagePusher != null) {
+      loopbackReleaseMessagePusher.unregisterReceiver(this);
+    }
+    executorService.shutdown();
+  }
+
+  /**
+   * The pushed message is only a hint to scan the database now, so that the messages are still fired in order and
+   * forged messages are not fired. The pushes are coalesced, so that at most one scan is pending at any time.
+   */
+  @Override
+  public void receive(ReleaseMessage message) {
+    long scanned = maxIdScanned;
+    if (message.getId() <= scanned) {
+      return;
+    }
+    if (message.getId() > scanned + MAX_PUSHED_ID_GAP) {
+      Tracer.logEvent("Apollo.ReleaseMessageScanner.Pushed.Ignored", String.valueOf(message.getId()));
+      logger.warn("Ignore pushed release message {} since the largest id scanned is {}", message.getId(), scanned);
+      return;
+    }
+    if (!pushedScanPending.compareAndSet(false, true)) {
+      return;
+    }
+    Tracer.logEvent("Apollo.ReleaseMessageScanner.Pushed", String.valueOf(message.getId()));
+    //scan in the same thread to avoid concurrent scanning
+    executorService.execute(() -> {
+      //reset before scanning, so that the messages pushed during the scan trigger another one
+      pushedScanPending.set(false);
+      scanMessagesWithTransaction("scanPushedMessage");
+    });
+  }
 
+  private void scanMessagesWithTransaction(String name) {
+    Transaction transaction = Tracer.newTransaction("Apollo.ReleaseMessageScanner", name);
+    try {
+      scanMessages();
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      logger.error("Scan and send message failed", ex);
+    } finally {
+      transaction.complete();
+    }
   }
 
   /**
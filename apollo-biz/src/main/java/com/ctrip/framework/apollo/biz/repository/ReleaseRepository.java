@@ -21,6 +21,10 @@ public interface ReleaseRepository extends PagingAndSortingRepository<Release, L
 
   Release findByIdAndIsAbandonedFalse(long id);
 
+  @Query("SELECT r FROM Release r WHERE r.id IN (SELECT MAX(l.id) FROM Release l WHERE l.appId = ?1 "
+      + "AND l.clusterName = ?2 AND l.isAbandoned = false GROUP BY l.namespaceName)")
+  List<Release> findLatestActiveReleasesByAppIdAndClusterName(String appId, String clusterName);
+
   List<Release> findByAppIdAndClusterNameAndNamespaceNameOrderByIdDesc(String appId, String clusterName, String namespaceName, Pageable page);
 
   List<Release> findByAppIdAndClusterNameAndNamespaceNameAndIsAbandonedFalseOrderByIdDesc(String appId, String clusterName, String namespaceName, Pageable page);
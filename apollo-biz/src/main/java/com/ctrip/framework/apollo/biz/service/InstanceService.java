@@ -4,18 +4,21 @@ import com.ctrip.framework.apollo.biz.entity.Instance;
 import com.ctrip.framework.apollo.biz.entity.InstanceConfig;
 import com.ctrip.framework.apollo.biz.repository.InstanceConfigRepository;
 import com.ctrip.framework.apollo.biz.repository.InstanceRepository;
+import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import java.util.Objects;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 import java.math.BigInteger;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -27,14 +30,19 @@ import java.util.stream.Collectors;
  */
 @Service
 public class InstanceService {
+  private static final Joiner ROW_JOINER = Joiner.on(", ");
+  private static final Joiner CONDITION_JOINER = Joiner.on(" OR ");
   private final InstanceRepository instanceRepository;
   private final InstanceConfigRepository instanceConfigRepository;
+  private final JdbcTemplate jdbcTemplate;
 
   public InstanceService(
       final InstanceRepository instanceRepository,
-      final InstanceConfigRepository instanceConfigRepository) {
+      final InstanceConfigRepository instanceConfigRepository,
+      final JdbcTemplate jdbcTemplate) {
     this.instanceRepository = instanceRepository;
     this.instanceConfigRepository = instanceConfigRepository;
+    this.jdbcTemplate = jdbcTemplate;
   }
 
   public Instance findInstance(String appId, String clusterName, String dataCenter, String ip) {
@@ -174,6 +182,94 @@ public class InstanceService {
     return instanceConfigRepository.save(existedInstanceConfig);
   }
 
+  /**
+   * Creates the instances which don't exist yet with one statement, relying on the unique key of the instance table
+   *
+   * @return the instances with their ids, including the ones created before
+   */
+  @Transactional
+  public List<Instance> upsertInstances(Collection<Instance> instances) {
+    if (CollectionUtils.isEmpty(instances)) {
+      return Collections.emptyList();
+    }
+
+    Date now = new Date();
+    List<String> rows = Lists.newArrayListWithCapacity(instances.size());
+    List<Object> args = Lists.newArrayListWithCapacity(instances.size() * 6);
+    for (Instance instance : instances) {
+      rows.add("(?, ?, ?, ?, ?, ?)");
+      args.add(instance.getAppId());
+      args.add(instance.getClusterName());
+      args.add(instance.getDataCenter());
+      args.add(instance.getIp());
+      args.add(now);
+      args.add(now);
+    }
+
+    jdbcTemplate.update("INSERT INTO Instance (AppId, ClusterName, DataCenter, Ip, DataChange_CreatedTime, "
+        + "DataChange_LastTime) VALUES " + ROW_JOINER.join(rows) + " ON DUPLICATE KEY UPDATE Id = Id", args.toArray());
+
+    return findInstances(instances);
+  }
+
+  private List<Instance> findInstances(Collection<Instance> instances) {
+    List<String> conditions = Lists.newArrayListWithCapacity(instances.size());
+    List<Object> args = Lists.newArrayListWithCapacity(instances.size() * 4);
+    for (Instance instance : instances) {
+      conditions.add("(AppId = ? AND ClusterName = ? AND DataCenter = ? AND Ip = ?)");
+      args.add(instance.getAppId());
+      args.add(instance.getClusterName());
+      args.add(instance.getDataCenter());
+      args.add(instance.getIp());
+    }
+
+    return jdbcTemplate.query("SELECT Id, AppId, ClusterName, DataCenter, Ip FROM Instance WHERE "
+        + CONDITION_JOINER.join(conditions), args.toArray(), (rs, rowNum) -> {
+      Instance instance = new Instance();
+      instance.setId(rs.getLong("Id"));
+      instance.setAppId(rs.getString("AppId"));
+      instance.setClusterName(rs.getString("ClusterName"));
+      instance.setDataCenter(rs.getString("DataCenter"));
+      instance.setIp(rs.getString("Ip"));
+      return instance;
+    });
+  }
+
+  /**
+   * Creates or updates the instance configs with one statement, relying on the unique key of the instance config
+   * table. The release delivery time of an existing instance config is only updated when its release key changes,
+   * while the last modified time is always updated.
+   */
+  @Transactional
+  public int upsertInstanceConfigs(Collection<InstanceConfig> instanceConfigs) {
+    if (CollectionUtils.isEmpty(instanceConfigs)) {
+      return 0;
+    }
+
+    List<String> rows = Lists.newArrayListWithCapacity(instanceConfigs.size());
+    List<Object> args = Lists.newArrayListWithCapacity(instanceConfigs.size() * 8);
+    for (InstanceConfig instanceConfig : instanceConfigs) {
+      rows.add("(?, ?, ?, ?, ?, ?, ?, ?)");
+      args.add(instanceConfig.getInstanceId());
+      args.add(instanceConfig.getConfigAppId());
+      args.add(instanceConfig.getConfigClusterName());
+      args.add(instanceConfig.getConfigNamespaceName());
+      args.add(instanceConfig.getReleaseKey());
+      args.add(instanceConfig.getReleaseDeliveryTime());
+      args.add(instanceConfig.getDataChangeLastModifiedTime());
+      args.add(instanceConfig.getDataChangeLastModifiedTime());
+    }
+
+    //the assignments are evaluated in order, so ReleaseKey must be assigned after it's compared
+    return jdbcTemplate.update("INSERT INTO InstanceConfig (InstanceId, ConfigAppId, ConfigClusterName, "
+        + "ConfigNamespaceName, ReleaseKey, ReleaseDeliveryTime, DataChange_CreatedTime, DataChange_LastTime) VALUES "
+        + ROW_JOINER.join(rows) + " ON DUPLICATE KEY UPDATE "
+        + "ReleaseDeliveryTime = CASE WHEN ReleaseKey = VALUES(ReleaseKey) THEN ReleaseDeliveryTime "
+        + "ELSE VALUES(ReleaseDeliveryTime) END, "
+        + "ConfigClusterName = VALUES(ConfigClusterName), ReleaseKey = VALUES(ReleaseKey), "
+        + "DataChange_LastTime = VALUES(DataChange_LastTime)", args.toArray());
+  }
+
   @Transactional
   public int batchDeleteInstanceConfig(String configAppId, String configClusterName, String configNamespaceName){
     return instanceConfigRepository.batchDelete(configAppId, configClusterName, configNamespaceName);
@@ -14,6 +14,7 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -122,6 +123,16 @@ public class ItemService {
     }
   }
 
+  /**
+   * @return the items of the namespaces, ordered by line number within each namespace
+   */
+  public List<Item> findItemsWithOrdered(Collection<Long> namespaceIds) {
+    if (namespaceIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return itemRepository.findByNamespaceIdInOrderByLineNumAsc(namespaceIds);
+  }
+
   public List<Item> findItemsModifiedAfterDate(long namespaceId, Date date) {
     return itemRepository.findByNamespaceIdAndDataChangeLastModifiedTimeGreaterThan(namespaceId, date);
   }
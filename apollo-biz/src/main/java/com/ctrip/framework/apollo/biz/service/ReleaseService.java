@@ -116,6 +116,13 @@ public class ReleaseService {
                                                                                                             namespaceName);
   }
 
+  /**
+   * @return the latest active release of each namespace in the cluster
+   */
+  public List<Release> findLatestActiveReleases(String appId, String clusterName) {
+    return releaseRepository.findLatestActiveReleasesByAppIdAndClusterName(appId, clusterName);
+  }
+
   public List<Release> findAllReleases(String appId, String clusterName, String namespaceName, Pageable page) {
     List<Release> releases = releaseRepository.findByAppIdAndClusterNameAndNamespaceNameOrderByIdDesc(appId,
                                                                                                       clusterName,
@@ -62,6 +62,25 @@ public class BizConfigTest {
     assertEquals(defaultBatch, bizConfig.releaseMessageNotificationBatch());
   }
 
+  @Test
+  public void testReleaseMessageNotificationRateWithDefaultValue() throws Exception {
+    int someBatch = 20;
+    int someBatchInterval = 50;
+    when(environment.getProperty("apollo.release-message.notification.batch")).thenReturn(String.valueOf(someBatch));
+    when(environment.getProperty("apollo.release-message.notification.batch.interval"))
+        .thenReturn(String.valueOf(someBatchInterval));
+
+    assertEquals(someBatch * 1000 / someBatchInterval, bizConfig.releaseMessageNotificationRate());
+  }
+
+  @Test
+  public void testReleaseMessageNotificationRate() throws Exception {
+    int someRate = 5000;
+    when(environment.getProperty("apollo.release-message.notification.rate")).thenReturn(String.valueOf(someRate));
+
+    assertEquals(someRate, bizConfig.releaseMessageNotificationRate());
+  }
+
   @Test
   public void testCheckInt() throws Exception {
     int someInvalidValue = 1;
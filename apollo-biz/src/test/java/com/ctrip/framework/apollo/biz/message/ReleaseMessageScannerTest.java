@@ -14,9 +14,16 @@ import org.mockito.Mock;
 import org.springframework.core.env.Environment;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -26,6 +33,9 @@ public class ReleaseMessageScannerTest extends AbstractUnitTest {
   private ReleaseMessageScanner releaseMessageScanner;
   @Mock
   private ReleaseMessageRepository releaseMessageRepository;
+  //a separate repository, so that the scans of the push enabled scanners are not mixed with the default one
+  @Mock
+  private ReleaseMessageRepository pushedReleaseMessageRepository;
   @Mock
   private BizConfig bizConfig;
   private int databaseScanInterval;
@@ -79,6 +89,83 @@ public class ReleaseMessageScannerTest extends AbstractUnitTest {
 
   }
 
+  @Test
+  public void testScanMessageOncePushed() throws Exception {
+    LoopbackReleaseMessagePusher pusher = new LoopbackReleaseMessagePusher();
+    ReleaseMessageScanner pushEnabledScanner = createPushEnabledScanner(pusher);
+
+    SettableFuture<ReleaseMessage> someListenerFuture = SettableFuture.create();
+    pushEnabledScanner.addMessageListener((message, channel) -> someListenerFuture.set(message));
+
+    long someId = 100;
+    ReleaseMessage someReleaseMessage = assembleReleaseMessage(someId, "someMessage");
+    when(pushedReleaseMessageRepository.findFirst500ByIdGreaterThanOrderByIdAsc(0L)).thenReturn(
+        Lists.newArrayList(someReleaseMessage));
+
+    //the message pushed is only a hint, the one in database is fired
+    pusher.push(assembleReleaseMessage(someId, "someForgedMessage"));
+
+    ReleaseMessage someListenerMessage = someListenerFuture.get(5000, TimeUnit.MILLISECONDS);
+
+    assertEquals(someReleaseMessage, someListenerMessage);
+
+    pushEnabledScanner.destroy();
+  }
+
+  @Test
+  public void testPushedMessagesCoalesced() throws Exception {
+    LoopbackReleaseMessagePusher pusher = new LoopbackReleaseMessagePusher();
+    ReleaseMessageScanner pushEnabledScanner = createPushEnabledScanner(pusher);
+
+    long someId = 100;
+    ReleaseMessage someReleaseMessage = assembleReleaseMessage(someId, "someMessage");
+    CountDownLatch scanStarted = new CountDownLatch(1);
+    CountDownLatch scanReleased = new CountDownLatch(1);
+    when(pushedReleaseMessageRepository.findFirst500ByIdGreaterThanOrderByIdAsc(0L)).thenAnswer(invocation -> {
+      scanStarted.countDown();
+      scanReleased.await(5000, TimeUnit.MILLISECONDS);
+      return Lists.newArrayList(someReleaseMessage);
+    });
+
+    pusher.push(assembleReleaseMessage(someId, "someMessage"));
+    assertTrue(scanStarted.await(5000, TimeUnit.MILLISECONDS));
+
+    //pushed while scanning, only one more scan is queued
+    for (int i = 0; i < 10; i++) {
+      pusher.push(assembleReleaseMessage(someId, "someMessage"));
+    }
+    scanReleased.countDown();
+
+    verify(pushedReleaseMessageRepository, timeout(5000)).findFirst500ByIdGreaterThanOrderByIdAsc(someId);
+    verify(pushedReleaseMessageRepository, after(200).times(1)).findFirst500ByIdGreaterThanOrderByIdAsc(0L);
+    verify(pushedReleaseMessageRepository, times(1)).findFirst500ByIdGreaterThanOrderByIdAsc(someId);
+
+    pushEnabledScanner.destroy();
+  }
+
+  @Test
+  public void testPushedMessageFarBeyondLargestIdIgnored() throws Exception {
+    LoopbackReleaseMessagePusher pusher = new LoopbackReleaseMessagePusher();
+    ReleaseMessageScanner pushEnabledScanner = createPushEnabledScanner(pusher);
+
+    pusher.push(assembleReleaseMessage(Long.MAX_VALUE, "someForgedMessage"));
+
+    verify(pushedReleaseMessageRepository, after(200).never()).findFirst500ByIdGreaterThanOrderByIdAsc(anyLong());
+
+    pushEnabledScanner.destroy();
+  }
+
+  private ReleaseMessageScanner createPushEnabledScanner(LoopbackReleaseMessagePusher pusher) throws Exception {
+    ReleaseMessageScanner pushEnabledScanner = new ReleaseMessageScanner();
+    ReflectionTestUtils.setField(pushEnabledScanner, "releaseMessageRepository", pushedReleaseMessageRepository);
+    ReflectionTestUtils.setField(pushEnabledScanner, "bizConfig", bizConfig);
+    ReflectionTestUtils.setField(pushEnabledScanner, "loopbackReleaseMessagePusher", pusher);
+    when(bizConfig.isReleaseMessagePushEnabled()).thenReturn(true);
+    when(bizConfig.releaseMessageReconcileScanIntervalInMilli()).thenReturn(Integer.MAX_VALUE);
+    pushEnabledScanner.afterPropertiesSet();
+    return pushEnabledScanner;
+  }
+
   private ReleaseMessage assembleReleaseMessage(long id, String message) {
     ReleaseMessage releaseMessage = new ReleaseMessage();
     releaseMessage.setId(id);
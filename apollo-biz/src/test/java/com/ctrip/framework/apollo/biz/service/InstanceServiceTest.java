@@ -13,6 +13,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Calendar;
 import java.util.Date;
@@ -23,6 +26,7 @@ import java.util.stream.Collectors;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
@@ -110,6 +114,133 @@ public class InstanceServiceTest extends AbstractIntegrationTest {
     assertEquals(anotherReleaseKey, updated.getReleaseKey());
   }
 
+  @Test
+  @Rollback
+  public void testUpsertInstances() throws Exception {
+    String someAppId = "someAppId";
+    String someClusterName = "someClusterName";
+    String someDataCenter = "someDataCenter";
+    String someIp = "someIp";
+    String anotherIp = "anotherIp";
+
+    Instance someInstance = instanceService.createInstance(assembleInstance(someAppId,
+        someClusterName, someDataCenter, someIp));
+
+    //the existing instance is not inserted again in mysql, the test db has no unique key though
+    List<Instance> instances = instanceService.upsertInstances(Lists.newArrayList(assembleInstance(someAppId,
+        someClusterName, someDataCenter, anotherIp)));
+    List<Instance> noInstances = instanceService.upsertInstances(Lists.newArrayList());
+
+    assertEquals(1, instances.size());
+    assertNotEquals(0, instances.get(0).getId());
+    assertNotEquals(someInstance.getId(), instances.get(0).getId());
+    assertEquals(anotherIp, instances.get(0).getIp());
+    assertEquals(instances.get(0).getId(), instanceService.findInstance(someAppId, someClusterName,
+        someDataCenter, anotherIp).getId());
+    assertTrue(noInstances.isEmpty());
+  }
+
+  @Test
+  @Rollback
+  public void testUpsertInstanceConfigs() throws Exception {
+    long someInstanceId = 1;
+    long anotherInstanceId = 2;
+    String someConfigAppId = "someConfigAppId";
+    String someConfigClusterName = "someConfigClusterName";
+    String someConfigNamespaceName = "someConfigNamespaceName";
+    String someReleaseKey = "someReleaseKey";
+    Date someDate = new Date();
+
+    InstanceConfig someInstanceConfig = assembleInstanceConfig(someInstanceId, someConfigAppId,
+        someConfigClusterName, someConfigNamespaceName, someReleaseKey);
+    InstanceConfig anotherInstanceConfig = assembleInstanceConfig(anotherInstanceId, someConfigAppId,
+        someConfigClusterName, someConfigNamespaceName, someReleaseKey);
+    for (InstanceConfig instanceConfig : Lists.newArrayList(someInstanceConfig, anotherInstanceConfig)) {
+      instanceConfig.setReleaseDeliveryTime(someDate);
+      instanceConfig.setDataChangeLastModifiedTime(someDate);
+    }
+
+    int result = instanceService.upsertInstanceConfigs(Lists.newArrayList(someInstanceConfig,
+        anotherInstanceConfig));
+
+    InstanceConfig instanceConfig = instanceService.findInstanceConfig(anotherInstanceId, someConfigAppId,
+        someConfigNamespaceName);
+
+    assertEquals(2, result);
+    assertEquals(someReleaseKey, instanceConfig.getReleaseKey());
+    assertEquals(someConfigClusterName, instanceConfig.getConfigClusterName());
+    assertEquals(someDate.getTime(), instanceConfig.getReleaseDeliveryTime().getTime());
+    assertEquals(someDate.getTime(), instanceConfig.getDataChangeLastModifiedTime().getTime());
+  }
+
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  @Sql(scripts = "/sql/instance-unique-keys.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/instance-unique-keys-clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testUpsertWithUniqueKeys() throws Exception {
+    String someAppId = "someAppId";
+    String someClusterName = "someClusterName";
+    String someDataCenter = "someDataCenter";
+    String someIp = "someIp";
+    String anotherIp = "anotherIp";
+    String someConfigAppId = "someConfigAppId";
+    String someConfigClusterName = "someConfigClusterName";
+    String someConfigNamespaceName = "someConfigNamespaceName";
+    String someReleaseKey = "someReleaseKey";
+    String anotherReleaseKey = "anotherReleaseKey";
+    Date someDate = new Date(System.currentTimeMillis() - 2000);
+    Date anotherDate = new Date(System.currentTimeMillis() - 1000);
+    Date yetAnotherDate = new Date();
+
+    List<Instance> someInstances = instanceService.upsertInstances(Lists.newArrayList(
+        assembleInstance(someAppId, someClusterName, someDataCenter, someIp)));
+    //the existing instance keeps its id
+    List<Instance> anotherInstances = instanceService.upsertInstances(Lists.newArrayList(
+        assembleInstance(someAppId, someClusterName, someDataCenter, someIp),
+        assembleInstance(someAppId, someClusterName, someDataCenter, anotherIp)));
+
+    long someInstanceId = someInstances.get(0).getId();
+    assertEquals(1, someInstances.size());
+    assertEquals(2, anotherInstances.size());
+    assertEquals(Sets.newHashSet(someIp, anotherIp),
+        anotherInstances.stream().map(Instance::getIp).collect(Collectors.toSet()));
+    assertEquals(someInstanceId, instanceService.findInstance(someAppId, someClusterName, someDataCenter,
+        someIp).getId());
+
+    InstanceConfig someInstanceConfig = assembleInstanceConfig(someInstanceId, someConfigAppId,
+        someConfigClusterName, someConfigNamespaceName, someReleaseKey);
+    someInstanceConfig.setReleaseDeliveryTime(someDate);
+    someInstanceConfig.setDataChangeLastModifiedTime(someDate);
+    instanceService.upsertInstanceConfigs(Lists.newArrayList(someInstanceConfig));
+
+    //the same release key keeps the delivery time
+    InstanceConfig sameReleaseInstanceConfig = assembleInstanceConfig(someInstanceId, someConfigAppId,
+        someConfigClusterName, someConfigNamespaceName, someReleaseKey);
+    sameReleaseInstanceConfig.setReleaseDeliveryTime(anotherDate);
+    sameReleaseInstanceConfig.setDataChangeLastModifiedTime(anotherDate);
+    instanceService.upsertInstanceConfigs(Lists.newArrayList(sameReleaseInstanceConfig));
+
+    InstanceConfig sameRelease = instanceService.findInstanceConfig(someInstanceId, someConfigAppId,
+        someConfigNamespaceName);
+    assertEquals(someReleaseKey, sameRelease.getReleaseKey());
+    assertEquals(someDate.getTime(), sameRelease.getReleaseDeliveryTime().getTime());
+    assertEquals(anotherDate.getTime(), sameRelease.getDataChangeLastModifiedTime().getTime());
+
+    //a new release key updates the delivery time
+    InstanceConfig newReleaseInstanceConfig = assembleInstanceConfig(someInstanceId, someConfigAppId,
+        someConfigClusterName, someConfigNamespaceName, anotherReleaseKey);
+    newReleaseInstanceConfig.setReleaseDeliveryTime(yetAnotherDate);
+    newReleaseInstanceConfig.setDataChangeLastModifiedTime(yetAnotherDate);
+    instanceService.upsertInstanceConfigs(Lists.newArrayList(newReleaseInstanceConfig));
+
+    InstanceConfig newRelease = instanceService.findInstanceConfig(someInstanceId, someConfigAppId,
+        someConfigNamespaceName);
+    assertEquals(sameRelease.getId(), newRelease.getId());
+    assertEquals(anotherReleaseKey, newRelease.getReleaseKey());
+    assertEquals(yetAnotherDate.getTime(), newRelease.getReleaseDeliveryTime().getTime());
+    assertEquals(yetAnotherDate.getTime(), newRelease.getDataChangeLastModifiedTime().getTime());
+  }
+
   @Test
   @Rollback
   public void testFindActiveInstanceConfigs() throws Exception {
@@ -0,0 +1,4 @@
+DELETE FROM Instance;
+DELETE FROM InstanceConfig;
+ALTER TABLE Instance DROP CONSTRAINT IX_INSTANCE_UNIQUE_KEY;
+ALTER TABLE InstanceConfig DROP CONSTRAINT IX_INSTANCECONFIG_UNIQUE_KEY;
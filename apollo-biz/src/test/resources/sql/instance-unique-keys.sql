@@ -0,0 +1,3 @@
+-- the unique keys of the production schema, which the upserts rely on
+ALTER TABLE Instance ADD CONSTRAINT IX_INSTANCE_UNIQUE_KEY UNIQUE (AppId, ClusterName, Ip, DataCenter);
+ALTER TABLE InstanceConfig ADD CONSTRAINT IX_INSTANCECONFIG_UNIQUE_KEY UNIQUE (InstanceId, ConfigAppId, ConfigNamespaceName);
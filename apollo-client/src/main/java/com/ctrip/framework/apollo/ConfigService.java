@@ -3,9 +3,14 @@ package com.ctrip.framework.apollo;
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
+import com.ctrip.framework.apollo.internals.AsyncConfigLoader;
 import com.ctrip.framework.apollo.internals.ConfigManager;
+import com.ctrip.framework.apollo.internals.ConfigPrefetcher;
 import com.ctrip.framework.apollo.spi.ConfigFactory;
 import com.ctrip.framework.apollo.spi.ConfigRegistry;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.Collection;
 
 /**
  * Entry point for client config use
@@ -17,6 +22,7 @@ public class ConfigService {
 
   private volatile ConfigManager m_configManager;
   private volatile ConfigRegistry m_configRegistry;
+  private volatile AsyncConfigLoader m_asyncConfigLoader;
 
   private ConfigManager getManager() {
     if (m_configManager == null) {
@@ -42,6 +48,18 @@ public class ConfigService {
     return m_configRegistry;
   }
 
+  private AsyncConfigLoader getAsyncLoader() {
+    if (m_asyncConfigLoader == null) {
+      synchronized (this) {
+        if (m_asyncConfigLoader == null) {
+          m_asyncConfigLoader = ApolloInjector.getInstance(AsyncConfigLoader.class);
+        }
+      }
+    }
+
+    return m_asyncConfigLoader;
+  }
+
   /**
    * Get Application's config instance.
    *
@@ -61,10 +79,48 @@ public class ConfigService {
     return s_instance.getManager().getConfig(namespace);
   }
 
+  /**
+   * Load the configs of the namespaces at the same time, so that the following {@link #getConfig(String)} calls of
+   * them return without waiting for the remote config service one by one.
+   *
+   * @param namespaces the namespaces to be loaded
+   */
+  public static void prefetchConfigs(Collection<String> namespaces) {
+    ApolloInjector.getInstance(ConfigPrefetcher.class).prefetch(namespaces);
+  }
+
   public static ConfigFile getConfigFile(String namespace, ConfigFileFormat configFileFormat) {
     return s_instance.getManager().getConfigFile(namespace, configFileFormat);
   }
 
+  /**
+   * Get the config instance for the namespace without blocking the caller, the config is loaded on the threads of
+   * apollo if it is not loaded yet.
+   *
+   * @param namespace the namespace of the config
+   * @return the future of the config instance
+   */
+  public static ListenableFuture<Config> getConfigAsync(String namespace) {
+    return s_instance.getAsyncLoader().getConfig(namespace);
+  }
+
+  /**
+   * Get the config file instance for the namespace without blocking the caller.
+   *
+   * @see #getConfigAsync(String)
+   */
+  public static ListenableFuture<ConfigFile> getConfigFileAsync(String namespace, ConfigFileFormat configFileFormat) {
+    return s_instance.getAsyncLoader().getConfigFile(namespace, configFileFormat);
+  }
+
+  /**
+   * @return the future which is done when all the namespaces requested asynchronously so far are loaded, whether
+   * successfully or not, which could be used as the readiness of the application
+   */
+  public static ListenableFuture<Void> whenAllConfigsLoaded() {
+    return s_instance.getAsyncLoader().whenAllLoaded();
+  }
+
   static void setConfig(Config config) {
     setConfig(ConfigConsts.NAMESPACE_APPLICATION, config);
   }
@@ -109,6 +165,7 @@ public class ConfigService {
     synchronized (s_instance) {
       s_instance.m_configManager = null;
       s_instance.m_configRegistry = null;
+      s_instance.m_asyncConfigLoader = null;
     }
   }
 }
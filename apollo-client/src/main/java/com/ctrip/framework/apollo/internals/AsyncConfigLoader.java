@@ -0,0 +1,97 @@
+package com.ctrip.framework.apollo.internals;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+
+import com.ctrip.framework.apollo.Config;
+import com.ctrip.framework.apollo.ConfigFile;
+import com.ctrip.framework.apollo.ConfigService;
+import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Functions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Loads the configs on its own threads, so that the callers, e.g. the event loops, are never blocked by the remote
+ * config service. Each namespace is loaded once, and the futures of the loads are kept to tell whether all the
+ * requested namespaces are loaded, the failed loads are forgotten so that they could be retried.
+ */
+public class AsyncConfigLoader {
+  private final ListeningExecutorService m_executorService;
+  private final ConcurrentMap<String, ListenableFuture<Config>> m_configs = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, ListenableFuture<ConfigFile>> m_configFiles = Maps.newConcurrentMap();
+
+  public AsyncConfigLoader() {
+    //each namespace is loaded at most once, so the threads are bounded by the number of namespaces
+    m_executorService = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool(
+        ApolloThreadFactory.create("AsyncConfigLoader", true)));
+  }
+
+  public ListenableFuture<Config> getConfig(final String namespace) {
+    return load(m_configs, namespace, new Callable<Config>() {
+      @Override
+      public Config call() throws Exception {
+        return ConfigService.getConfig(namespace);
+      }
+    });
+  }
+
+  public ListenableFuture<ConfigFile> getConfigFile(final String namespace, final ConfigFileFormat configFileFormat) {
+    String namespaceFileName = String.format("%s.%s", namespace, configFileFormat.getValue());
+    return load(m_configFiles, namespaceFileName, new Callable<ConfigFile>() {
+      @Override
+      public ConfigFile call() throws Exception {
+        return ConfigService.getConfigFile(namespace, configFileFormat);
+      }
+    });
+  }
+
+  /**
+   * @return the future which is done when all the configs and config files requested so far are loaded, whether
+   * successfully or not
+   */
+  public ListenableFuture<Void> whenAllLoaded() {
+    List<ListenableFuture<?>> futures = Lists.newArrayList();
+    futures.addAll(m_configs.values());
+    futures.addAll(m_configFiles.values());
+    return Futures.transform(Futures.successfulAsList(futures), Functions.<Void>constant(null));
+  }
+
+  private <T> ListenableFuture<T> load(final ConcurrentMap<String, ListenableFuture<T>> futures, final String key,
+      final Callable<T> loader) {
+    ListenableFuture<T> future = futures.get(key);
+    if (future != null) {
+      return future;
+    }
+
+    ListenableFutureTask<T> task = ListenableFutureTask.create(new Callable<T>() {
+      @Override
+      public T call() throws Exception {
+        try {
+          return loader.call();
+        } catch (Exception ex) {
+          Tracer.logError(ex);
+          //forgotten before the future fails, so the load could be retried as soon as the failure is seen
+          futures.remove(key);
+          throw ex;
+        }
+      }
+    });
+    future = futures.putIfAbsent(key, task);
+    if (future != null) {
+      return future;
+    }
+
+    m_executorService.execute(task);
+    return task;
+  }
+}
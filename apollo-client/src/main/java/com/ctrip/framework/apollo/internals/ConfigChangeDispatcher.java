@@ -0,0 +1,253 @@
+package com.ctrip.framework.apollo.internals;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.enums.PropertyChangeType;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
+
+/**
+ * Dispatches the config change events to the listeners. The events of each listener are delivered one by one in the
+ * order they are fired, so a listener never runs on more than one thread at a time. The events waiting in the queue
+ * of a listener are coalesced into one merged event if they are of the same namespace, so a slow listener sees the
+ * net changes of a burst of publishes instead of each of them.
+ */
+public class ConfigChangeDispatcher {
+  private static final Logger logger = LoggerFactory.getLogger(ConfigChangeDispatcher.class);
+  private static final String CACHED_EXECUTOR = "cached";
+  private static final String FIXED_EXECUTOR = "fixed";
+  private static final String VIRTUAL_EXECUTOR = "virtual";
+
+  private final ExecutorService m_executorService;
+  private final int m_queueCapacity;
+  private final ConcurrentMap<ConfigChangeListener, ListenerQueue> m_queues = Maps.newConcurrentMap();
+  private final AtomicInteger m_queueDepth = new AtomicInteger();
+  private volatile long m_dispatchLatencyMillis;
+
+  public ConfigChangeDispatcher() {
+    ConfigUtil configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    m_executorService = createExecutorService(configUtil.getConfigChangeListenerExecutor(),
+        configUtil.getConfigChangeListenerThreads());
+    m_queueCapacity = Math.max(1, configUtil.getConfigChangeListenerQueueCapacity());
+  }
+
+  public void dispatch(ConfigChangeListener listener, ConfigChangeEvent changeEvent) {
+    while (true) {
+      ListenerQueue queue = m_queues.get(listener);
+      if (queue == null) {
+        ListenerQueue newQueue = new ListenerQueue(listener);
+        queue = m_queues.putIfAbsent(listener, newQueue);
+        if (queue == null) {
+          queue = newQueue;
+        }
+      }
+      //the queue is removed once it is drained, then a new one is needed
+      if (queue.offer(changeEvent)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return the number of the change events waiting to be delivered to all the listeners
+   */
+  public int getQueueDepth() {
+    return m_queueDepth.get();
+  }
+
+  /**
+   * @return the time in milliseconds the last delivered change event waited in the queue
+   */
+  public long getDispatchLatencyMillis() {
+    return m_dispatchLatencyMillis;
+  }
+
+  private static ExecutorService createExecutorService(String executor, int threads) {
+    if (VIRTUAL_EXECUTOR.equalsIgnoreCase(executor)) {
+      try {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (Throwable ex) {
+        logger.warn("Virtual threads are not supported by the jvm, the cached executor is used for the config "
+            + "change listeners");
+      }
+    } else if (FIXED_EXECUTOR.equalsIgnoreCase(executor)) {
+      return Executors.newFixedThreadPool(Math.max(1, threads), ApolloThreadFactory.create("Config", true));
+    } else if (!CACHED_EXECUTOR.equalsIgnoreCase(executor)) {
+      logger.warn("Unknown executor {} of the config change listeners, the cached executor is used", executor);
+    }
+    //the threads are bounded by the number of the listeners, as each listener runs on one thread at a time
+    return Executors.newCachedThreadPool(ApolloThreadFactory.create("Config", true));
+  }
+
+  /**
+   * Merges the changes of the later event into the earlier one, the changes which are reverted are dropped
+   */
+  static ConfigChangeEvent coalesce(ConfigChangeEvent earlier, ConfigChangeEvent later) {
+    Map<String, ConfigChange> changes = Maps.newLinkedHashMap();
+    for (String key : earlier.changedKeys()) {
+      changes.put(key, earlier.getChange(key));
+    }
+    for (String key : later.changedKeys()) {
+      ConfigChange laterChange = later.getChange(key);
+      ConfigChange earlierChange = changes.get(key);
+      if (earlierChange == null) {
+        changes.put(key, laterChange);
+        continue;
+      }
+      ConfigChange mergedChange = coalesce(earlierChange, laterChange);
+      if (mergedChange == null) {
+        changes.remove(key);
+      } else {
+        changes.put(key, mergedChange);
+      }
+    }
+    return new ConfigChangeEvent(earlier.getNamespace(), changes);
+  }
+
+  private static ConfigChange coalesce(ConfigChange earlier, ConfigChange later) {
+    boolean existedBefore = earlier.getChangeType() != PropertyChangeType.ADDED;
+    boolean existsAfter = later.getChangeType() != PropertyChangeType.DELETED;
+    PropertyChangeType changeType;
+    if (existedBefore && existsAfter) {
+      if (Objects.equal(earlier.getOldValue(), later.getNewValue())) {
+        return null;
+      }
+      changeType = PropertyChangeType.MODIFIED;
+    } else if (existedBefore) {
+      changeType = PropertyChangeType.DELETED;
+    } else if (existsAfter) {
+      changeType = PropertyChangeType.ADDED;
+    } else {
+      return null;
+    }
+    return new ConfigChange(earlier.getNamespace(), earlier.getPropertyName(), earlier.getOldValue(),
+        later.getNewValue(), changeType);
+  }
+
+  private static class PendingEvent {
+    private final long m_enqueuedTime = System.nanoTime();
+    private ConfigChangeEvent m_changeEvent;
+
+    PendingEvent(ConfigChangeEvent changeEvent) {
+      m_changeEvent = changeEvent;
+    }
+  }
+
+  /**
+   * The pending events of a listener, at most one of them is being delivered at a time
+   */
+  private class ListenerQueue implements Runnable {
+    private final ConfigChangeListener m_listener;
+    private final LinkedList<PendingEvent> m_events = new LinkedList<>();
+    private boolean m_running;
+    private boolean m_removed;
+
+    ListenerQueue(ConfigChangeListener listener) {
+      m_listener = listener;
+    }
+
+    /**
+     * @return false if the queue is already removed, so the event should be offered to a new queue
+     */
+    synchronized boolean offer(ConfigChangeEvent changeEvent) {
+      if (m_removed) {
+        return false;
+      }
+      if (!m_events.isEmpty() && m_events.getLast().m_changeEvent.getNamespace().equals(changeEvent.getNamespace())) {
+        coalesceInto(m_events.descendingIterator(), changeEvent);
+      } else if (m_events.size() >= m_queueCapacity && coalesceInto(m_events.descendingIterator(), changeEvent)) {
+        //the queue is full, so the event is merged into the pending one of the same namespace
+        Tracer.logEvent("Apollo.ConfigChangeListener.QueueFull", m_listener.getClass().getName());
+      } else {
+        m_events.addLast(new PendingEvent(changeEvent));
+        m_queueDepth.incrementAndGet();
+      }
+      if (!m_running && !m_events.isEmpty()) {
+        m_running = true;
+        m_executorService.execute(this);
+      }
+      return true;
+    }
+
+    private boolean coalesceInto(Iterator<PendingEvent> pendingEvents, ConfigChangeEvent changeEvent) {
+      while (pendingEvents.hasNext()) {
+        PendingEvent pendingEvent = pendingEvents.next();
+        if (!pendingEvent.m_changeEvent.getNamespace().equals(changeEvent.getNamespace())) {
+          continue;
+        }
+        pendingEvent.m_changeEvent = coalesce(pendingEvent.m_changeEvent, changeEvent);
+        if (pendingEvent.m_changeEvent.changedKeys().isEmpty()) {
+          pendingEvents.remove();
+          m_queueDepth.decrementAndGet();
+        }
+        return true;
+      }
+      return false;
+    }
+
+    private synchronized PendingEvent poll() {
+      PendingEvent pendingEvent = m_events.pollFirst();
+      if (pendingEvent != null) {
+        m_queueDepth.decrementAndGet();
+      }
+      return pendingEvent;
+    }
+
+    private synchronized void scheduleNext() {
+      if (!m_events.isEmpty()) {
+        //one event per task, so that the listeners share the threads of a fixed executor fairly
+        m_executorService.execute(this);
+        return;
+      }
+      m_running = false;
+      m_removed = true;
+      m_queues.remove(m_listener, this);
+    }
+
+    @Override
+    public void run() {
+      PendingEvent pendingEvent = poll();
+      if (pendingEvent != null) {
+        deliver(pendingEvent);
+      }
+      scheduleNext();
+    }
+
+    private void deliver(PendingEvent pendingEvent) {
+      long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pendingEvent.m_enqueuedTime);
+      m_dispatchLatencyMillis = latencyMillis;
+      String listenerName = m_listener.getClass().getName();
+      Transaction transaction = Tracer.newTransaction("Apollo.ConfigChangeListener", listenerName);
+      transaction.addData("DispatchLatency", latencyMillis);
+      transaction.addData("QueueDepth", m_queueDepth.get());
+      try {
+        m_listener.onChange(pendingEvent.m_changeEvent);
+        transaction.setStatus(Transaction.SUCCESS);
+      } catch (Throwable ex) {
+        transaction.setStatus(ex);
+        Tracer.logError(ex);
+        logger.error("Failed to invoke config change listener {}", listenerName, ex);
+      } finally {
+        transaction.complete();
+      }
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package com.ctrip.framework.apollo.internals;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Finds the listeners interested in the changed keys. The interested keys are looked up directly and the interested
+ * key prefixes are kept in a trie, so the cost of a change event is proportional to the length of the changed keys,
+ * instead of the number of the listeners times their interested prefixes. The index is immutable, it is rebuilt when
+ * the listeners are added or removed, which is rare compared to the change events.
+ */
+class ConfigChangeListenerIndex {
+  static final ConfigChangeListenerIndex EMPTY = new ConfigChangeListenerIndex(
+      ImmutableList.<ConfigChangeListener>of(), Maps.<ConfigChangeListener, Set<String>>newHashMap(),
+      Maps.<ConfigChangeListener, Set<String>>newHashMap());
+
+  private final List<ConfigChangeListener> m_listeners;
+  private final Set<ConfigChangeListener> m_allKeysListeners = Sets.newHashSet();
+  private final Map<String, Set<ConfigChangeListener>> m_keyListeners = Maps.newHashMap();
+  private final PrefixNode m_prefixRoot = new PrefixNode();
+
+  /**
+   * @param listeners the listeners in the order they are added
+   * @param interestedKeys the interested keys of the listeners, a listener without interested keys or prefixes is
+   *                       interested in all the keys
+   * @param interestedKeyPrefixes the interested key prefixes of the listeners
+   */
+  ConfigChangeListenerIndex(List<ConfigChangeListener> listeners, Map<ConfigChangeListener, Set<String>> interestedKeys,
+      Map<ConfigChangeListener, Set<String>> interestedKeyPrefixes) {
+    m_listeners = ImmutableList.copyOf(listeners);
+    for (ConfigChangeListener listener : m_listeners) {
+      Set<String> keys = interestedKeys.get(listener);
+      Set<String> prefixes = interestedKeyPrefixes.get(listener);
+      if ((keys == null || keys.isEmpty()) && (prefixes == null || prefixes.isEmpty())) {
+        m_allKeysListeners.add(listener);
+        continue;
+      }
+      if (keys != null) {
+        for (String key : keys) {
+          Set<ConfigChangeListener> keyListeners = m_keyListeners.get(key);
+          if (keyListeners == null) {
+            keyListeners = Sets.newHashSet();
+            m_keyListeners.put(key, keyListeners);
+          }
+          keyListeners.add(listener);
+        }
+      }
+      if (prefixes != null) {
+        for (String prefix : prefixes) {
+          m_prefixRoot.add(prefix, listener);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the listeners interested in any of the changed keys, in the order they are added
+   */
+  List<ConfigChangeListener> interestedListeners(Collection<String> changedKeys) {
+    if (m_allKeysListeners.size() == m_listeners.size()) {
+      return m_listeners;
+    }
+    Set<ConfigChangeListener> interested = Sets.newHashSet(m_allKeysListeners);
+    for (String changedKey : changedKeys) {
+      //all the listeners are found already
+      if (interested.size() == m_listeners.size()) {
+        break;
+      }
+      Set<ConfigChangeListener> keyListeners = m_keyListeners.get(changedKey);
+      if (keyListeners != null) {
+        interested.addAll(keyListeners);
+      }
+      m_prefixRoot.collect(changedKey, interested);
+    }
+
+    List<ConfigChangeListener> result = Lists.newArrayListWithCapacity(interested.size());
+    for (ConfigChangeListener listener : m_listeners) {
+      if (interested.contains(listener)) {
+        result.add(listener);
+      }
+    }
+    return result;
+  }
+
+  private static class PrefixNode {
+    private final Map<Character, PrefixNode> m_children = Maps.newHashMap();
+    private final Set<ConfigChangeListener> m_listeners = Sets.newHashSet();
+
+    void add(String prefix, ConfigChangeListener listener) {
+      PrefixNode node = this;
+      for (int i = 0; i < prefix.length(); i++) {
+        Character c = prefix.charAt(i);
+        PrefixNode child = node.m_children.get(c);
+        if (child == null) {
+          child = new PrefixNode();
+          node.m_children.put(c, child);
+        }
+        node = child;
+      }
+      node.m_listeners.add(listener);
+    }
+
+    /**
+     * Collects the listeners of all the prefixes of the key
+     */
+    void collect(String key, Set<ConfigChangeListener> interested) {
+      PrefixNode node = this;
+      interested.addAll(node.m_listeners);
+      for (int i = 0; i < key.length(); i++) {
+        node = node.m_children.get(key.charAt(i));
+        if (node == null) {
+          return;
+        }
+        interested.addAll(node.m_listeners);
+      }
+    }
+  }
+}
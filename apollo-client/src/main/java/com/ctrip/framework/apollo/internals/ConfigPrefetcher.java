@@ -0,0 +1,115 @@
+package com.ctrip.framework.apollo.internals;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ctrip.framework.apollo.ConfigService;
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.apollo.util.ExceptionUtil;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Loads the configs of the namespaces declared on startup at the same time, instead of one by one when they are
+ * used. If the batch load is enabled, the configs are fetched in one request first.
+ */
+public class ConfigPrefetcher {
+  private static final Logger logger = LoggerFactory.getLogger(ConfigPrefetcher.class);
+
+  private final ConfigUtil m_configUtil;
+
+  public ConfigPrefetcher() {
+    m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+  }
+
+  public void prefetch(Collection<String> namespaces) {
+    Set<String> toBePrefetched = Sets.newLinkedHashSet(namespaces);
+    int parallelism = Math.min(m_configUtil.getConfigPrefetchParallelism(), toBePrefetched.size());
+    if (parallelism <= 1) {
+      //nothing to do at the same time, the namespaces are loaded when they are used
+      return;
+    }
+
+    Transaction transaction = Tracer.newTransaction("Apollo.ConfigManager", "prefetchConfigs");
+    transaction.addData("Namespaces", toBePrefetched);
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    RemoteConfigLongPollService batchLoader = null;
+    try {
+      if (m_configUtil.isBatchLoadConfigEnabled()) {
+        batchLoader = tryBatchLoad(toBePrefetched);
+      }
+      loadInParallel(toBePrefetched, parallelism);
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      Tracer.logError(ex);
+      logger.warn("Prefetch configs failed, namespaces: {}, reason: {}", toBePrefetched,
+          ExceptionUtil.getDetailMessage(ex));
+    } finally {
+      if (batchLoader != null) {
+        //the configs not taken by the loads above would never be taken
+        batchLoader.discardPrefetchedConfigs(toBePrefetched);
+      }
+      transaction.complete();
+    }
+    logger.info("Configs for {} namespaces are prefetched in {} ms", toBePrefetched.size(),
+        stopwatch.elapsed(TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * @return the service holding the prefetched configs, or null if failed
+   */
+  private RemoteConfigLongPollService tryBatchLoad(Set<String> namespaces) {
+    try {
+      //looked up only when needed, as it locates the config services on creation
+      RemoteConfigLongPollService remoteConfigLongPollService =
+          ApolloInjector.getInstance(RemoteConfigLongPollService.class);
+      remoteConfigLongPollService.prefetchConfigs(namespaces);
+      return remoteConfigLongPollService;
+    } catch (Throwable ex) {
+      //the namespaces are loaded one by one then
+      Tracer.logError(ex);
+      return null;
+    }
+  }
+
+  private void loadInParallel(Set<String> namespaces, int parallelism) throws InterruptedException {
+    ExecutorService executorService = Executors.newFixedThreadPool(parallelism,
+        ApolloThreadFactory.create("ConfigPrefetcher", true));
+    try {
+      List<Future<?>> futures = Lists.newArrayListWithCapacity(namespaces.size());
+      for (final String namespace : namespaces) {
+        futures.add(executorService.submit(new Runnable() {
+          @Override
+          public void run() {
+            ConfigService.getConfig(namespace);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException ex) {
+          //the namespace is loaded again when it is used
+          Tracer.logError(ex.getCause());
+        }
+      }
+    } finally {
+      executorService.shutdown();
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.ctrip.framework.apollo.internals;
 
+import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
 import java.io.IOException;
 import java.io.InputStream;
@@ -10,6 +11,7 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
@@ -20,8 +22,11 @@ import com.ctrip.framework.apollo.enums.PropertyChangeType;
 import com.ctrip.framework.apollo.model.ConfigChange;
 import com.ctrip.framework.apollo.model.ConfigChangeEvent;
 import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.ctrip.framework.apollo.util.ExceptionUtil;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.RateLimiter;
 
 
@@ -35,8 +40,13 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
   private final AtomicReference<Properties> m_configProperties;
   private final ConfigRepository m_configRepository;
   private final RateLimiter m_warnLogRateLimiter;
+  private final boolean m_propertySnapshotEnabled;
 
   private volatile ConfigSourceType m_sourceType = ConfigSourceType.NONE;
+  /**
+   * the resolved values of the keys in the config and resource properties, read without locking
+   */
+  private volatile Map<String, String> m_propertySnapshot = Collections.emptyMap();
 
   /**
    * Constructor.
@@ -50,6 +60,11 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
     m_configRepository = configRepository;
     m_configProperties = new AtomicReference<>();
     m_warnLogRateLimiter = RateLimiter.create(0.017); // 1 warning log output per minute
+    m_propertySnapshotEnabled = ApolloInjector.getInstance(ConfigUtil.class).isPropertySnapshotEnabled();
+    if (m_propertySnapshotEnabled) {
+      //the resource properties are readable even if the config repository fails
+      m_propertySnapshot = buildPropertySnapshot(null);
+    }
     initialize();
   }
 
@@ -69,12 +84,30 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
 
   @Override
   public String getProperty(String key, String defaultValue) {
+    // the snapshot has the resolved values of the known keys, the others are resolved on each read
+    String value = null;
+    if (m_propertySnapshotEnabled) {
+      value = m_propertySnapshot.get(key);
+    }
+
+    if (value == null) {
+      value = resolveProperty(key, m_configProperties.get());
+    }
+
+    if (value == null && m_configProperties.get() == null && m_warnLogRateLimiter.tryAcquire()) {
+      logger.warn("Could not load config for namespace {} from Apollo, please check whether the configs are released in Apollo! Return default value now!", m_namespace);
+    }
+
+    return value == null ? defaultValue : value;
+  }
+
+  private String resolveProperty(String key, Properties configProperties) {
     // step 1: check system properties, i.e. -Dkey=value
     String value = System.getProperty(key);
 
     // step 2: check local cached properties file
-    if (value == null && m_configProperties.get() != null) {
-      value = m_configProperties.get().getProperty(key);
+    if (value == null && configProperties != null) {
+      value = configProperties.getProperty(key);
     }
 
     /**
@@ -91,11 +124,7 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
       value = (String) m_resourceProperties.get(key);
     }
 
-    if (value == null && m_configProperties.get() == null && m_warnLogRateLimiter.tryAcquire()) {
-      logger.warn("Could not load config for namespace {} from Apollo, please check whether the configs are released in Apollo! Return default value now!", m_namespace);
-    }
-
-    return value == null ? defaultValue : value;
+    return value;
   }
 
   @Override
@@ -150,9 +179,35 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
 
   private void updateConfig(Properties newConfigProperties, ConfigSourceType sourceType) {
     m_configProperties.set(newConfigProperties);
+    if (m_propertySnapshotEnabled) {
+      m_propertySnapshot = buildPropertySnapshot(newConfigProperties);
+    }
     m_sourceType = sourceType;
   }
 
+  /**
+   * Resolve the values of the keys in the config and resource properties, so that they are read without looking up
+   * the properties and system properties, which are synchronized
+   */
+  private Map<String, String> buildPropertySnapshot(Properties configProperties) {
+    Set<String> keys = new HashSet<>();
+    if (m_resourceProperties != null) {
+      keys.addAll(stringPropertyNames(m_resourceProperties));
+    }
+    if (configProperties != null) {
+      keys.addAll(stringPropertyNames(configProperties));
+    }
+
+    Map<String, String> snapshot = Maps.newHashMapWithExpectedSize(keys.size());
+    for (String key : keys) {
+      String value = resolveProperty(key, configProperties);
+      if (value != null) {
+        snapshot.put(key, value);
+      }
+    }
+    return snapshot;
+  }
+
   private Map<String, ConfigChange> updateAndCalcConfigChanges(Properties newConfigProperties,
       ConfigSourceType sourceType) {
     List<ConfigChange> configChanges =
@@ -168,9 +223,18 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
       change.setOldValue(this.getProperty(change.getPropertyName(), change.getOldValue()));
     }
 
-    //2. update m_configProperties
+    //2. update m_configProperties and clear the cached values
+    Set<String> changedKeys = Sets.newHashSetWithExpectedSize(configChanges.size());
+    for (ConfigChange change : configChanges) {
+      changedKeys.add(change.getPropertyName());
+    }
     updateConfig(newConfigProperties, sourceType);
-    clearConfigCache();
+    if (m_propertySnapshotEnabled) {
+      clearConfigCache(changedKeys);
+    } else {
+      //the values are resolved on each read without the snapshot, so all the cached values are dropped as before
+      clearConfigCache();
+    }
 
     //3. use getProperty to update configChange's new value and calc the final changes
     for (ConfigChange change : configChanges) {
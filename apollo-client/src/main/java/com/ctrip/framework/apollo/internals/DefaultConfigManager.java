@@ -1,6 +1,11 @@
 package com.ctrip.framework.apollo.internals;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigFile;
@@ -8,16 +13,23 @@ import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.spi.ConfigFactory;
 import com.ctrip.framework.apollo.spi.ConfigFactoryManager;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.Maps;
 
 /**
+ * The configs are created under the lock of their own namespace, so that a slow namespace would not block the others
+ *
  * @author Jason Song(song_s@ctrip.com)
  */
 public class DefaultConfigManager implements ConfigManager {
+  private static final Logger logger = LoggerFactory.getLogger(DefaultConfigManager.class);
   private ConfigFactoryManager m_factoryManager;
 
   private Map<String, Config> m_configs = Maps.newConcurrentMap();
   private Map<String, ConfigFile> m_configFiles = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, Object> m_locks = Maps.newConcurrentMap();
 
   public DefaultConfigManager() {
     m_factoryManager = ApolloInjector.getInstance(ConfigFactoryManager.class);
@@ -28,13 +40,26 @@ public class DefaultConfigManager implements ConfigManager {
     Config config = m_configs.get(namespace);
 
     if (config == null) {
-      synchronized (this) {
+      synchronized (lockOf(namespace)) {
         config = m_configs.get(namespace);
 
         if (config == null) {
           ConfigFactory factory = m_factoryManager.getFactory(namespace);
 
-          config = factory.create(namespace);
+          Transaction transaction = Tracer.newTransaction("Apollo.ConfigManager", "createConfig");
+          transaction.addData("Namespace", namespace);
+          Stopwatch stopwatch = Stopwatch.createStarted();
+          try {
+            config = factory.create(namespace);
+            transaction.setStatus(Transaction.SUCCESS);
+          } catch (Throwable ex) {
+            transaction.setStatus(ex);
+            throw ex;
+          } finally {
+            transaction.complete();
+          }
+          logger.info("Config for namespace {} is loaded in {} ms", namespace,
+              stopwatch.elapsed(TimeUnit.MILLISECONDS));
           m_configs.put(namespace, config);
         }
       }
@@ -49,7 +74,7 @@ public class DefaultConfigManager implements ConfigManager {
     ConfigFile configFile = m_configFiles.get(namespaceFileName);
 
     if (configFile == null) {
-      synchronized (this) {
+      synchronized (lockOf(namespaceFileName)) {
         configFile = m_configFiles.get(namespaceFileName);
 
         if (configFile == null) {
@@ -63,4 +88,16 @@ public class DefaultConfigManager implements ConfigManager {
 
     return configFile;
   }
+
+  private Object lockOf(String namespace) {
+    Object lock = m_locks.get(namespace);
+    if (lock == null) {
+      Object newLock = new Object();
+      lock = m_locks.putIfAbsent(namespace, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
+    }
+    return lock;
+  }
 }
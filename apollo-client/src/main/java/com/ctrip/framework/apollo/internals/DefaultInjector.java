@@ -61,6 +61,9 @@ public class DefaultInjector implements Injector {
       bind(HttpUtil.class).in(Singleton.class);
       bind(ConfigServiceLocator.class).in(Singleton.class);
       bind(RemoteConfigLongPollService.class).in(Singleton.class);
+      bind(ConfigPrefetcher.class).in(Singleton.class);
+      bind(AsyncConfigLoader.class).in(Singleton.class);
+      bind(ConfigChangeDispatcher.class).in(Singleton.class);
       bind(YamlParser.class).in(Singleton.class);
     }
   }
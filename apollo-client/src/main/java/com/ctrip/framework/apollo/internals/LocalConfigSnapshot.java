@@ -0,0 +1,193 @@
+package com.ctrip.framework.apollo.internals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
+
+/**
+ * The binary snapshot of a namespace in the local cache dir, which keeps the release key, the notification id and
+ * the notification messages along with the configurations, so that the remote config could be resumed from it on
+ * restart.
+ *
+ * <pre>
+ * magic(int) version(int) releaseKey(string) notificationId(long)
+ * messagesSize(int) [watchedKey(string) notificationId(long)]...
+ * size(int) [key(string) value(string)]...
+ * crc32(long)
+ * </pre>
+ *
+ * The strings are written as the length of their utf-8 bytes followed by the bytes, -1 as the length means null, and
+ * -1 as the messages size means no notification messages. The crc32 covers all the bytes before it.
+ *
+ * The snapshot is written to a temp file and renamed to the target one, so the readers never see a partially written
+ * snapshot. It is read into memory as a whole instead of being memory mapped, as a mapped file could not be replaced
+ * on windows until the mapping is garbage collected.
+ */
+final class LocalConfigSnapshot {
+  private static final int MAGIC = 0x41504C53; //APLS
+  private static final int VERSION = 1;
+  private static final int HEADER_LENGTH = 8;
+  private static final int CHECKSUM_LENGTH = 8;
+
+  private final String m_releaseKey;
+  private final long m_notificationId;
+  private final ApolloNotificationMessages m_notificationMessages;
+  private final Properties m_configurations;
+
+  LocalConfigSnapshot(String releaseKey, long notificationId, ApolloNotificationMessages notificationMessages,
+      Properties configurations) {
+    m_releaseKey = releaseKey;
+    m_notificationId = notificationId;
+    m_notificationMessages = notificationMessages;
+    m_configurations = configurations;
+  }
+
+  /**
+   * @return the release key of the configurations, null if unknown, e.g. not loaded from the config service
+   */
+  String getReleaseKey() {
+    return m_releaseKey;
+  }
+
+  /**
+   * @return the notification id of the namespace when the snapshot is taken,
+   * {@link ConfigConsts#NOTIFICATION_ID_PLACEHOLDER} if unknown
+   */
+  long getNotificationId() {
+    return m_notificationId;
+  }
+
+  /**
+   * @return the notification messages of the namespace when the snapshot is taken, null if unknown
+   */
+  ApolloNotificationMessages getNotificationMessages() {
+    return m_notificationMessages;
+  }
+
+  Properties getConfigurations() {
+    return m_configurations;
+  }
+
+  void writeTo(File file) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    writeString(out, m_releaseKey);
+    out.writeLong(m_notificationId);
+    if (m_notificationMessages == null) {
+      out.writeInt(-1);
+    } else {
+      out.writeInt(m_notificationMessages.getDetails().size());
+      for (Map.Entry<String, Long> entry : m_notificationMessages.getDetails().entrySet()) {
+        writeString(out, entry.getKey());
+        out.writeLong(entry.getValue());
+      }
+    }
+    out.writeInt(m_configurations.size());
+    for (Map.Entry<Object, Object> entry : m_configurations.entrySet()) {
+      writeString(out, String.valueOf(entry.getKey()));
+      writeString(out, String.valueOf(entry.getValue()));
+    }
+    CRC32 crc32 = new CRC32();
+    crc32.update(bytes.toByteArray(), 0, bytes.size());
+    out.writeLong(crc32.getValue());
+    out.flush();
+
+    File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+    FileOutputStream tempOut = new FileOutputStream(tempFile);
+    try {
+      bytes.writeTo(tempOut);
+      tempOut.getFD().sync();
+    } finally {
+      tempOut.close();
+    }
+
+    try {
+      Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException ex) {
+      Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * @throws IOException if the file could not be read, or it is not a valid snapshot
+   */
+  static LocalConfigSnapshot readFrom(File file) throws IOException {
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    try {
+      return read(bytes, file);
+    } catch (RuntimeException ex) {
+      //e.g. the buffer underflows as the content is truncated
+      throw new IOException(String.format("Invalid config snapshot %s", file.getAbsolutePath()), ex);
+    }
+  }
+
+  private static LocalConfigSnapshot read(byte[] bytes, File file) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    if (buffer.remaining() < HEADER_LENGTH + CHECKSUM_LENGTH
+        || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+      throw new IOException(String.format("Unknown format of config snapshot %s", file.getAbsolutePath()));
+    }
+
+    int contentLength = buffer.limit() - CHECKSUM_LENGTH;
+    CRC32 crc32 = new CRC32();
+    crc32.update(bytes, 0, contentLength);
+    if (crc32.getValue() != buffer.getLong(contentLength)) {
+      throw new IOException(String.format("Checksum mismatch of config snapshot %s", file.getAbsolutePath()));
+    }
+
+    String releaseKey = readString(buffer);
+    long notificationId = buffer.getLong();
+    ApolloNotificationMessages notificationMessages = null;
+    int messagesSize = buffer.getInt();
+    if (messagesSize >= 0) {
+      notificationMessages = new ApolloNotificationMessages();
+      for (int i = 0; i < messagesSize; i++) {
+        String watchedKey = readString(buffer);
+        notificationMessages.put(watchedKey, buffer.getLong());
+      }
+    }
+    int size = buffer.getInt();
+    Properties configurations = new Properties();
+    for (int i = 0; i < size; i++) {
+      String key = readString(buffer);
+      configurations.setProperty(key, readString(buffer));
+    }
+
+    return new LocalConfigSnapshot(releaseKey, notificationId, notificationMessages, configurations);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
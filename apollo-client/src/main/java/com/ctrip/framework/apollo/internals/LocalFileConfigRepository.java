@@ -17,6 +17,7 @@ import org.slf4j.LoggerFactory;
 
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
 import com.ctrip.framework.apollo.core.utils.ClassLoaderUtil;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
 import com.ctrip.framework.apollo.tracer.Tracer;
@@ -53,7 +54,12 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
   public LocalFileConfigRepository(String namespace, ConfigRepository upstream) {
     m_namespace = namespace;
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
-    this.setLocalCacheDir(findLocalCacheDir(), false);
+    //share the dir with the remote repository, so the snapshot it resumed from is the one persisted here
+    File baseDir = null;
+    if (upstream instanceof RemoteConfigRepository) {
+      baseDir = ((RemoteConfigRepository) upstream).getLocalCacheDir();
+    }
+    this.setLocalCacheDir(baseDir != null ? baseDir : findLocalCacheDir(m_configUtil), false);
     this.setUpstreamRepository(upstream);
     this.trySync();
   }
@@ -66,9 +72,9 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     }
   }
 
-  private File findLocalCacheDir() {
+  static File findLocalCacheDir(ConfigUtil configUtil) {
     try {
-      String defaultCacheDir = m_configUtil.getDefaultLocalCacheDir();
+      String defaultCacheDir = configUtil.getDefaultLocalCacheDir();
       Path path = Paths.get(defaultCacheDir);
       if (!Files.exists(path)) {
         Files.createDirectories(path);
@@ -180,9 +186,49 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     persistLocalCacheFile(m_baseDir, m_namespace);
   }
 
+  /**
+   * Load the snapshot of the namespace from the local cache dir, used to resume the remote config on restart
+   *
+   * @return the snapshot, or null if the snapshot is not enabled or not available
+   */
+  static LocalConfigSnapshot tryLoadLocalSnapshot(File baseDir, String namespace) {
+    ConfigUtil configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    if (!configUtil.isLocalCacheSnapshotEnabled()) {
+      return null;
+    }
+    File file = assembleLocalSnapshotFile(configUtil, baseDir, namespace);
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      return LocalConfigSnapshot.readFrom(file);
+    } catch (Throwable ex) {
+      Tracer.logError(ex);
+      logger.warn("Load local config snapshot {} failed, reason: {}", file.getAbsolutePath(),
+          ExceptionUtil.getDetailMessage(ex));
+    }
+    return null;
+  }
+
   private Properties loadFromLocalCacheFile(File baseDir, String namespace) throws IOException {
     Preconditions.checkNotNull(baseDir, "Basedir cannot be null");
 
+    if (m_configUtil.isLocalCacheSnapshotEnabled()) {
+      File snapshotFile = assembleLocalSnapshotFile(m_configUtil, baseDir, namespace);
+      //the properties file is still loaded if the snapshot is not written yet, e.g. just enabled, or corrupted
+      if (snapshotFile.isFile()) {
+        try {
+          Properties properties = LocalConfigSnapshot.readFrom(snapshotFile).getConfigurations();
+          logger.debug("Loading local config snapshot {} successfully!", snapshotFile.getAbsolutePath());
+          return properties;
+        } catch (IOException ex) {
+          Tracer.logError(ex);
+          logger.warn("Load local config snapshot {} failed, will load the local cache file instead, reason: {}",
+              snapshotFile.getAbsolutePath(), ExceptionUtil.getDetailMessage(ex));
+        }
+      }
+    }
+
     File file = assembleLocalCacheFile(baseDir, namespace);
     Properties properties = null;
 
@@ -220,6 +266,10 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     if (baseDir == null) {
       return;
     }
+    //the properties file is only written if the snapshot is disabled or failed to be written
+    if (m_configUtil.isLocalCacheSnapshotEnabled() && persistLocalSnapshot(baseDir, namespace)) {
+      return;
+    }
     File file = assembleLocalCacheFile(baseDir, namespace);
 
     OutputStream out = null;
@@ -250,6 +300,42 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     }
   }
 
+  /**
+   * @return whether the snapshot is written
+   */
+  private boolean persistLocalSnapshot(File baseDir, String namespace) {
+    File file = assembleLocalSnapshotFile(m_configUtil, baseDir, namespace);
+
+    String releaseKey = null;
+    long notificationId = ConfigConsts.NOTIFICATION_ID_PLACEHOLDER;
+    ApolloNotificationMessages notificationMessages = null;
+    if (m_upstream instanceof RemoteConfigRepository) {
+      RemoteConfigRepository remoteConfigRepository = (RemoteConfigRepository) m_upstream;
+      releaseKey = remoteConfigRepository.getReleaseKey();
+      notificationId = remoteConfigRepository.getNotificationId();
+      notificationMessages = remoteConfigRepository.getNotificationMessages();
+    }
+
+    Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "persistLocalConfigSnapshot");
+    transaction.addData("LocalConfigFile", file.getAbsolutePath());
+    try {
+      new LocalConfigSnapshot(releaseKey, notificationId, notificationMessages, m_fileProperties).writeTo(file);
+      transaction.setStatus(Transaction.SUCCESS);
+      return true;
+    } catch (IOException ex) {
+      ApolloConfigException exception =
+          new ApolloConfigException(
+              String.format("Persist local config snapshot %s failed", file.getAbsolutePath()), ex);
+      Tracer.logError(exception);
+      transaction.setStatus(exception);
+      logger.warn("Persist local config snapshot {} failed, reason: {}.", file.getAbsolutePath(),
+          ExceptionUtil.getDetailMessage(ex));
+    } finally {
+      transaction.complete();
+    }
+    return false;
+  }
+
   private void checkLocalConfigCacheDir(File baseDir) {
     if (baseDir.exists()) {
       return;
@@ -280,4 +366,11 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
             .join(m_configUtil.getAppId(), m_configUtil.getCluster(), namespace));
     return new File(baseDir, fileName);
   }
+
+  private static File assembleLocalSnapshotFile(ConfigUtil configUtil, File baseDir, String namespace) {
+    String fileName =
+        String.format("%s.snapshot", Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)
+            .join(configUtil.getAppId(), configUtil.getCluster(), namespace));
+    return new File(baseDir, fileName);
+  }
 }
@@ -2,6 +2,8 @@ package com.ctrip.framework.apollo.internals;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -15,6 +17,7 @@ import com.google.gson.Gson;
 
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
 import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
 import com.ctrip.framework.apollo.core.dto.ServiceDTO;
@@ -23,10 +26,12 @@ import com.ctrip.framework.apollo.core.schedule.ExponentialSchedulePolicy;
 import com.ctrip.framework.apollo.core.schedule.SchedulePolicy;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.ctrip.framework.apollo.tracer.spi.Transaction;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.ctrip.framework.apollo.util.ExceptionUtil;
+import com.ctrip.framework.apollo.util.http.HttpEventStreamListener;
 import com.ctrip.framework.apollo.util.http.HttpRequest;
 import com.ctrip.framework.apollo.util.http.HttpResponse;
 import com.ctrip.framework.apollo.util.http.HttpUtil;
@@ -34,15 +39,18 @@ import com.ctrip.framework.apollo.util.http.HttpUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
 import java.net.URLDecoder;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -53,19 +61,30 @@ public class RemoteConfigLongPollService {
   private static final Logger logger = LoggerFactory.getLogger(RemoteConfigLongPollService.class);
   private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
   private static final Joiner.MapJoiner MAP_JOINER = Joiner.on("&").withKeyValueSeparator("=");
+  private static final Escaper pathEscaper = UrlEscapers.urlPathSegmentEscaper();
   private static final Escaper queryParamEscaper = UrlEscapers.urlFormParameterEscaper();
   private static final long INIT_NOTIFICATION_ID = ConfigConsts.NOTIFICATION_ID_PLACEHOLDER;
+  private static final String NO_RELEASE_KEY = "-1";
   //90 seconds, should be longer than server side's long polling timeout, which is now 60 seconds
   private static final int LONG_POLLING_READ_TIMEOUT = 90 * 1000;
+  private static final long PREFETCHED_CONFIG_EXPIRE_TIME_IN_SECONDS = 60;
   private final ExecutorService m_longPollingService;
   private final AtomicBoolean m_longPollingStopped;
+  //the notification stream should be reconnected to watch the newly submitted namespaces
+  private final AtomicBoolean m_notificationStreamOutdated;
+  private volatile boolean m_notificationStreamUnsupported;
+  //the stream being read, closed to reconnect at once when new namespaces are submitted
+  private volatile Closeable m_notificationStream;
   private SchedulePolicy m_longPollFailSchedulePolicyInSecond;
   private RateLimiter m_longPollRateLimiter;
   private final AtomicBoolean m_longPollStarted;
   private final Multimap<String, RemoteConfigRepository> m_longPollNamespaces;
   private final ConcurrentMap<String, Long> m_notifications;
   private final Map<String, ApolloNotificationMessages> m_remoteNotificationMessages;//namespaceName -> watchedKey -> notificationId
+  //the prefetched configs not taken in time are stale, e.g. the ones of the namespaces loaded before prefetching
+  private final Cache<String, ApolloConfig> m_prefetchedConfigs;
   private Type m_responseType;
+  private Type m_batchResponseType;
   private Gson gson;
   private ConfigUtil m_configUtil;
   private HttpUtil m_httpUtil;
@@ -77,6 +96,7 @@ public class RemoteConfigLongPollService {
   public RemoteConfigLongPollService() {
     m_longPollFailSchedulePolicyInSecond = new ExponentialSchedulePolicy(1, 120); //in second
     m_longPollingStopped = new AtomicBoolean(false);
+    m_notificationStreamOutdated = new AtomicBoolean(false);
     m_longPollingService = Executors.newSingleThreadExecutor(
         ApolloThreadFactory.create("RemoteConfigLongPollService", true));
     m_longPollStarted = new AtomicBoolean(false);
@@ -84,8 +104,12 @@ public class RemoteConfigLongPollService {
         Multimaps.synchronizedSetMultimap(HashMultimap.<String, RemoteConfigRepository>create());
     m_notifications = Maps.newConcurrentMap();
     m_remoteNotificationMessages = Maps.newConcurrentMap();
+    m_prefetchedConfigs = CacheBuilder.newBuilder()
+        .expireAfterWrite(PREFETCHED_CONFIG_EXPIRE_TIME_IN_SECONDS, TimeUnit.SECONDS).build();
     m_responseType = new TypeToken<List<ApolloConfigNotification>>() {
     }.getType();
+    m_batchResponseType = new TypeToken<List<ApolloConfig>>() {
+    }.getType();
     gson = new Gson();
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
     m_httpUtil = ApolloInjector.getInstance(HttpUtil.class);
@@ -96,7 +120,9 @@ public class RemoteConfigLongPollService {
   //http log polling
   public boolean submit(String namespace, RemoteConfigRepository remoteConfigRepository) {
     boolean added = m_longPollNamespaces.put(namespace, remoteConfigRepository);
-    m_notifications.putIfAbsent(namespace, INIT_NOTIFICATION_ID);
+    if (m_notifications.putIfAbsent(namespace, INIT_NOTIFICATION_ID) == null) {
+      markNotificationStreamOutdated();
+    }
     if (!m_longPollStarted.get()) {
       //start http log polling
       startLongPolling();
@@ -104,6 +130,54 @@ public class RemoteConfigLongPollService {
     return added;
   }
 
+  /**
+   * Resume the long polling of the namespace from the notification id and messages known before, e.g. by the last
+   * run, should be called before the namespace is submitted
+   */
+  void resumeNotifications(String namespace, long notificationId, ApolloNotificationMessages notificationMessages) {
+    if (notificationMessages != null && !notificationMessages.isEmpty()
+        && !m_remoteNotificationMessages.containsKey(namespace)) {
+      ApolloNotificationMessages localRemoteMessages = new ApolloNotificationMessages();
+      localRemoteMessages.mergeFrom(notificationMessages);
+      m_remoteNotificationMessages.put(namespace, localRemoteMessages);
+    }
+    if (m_notifications.putIfAbsent(namespace, notificationId) == null) {
+      markNotificationStreamOutdated();
+    }
+  }
+
+  private void markNotificationStreamOutdated() {
+    m_notificationStreamOutdated.set(true);
+    closeQuietly(m_notificationStream);
+  }
+
+  private void closeQuietly(Closeable closeable) {
+    if (closeable == null) {
+      return;
+    }
+    try {
+      closeable.close();
+    } catch (Throwable ex) {
+      //ignore
+    }
+  }
+
+  /**
+   * @return the notification id of the namespace, or {@link ConfigConsts#NOTIFICATION_ID_PLACEHOLDER} if unknown
+   */
+  long getNotificationId(String namespace) {
+    Long notificationId = m_notifications.get(namespace);
+    return notificationId == null ? INIT_NOTIFICATION_ID : notificationId;
+  }
+
+  /**
+   * @return a copy of the notification messages of the namespace, or null if unknown
+   */
+  ApolloNotificationMessages getNotificationMessages(String namespace) {
+    ApolloNotificationMessages notificationMessages = m_remoteNotificationMessages.get(namespace);
+    return notificationMessages == null ? null : notificationMessages.clone();
+  }
+
   private void startLongPolling() {
     if (!m_longPollStarted.compareAndSet(false, true)) {
       //already started
@@ -141,6 +215,7 @@ public class RemoteConfigLongPollService {
 
   void stopLongPollingRefresh() {
     this.m_longPollingStopped.compareAndSet(false, true);
+    closeQuietly(m_notificationStream);
   }
 
   private void doLongPollingRefresh(String appId, String cluster, String dataCenter) {
@@ -162,6 +237,23 @@ public class RemoteConfigLongPollService {
           lastServiceDto = configServices.get(random.nextInt(configServices.size()));
         }
 
+        if (m_configUtil.isNotificationStreamEnabled() && !m_notificationStreamUnsupported) {
+          //reset before assembling the url, so that the namespaces submitted afterwards would trigger a reconnection
+          m_notificationStreamOutdated.set(false);
+          url = assembleNotificationStreamUrl(lastServiceDto.getHomepageUrl(), appId, cluster, dataCenter,
+              m_notifications);
+          transaction.addData("Url", url);
+          logger.info("Streaming notifications from {}", url);
+
+          doStreamNotifications(lastServiceDto, url);
+
+          //the stream is closed by server side, e.g. timed out, try to load balance when reconnecting
+          lastServiceDto = null;
+          m_longPollFailSchedulePolicyInSecond.success();
+          transaction.setStatus(Transaction.SUCCESS);
+          continue;
+        }
+
         url =
             assembleLongPollRefreshUrl(lastServiceDto.getHomepageUrl(), appId, cluster, dataCenter,
                 m_notifications);
@@ -193,6 +285,14 @@ public class RemoteConfigLongPollService {
         transaction.addData("StatusCode", response.getStatusCode());
         transaction.setStatus(Transaction.SUCCESS);
       } catch (Throwable ex) {
+        if (isNotificationStreamUnsupported(ex)) {
+          //the config service is not upgraded yet, fall back to long polling
+          m_notificationStreamUnsupported = true;
+          logger.warn("Notification stream is not supported by config service, will fall back to long polling. url: {}",
+              url);
+          transaction.setStatus(ex);
+          continue;
+        }
         lastServiceDto = null;
         Tracer.logEvent("ApolloConfigException", ExceptionUtil.getDetailMessage(ex));
         transaction.setStatus(ex);
@@ -215,30 +315,188 @@ public class RemoteConfigLongPollService {
     }
   }
 
+  /**
+   * Receive the notifications from the stream until it's closed by server side, or there are new namespaces to watch,
+   * in which case the stream is closed at once
+   */
+  private void doStreamNotifications(final ServiceDTO serviceDto, String url) {
+    HttpRequest request = new HttpRequest(url);
+    //the server sends heartbeats periodically, so a broken connection could be detected by the read timeout
+    request.setReadTimeout(LONG_POLLING_READ_TIMEOUT);
+
+    try {
+      m_httpUtil.doGetEventStream(request, m_responseType,
+          new HttpEventStreamListener<List<ApolloConfigNotification>>() {
+            @Override
+            public void onOpen(Closeable stream) {
+              m_notificationStream = stream;
+              //the namespaces might be submitted before the stream is published
+              if (isCancelled()) {
+                closeQuietly(stream);
+              }
+            }
+
+            @Override
+            public void onEvent(List<ApolloConfigNotification> notifications) {
+              if (notifications == null || notifications.isEmpty()) {
+                return;
+              }
+              logger.debug("Notification stream pushed: {}", notifications);
+              updateNotifications(notifications);
+              updateRemoteNotifications(notifications);
+              RemoteConfigLongPollService.this.notify(serviceDto, notifications);
+            }
+
+            @Override
+            public boolean isCancelled() {
+              return m_longPollingStopped.get() || m_notificationStreamOutdated.get();
+            }
+          });
+    } finally {
+      m_notificationStream = null;
+    }
+  }
+
+  private boolean isNotificationStreamUnsupported(Throwable ex) {
+    if (!(ex instanceof ApolloConfigStatusCodeException)) {
+      return false;
+    }
+    int statusCode = ((ApolloConfigStatusCodeException) ex).getStatusCode();
+    return statusCode == 404 || statusCode == 405;
+  }
+
   private void notify(ServiceDTO lastServiceDto, List<ApolloConfigNotification> notifications) {
     if (notifications == null || notifications.isEmpty()) {
       return;
     }
+    Map<RemoteConfigRepository, ApolloNotificationMessages> toBeNotified = Maps.newLinkedHashMap();
     for (ApolloConfigNotification notification : notifications) {
       String namespaceName = notification.getNamespaceName();
       //create a new list to avoid ConcurrentModificationException
-      List<RemoteConfigRepository> toBeNotified =
+      List<RemoteConfigRepository> repositories =
           Lists.newArrayList(m_longPollNamespaces.get(namespaceName));
       ApolloNotificationMessages originalMessages = m_remoteNotificationMessages.get(namespaceName);
       ApolloNotificationMessages remoteMessages = originalMessages == null ? null : originalMessages.clone();
       //since .properties are filtered out by default, so we need to check if there is any listener for it
-      toBeNotified.addAll(m_longPollNamespaces
+      repositories.addAll(m_longPollNamespaces
           .get(String.format("%s.%s", namespaceName, ConfigFileFormat.Properties.getValue())));
-      for (RemoteConfigRepository remoteConfigRepository : toBeNotified) {
-        try {
-          remoteConfigRepository.onLongPollNotified(lastServiceDto, remoteMessages);
-        } catch (Throwable ex) {
-          Tracer.logError(ex);
+      for (RemoteConfigRepository remoteConfigRepository : repositories) {
+        toBeNotified.put(remoteConfigRepository, remoteMessages);
+      }
+    }
+
+    Map<String, ApolloConfig> batchLoadedConfigs = null;
+    if (m_configUtil.isBatchLoadConfigEnabled() && !toBeNotified.isEmpty()) {
+      batchLoadedConfigs = tryBatchLoadConfigs(lastServiceDto, toBeNotified);
+    }
+
+    for (Map.Entry<RemoteConfigRepository, ApolloNotificationMessages> entry : toBeNotified.entrySet()) {
+      RemoteConfigRepository remoteConfigRepository = entry.getKey();
+      try {
+        ApolloConfig batchLoadedConfig =
+            batchLoadedConfigs == null ? null : batchLoadedConfigs.get(remoteConfigRepository.getNamespace());
+        if (batchLoadedConfig != null) {
+          remoteConfigRepository.onBatchLoaded(entry.getValue(), batchLoadedConfig);
+        } else {
+          //not batch loaded, e.g. the namespace is not found, let the repository load it by itself
+          remoteConfigRepository.onLongPollNotified(lastServiceDto, entry.getValue());
         }
+      } catch (Throwable ex) {
+        Tracer.logError(ex);
       }
     }
   }
 
+  /**
+   * Load the configs of the notified repositories in one request
+   *
+   * @return namespace -> loaded config, or null if the batch load failed
+   */
+  private Map<String, ApolloConfig> tryBatchLoadConfigs(ServiceDTO serviceDto,
+      Map<RemoteConfigRepository, ApolloNotificationMessages> repositories) {
+    Map<String, String> releaseKeys = Maps.newLinkedHashMap();
+    ApolloNotificationMessages mergedMessages = new ApolloNotificationMessages();
+    for (Map.Entry<RemoteConfigRepository, ApolloNotificationMessages> entry : repositories.entrySet()) {
+      releaseKeys.put(entry.getKey().getNamespace(), entry.getKey().getReleaseKey());
+      mergedMessages.mergeFrom(entry.getValue());
+    }
+
+    return tryBatchLoadConfigs(serviceDto, releaseKeys, mergedMessages);
+  }
+
+  /**
+   * @param releaseKeys namespace -> client side release key
+   * @return namespace -> loaded config, or null if the batch load failed
+   */
+  private Map<String, ApolloConfig> tryBatchLoadConfigs(ServiceDTO serviceDto, Map<String, String> releaseKeys,
+      ApolloNotificationMessages remoteMessages) {
+    String url = assembleBatchQueryConfigUrl(serviceDto.getHomepageUrl(), m_configUtil.getAppId(),
+        m_configUtil.getCluster(), m_configUtil.getDataCenter(), releaseKeys, remoteMessages);
+
+    Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "batchQueryConfig");
+    transaction.addData("Url", url);
+    try {
+      HttpResponse<List<ApolloConfig>> response = m_httpUtil.doGet(new HttpRequest(url), m_batchResponseType);
+      transaction.addData("StatusCode", response.getStatusCode());
+      transaction.setStatus(Transaction.SUCCESS);
+
+      Map<String, ApolloConfig> result = Maps.newHashMap();
+      if (response.getBody() != null) {
+        for (ApolloConfig apolloConfig : response.getBody()) {
+          result.put(apolloConfig.getNamespaceName(), apolloConfig);
+        }
+      }
+      return result;
+    } catch (Throwable ex) {
+      Tracer.logEvent("ApolloConfigException", ExceptionUtil.getDetailMessage(ex));
+      transaction.setStatus(ex);
+      logger.warn("Batch load config failed, will load the namespaces one by one. namespaces: {}, reason: {}",
+          releaseKeys.keySet(), ExceptionUtil.getDetailMessage(ex));
+    } finally {
+      transaction.complete();
+    }
+    return null;
+  }
+
+  /**
+   * Load the configs of the namespaces in one request before their repositories are created, the loaded configs are
+   * taken by the repositories instead of loading them one by one
+   */
+  public void prefetchConfigs(Collection<String> namespaces) {
+    Map<String, String> releaseKeys = Maps.newLinkedHashMap();
+    for (String namespace : namespaces) {
+      //no release key means the full config is requested
+      releaseKeys.put(namespace, NO_RELEASE_KEY);
+    }
+
+    List<ServiceDTO> configServices = getConfigServices();
+    ServiceDTO configService = configServices.get(ThreadLocalRandom.current().nextInt(configServices.size()));
+    Map<String, ApolloConfig> loadedConfigs = tryBatchLoadConfigs(configService, releaseKeys, null);
+    if (loadedConfigs == null) {
+      return;
+    }
+
+    for (ApolloConfig loadedConfig : loadedConfigs.values()) {
+      if (loadedConfig.getConfigurations() != null) {
+        m_prefetchedConfigs.put(loadedConfig.getNamespaceName(), loadedConfig);
+      }
+    }
+  }
+
+  /**
+   * @return the config prefetched for the namespace, which could be taken only once, or null if not prefetched
+   */
+  ApolloConfig takePrefetchedConfig(String namespace) {
+    return m_prefetchedConfigs.asMap().remove(namespace);
+  }
+
+  /**
+   * Discard the prefetched configs not taken, e.g. the ones of the namespaces whose repositories were created before
+   */
+  public void discardPrefetchedConfigs(Collection<String> namespaces) {
+    m_prefetchedConfigs.invalidateAll(namespaces);
+  }
+
   private void updateNotifications(List<ApolloConfigNotification> deltaNotifications) {
     for (ApolloConfigNotification notification : deltaNotifications) {
       if (Strings.isNullOrEmpty(notification.getNamespaceName())) {
@@ -284,6 +542,16 @@ public class RemoteConfigLongPollService {
 
   String assembleLongPollRefreshUrl(String uri, String appId, String cluster, String dataCenter,
                                     Map<String, Long> notificationsMap) {
+    return assembleNotificationsUrl(uri, "notifications/v2", appId, cluster, dataCenter, notificationsMap);
+  }
+
+  String assembleNotificationStreamUrl(String uri, String appId, String cluster, String dataCenter,
+                                       Map<String, Long> notificationsMap) {
+    return assembleNotificationsUrl(uri, "notifications/v3", appId, cluster, dataCenter, notificationsMap);
+  }
+
+  private String assembleNotificationsUrl(String uri, String path, String appId, String cluster, String dataCenter,
+                                          Map<String, Long> notificationsMap) {
     Map<String, String> queryParams = Maps.newHashMap();
     queryParams.put("appId", queryParamEscaper.escape(appId));
     queryParams.put("cluster", queryParamEscaper.escape(cluster));
@@ -303,7 +571,31 @@ public class RemoteConfigLongPollService {
       uri += "/";
     }
 
-    return uri + "notifications/v2?" + params;
+    return uri + path + "?" + params;
+  }
+
+  String assembleBatchQueryConfigUrl(String uri, String appId, String cluster, String dataCenter,
+                                     Map<String, String> releaseKeys, ApolloNotificationMessages remoteMessages) {
+    Map<String, String> queryParams = Maps.newHashMap();
+    queryParams.put("releaseKeys", queryParamEscaper.escape(gson.toJson(releaseKeys)));
+
+    if (!Strings.isNullOrEmpty(dataCenter)) {
+      queryParams.put("dataCenter", queryParamEscaper.escape(dataCenter));
+    }
+    String localIp = m_configUtil.getLocalIp();
+    if (!Strings.isNullOrEmpty(localIp)) {
+      queryParams.put("ip", queryParamEscaper.escape(localIp));
+    }
+    if (remoteMessages != null && !remoteMessages.isEmpty()) {
+      queryParams.put("messages", queryParamEscaper.escape(gson.toJson(remoteMessages)));
+    }
+
+    if (!uri.endsWith("/")) {
+      uri += "/";
+    }
+
+    return uri + String.format("configs/%s/%s?", pathEscaper.escape(appId), pathEscaper.escape(cluster))
+        + MAP_JOINER.join(queryParams);
   }
 
   String assembleNotifications(Map<String, Long> notificationsMap) {
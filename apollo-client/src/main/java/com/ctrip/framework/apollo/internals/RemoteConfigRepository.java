@@ -2,11 +2,13 @@ package com.ctrip.framework.apollo.internals;
 
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
 
+import java.io.File;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -60,11 +62,15 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
   private final RemoteConfigLongPollService remoteConfigLongPollService;
   private volatile AtomicReference<ApolloConfig> m_configCache;
   private final String m_namespace;
+  private final File m_localCacheDir;
   private final static ScheduledExecutorService m_executorService;
   private final AtomicReference<ServiceDTO> m_longPollServiceDto;
   private final AtomicReference<ApolloNotificationMessages> m_remoteMessages;
   private final RateLimiter m_loadConfigRateLimiter;
   private final AtomicBoolean m_configNeedForceRefresh;
+  private final AtomicBoolean m_configNeedFullLoad;
+  //the config resumed from the local snapshot, whose release key is sent on the first load
+  private volatile ApolloConfig m_resumedConfig;
   private final SchedulePolicy m_loadConfigFailSchedulePolicy;
   private final Gson gson;
 
@@ -79,7 +85,15 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
    * @param namespace the namespace
    */
   public RemoteConfigRepository(String namespace) {
+    this(namespace, LocalFileConfigRepository.findLocalCacheDir(ApolloInjector.getInstance(ConfigUtil.class)));
+  }
+
+  /**
+   * @param localCacheDir the local cache dir to resume from, i.e. the one of the local file repository
+   */
+  RemoteConfigRepository(String namespace, File localCacheDir) {
     m_namespace = namespace;
+    m_localCacheDir = localCacheDir;
     m_configCache = new AtomicReference<>();
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
     m_httpUtil = ApolloInjector.getInstance(HttpUtil.class);
@@ -89,16 +103,43 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     m_remoteMessages = new AtomicReference<>();
     m_loadConfigRateLimiter = RateLimiter.create(m_configUtil.getLoadConfigQPS());
     m_configNeedForceRefresh = new AtomicBoolean(true);
+    m_configNeedFullLoad = new AtomicBoolean(false);
     m_loadConfigFailSchedulePolicy = new ExponentialSchedulePolicy(m_configUtil.getOnErrorRetryInterval(),
         m_configUtil.getOnErrorRetryInterval() * 8);
     gson = new Gson();
-    this.trySync();
+    ApolloConfig prefetchedConfig = remoteConfigLongPollService.takePrefetchedConfig(m_namespace);
+    if (prefetchedConfig != null) {
+      updateConfig(null, prefetchedConfig);
+      m_configNeedForceRefresh.set(false);
+    } else {
+      this.tryResumeFromLocalSnapshot();
+      this.trySync();
+    }
     //5分钟同步一次
     this.schedulePeriodicRefresh();
     //http long pulling 定时任务开启
     this.scheduleLongPollingRefresh();
   }
 
+  /**
+   * Resume from the local snapshot persisted by the last run, so that the first load is answered with 304 or the
+   * delta if the config is not changed much since then, and the long polling starts from the last notification id
+   * and messages, so that it is parked by the config service instead of being answered immediately
+   */
+  private void tryResumeFromLocalSnapshot() {
+    LocalConfigSnapshot snapshot = LocalFileConfigRepository.tryLoadLocalSnapshot(m_localCacheDir, m_namespace);
+    if (snapshot == null || snapshot.getReleaseKey() == null) {
+      return;
+    }
+    ApolloConfig resumedConfig = new ApolloConfig(m_configUtil.getAppId(), m_configUtil.getCluster(), m_namespace,
+        snapshot.getReleaseKey());
+    resumedConfig.setConfigurations(Maps.fromProperties(snapshot.getConfigurations()));
+    m_resumedConfig = resumedConfig;
+    m_remoteMessages.set(snapshot.getNotificationMessages());
+    remoteConfigLongPollService.resumeNotifications(m_namespace, snapshot.getNotificationId(),
+        snapshot.getNotificationMessages());
+  }
+
   @Override
   public Properties getConfig() {
     if (m_configCache.get() == null) {
@@ -107,6 +148,10 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     return transformApolloConfigToProperties(m_configCache.get());
   }
 
+  File getLocalCacheDir() {
+    return m_localCacheDir;
+  }
+
   @Override
   public void setUpstreamRepository(ConfigRepository upstreamConfigRepository) {
     //remote config doesn't need upstream
@@ -141,16 +186,48 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
       ApolloConfig previous = m_configCache.get();
       ApolloConfig current = loadApolloConfig();
 
-      //reference equals means HTTP 304
-      if (previous != current) {
-        logger.info("Remote Config refreshed!");
-        m_configCache.set(current);
-        this.fireRepositoryChange(m_namespace, this.getConfig());
-      }
+      updateConfig(previous, current);
+
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      throw ex;
+    } finally {
+      transaction.complete();
+    }
+  }
+
+  private void updateConfig(ApolloConfig previous, ApolloConfig current) {
+    //reference equals means HTTP 304
+    if (previous != current) {
+      logger.info("Remote Config refreshed!");
+      m_configCache.set(current);
+      this.fireRepositoryChange(m_namespace, this.getConfig());
+    }
 
-      if (current != null) {
-        Tracer.logEvent(String.format("Apollo.Client.Configs.%s", current.getNamespaceName()),
-            current.getReleaseKey());
+    if (current != null) {
+      Tracer.logEvent(String.format("Apollo.Client.Configs.%s", current.getNamespaceName()),
+          current.getReleaseKey());
+    }
+  }
+
+  /**
+   * Apply the config loaded by the batch query api
+   *
+   * @param apolloConfig the loaded config, whose configurations are null if the local one is up to date
+   */
+  private synchronized void applyBatchLoadedConfig(ApolloConfig apolloConfig) {
+    Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "applyBatchLoadedConfig");
+
+    try {
+      ApolloConfig previous = m_configCache.get();
+      ApolloConfig current = apolloConfig.getConfigurations() == null ? previous : apolloConfig;
+
+      if (current == null) {
+        //not loaded before and nothing returned, fall back to the normal sync
+        sync();
+      } else {
+        updateConfig(previous, current);
       }
 
       transaction.setStatus(Transaction.SUCCESS);
@@ -162,6 +239,32 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     }
   }
 
+  /**
+   * @return the release key of the current config, null if not loaded yet
+   */
+  String getReleaseKey() {
+    ApolloConfig current = m_configCache.get();
+    return current == null ? null : current.getReleaseKey();
+  }
+
+  String getNamespace() {
+    return m_namespace;
+  }
+
+  /**
+   * @return the notification id of the namespace known by the long polling
+   */
+  long getNotificationId() {
+    return remoteConfigLongPollService.getNotificationId(m_namespace);
+  }
+
+  /**
+   * @return the notification messages of the namespace known by the long polling, null if unknown
+   */
+  ApolloNotificationMessages getNotificationMessages() {
+    return remoteConfigLongPollService.getNotificationMessages(m_namespace);
+  }
+
   private Properties transformApolloConfigToProperties(ApolloConfig apolloConfig) {
     Properties result = new Properties();
     result.putAll(apolloConfig.getConfigurations());
@@ -207,8 +310,14 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
           }
         }
 
+        ApolloConfig previous = m_configCache.get();
+        if (previous == null) {
+          previous = m_resumedConfig;
+        }
+        //the full config is loaded once after a delta failed to apply
+        boolean delta = m_configUtil.isDeltaConfigEnabled() && !m_configNeedFullLoad.get();
         url = assembleQueryConfigUrl(configService.getHomepageUrl(), appId, cluster, m_namespace,
-                dataCenter, m_remoteMessages.get(), m_configCache.get());
+                dataCenter, m_remoteMessages.get(), previous, delta);
 
         try {
           logger.info("===client-loadApolloConfig=========>Loading config from {}", URLDecoder.decode(url,"utf-8"));
@@ -224,17 +333,24 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
           HttpResponse<ApolloConfig> response = m_httpUtil.doGet(request, ApolloConfig.class);
           m_configNeedForceRefresh.set(false);
           m_loadConfigFailSchedulePolicy.success();
+          m_resumedConfig = null;
 
           transaction.addData("StatusCode", response.getStatusCode());
           transaction.setStatus(Transaction.SUCCESS);
 
           if (response.getStatusCode() == 304) {
             logger.info("Config server responds with 304 HTTP status code.");
-            return m_configCache.get();
+            m_configNeedFullLoad.set(false);
+            return previous;
           }
 
           ApolloConfig result = response.getBody();
 
+          if (result != null && result.getChangedConfigurations() != null) {
+            result = applyDelta(previous, result);
+          }
+          m_configNeedFullLoad.set(false);
+
           logger.info("Loaded config for {}: {}", m_namespace, result);
 
           return result;
@@ -272,8 +388,38 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     throw new ApolloConfigException(message, exception);
   }
 
+  /**
+   * Apply the delta configurations to the previous config
+   *
+   * @throws ApolloConfigException if the delta is not based on the previous config
+   */
+  private ApolloConfig applyDelta(ApolloConfig previous, ApolloConfig delta) {
+    if (previous == null || previous.getConfigurations() == null ||
+        !Objects.equals(previous.getReleaseKey(), delta.getBaseReleaseKey())) {
+      //should not happen, but if it does, load the full config next time
+      m_configNeedFullLoad.set(true);
+      throw new ApolloConfigException(String.format(
+          "Delta config is not based on the local config, namespace: %s, local release key: %s, base release key: %s",
+          m_namespace, previous == null ? null : previous.getReleaseKey(), delta.getBaseReleaseKey()));
+    }
+
+    Map<String, String> configurations = Maps.newHashMap(previous.getConfigurations());
+    if (delta.getDeletedKeys() != null) {
+      for (String deletedKey : delta.getDeletedKeys()) {
+        configurations.remove(deletedKey);
+      }
+    }
+    configurations.putAll(delta.getChangedConfigurations());
+
+    ApolloConfig result = new ApolloConfig(delta.getAppId(), delta.getCluster(), delta.getNamespaceName(),
+        delta.getReleaseKey());
+    result.setConfigurations(configurations);
+    return result;
+  }
+
   String assembleQueryConfigUrl(String uri, String appId, String cluster, String namespace,
-                                String dataCenter, ApolloNotificationMessages remoteMessages, ApolloConfig previousConfig) {
+                                String dataCenter, ApolloNotificationMessages remoteMessages, ApolloConfig previousConfig,
+                                boolean delta) {
 
     String path = "configs/%s/%s/%s";
     List<String> pathParams =
@@ -283,6 +429,10 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
 
     if (previousConfig != null) {
       queryParams.put("releaseKey", queryParamEscaper.escape(previousConfig.getReleaseKey()));
+
+      if (delta) {
+        queryParams.put("delta", "true");
+      }
     }
 
     if (!Strings.isNullOrEmpty(dataCenter)) {
@@ -325,6 +475,21 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     });
   }
 
+  public void onBatchLoaded(ApolloNotificationMessages remoteMessages, final ApolloConfig apolloConfig) {
+    m_remoteMessages.set(remoteMessages);
+    m_executorService.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          applyBatchLoadedConfig(apolloConfig);
+        } catch (Throwable ex) {
+          logger.warn("Apply batch loaded config failed, namespace: {}, reason: {}", m_namespace,
+              ExceptionUtil.getDetailMessage(ex));
+        }
+      }
+    });
+  }
+
   private List<ServiceDTO> getConfigServices() {
     List<ServiceDTO> services = m_serviceLocator.getConfigServices();
     if (services.size() == 0) {
@@ -94,7 +94,7 @@ public class SimpleConfig extends AbstractConfig implements RepositoryChangeList
         });
 
     updateConfig(newConfigProperties, m_configRepository.getSourceType());
-    clearConfigCache();
+    clearConfigCache(changeMap.keySet());
 
     this.fireConfigChange(new ConfigChangeEvent(m_namespace, changeMap));
 
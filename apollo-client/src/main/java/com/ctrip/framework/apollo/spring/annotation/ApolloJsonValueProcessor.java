@@ -63,11 +63,14 @@ public class ApolloJsonValueProcessor extends ApolloProcessor implements BeanFac
 
     if (configUtil.isAutoUpdateInjectedSpringPropertiesEnabled()) {
       Set<String> keys = placeholderHelper.extractPlaceholderKeys(placeholder);
+      if (keys.isEmpty()) {
+        return;
+      }
+      SpringValue springValue = new SpringValue(keys, placeholder, bean, beanName, field, true);
       for (String key : keys) {
-        SpringValue springValue = new SpringValue(key, placeholder, bean, beanName, field, true);
         springValueRegistry.register(beanFactory, key, springValue);
-        logger.debug("Monitoring {}", springValue);
       }
+      logger.debug("Monitoring {}", springValue);
     }
   }
 
@@ -99,12 +102,14 @@ public class ApolloJsonValueProcessor extends ApolloProcessor implements BeanFac
 
     if (configUtil.isAutoUpdateInjectedSpringPropertiesEnabled()) {
       Set<String> keys = placeholderHelper.extractPlaceholderKeys(placeHolder);
+      if (keys.isEmpty()) {
+        return;
+      }
+      SpringValue springValue = new SpringValue(keys, apolloJsonValue.value(), bean, beanName, method, true);
       for (String key : keys) {
-        SpringValue springValue = new SpringValue(key, apolloJsonValue.value(), bean, beanName,
-            method, true);
         springValueRegistry.register(beanFactory, key, springValue);
-        logger.debug("Monitoring {}", springValue);
       }
+      logger.debug("Monitoring {}", springValue);
     }
   }
 
@@ -9,11 +9,13 @@ import com.ctrip.framework.apollo.spring.property.SpringValueRegistry;
 import com.ctrip.framework.apollo.spring.util.SpringInjector;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.Sets;
 import com.google.common.collect.Multimap;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -84,11 +86,11 @@ public class SpringValueProcessor extends ApolloProcessor implements BeanFactory
       return;
     }
 
+    SpringValue springValue = new SpringValue(keys, value.value(), bean, beanName, field, false);
     for (String key : keys) {
-      SpringValue springValue = new SpringValue(key, value.value(), bean, beanName, field, false);
       springValueRegistry.register(beanFactory, key, springValue);
-      logger.debug("Monitoring {}", springValue);
     }
+    logger.debug("Monitoring {}", springValue);
   }
 
   @Override
@@ -114,11 +116,11 @@ public class SpringValueProcessor extends ApolloProcessor implements BeanFactory
       return;
     }
 
+    SpringValue springValue = new SpringValue(keys, value.value(), bean, beanName, method, false);
     for (String key : keys) {
-      SpringValue springValue = new SpringValue(key, value.value(), bean, beanName, method, false);
       springValueRegistry.register(beanFactory, key, springValue);
-      logger.info("Monitoring {}", springValue);
     }
+    logger.info("Monitoring {}", springValue);
   }
 
 
@@ -129,21 +131,32 @@ public class SpringValueProcessor extends ApolloProcessor implements BeanFactory
       return;
     }
 
+    //the definitions are by key, the ones of the same property share the spring value
+    Multimap<String, SpringValueDefinition> propertyName2Definitions = LinkedListMultimap.create();
     for (SpringValueDefinition definition : propertySpringValues) {
+      propertyName2Definitions.put(definition.getPropertyName(), definition);
+    }
+    for (Map.Entry<String, Collection<SpringValueDefinition>> entry : propertyName2Definitions.asMap().entrySet()) {
+      String propertyName = entry.getKey();
       try {
         PropertyDescriptor pd = BeanUtils
-            .getPropertyDescriptor(bean.getClass(), definition.getPropertyName());
+            .getPropertyDescriptor(bean.getClass(), propertyName);
         Method method = pd.getWriteMethod();
         if (method == null) {
           continue;
         }
-        SpringValue springValue = new SpringValue(definition.getKey(), definition.getPlaceholder(),
+        Set<String> keys = Sets.newLinkedHashSet();
+        for (SpringValueDefinition definition : entry.getValue()) {
+          keys.add(definition.getKey());
+        }
+        SpringValue springValue = new SpringValue(keys, entry.getValue().iterator().next().getPlaceholder(),
             bean, beanName, method, false);
-        springValueRegistry.register(beanFactory, definition.getKey(), springValue);
+        for (String key : keys) {
+          springValueRegistry.register(beanFactory, key, springValue);
+        }
         logger.debug("Monitoring {}", springValue);
       } catch (Throwable ex) {
-        logger.error("Failed to enable auto update feature for {}.{}", bean.getClass(),
-            definition.getPropertyName());
+        logger.error("Failed to enable auto update feature for {}.{}", bean.getClass(), propertyName);
       }
     }
 
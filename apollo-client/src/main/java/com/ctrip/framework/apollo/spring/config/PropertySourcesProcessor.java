@@ -66,6 +66,9 @@ public class PropertySourcesProcessor implements BeanFactoryPostProcessor, Envir
     }
     CompositePropertySource composite = new CompositePropertySource(PropertySourcesConstants.APOLLO_PROPERTY_SOURCE_NAME);
 
+    //load the declared namespaces at the same time
+    ConfigService.prefetchConfigs(NAMESPACE_NAMES.values());
+
     //sort by order asc
     ImmutableSortedSet<Integer> orders = ImmutableSortedSet.copyOf(NAMESPACE_NAMES.keySet());
     Iterator<Integer> iterator = orders.iterator();
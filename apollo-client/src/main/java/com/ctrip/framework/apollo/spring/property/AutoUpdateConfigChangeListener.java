@@ -13,9 +13,13 @@ import java.util.Objects;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.PropertyEditorRegistry;
 import org.springframework.beans.TypeConverter;
+import org.springframework.beans.factory.config.BeanExpressionContext;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.env.Environment;
 import org.springframework.util.CollectionUtils;
 
@@ -49,24 +53,34 @@ public class AutoUpdateConfigChangeListener implements ConfigChangeListener{
     if (CollectionUtils.isEmpty(keys)) {
       return;
     }
-    for (String key : keys) {
-      // 1. check whether the changed key is relevant
-      Collection<SpringValue> targetValues = springValueRegistry.get(beanFactory, key);
-      if (targetValues == null || targetValues.isEmpty()) {
-        continue;
-      }
+    // 1. find the relevant values of all the changed keys at once, so that the value bound to more than one of them,
+    // e.g. ${a}.${b}, is updated only once
+    Collection<SpringValue> targetValues = springValueRegistry.get(beanFactory, keys);
 
-      // 2. update the value
-      for (SpringValue val : targetValues) {
-        updateSpringValue(val);
-      }
+    // 2. update the values
+    for (SpringValue val : targetValues) {
+      updateSpringValue(val);
     }
   }
 
   private void updateSpringValue(SpringValue springValue) {
     try {
-      Object value = resolvePropertyValue(springValue);
+      // the expression context is created once per spring value, as the bean definition and scope never change
+      BeanExpressionContext expressionContext = springValue.getExpressionContext();
+      if (expressionContext == null) {
+        expressionContext = placeholderHelper.createExpressionContext(beanFactory, springValue.getBeanName());
+        springValue.setExpressionContext(expressionContext);
+      }
+      // value will never be null, as @Value and @ApolloJsonValue will not allow that
+      Object placeholderValue = placeholderHelper
+          .resolvePropertyValue(beanFactory, springValue.getPlaceholder(), expressionContext);
+      if (springValue.isInjectedFrom(placeholderValue)) {
+        // the change does not affect the resolved value, e.g. the key is overridden by another property source
+        return;
+      }
+      Object value = convertPropertyValue(springValue, placeholderValue);
       springValue.update(value);
+      springValue.setInjectedFrom(placeholderValue);
 
       logger.info("Auto update apollo changed value successfully, new value: {}, {}", value,
           springValue);
@@ -79,13 +93,13 @@ public class AutoUpdateConfigChangeListener implements ConfigChangeListener{
    * Logic transplanted from DefaultListableBeanFactory
    * @see org.springframework.beans.factory.support.DefaultListableBeanFactory#doResolveDependency(org.springframework.beans.factory.config.DependencyDescriptor, java.lang.String, java.util.Set, org.springframework.beans.TypeConverter)
    */
-  private Object resolvePropertyValue(SpringValue springValue) {
-    // value will never be null, as @Value and @ApolloJsonValue will not allow that
-    Object value = placeholderHelper
-        .resolvePropertyValue(beanFactory, springValue.getBeanName(), springValue.getPlaceholder());
-
+  private Object convertPropertyValue(SpringValue springValue, Object value) {
     if (springValue.isJson()) {
       value = parseJsonValue((String)value, springValue.getGenericType());
+    } else if (canConvertWithConversionService(springValue, value)) {
+      // same as the type converter, which builds the type descriptor on each conversion
+      value = beanFactory.getConversionService()
+          .convert(value, TypeDescriptor.forObject(value), springValue.getTargetTypeDescriptor());
     } else {
       if (springValue.isField()) {
         // org.springframework.beans.TypeConverter#convertIfNecessary(java.lang.Object, java.lang.Class, java.lang.reflect.Field) is available from Spring 3.2.0+
@@ -104,6 +118,23 @@ public class AutoUpdateConfigChangeListener implements ConfigChangeListener{
     return value;
   }
 
+  /**
+   * The type converter delegates to the conversion service of the bean factory if there is no custom editor for the
+   * target type, in which case the conversion service is called directly with the type descriptor of the spring value.
+   * The conversion service is looked up on each conversion, as it is set to the bean factory after this listener is
+   * created.
+   */
+  private boolean canConvertWithConversionService(SpringValue springValue, Object value) {
+    ConversionService conversionService = beanFactory.getConversionService();
+    if (conversionService == null || value == null || !(typeConverter instanceof PropertyEditorRegistry)) {
+      return false;
+    }
+    if (((PropertyEditorRegistry) typeConverter).findCustomEditor(springValue.getTargetType(), null) != null) {
+      return false;
+    }
+    return conversionService.canConvert(TypeDescriptor.forObject(value), springValue.getTargetTypeDescriptor());
+  }
+
   private Object parseJsonValue(String json, Type targetType) {
     try {
       return gson.fromJson(json, targetType);
@@ -30,25 +30,35 @@ public class PlaceholderHelper {
    * "${somePropertyValue}" -> "the actual property value"
    */
   public Object resolvePropertyValue(ConfigurableBeanFactory beanFactory, String beanName, String placeholder) {
+    return resolvePropertyValue(beanFactory, placeholder, createExpressionContext(beanFactory, beanName));
+  }
+
+  /**
+   * Resolve placeholder property values with the expression context created before, so the bean definition and scope
+   * of the bean are not looked up again
+   *
+   * @see #createExpressionContext(ConfigurableBeanFactory, String)
+   */
+  public Object resolvePropertyValue(ConfigurableBeanFactory beanFactory, String placeholder,
+      BeanExpressionContext expressionContext) {
     // resolve string value
     String strVal = beanFactory.resolveEmbeddedValue(placeholder);
 
-    BeanDefinition bd = (beanFactory.containsBean(beanName) ? beanFactory
-        .getMergedBeanDefinition(beanName) : null);
-
     // resolve expressions like "#{systemProperties.myProp}"
-    return evaluateBeanDefinitionString(beanFactory, strVal, bd);
-  }
-
-  private Object evaluateBeanDefinitionString(ConfigurableBeanFactory beanFactory, String value,
-      BeanDefinition beanDefinition) {
     if (beanFactory.getBeanExpressionResolver() == null) {
-      return value;
+      return strVal;
     }
-    Scope scope = (beanDefinition != null ? beanFactory
-        .getRegisteredScope(beanDefinition.getScope()) : null);
-    return beanFactory.getBeanExpressionResolver()
-        .evaluate(value, new BeanExpressionContext(beanFactory, scope));
+    return beanFactory.getBeanExpressionResolver().evaluate(strVal, expressionContext);
+  }
+
+  /**
+   * Create the context to evaluate the expressions in the placeholders of the bean
+   */
+  public BeanExpressionContext createExpressionContext(ConfigurableBeanFactory beanFactory, String beanName) {
+    BeanDefinition bd = (beanFactory.containsBean(beanName) ? beanFactory
+        .getMergedBeanDefinition(beanName) : null);
+    Scope scope = (bd != null ? beanFactory.getRegisteredScope(bd.getScope()) : null);
+    return new BeanExpressionContext(beanFactory, scope);
   }
 
   /**
@@ -5,7 +5,10 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.Set;
+import org.springframework.beans.factory.config.BeanExpressionContext;
 import org.springframework.core.MethodParameter;
+import org.springframework.core.convert.TypeDescriptor;
 
 /**
  * Spring @Value method info
@@ -19,36 +22,52 @@ public class SpringValue {
   private Field field;
   private WeakReference<Object> beanRef;
   private String beanName;
-  private String key;
+  private Set<String> keys;
   private String placeholder;
   private Class<?> targetType;
+  private TypeDescriptor targetTypeDescriptor;
   private Type genericType;
   private boolean isJson;
-
-  public SpringValue(String key, String placeholder, Object bean, String beanName, Field field, boolean isJson) {
+  //resolved on the first update, as the bean factory is not known when the value is created
+  private volatile BeanExpressionContext expressionContext;
+  private volatile Object injectedPlaceholderValue;
+
+  /**
+   * @param keys all the keys of the placeholder, the value is updated once if more than one of them are changed
+   */
+  public SpringValue(Set<String> keys, String placeholder, Object bean, String beanName, Field field,
+      boolean isJson) {
     this.beanRef = new WeakReference<>(bean);
     this.beanName = beanName;
     this.field = field;
-    this.key = key;
+    this.keys = keys;
     this.placeholder = placeholder;
     this.targetType = field.getType();
     this.isJson = isJson;
     if(isJson){
       this.genericType = field.getGenericType();
+    } else {
+      this.targetTypeDescriptor = new TypeDescriptor(field);
     }
   }
 
-  public SpringValue(String key, String placeholder, Object bean, String beanName, Method method, boolean isJson) {
+  /**
+   * @param keys all the keys of the placeholder, the value is updated once if more than one of them are changed
+   */
+  public SpringValue(Set<String> keys, String placeholder, Object bean, String beanName, Method method,
+      boolean isJson) {
     this.beanRef = new WeakReference<>(bean);
     this.beanName = beanName;
     this.methodParameter = new MethodParameter(method, 0);
-    this.key = key;
+    this.keys = keys;
     this.placeholder = placeholder;
     Class<?>[] paramTps = method.getParameterTypes();
     this.targetType = paramTps[0];
     this.isJson = isJson;
     if(isJson){
       this.genericType = method.getGenericParameterTypes()[0];
+    } else {
+      this.targetTypeDescriptor = new TypeDescriptor(methodParameter);
     }
   }
 
@@ -84,6 +103,10 @@ public class SpringValue {
     return beanName;
   }
 
+  public Set<String> getKeys() {
+    return keys;
+  }
+
   public Class<?> getTargetType() {
     return targetType;
   }
@@ -108,12 +131,41 @@ public class SpringValue {
     return genericType;
   }
 
+  /**
+   * @return the type descriptor of the field or method parameter, which is built once instead of on each conversion,
+   * null if the value is json
+   */
+  TypeDescriptor getTargetTypeDescriptor() {
+    return targetTypeDescriptor;
+  }
+
+  BeanExpressionContext getExpressionContext() {
+    return expressionContext;
+  }
+
+  void setExpressionContext(BeanExpressionContext expressionContext) {
+    this.expressionContext = expressionContext;
+  }
+
   public boolean isJson() {
     return isJson;
   }
 
-  boolean isTargetBeanValid() {
-    return beanRef.get() != null;
+  /**
+   * @return whether the value injected last time by the auto update is resolved from the same placeholder value, so
+   * the conversion and injection could be skipped
+   */
+  boolean isInjectedFrom(Object placeholderValue) {
+    Object injected = this.injectedPlaceholderValue;
+    return injected != null && injected.equals(placeholderValue);
+  }
+
+  void setInjectedFrom(Object placeholderValue) {
+    this.injectedPlaceholderValue = placeholderValue;
+  }
+
+  Object getBean() {
+    return beanRef.get();
   }
 
   @Override
@@ -124,9 +176,9 @@ public class SpringValue {
     }
     if (isField()) {
       return String
-          .format("key: %s, beanName: %s, field: %s.%s", key, beanName, bean.getClass().getName(), field.getName());
+          .format("keys: %s, beanName: %s, field: %s.%s", keys, beanName, bean.getClass().getName(), field.getName());
     }
-    return String.format("key: %s, beanName: %s, method: %s.%s", key, beanName, bean.getClass().getName(),
+    return String.format("keys: %s, beanName: %s, method: %s.%s", keys, beanName, bean.getClass().getName(),
         methodParameter.getMethod().getName());
   }
 }
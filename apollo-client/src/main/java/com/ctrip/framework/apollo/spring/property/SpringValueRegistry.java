@@ -1,77 +1,103 @@
 package com.ctrip.framework.apollo.spring.property;
 
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
-import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
-import com.google.common.collect.Multimaps;
 import org.springframework.beans.factory.BeanFactory;
 
+/**
+ * The spring values by bean factory and key. The beans are referenced weakly, once a bean is garbage collected, its
+ * spring values are removed from the keys they are registered with, which are known from the reference queue, so the
+ * registry is never scanned as a whole.
+ */
 public class SpringValueRegistry {
-  private static final long CLEAN_INTERVAL_IN_SECONDS = 5;
-  private final Map<BeanFactory, Multimap<String, SpringValue>> registry = Maps.newConcurrentMap();
-  private final AtomicBoolean initialized = new AtomicBoolean(false);
-  private final Object LOCK = new Object();
+  private final ConcurrentMap<BeanFactory, ConcurrentMap<String, Set<SpringValue>>> registry =
+      Maps.newConcurrentMap();
+  private final ReferenceQueue<Object> staleBeans = new ReferenceQueue<>();
+  //keeps the bean references reachable until they are enqueued
+  private final Set<BeanReference> beanReferences = Sets.newConcurrentHashSet();
 
   public void register(BeanFactory beanFactory, String key, SpringValue springValue) {
-    if (!registry.containsKey(beanFactory)) {
-      synchronized (LOCK) {
-        if (!registry.containsKey(beanFactory)) {
-          registry.put(beanFactory, Multimaps.synchronizedListMultimap(LinkedListMultimap.<String, SpringValue>create()));
-        }
+    expungeStaleSpringValues();
+
+    ConcurrentMap<String, Set<SpringValue>> beanFactorySpringValues = registry.get(beanFactory);
+    if (beanFactorySpringValues == null) {
+      ConcurrentMap<String, Set<SpringValue>> newSpringValues = Maps.newConcurrentMap();
+      beanFactorySpringValues = registry.putIfAbsent(beanFactory, newSpringValues);
+      if (beanFactorySpringValues == null) {
+        beanFactorySpringValues = newSpringValues;
       }
     }
 
-    registry.get(beanFactory).put(key, springValue);
+    Set<SpringValue> springValues = beanFactorySpringValues.get(key);
+    if (springValues == null) {
+      Set<SpringValue> newSpringValues = Sets.newConcurrentHashSet();
+      springValues = beanFactorySpringValues.putIfAbsent(key, newSpringValues);
+      if (springValues == null) {
+        springValues = newSpringValues;
+      }
+    }
 
-    // lazy initialize
-    if (initialized.compareAndSet(false, true)) {
-      initialize();
+    Object bean = springValue.getBean();
+    if (bean != null && springValues.add(springValue)) {
+      beanReferences.add(new BeanReference(bean, staleBeans, springValues, springValue));
     }
   }
 
   public Collection<SpringValue> get(BeanFactory beanFactory, String key) {
-    Multimap<String, SpringValue> beanFactorySpringValues = registry.get(beanFactory);
+    expungeStaleSpringValues();
+
+    Map<String, Set<SpringValue>> beanFactorySpringValues = registry.get(beanFactory);
     if (beanFactorySpringValues == null) {
       return null;
     }
     return beanFactorySpringValues.get(key);
   }
 
-  private void initialize() {
-    Executors.newSingleThreadScheduledExecutor(ApolloThreadFactory.create("SpringValueRegistry", true)).scheduleAtFixedRate(
-        new Runnable() {
-          @Override
-          public void run() {
-            try {
-              scanAndClean();
-            } catch (Throwable ex) {
-              ex.printStackTrace();
-            }
-          }
-        }, CLEAN_INTERVAL_IN_SECONDS, CLEAN_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
-  }
+  /**
+   * @return the spring values of any of the keys, each of them is returned once even if it is registered with more
+   * than one of the keys
+   */
+  public Collection<SpringValue> get(BeanFactory beanFactory, Collection<String> keys) {
+    expungeStaleSpringValues();
 
-  private void scanAndClean() {
-    Iterator<Multimap<String, SpringValue>> iterator = registry.values().iterator();
-    while (!Thread.currentThread().isInterrupted() && iterator.hasNext()) {
-      Multimap<String, SpringValue> springValues = iterator.next();
-      Iterator<Entry<String, SpringValue>> springValueIterator = springValues.entries().iterator();
-      while (springValueIterator.hasNext()) {
-        Entry<String, SpringValue> springValue = springValueIterator.next();
-        if (!springValue.getValue().isTargetBeanValid()) {
-          // clear unused spring values
-          springValueIterator.remove();
-        }
+    Set<SpringValue> result = Sets.newLinkedHashSet();
+    Map<String, Set<SpringValue>> beanFactorySpringValues = registry.get(beanFactory);
+    if (beanFactorySpringValues == null) {
+      return result;
+    }
+    for (String key : keys) {
+      Set<SpringValue> springValues = beanFactorySpringValues.get(key);
+      if (springValues != null) {
+        result.addAll(springValues);
       }
     }
+    return result;
+  }
+
+  private void expungeStaleSpringValues() {
+    BeanReference beanReference;
+    while ((beanReference = (BeanReference) staleBeans.poll()) != null) {
+      beanReference.springValues.remove(beanReference.springValue);
+      beanReferences.remove(beanReference);
+    }
+  }
+
+  private static class BeanReference extends WeakReference<Object> {
+    private final Set<SpringValue> springValues;
+    private final SpringValue springValue;
+
+    BeanReference(Object bean, ReferenceQueue<Object> queue, Set<SpringValue> springValues,
+        SpringValue springValue) {
+      super(bean, queue);
+      this.springValues = springValues;
+      this.springValue = springValue;
+    }
   }
 }
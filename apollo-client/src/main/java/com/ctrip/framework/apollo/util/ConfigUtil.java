@@ -35,6 +35,16 @@ public class ConfigUtil {
   private TimeUnit configCacheExpireTimeUnit = TimeUnit.MINUTES;//1 minute
   private long longPollingInitialDelayInMills = 2000;//2 seconds
   private boolean autoUpdateInjectedSpringProperties = true;
+  private boolean batchLoadConfig = false;
+  private boolean deltaConfig = true;
+  private boolean notificationStream = false;
+  private boolean keepAliveHttpTransport = false;
+  private boolean propertySnapshot = true;
+  private int configPrefetchParallelism = 8;
+  private boolean localCacheSnapshot = false;
+  private String configChangeListenerExecutor = "cached";
+  private int configChangeListenerThreads = Runtime.getRuntime().availableProcessors();
+  private int configChangeListenerQueueCapacity = 100;
   private final RateLimiter warnLogRateLimiter;
 
   public ConfigUtil() {
@@ -47,6 +57,14 @@ public class ConfigUtil {
     initMaxConfigCacheSize();
     initLongPollingInitialDelayInMills();
     initAutoUpdateInjectedSpringProperties();
+    initBatchLoadConfig();
+    initDeltaConfig();
+    initNotificationStream();
+    initKeepAliveHttpTransport();
+    initPropertySnapshot();
+    initConfigPrefetchParallelism();
+    initLocalCacheSnapshot();
+    initConfigChangeListenerExecutor();
   }
 
   /**
@@ -301,4 +319,208 @@ public class ConfigUtil {
   public boolean isAutoUpdateInjectedSpringPropertiesEnabled() {
     return autoUpdateInjectedSpringProperties;
   }
+
+  private void initBatchLoadConfig() {
+    // 1. Get from System Property
+    String enableBatchLoad = System.getProperty("apollo.batchLoadConfig");
+    if (Strings.isNullOrEmpty(enableBatchLoad)) {
+      // 2. Get from app.properties
+      enableBatchLoad = Foundation.app().getProperty("apollo.batchLoadConfig", null);
+    }
+    if (!Strings.isNullOrEmpty(enableBatchLoad)) {
+      batchLoadConfig = Boolean.parseBoolean(enableBatchLoad.trim());
+    }
+  }
+
+  /**
+   * Whether to load the configs of all notified namespaces in one request, requires the config service to support
+   * the batch query api
+   */
+  public boolean isBatchLoadConfigEnabled() {
+    return batchLoadConfig;
+  }
+
+  private void initDeltaConfig() {
+    // 1. Get from System Property
+    String enableDeltaConfig = System.getProperty("apollo.deltaConfig");
+    if (Strings.isNullOrEmpty(enableDeltaConfig)) {
+      // 2. Get from app.properties
+      enableDeltaConfig = Foundation.app().getProperty("apollo.deltaConfig", null);
+    }
+    if (!Strings.isNullOrEmpty(enableDeltaConfig)) {
+      deltaConfig = Boolean.parseBoolean(enableDeltaConfig.trim());
+    }
+  }
+
+  /**
+   * Whether to ask the config service for the changed configurations only when the local config is out-dated
+   */
+  public boolean isDeltaConfigEnabled() {
+    return deltaConfig;
+  }
+
+  private void initNotificationStream() {
+    // 1. Get from System Property
+    String enableNotificationStream = System.getProperty("apollo.notificationStream");
+    if (Strings.isNullOrEmpty(enableNotificationStream)) {
+      // 2. Get from app.properties
+      enableNotificationStream = Foundation.app().getProperty("apollo.notificationStream", null);
+    }
+    if (!Strings.isNullOrEmpty(enableNotificationStream)) {
+      notificationStream = Boolean.parseBoolean(enableNotificationStream.trim());
+    }
+  }
+
+  /**
+   * Whether to receive the notifications from a connection which stays open instead of long polling, falls back to
+   * long polling if the config service doesn't support it
+   */
+  public boolean isNotificationStreamEnabled() {
+    return notificationStream;
+  }
+
+  private void initKeepAliveHttpTransport() {
+    // 1. Get from System Property
+    String enableKeepAlive = System.getProperty("apollo.keepAliveHttpTransport");
+    if (Strings.isNullOrEmpty(enableKeepAlive)) {
+      // 2. Get from app.properties
+      enableKeepAlive = Foundation.app().getProperty("apollo.keepAliveHttpTransport", null);
+    }
+    if (!Strings.isNullOrEmpty(enableKeepAlive)) {
+      keepAliveHttpTransport = Boolean.parseBoolean(enableKeepAlive.trim());
+    }
+  }
+
+  /**
+   * Whether to use the transport which reuses the connections, requests gzip responses and parses them while reading,
+   * otherwise the transport registered in META-INF/services is used
+   */
+  public boolean isKeepAliveHttpTransportEnabled() {
+    return keepAliveHttpTransport;
+  }
+
+  private void initPropertySnapshot() {
+    // 1. Get from System Property
+    String enablePropertySnapshot = System.getProperty("apollo.propertySnapshot");
+    if (Strings.isNullOrEmpty(enablePropertySnapshot)) {
+      // 2. Get from app.properties
+      enablePropertySnapshot = Foundation.app().getProperty("apollo.propertySnapshot", null);
+    }
+    if (!Strings.isNullOrEmpty(enablePropertySnapshot)) {
+      propertySnapshot = Boolean.parseBoolean(enablePropertySnapshot.trim());
+    }
+  }
+
+  /**
+   * Whether to read the properties from a snapshot resolved on each config change, in which the system properties are
+   * taken at that time, otherwise the system properties are looked up on each read so that they could be overridden
+   * at any time
+   */
+  public boolean isPropertySnapshotEnabled() {
+    return propertySnapshot;
+  }
+
+  private void initConfigPrefetchParallelism() {
+    // 1. Get from System Property
+    String customizedParallelism = System.getProperty("apollo.configPrefetchParallelism");
+    if (Strings.isNullOrEmpty(customizedParallelism)) {
+      // 2. Get from app.properties
+      customizedParallelism = Foundation.app().getProperty("apollo.configPrefetchParallelism", null);
+    }
+    if (!Strings.isNullOrEmpty(customizedParallelism)) {
+      try {
+        configPrefetchParallelism = Integer.parseInt(customizedParallelism.trim());
+      } catch (Throwable ex) {
+        logger.error("Config for apollo.configPrefetchParallelism is invalid: {}", customizedParallelism);
+      }
+    }
+  }
+
+  /**
+   * How many namespaces could be loaded at the same time when the configs are prefetched on startup, 1 or less means
+   * the namespaces are loaded one by one
+   */
+  public int getConfigPrefetchParallelism() {
+    return configPrefetchParallelism;
+  }
+
+  private void initLocalCacheSnapshot() {
+    // 1. Get from System Property
+    String enableLocalCacheSnapshot = System.getProperty("apollo.localCacheSnapshot");
+    if (Strings.isNullOrEmpty(enableLocalCacheSnapshot)) {
+      // 2. Get from app.properties
+      enableLocalCacheSnapshot = Foundation.app().getProperty("apollo.localCacheSnapshot", null);
+    }
+    if (!Strings.isNullOrEmpty(enableLocalCacheSnapshot)) {
+      localCacheSnapshot = Boolean.parseBoolean(enableLocalCacheSnapshot.trim());
+    }
+  }
+
+  /**
+   * Whether to cache the configs locally in the binary snapshot format instead of the properties files, the snapshots
+   * keep the release keys and notification ids, so that the remote configs could be resumed from them on restart
+   */
+  public boolean isLocalCacheSnapshotEnabled() {
+    return localCacheSnapshot;
+  }
+
+  private void initConfigChangeListenerExecutor() {
+    // 1. Get from System Property
+    String customizedExecutor = System.getProperty("apollo.configChangeListenerExecutor");
+    if (Strings.isNullOrEmpty(customizedExecutor)) {
+      // 2. Get from app.properties
+      customizedExecutor = Foundation.app().getProperty("apollo.configChangeListenerExecutor", null);
+    }
+    if (!Strings.isNullOrEmpty(customizedExecutor)) {
+      configChangeListenerExecutor = customizedExecutor.trim();
+    }
+
+    String customizedThreads = System.getProperty("apollo.configChangeListenerThreads");
+    if (Strings.isNullOrEmpty(customizedThreads)) {
+      customizedThreads = Foundation.app().getProperty("apollo.configChangeListenerThreads", null);
+    }
+    if (!Strings.isNullOrEmpty(customizedThreads)) {
+      try {
+        configChangeListenerThreads = Integer.parseInt(customizedThreads.trim());
+      } catch (Throwable ex) {
+        logger.error("Config for apollo.configChangeListenerThreads is invalid: {}", customizedThreads);
+      }
+    }
+
+    String customizedQueueCapacity = System.getProperty("apollo.configChangeListenerQueueCapacity");
+    if (Strings.isNullOrEmpty(customizedQueueCapacity)) {
+      customizedQueueCapacity = Foundation.app().getProperty("apollo.configChangeListenerQueueCapacity", null);
+    }
+    if (!Strings.isNullOrEmpty(customizedQueueCapacity)) {
+      try {
+        configChangeListenerQueueCapacity = Integer.parseInt(customizedQueueCapacity.trim());
+      } catch (Throwable ex) {
+        logger.error("Config for apollo.configChangeListenerQueueCapacity is invalid: {}",
+            customizedQueueCapacity);
+      }
+    }
+  }
+
+  /**
+   * The executor to invoke the config change listeners, one of cached (default), fixed and virtual, virtual threads
+   * are used only if the jvm supports them, otherwise the cached one is used
+   */
+  public String getConfigChangeListenerExecutor() {
+    return configChangeListenerExecutor;
+  }
+
+  /**
+   * How many threads the fixed executor of the config change listeners has
+   */
+  public int getConfigChangeListenerThreads() {
+    return configChangeListenerThreads;
+  }
+
+  /**
+   * How many change events could be queued for a config change listener before they are coalesced regardless of the
+   * order across the namespaces
+   */
+  public int getConfigChangeListenerQueueCapacity() {
+    return configChangeListenerQueueCapacity;
+  }
 }
@@ -0,0 +1,216 @@
+package com.ctrip.framework.apollo.util.http;
+
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.io.CharStreams;
+import com.google.gson.Gson;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The default transport, which reads the whole response body into a string before deserializing it, the responses
+ * are requested with gzip encoding and decompressed transparently
+ *
+ * @author Jason Song(song_s@ctrip.com)
+ */
+public class DefaultHttpTransport implements HttpTransport {
+  protected static final String GZIP = "gzip";
+  protected final ConfigUtil m_configUtil;
+  protected final Gson gson;
+
+  public DefaultHttpTransport() {
+    m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    gson = new Gson();
+  }
+
+  @Override
+  public <T> HttpResponse<T> doGet(HttpRequest httpRequest, Type responseType) {
+    InputStreamReader isr = null;
+    InputStreamReader esr = null;
+    int statusCode;
+    try {
+      HttpURLConnection conn = openConnection(httpRequest);
+      conn.setRequestProperty("Accept-Encoding", GZIP);
+
+      conn.connect();
+
+      statusCode = conn.getResponseCode();
+      String response;
+
+      try {
+        InputStream inputStream = conn.getInputStream();
+        if (GZIP.equalsIgnoreCase(conn.getContentEncoding())) {
+          inputStream = new GZIPInputStream(inputStream);
+        }
+        isr = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+        response = CharStreams.toString(isr);
+      } catch (IOException ex) {
+        /**
+         * according to https://docs.oracle.com/javase/7/docs/technotes/guides/net/http-keepalive.html,
+         * we should clean up the connection by reading the response body so that the connection
+         * could be reused.
+         */
+        InputStream errorStream = conn.getErrorStream();
+
+        if (errorStream != null) {
+          esr = new InputStreamReader(errorStream, StandardCharsets.UTF_8);
+          try {
+            CharStreams.toString(esr);
+          } catch (IOException ioe) {
+            //ignore
+          }
+        }
+
+        // 200 and 304 should not trigger IOException, thus we must throw the original exception out
+        if (statusCode == 200 || statusCode == 304) {
+          throw ex;
+        } else {
+          // for status codes like 404, IOException is expected when calling conn.getInputStream()
+          throw new ApolloConfigStatusCodeException(statusCode, ex);
+        }
+      }
+
+      if (statusCode == 200) {
+        T body = gson.fromJson(response, responseType);
+        return new HttpResponse<>(statusCode, body);
+      }
+
+      if (statusCode == 304) {
+        return new HttpResponse<>(statusCode, null);
+      }
+    } catch (ApolloConfigStatusCodeException ex) {
+      throw ex;
+    } catch (Throwable ex) {
+      throw new ApolloConfigException("Could not complete get operation", ex);
+    } finally {
+      closeQuietly(isr);
+      closeQuietly(esr);
+    }
+
+    throw new ApolloConfigStatusCodeException(statusCode,
+        String.format("Get operation failed for %s", httpRequest.getUrl()));
+  }
+
+  @Override
+  public <T> void doGetEventStream(HttpRequest httpRequest, Type eventType, HttpEventStreamListener<T> listener) {
+    BufferedReader reader = null;
+    HttpURLConnection conn = null;
+    int statusCode;
+    try {
+      conn = openConnection(httpRequest);
+      conn.setRequestProperty("Accept", "text/event-stream");
+
+      conn.connect();
+
+      statusCode = conn.getResponseCode();
+
+      if (statusCode != 200) {
+        InputStream errorStream = conn.getErrorStream();
+        if (errorStream != null) {
+          reader = new BufferedReader(new InputStreamReader(errorStream, StandardCharsets.UTF_8));
+          try {
+            CharStreams.toString(reader);
+          } catch (IOException ioe) {
+            //ignore
+          }
+        }
+        throw new ApolloConfigStatusCodeException(statusCode,
+            String.format("Get event stream failed for %s", httpRequest.getUrl()));
+      }
+
+      reader = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
+      final HttpURLConnection openConnection = conn;
+      listener.onOpen(new Closeable() {
+        @Override
+        public void close() {
+          openConnection.disconnect();
+        }
+      });
+      StringBuilder data = new StringBuilder();
+      String line;
+      while (!listener.isCancelled() && (line = reader.readLine()) != null) {
+        //an empty line dispatches the event, the other fields like event name and comments are ignored
+        if (line.isEmpty()) {
+          if (data.length() > 0) {
+            T event = gson.fromJson(data.toString(), eventType);
+            data.setLength(0);
+            listener.onEvent(event);
+          }
+          continue;
+        }
+        if (line.startsWith("data:")) {
+          String value = line.substring("data:".length());
+          if (value.startsWith(" ")) {
+            value = value.substring(1);
+          }
+          if (data.length() > 0) {
+            data.append('\n');
+          }
+          data.append(value);
+        }
+      }
+    } catch (ApolloConfigStatusCodeException ex) {
+      throw ex;
+    } catch (Throwable ex) {
+      if (listener.isCancelled()) {
+        //the stream is closed by the listener while reading
+        return;
+      }
+      throw new ApolloConfigException("Could not complete event stream operation", ex);
+    } finally {
+      closeQuietly(reader);
+      if (conn != null && listener.isCancelled()) {
+        //the stream is still open, so the connection could not be reused
+        conn.disconnect();
+      }
+    }
+  }
+
+  protected HttpURLConnection openConnection(HttpRequest httpRequest) throws IOException {
+    HttpURLConnection conn = (HttpURLConnection) new URL(httpRequest.getUrl()).openConnection();
+
+    conn.setRequestMethod("GET");
+
+    int connectTimeout = httpRequest.getConnectTimeout();
+    if (connectTimeout < 0) {
+      connectTimeout = m_configUtil.getConnectTimeout();
+    }
+
+    int readTimeout = httpRequest.getReadTimeout();
+    if (readTimeout < 0) {
+      readTimeout = m_configUtil.getReadTimeout();
+    }
+
+    conn.setConnectTimeout(connectTimeout);
+    conn.setReadTimeout(readTimeout);
+
+    return conn;
+  }
+
+  protected void closeQuietly(Closeable closeable) {
+    if (closeable == null) {
+      return;
+    }
+    try {
+      closeable.close();
+    } catch (IOException ex) {
+      // ignore
+    }
+  }
+
+  @Override
+  public int getOrder() {
+    return LOWEST_PRECEDENCE;
+  }
+}
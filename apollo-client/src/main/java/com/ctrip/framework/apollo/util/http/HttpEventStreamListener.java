@@ -0,0 +1,26 @@
+package com.ctrip.framework.apollo.util.http;
+
+import java.io.Closeable;
+
+/**
+ * Listener of the events pushed by a server sent event stream
+ */
+public interface HttpEventStreamListener<T> {
+  /**
+   * Invoked once the stream is open.
+   * @param stream closing it stops reading the stream immediately, even when waiting for the next line
+   */
+  public void onOpen(Closeable stream);
+
+  /**
+   * Invoked when an event is received.
+   * @param event the data of the event
+   */
+  public void onEvent(T event);
+
+  /**
+   * Checked after each line is read, the stream would be closed once it returns true.
+   * @return whether to stop reading the stream
+   */
+  public boolean isCancelled();
+}
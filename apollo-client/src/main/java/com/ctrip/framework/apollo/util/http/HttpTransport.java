@@ -0,0 +1,32 @@
+package com.ctrip.framework.apollo.util.http;
+
+import com.ctrip.framework.apollo.core.spi.Ordered;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+
+import java.lang.reflect.Type;
+
+/**
+ * The transport which sends the http requests of apollo client, the one with the highest precedence registered in
+ * META-INF/services is used.
+ */
+public interface HttpTransport extends Ordered {
+  /**
+   * Do get operation for the http request.
+   *
+   * @param httpRequest  the request
+   * @param responseType the response type
+   * @return the response
+   * @throws ApolloConfigException if any error happened or response code is neither 200 nor 304
+   */
+  <T> HttpResponse<T> doGet(HttpRequest httpRequest, Type responseType);
+
+  /**
+   * Do get operation for a server sent event stream, which blocks until the stream is closed or cancelled.
+   *
+   * @param httpRequest the request
+   * @param eventType   the type of the event data
+   * @param listener    the listener of the events
+   * @throws ApolloConfigException if any error happened or response code is not 200
+   */
+  <T> void doGetEventStream(HttpRequest httpRequest, Type eventType, HttpEventStreamListener<T> listener);
+}
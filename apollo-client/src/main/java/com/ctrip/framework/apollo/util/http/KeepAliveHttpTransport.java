@@ -0,0 +1,95 @@
+package com.ctrip.framework.apollo.util.http;
+
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A transport which keeps the connections alive and parses the response while reading it.
+ *
+ * The connections are pooled by the keep alive cache of jdk, whose size per host could be customized by the system
+ * property http.maxConnections. A connection is returned to the pool only if its response body is read to the end
+ * and closed, so the bodies are always drained, even for the error responses, and the connections are never
+ * disconnected explicitly. The responses are requested with gzip encoding and deserialized from the input stream
+ * directly, instead of buffering the whole body as a string first.
+ */
+public class KeepAliveHttpTransport extends DefaultHttpTransport {
+  @Override
+  public <T> HttpResponse<T> doGet(HttpRequest httpRequest, Type responseType) {
+    InputStream inputStream = null;
+    int statusCode;
+    try {
+      HttpURLConnection conn = openConnection(httpRequest);
+      conn.setRequestProperty("Connection", "keep-alive");
+      conn.setRequestProperty("Accept-Encoding", GZIP);
+
+      conn.connect();
+
+      statusCode = conn.getResponseCode();
+
+      try {
+        inputStream = conn.getInputStream();
+      } catch (IOException ex) {
+        drain(conn.getErrorStream());
+
+        // 200 and 304 should not trigger IOException, thus we must throw the original exception out
+        if (statusCode == 200 || statusCode == 304) {
+          throw ex;
+        } else {
+          throw new ApolloConfigStatusCodeException(statusCode, ex);
+        }
+      }
+
+      if (statusCode == 200) {
+        InputStream bodyStream = inputStream;
+        if (GZIP.equalsIgnoreCase(conn.getContentEncoding())) {
+          bodyStream = new GZIPInputStream(inputStream);
+        }
+        JsonReader reader = new JsonReader(new InputStreamReader(bodyStream, StandardCharsets.UTF_8));
+        T body = gson.fromJson(reader, responseType);
+        //the parser may stop before the end of the body, e.g. the trailing line break, and the gzip stream stops at
+        //its trailer, which may be followed by the last chunk
+        drain(bodyStream);
+        drain(inputStream);
+        return new HttpResponse<>(statusCode, body);
+      }
+
+      drain(inputStream);
+
+      if (statusCode == 304) {
+        return new HttpResponse<>(statusCode, null);
+      }
+    } catch (ApolloConfigStatusCodeException ex) {
+      throw ex;
+    } catch (Throwable ex) {
+      throw new ApolloConfigException("Could not complete get operation", ex);
+    } finally {
+      closeQuietly(inputStream);
+    }
+
+    throw new ApolloConfigStatusCodeException(statusCode,
+        String.format("Get operation failed for %s", httpRequest.getUrl()));
+  }
+
+  private void drain(InputStream inputStream) {
+    if (inputStream == null) {
+      return;
+    }
+    byte[] buffer = new byte[4096];
+    try {
+      while (inputStream.read(buffer) != -1) {
+        //discard
+      }
+    } catch (IOException ex) {
+      //ignore
+    }
+  }
+}
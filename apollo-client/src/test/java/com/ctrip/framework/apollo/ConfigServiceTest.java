@@ -1,9 +1,16 @@
 package com.ctrip.framework.apollo;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -15,6 +22,7 @@ import com.ctrip.framework.apollo.internals.AbstractConfig;
 import com.ctrip.framework.apollo.internals.DefaultInjector;
 import com.ctrip.framework.apollo.spi.ConfigFactory;
 import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.util.concurrent.ListenableFuture;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
@@ -82,6 +90,56 @@ public class ConfigServiceTest {
     assertEquals(someNamespaceFileName + ":" + someConfigFileFormat.getValue(), configFile.getContent());
   }
 
+  @Test
+  public void testGetConfigAsync() throws Exception {
+    String someNamespace = "mock";
+    String someKey = "someKey";
+    MockInjector.setInstance(ConfigFactory.class, someNamespace, new MockConfigFactory());
+
+    ListenableFuture<Config> configFuture = ConfigService.getConfigAsync(someNamespace);
+    Config config = configFuture.get(5, TimeUnit.SECONDS);
+
+    assertEquals(someNamespace + ":" + someKey, config.getProperty(someKey, null));
+    assertSame(configFuture, ConfigService.getConfigAsync(someNamespace));
+    assertSame(config, ConfigService.getConfig(someNamespace));
+    assertTrue(ConfigService.whenAllConfigsLoaded().isDone());
+  }
+
+  @Test
+  public void testGetConfigAsyncRetriedAfterFailure() throws Exception {
+    String someNamespace = "mock";
+    ConfigFactory someConfigFactory = mock(ConfigFactory.class);
+    Config someConfig = mock(Config.class);
+    when(someConfigFactory.create(someNamespace)).thenThrow(new RuntimeException("some exception"))
+        .thenReturn(someConfig);
+    MockInjector.setInstance(ConfigFactory.class, someNamespace, someConfigFactory);
+
+    ListenableFuture<Config> configFuture = ConfigService.getConfigAsync(someNamespace);
+    try {
+      configFuture.get(5, TimeUnit.SECONDS);
+      fail("Should fail to load the config");
+    } catch (ExecutionException ex) {
+      //expected
+    }
+
+    assertSame(someConfig, ConfigService.getConfigAsync(someNamespace).get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testGetConfigFileAsync() throws Exception {
+    String someNamespace = "mock";
+    ConfigFileFormat someConfigFileFormat = ConfigFileFormat.Properties;
+    String someNamespaceFileName =
+        String.format("%s.%s", someNamespace, someConfigFileFormat.getValue());
+    MockInjector.setInstance(ConfigFactory.class, someNamespaceFileName, new MockConfigFactory());
+
+    ConfigFile configFile =
+        ConfigService.getConfigFileAsync(someNamespace, someConfigFileFormat).get(5, TimeUnit.SECONDS);
+
+    assertEquals(someNamespaceFileName, configFile.getNamespace());
+    ConfigService.whenAllConfigsLoaded().get(5, TimeUnit.SECONDS);
+  }
+
   private static class MockConfig extends AbstractConfig {
     private final String m_namespace;
 
@@ -0,0 +1,152 @@
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.enums.PropertyChangeType;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+public class ConfigChangeDispatcherTest {
+  private String someNamespace;
+  private String someKey;
+  private ConfigChangeDispatcher configChangeDispatcher;
+
+  @Before
+  public void setUp() throws Exception {
+    MockInjector.reset();
+    MockInjector.setInstance(ConfigUtil.class, new ConfigUtil());
+    someNamespace = "someNamespace";
+    someKey = "someKey";
+    configChangeDispatcher = new ConfigChangeDispatcher();
+  }
+
+  @Test
+  public void testDispatchInOrderAndCoalesce() throws Exception {
+    final CountDownLatch firstEventReceived = new CountDownLatch(1);
+    final CountDownLatch firstEventReleased = new CountDownLatch(1);
+    final CountDownLatch allEventsReceived = new CountDownLatch(2);
+    final List<ConfigChangeEvent> receivedEvents = Lists.newCopyOnWriteArrayList();
+    ConfigChangeListener someListener = new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        receivedEvents.add(changeEvent);
+        firstEventReceived.countDown();
+        try {
+          firstEventReleased.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        allEventsReceived.countDown();
+      }
+    };
+
+    configChangeDispatcher.dispatch(someListener, assembleEvent(someKey, "v0", "v1", PropertyChangeType.MODIFIED));
+    assertTrue(firstEventReceived.await(5, TimeUnit.SECONDS));
+
+    //the listener is busy, so the following events are queued and coalesced
+    configChangeDispatcher.dispatch(someListener, assembleEvent(someKey, "v1", "v2", PropertyChangeType.MODIFIED));
+    configChangeDispatcher.dispatch(someListener,
+        assembleEvent("anotherKey", null, "a1", PropertyChangeType.ADDED));
+    configChangeDispatcher.dispatch(someListener, assembleEvent(someKey, "v2", "v3", PropertyChangeType.MODIFIED));
+    assertEquals(1, configChangeDispatcher.getQueueDepth());
+
+    firstEventReleased.countDown();
+    assertTrue(allEventsReceived.await(5, TimeUnit.SECONDS));
+
+    assertEquals(2, receivedEvents.size());
+    assertEquals("v1", receivedEvents.get(0).getChange(someKey).getNewValue());
+    ConfigChangeEvent mergedEvent = receivedEvents.get(1);
+    assertEquals(2, mergedEvent.changedKeys().size());
+    assertEquals("v1", mergedEvent.getChange(someKey).getOldValue());
+    assertEquals("v3", mergedEvent.getChange(someKey).getNewValue());
+    assertEquals(PropertyChangeType.MODIFIED, mergedEvent.getChange(someKey).getChangeType());
+    assertEquals("a1", mergedEvent.getChange("anotherKey").getNewValue());
+    assertEquals(0, configChangeDispatcher.getQueueDepth());
+  }
+
+  @Test
+  public void testListenerNeverInvokedConcurrently() throws Exception {
+    final int someTimes = 50;
+    final AtomicBoolean running = new AtomicBoolean();
+    final AtomicBoolean invokedConcurrently = new AtomicBoolean();
+    final AtomicInteger lastValue = new AtomicInteger();
+    final CountDownLatch lastEventReceived = new CountDownLatch(1);
+    ConfigChangeListener someListener = new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        if (!running.compareAndSet(false, true)) {
+          invokedConcurrently.set(true);
+        }
+        int value = Integer.parseInt(changeEvent.getChange(someKey).getNewValue());
+        if (value < lastValue.get()) {
+          invokedConcurrently.set(true);
+        }
+        lastValue.set(value);
+        running.set(false);
+        if (value == someTimes) {
+          lastEventReceived.countDown();
+        }
+      }
+    };
+
+    for (int i = 1; i <= someTimes; i++) {
+      configChangeDispatcher.dispatch(someListener,
+          assembleEvent(someKey, String.valueOf(i - 1), String.valueOf(i), PropertyChangeType.MODIFIED));
+    }
+
+    assertTrue(lastEventReceived.await(5, TimeUnit.SECONDS));
+    assertFalse(invokedConcurrently.get());
+  }
+
+  @Test
+  public void testCoalesceRevertedChanges() throws Exception {
+    ConfigChangeEvent merged = ConfigChangeDispatcher.coalesce(
+        assembleEvent(someKey, null, "v1", PropertyChangeType.ADDED),
+        assembleEvent(someKey, "v1", null, PropertyChangeType.DELETED));
+    assertTrue(merged.changedKeys().isEmpty());
+
+    merged = ConfigChangeDispatcher.coalesce(
+        assembleEvent(someKey, "v0", "v1", PropertyChangeType.MODIFIED),
+        assembleEvent(someKey, "v1", "v0", PropertyChangeType.MODIFIED));
+    assertTrue(merged.changedKeys().isEmpty());
+
+    merged = ConfigChangeDispatcher.coalesce(
+        assembleEvent(someKey, "v0", null, PropertyChangeType.DELETED),
+        assembleEvent(someKey, null, "v1", PropertyChangeType.ADDED));
+    assertEquals(PropertyChangeType.MODIFIED, merged.getChange(someKey).getChangeType());
+    assertEquals("v0", merged.getChange(someKey).getOldValue());
+    assertEquals("v1", merged.getChange(someKey).getNewValue());
+
+    merged = ConfigChangeDispatcher.coalesce(
+        assembleEvent(someKey, null, "v1", PropertyChangeType.ADDED),
+        assembleEvent(someKey, "v1", "v2", PropertyChangeType.MODIFIED));
+    assertEquals(PropertyChangeType.ADDED, merged.getChange(someKey).getChangeType());
+    assertNull(merged.getChange(someKey).getOldValue());
+    assertEquals("v2", merged.getChange(someKey).getNewValue());
+  }
+
+  private ConfigChangeEvent assembleEvent(String key, String oldValue, String newValue,
+      PropertyChangeType changeType) {
+    Map<String, ConfigChange> changes = ImmutableMap.of(key,
+        new ConfigChange(someNamespace, key, oldValue, newValue, changeType));
+    return new ConfigChangeEvent(someNamespace, changes);
+  }
+}
@@ -0,0 +1,83 @@
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class ConfigChangeListenerIndexTest {
+  private ConfigChangeListener allKeysListener;
+  private ConfigChangeListener someKeyListener;
+  private ConfigChangeListener somePrefixListener;
+  private ConfigChangeListener anotherPrefixListener;
+  private ConfigChangeListener emptyPrefixListener;
+  private ConfigChangeListenerIndex index;
+
+  @Before
+  public void setUp() throws Exception {
+    allKeysListener = mock(ConfigChangeListener.class);
+    someKeyListener = mock(ConfigChangeListener.class);
+    somePrefixListener = mock(ConfigChangeListener.class);
+    anotherPrefixListener = mock(ConfigChangeListener.class);
+    emptyPrefixListener = mock(ConfigChangeListener.class);
+
+    List<ConfigChangeListener> listeners = Lists.newArrayList(somePrefixListener, allKeysListener, someKeyListener,
+        anotherPrefixListener, emptyPrefixListener);
+    Map<ConfigChangeListener, Set<String>> interestedKeys = Maps.newHashMap();
+    interestedKeys.put(someKeyListener, ImmutableSet.of("someKey", "anotherKey"));
+    interestedKeys.put(somePrefixListener, ImmutableSet.of("someKey"));
+    Map<ConfigChangeListener, Set<String>> interestedKeyPrefixes = Maps.newHashMap();
+    interestedKeyPrefixes.put(somePrefixListener, ImmutableSet.of("spring.datasource.", "redis."));
+    interestedKeyPrefixes.put(anotherPrefixListener, ImmutableSet.of("spring."));
+    interestedKeyPrefixes.put(emptyPrefixListener, ImmutableSet.of(""));
+
+    index = new ConfigChangeListenerIndex(listeners, interestedKeys, interestedKeyPrefixes);
+  }
+
+  @Test
+  public void testInterestedListenersByKey() throws Exception {
+    assertEquals(Lists.newArrayList(somePrefixListener, allKeysListener, someKeyListener, emptyPrefixListener),
+        index.interestedListeners(Collections.singleton("someKey")));
+    assertEquals(Lists.newArrayList(allKeysListener, someKeyListener, emptyPrefixListener),
+        index.interestedListeners(Collections.singleton("anotherKey")));
+  }
+
+  @Test
+  public void testInterestedListenersByPrefix() throws Exception {
+    assertEquals(Lists.newArrayList(somePrefixListener, allKeysListener, anotherPrefixListener, emptyPrefixListener),
+        index.interestedListeners(Collections.singleton("spring.datasource.url")));
+    assertEquals(Lists.newArrayList(allKeysListener, anotherPrefixListener, emptyPrefixListener),
+        index.interestedListeners(Collections.singleton("spring.redis.host")));
+    assertEquals(Lists.newArrayList(allKeysListener, emptyPrefixListener),
+        index.interestedListeners(Collections.singleton("spring")));
+  }
+
+  @Test
+  public void testInterestedListenersOfMultipleKeys() throws Exception {
+    assertEquals(Lists.newArrayList(somePrefixListener, allKeysListener, someKeyListener, anotherPrefixListener,
+        emptyPrefixListener), index.interestedListeners(Lists.newArrayList("redis.host", "spring.x", "anotherKey")));
+  }
+
+  @Test
+  public void testNoInterestedListeners() throws Exception {
+    ConfigChangeListenerIndex anotherIndex = new ConfigChangeListenerIndex(
+        Lists.newArrayList(someKeyListener, somePrefixListener),
+        Collections.<ConfigChangeListener, Set<String>>singletonMap(someKeyListener, ImmutableSet.of("someKey")),
+        Collections.<ConfigChangeListener, Set<String>>singletonMap(somePrefixListener, ImmutableSet.of("some.")));
+
+    assertTrue(anotherIndex.interestedListeners(Lists.newArrayList("someKe", "some", "anotherKey")).isEmpty());
+    assertTrue(ConfigChangeListenerIndex.EMPTY.interestedListeners(Collections.singleton("someKey")).isEmpty());
+  }
+}
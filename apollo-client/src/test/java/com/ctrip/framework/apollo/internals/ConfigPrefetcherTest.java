@@ -0,0 +1,152 @@
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import com.ctrip.framework.apollo.Config;
+import com.ctrip.framework.apollo.ConfigService;
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.util.ReflectionUtils;
+
+public class ConfigPrefetcherTest {
+  private static final Method CONFIG_SERVICE_RESET = ReflectionUtils.findMethod(ConfigService.class, "reset");
+  private ConfigManager configManager;
+  private RemoteConfigLongPollService remoteConfigLongPollService;
+  private MockConfigUtil configUtil;
+  private List<String> someNamespaces;
+
+  @Before
+  public void setUp() throws Exception {
+    resetConfigService();
+    MockInjector.reset();
+
+    configManager = mock(ConfigManager.class);
+    remoteConfigLongPollService = mock(RemoteConfigLongPollService.class);
+    configUtil = new MockConfigUtil();
+    MockInjector.setInstance(ConfigManager.class, configManager);
+    MockInjector.setInstance(RemoteConfigLongPollService.class, remoteConfigLongPollService);
+    MockInjector.setInstance(ConfigUtil.class, configUtil);
+
+    someNamespaces = Lists.newArrayList("namespace1", "namespace2", "namespace3", "namespace4", "namespace5",
+        "namespace6", "namespace7", "namespace8");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    resetConfigService();
+    MockInjector.reset();
+  }
+
+  private void resetConfigService() {
+    ReflectionUtils.makeAccessible(CONFIG_SERVICE_RESET);
+    ReflectionUtils.invokeMethod(CONFIG_SERVICE_RESET, null);
+  }
+
+  @Test
+  public void testPrefetchInParallel() throws Exception {
+    configUtil.parallelism = 4;
+    final CountDownLatch allWorkersBusy = new CountDownLatch(configUtil.parallelism);
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final Set<String> loaded = Sets.newConcurrentHashSet();
+    doAnswer(new Answer<Config>() {
+      @Override
+      public Config answer(InvocationOnMock invocation) throws Throwable {
+        int current = running.incrementAndGet();
+        maxRunning.set(Math.max(maxRunning.get(), current));
+        allWorkersBusy.countDown();
+        //would time out if the namespaces were loaded one by one
+        assertTrue(allWorkersBusy.await(5, TimeUnit.SECONDS));
+        loaded.add(invocation.getArgumentAt(0, String.class));
+        running.decrementAndGet();
+        return mock(Config.class);
+      }
+    }).when(configManager).getConfig(anyString());
+
+    new ConfigPrefetcher().prefetch(someNamespaces);
+
+    assertEquals(Sets.newHashSet(someNamespaces), loaded);
+    assertTrue(maxRunning.get() <= configUtil.parallelism);
+    verifyZeroInteractions(remoteConfigLongPollService);
+  }
+
+  @Test
+  public void testPrefetchWithBatchLoad() throws Exception {
+    configUtil.batchLoad = true;
+
+    new ConfigPrefetcher().prefetch(someNamespaces);
+
+    Set<String> namespaces = Sets.newLinkedHashSet(someNamespaces);
+    //the configs are loaded in batch before the repositories take them, the ones not taken are discarded then
+    InOrder inOrder = inOrder(remoteConfigLongPollService, configManager);
+    inOrder.verify(remoteConfigLongPollService).prefetchConfigs(namespaces);
+    inOrder.verify(configManager).getConfig(someNamespaces.get(0));
+    inOrder.verify(remoteConfigLongPollService).discardPrefetchedConfigs(namespaces);
+    for (String namespace : someNamespaces) {
+      verify(configManager).getConfig(namespace);
+    }
+  }
+
+  @Test
+  public void testPrefetchWithBatchLoadFailed() throws Exception {
+    configUtil.batchLoad = true;
+    Set<String> namespaces = Sets.newLinkedHashSet(someNamespaces);
+    doThrow(new RuntimeException("some error")).when(remoteConfigLongPollService).prefetchConfigs(namespaces);
+
+    new ConfigPrefetcher().prefetch(someNamespaces);
+
+    //loaded one by one
+    for (String namespace : someNamespaces) {
+      verify(configManager).getConfig(namespace);
+    }
+    verify(remoteConfigLongPollService, never()).discardPrefetchedConfigs(namespaces);
+  }
+
+  @Test
+  public void testPrefetchWithoutParallelism() throws Exception {
+    configUtil.parallelism = 1;
+    configUtil.batchLoad = true;
+
+    new ConfigPrefetcher().prefetch(someNamespaces);
+
+    verifyZeroInteractions(configManager, remoteConfigLongPollService);
+  }
+
+  public static class MockConfigUtil extends ConfigUtil {
+    private volatile int parallelism = 8;
+    private volatile boolean batchLoad = false;
+
+    @Override
+    public int getConfigPrefetchParallelism() {
+      return parallelism;
+    }
+
+    @Override
+    public boolean isBatchLoadConfigEnabled() {
+      return batchLoad;
+    }
+  }
+}
@@ -4,13 +4,21 @@ import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigFile;
@@ -59,6 +67,51 @@ public class DefaultConfigManagerTest {
         config, equalTo(anotherConfig));
   }
 
+  @Test(timeout = 5000)
+  public void testGetConfigNotBlockedBySlowNamespace() throws Exception {
+    final String someSlowNamespace = "someSlowNamespace";
+    String anotherNamespace = "anotherNamespace";
+    String someKey = "someKey";
+    final CountDownLatch slowConfigCreating = new CountDownLatch(1);
+    final CountDownLatch slowConfigReleased = new CountDownLatch(1);
+    MockInjector.setInstance(ConfigFactoryManager.class, new MockConfigFactoryManager() {
+      @Override
+      public ConfigFactory getFactory(String namespace) {
+        final ConfigFactory factory = super.getFactory(namespace);
+        if (!someSlowNamespace.equals(namespace)) {
+          return factory;
+        }
+        ConfigFactory slowFactory = mock(ConfigFactory.class);
+        when(slowFactory.create(namespace)).thenAnswer(new Answer<Config>() {
+          @Override
+          public Config answer(InvocationOnMock invocation) throws Throwable {
+            slowConfigCreating.countDown();
+            slowConfigReleased.await();
+            return factory.create(someSlowNamespace);
+          }
+        });
+        return slowFactory;
+      }
+    });
+    defaultConfigManager = new DefaultConfigManager();
+
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    Future<Config> slowConfig = executorService.submit(new Callable<Config>() {
+      @Override
+      public Config call() throws Exception {
+        return defaultConfigManager.getConfig(someSlowNamespace);
+      }
+    });
+    slowConfigCreating.await();
+
+    Config anotherConfig = defaultConfigManager.getConfig(anotherNamespace);
+    slowConfigReleased.countDown();
+
+    assertEquals(anotherNamespace + ":" + someKey, anotherConfig.getProperty(someKey, null));
+    assertEquals(someSlowNamespace + ":" + someKey, slowConfig.get().getProperty(someKey, null));
+    executorService.shutdown();
+  }
+
   @Test
   public void testGetConfigFile() throws Exception {
     String someNamespace = "someName";
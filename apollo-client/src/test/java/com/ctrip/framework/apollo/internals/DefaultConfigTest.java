@@ -3,6 +3,7 @@ package com.ctrip.framework.apollo.internals;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -57,6 +58,7 @@ public class DefaultConfigTest {
   public void setUp() throws Exception {
     MockInjector.reset();
     MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil());
+    MockInjector.setInstance(ConfigChangeDispatcher.class, new ConfigChangeDispatcher());
 
     someResourceDir = new File(ClassLoaderUtil.getClassPath() + "/META-INF/config");
     someResourceDir.mkdirs();
@@ -129,6 +131,86 @@ public class DefaultConfigTest {
     assertEquals(someSourceType, defaultConfig.getSourceType());
   }
 
+  @Test
+  public void testGetPropertyFromSnapshot() throws Exception {
+    String someKey = "someKey";
+    String someValue = "someValue";
+    String someSystemPropertyValue = "system-property-value";
+    String anotherKey = "anotherKey";
+    String anotherSystemPropertyValue = "another-system-property-value";
+
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, someValue);
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    System.setProperty(someKey, someSystemPropertyValue);
+    System.setProperty(anotherKey, anotherSystemPropertyValue);
+
+    try {
+      //the keys of the config are resolved when the config changes, while the others are looked up on each read
+      assertEquals(someValue, defaultConfig.getProperty(someKey, null));
+      assertEquals(anotherSystemPropertyValue, defaultConfig.getProperty(anotherKey, null));
+
+      Properties newProperties = new Properties();
+      newProperties.setProperty(someKey, someValue);
+      newProperties.setProperty(anotherKey, someValue);
+      defaultConfig.onRepositoryChange(someNamespace, newProperties);
+
+      assertEquals(someSystemPropertyValue, defaultConfig.getProperty(someKey, null));
+      assertEquals(anotherSystemPropertyValue, defaultConfig.getProperty(anotherKey, null));
+    } finally {
+      System.clearProperty(someKey);
+      System.clearProperty(anotherKey);
+    }
+  }
+
+  @Test
+  public void testGetPropertyWithPropertySnapshotDisabled() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithoutPropertySnapshot());
+
+    String someKey = "someKey";
+    String someValue = "someValue";
+    String someSystemPropertyValue = "system-property-value";
+
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, someValue);
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    assertEquals(someValue, defaultConfig.getProperty(someKey, null));
+
+    System.setProperty(someKey, someSystemPropertyValue);
+
+    try {
+      assertEquals(someSystemPropertyValue, defaultConfig.getProperty(someKey, null));
+    } finally {
+      System.clearProperty(someKey);
+    }
+
+    assertEquals(someValue, defaultConfig.getProperty(someKey, null));
+  }
+
+  @Test
+  public void testGetPropertyFromResourceWhenRepositoryFailed() throws Exception {
+    String someKey = "someKey";
+    String someResourceValue = "resource-value";
+
+    when(configRepository.getConfig()).thenThrow(mock(RuntimeException.class));
+
+    File resourceFile = new File(someResourceDir, someNamespace + ".properties");
+    Files.write(someKey + "=" + someResourceValue, resourceFile, Charsets.UTF_8);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    assertEquals(someResourceValue, defaultConfig.getProperty(someKey, null));
+  }
+
   @Test
   public void testGetIntProperty() throws Exception {
     String someStringKey = "someStringKey";
@@ -266,6 +348,75 @@ public class DefaultConfigTest {
     verify(someProperties, times(2)).getProperty(someKey);
   }
 
+  @Test
+  public void testGetIntPropertyWithPropertySnapshotDisabled() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithoutPropertySnapshot());
+
+    String someKey = "someKey";
+    Integer someValue = 2;
+    Integer someSystemPropertyValue = 3;
+    Integer someDefaultValue = -1;
+
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, String.valueOf(someValue));
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
+
+    System.setProperty(someKey, String.valueOf(someSystemPropertyValue));
+
+    try {
+      //the parsed value is cached until the config changes
+      assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
+
+      Properties anotherProperties = new Properties();
+      anotherProperties.putAll(someProperties);
+      anotherProperties.setProperty("anotherKey", "anotherValue");
+      defaultConfig.onRepositoryChange(someNamespace, anotherProperties);
+
+      //all the parsed values are dropped on config change, as the system properties are not in the snapshot
+      assertEquals(someSystemPropertyValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
+    } finally {
+      System.clearProperty(someKey);
+    }
+  }
+
+  @Test
+  public void testGetArrayPropertyMultipleTimesWithUnrelatedPropertyChanges() throws Exception {
+    String someKey = "someKey";
+    String someValue = "a,b";
+    String anotherKey = "anotherKey";
+    String anotherValue = "c,d";
+    String yetAnotherValue = "e,f";
+    String someDelimiter = ",";
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, someValue);
+    someProperties.setProperty(anotherKey, anotherValue);
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    String[] someResult = defaultConfig.getArrayProperty(someKey, someDelimiter, null);
+    String[] anotherResult = defaultConfig.getArrayProperty(anotherKey, someDelimiter, null);
+
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty(someKey, someValue);
+    anotherProperties.setProperty(anotherKey, yetAnotherValue);
+
+    defaultConfig.onRepositoryChange(someNamespace, anotherProperties);
+
+    //the parsed value of the unchanged key is kept
+    assertSame(someResult, defaultConfig.getArrayProperty(someKey, someDelimiter, null));
+    assertArrayEquals(new String[]{"c", "d"}, anotherResult);
+    assertArrayEquals(new String[]{"e", "f"}, defaultConfig.getArrayProperty(anotherKey, someDelimiter, null));
+  }
+
   @Test
   public void testGetLongProperty() throws Exception {
     String someStringKey = "someStringKey";
@@ -905,6 +1056,13 @@ public class DefaultConfigTest {
     }
   }
 
+  public static class MockConfigUtilWithoutPropertySnapshot extends MockConfigUtil {
+    @Override
+    public boolean isPropertySnapshotEnabled() {
+      return false;
+    }
+  }
+
   public static class MockConfigUtilWithSmallCache extends MockConfigUtil {
     @Override
     public long getMaxConfigCacheSize() {
@@ -0,0 +1,122 @@
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
+
+public class LocalConfigSnapshotTest {
+  private File someBaseDir;
+  private File someFile;
+
+  @Before
+  public void setUp() throws Exception {
+    someBaseDir = new File("src/test/resources/config-snapshot");
+    someBaseDir.mkdir();
+    someFile = new File(someBaseDir, "someApp+someCluster+someNamespace.snapshot");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    for (File file : someBaseDir.listFiles()) {
+      file.delete();
+    }
+    someBaseDir.delete();
+  }
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    String someReleaseKey = "someReleaseKey";
+    long someNotificationId = 10;
+    Properties someProperties = new Properties();
+    someProperties.setProperty("someKey", "someValue\nxxx");
+    someProperties.setProperty("anotherKey", "中文");
+    someProperties.setProperty("emptyKey", "");
+
+    ApolloNotificationMessages someNotificationMessages = new ApolloNotificationMessages();
+    someNotificationMessages.put("someApp+someCluster+someNamespace", someNotificationId);
+    someNotificationMessages.put("someApp+default+someNamespace", 5);
+
+    new LocalConfigSnapshot(someReleaseKey, someNotificationId, someNotificationMessages, someProperties)
+        .writeTo(someFile);
+    LocalConfigSnapshot snapshot = LocalConfigSnapshot.readFrom(someFile);
+
+    assertEquals(someReleaseKey, snapshot.getReleaseKey());
+    assertEquals(someNotificationId, snapshot.getNotificationId());
+    assertEquals(someNotificationMessages.getDetails(), snapshot.getNotificationMessages().getDetails());
+    assertEquals(someProperties, snapshot.getConfigurations());
+    //the temp file is renamed to the snapshot file
+    assertFalse(new File(someBaseDir, someFile.getName() + ".tmp").exists());
+  }
+
+  @Test
+  public void testOverwriteWithoutReleaseKey() throws Exception {
+    Properties someProperties = new Properties();
+    someProperties.setProperty("someKey", "someValue");
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty("anotherKey", "anotherValue");
+
+    new LocalConfigSnapshot("someReleaseKey", 10, null, someProperties).writeTo(someFile);
+    new LocalConfigSnapshot(null, ConfigConsts.NOTIFICATION_ID_PLACEHOLDER, null, anotherProperties).writeTo(someFile);
+    LocalConfigSnapshot snapshot = LocalConfigSnapshot.readFrom(someFile);
+
+    assertNull(snapshot.getReleaseKey());
+    assertEquals(ConfigConsts.NOTIFICATION_ID_PLACEHOLDER, snapshot.getNotificationId());
+    assertNull(snapshot.getNotificationMessages());
+    assertEquals(anotherProperties, snapshot.getConfigurations());
+  }
+
+  @Test
+  public void testReadCorruptedSnapshot() throws Exception {
+    Properties someProperties = new Properties();
+    someProperties.setProperty("someKey", "someValue");
+    new LocalConfigSnapshot("someReleaseKey", 10, null, someProperties).writeTo(someFile);
+
+    RandomAccessFile file = new RandomAccessFile(someFile, "rw");
+    try {
+      file.seek(file.length() - 10);
+      file.write('x');
+    } finally {
+      file.close();
+    }
+
+    assertInvalid(someFile);
+  }
+
+  @Test
+  public void testReadTruncatedSnapshot() throws Exception {
+    Properties someProperties = new Properties();
+    someProperties.setProperty("someKey", "someValue");
+    new LocalConfigSnapshot("someReleaseKey", 10, null, someProperties).writeTo(someFile);
+
+    RandomAccessFile file = new RandomAccessFile(someFile, "rw");
+    try {
+      file.setLength(12);
+    } finally {
+      file.close();
+    }
+
+    assertInvalid(someFile);
+  }
+
+  private void assertInvalid(File file) {
+    try {
+      LocalConfigSnapshot.readFrom(file);
+      fail("Should fail to read the invalid snapshot");
+    } catch (IOException ex) {
+      //expected
+    }
+  }
+}
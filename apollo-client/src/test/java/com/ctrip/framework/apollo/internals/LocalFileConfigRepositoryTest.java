@@ -2,7 +2,9 @@ package com.ctrip.framework.apollo.internals;
 
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -11,6 +13,7 @@ import static org.mockito.Mockito.when;
 
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Properties;
@@ -22,6 +25,7 @@ import org.mockito.ArgumentCaptor;
 
 import com.ctrip.framework.apollo.build.MockInjector;
 import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
@@ -184,6 +188,89 @@ public class LocalFileConfigRepositoryTest {
     assertEquals(anotherSourceType, localFileConfigRepository.getSourceType());
   }
 
+  @Test
+  public void testPersistAndLoadLocalSnapshot() throws Exception {
+    String someReleaseKey = "someReleaseKey";
+    long someNotificationId = 10;
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithLocalCacheSnapshot());
+    RemoteConfigRepository remoteRepo = mock(RemoteConfigRepository.class);
+    when(remoteRepo.getConfig()).thenReturn(someProperties);
+    when(remoteRepo.getSourceType()).thenReturn(ConfigSourceType.REMOTE);
+    when(remoteRepo.getReleaseKey()).thenReturn(someReleaseKey);
+    when(remoteRepo.getNotificationId()).thenReturn(someNotificationId);
+    ApolloNotificationMessages someNotificationMessages = new ApolloNotificationMessages();
+    someNotificationMessages.put("someWatchedKey", someNotificationId);
+    when(remoteRepo.getNotificationMessages()).thenReturn(someNotificationMessages);
+    when(remoteRepo.getLocalCacheDir()).thenReturn(someBaseDir);
+
+    //the local cache dir of the remote repository is shared
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace, remoteRepo);
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty("anotherKey", "anotherValue");
+    localRepo.onRepositoryChange(someNamespace, anotherProperties);
+
+    LocalConfigSnapshot snapshot = LocalConfigSnapshot.readFrom(assembleLocalSnapshotFile());
+    assertEquals(someReleaseKey, snapshot.getReleaseKey());
+    assertEquals(someNotificationId, snapshot.getNotificationId());
+    assertEquals(someNotificationMessages.getDetails(), snapshot.getNotificationMessages().getDetails());
+    assertEquals(anotherProperties, snapshot.getConfigurations());
+    assertFalse(new File(someBaseDir, assembleLocalCacheFileName()).exists());
+
+    LocalFileConfigRepository anotherLocalRepo = new LocalFileConfigRepository(someNamespace);
+    anotherLocalRepo.setLocalCacheDir(someBaseDir, true);
+
+    assertEquals(anotherProperties, anotherLocalRepo.getConfig());
+    assertEquals(ConfigSourceType.LOCAL, anotherLocalRepo.getSourceType());
+  }
+
+  @Test
+  public void testLoadLocalFileWithLocalSnapshotEnabled() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithLocalCacheSnapshot());
+    createLocalCachePropertyFile(someProperties);
+
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace);
+    localRepo.setLocalCacheDir(someBaseDir, true);
+
+    //the properties file is loaded as the snapshot is not written yet
+    assertEquals(someProperties, localRepo.getConfig());
+  }
+
+  @Test
+  public void testPersistLocalFileWhenLocalSnapshotFailed() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithLocalCacheSnapshot());
+    //the snapshot could not be written as a dir takes its place
+    assertTrue(assembleLocalSnapshotFile().mkdirs());
+
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace, upstreamRepo);
+    localRepo.setLocalCacheDir(someBaseDir, true);
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty("anotherKey", "anotherValue");
+    localRepo.onRepositoryChange(someNamespace, anotherProperties);
+
+    assertEquals(anotherProperties, loadLocalCachePropertyFile());
+  }
+
+  @Test
+  public void testLoadLocalFileWithCorruptedLocalSnapshot() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithLocalCacheSnapshot());
+    createLocalCachePropertyFile(someProperties);
+    Files.write("corrupted", assembleLocalSnapshotFile(), Charsets.UTF_8);
+
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace);
+    localRepo.setLocalCacheDir(someBaseDir, true);
+
+    //the properties file is loaded as the snapshot is corrupted
+    assertEquals(someProperties, localRepo.getConfig());
+    assertEquals(ConfigSourceType.LOCAL, localRepo.getSourceType());
+  }
+
+  public static class MockConfigUtilWithLocalCacheSnapshot extends MockConfigUtil {
+    @Override
+    public boolean isLocalCacheSnapshotEnabled() {
+      return true;
+    }
+  }
+
   public static class MockConfigUtil extends ConfigUtil {
     @Override
     public String getAppId() {
@@ -209,4 +296,20 @@ public class LocalFileConfigRepositoryTest {
     }
     return file;
   }
+
+  private File assembleLocalSnapshotFile() {
+    return new File(someBaseDir, String.format("%s.snapshot",
+        Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR).join(someAppId, someCluster, someNamespace)));
+  }
+
+  private Properties loadLocalCachePropertyFile() throws IOException {
+    Properties properties = new Properties();
+    FileInputStream in = new FileInputStream(new File(someBaseDir, assembleLocalCacheFileName()));
+    try {
+      properties.load(in);
+    } finally {
+      in.close();
+    }
+    return properties;
+  }
 }
@@ -1,19 +1,24 @@
 package com.ctrip.framework.apollo.internals;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.Closeable;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -30,15 +35,19 @@ import org.mockito.stubbing.Answer;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
 import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
 import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
 import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.apollo.util.http.HttpEventStreamListener;
 import com.ctrip.framework.apollo.util.http.HttpRequest;
 import com.ctrip.framework.apollo.util.http.HttpResponse;
 import com.ctrip.framework.apollo.util.http.HttpUtil;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.SettableFuture;
 
 /**
@@ -465,6 +474,234 @@ public class RemoteConfigLongPollServiceTest {
             + "%22%2C%22notificationId%22%3A" + anotherNotificationId + "%7D%5D"));
   }
 
+  @Test
+  public void testAssembleBatchQueryConfigUrl() throws Exception {
+    String someUri = someServerUrl;
+    String someAppId = "someAppId";
+    String someCluster = "someCluster+ &.-_someSign";
+    String someNamespace = "someName";
+    String someReleaseKey = "someReleaseKey";
+    String anotherNamespace = "anotherName";
+    Map<String, String> releaseKeys = Maps.newLinkedHashMap();
+    releaseKeys.put(someNamespace, someReleaseKey);
+    releaseKeys.put(anotherNamespace, null);
+
+    String batchQueryConfigUrl =
+        remoteConfigLongPollService
+            .assembleBatchQueryConfigUrl(someUri, someAppId, someCluster, null, releaseKeys, null);
+
+    assertTrue(batchQueryConfigUrl.contains(someServerUrl + "/configs/" + someAppId + "/someCluster+%20&.-_someSign?"));
+    assertTrue(batchQueryConfigUrl.contains(
+        "releaseKeys=%7B%22" + someNamespace + "%22%3A%22" + someReleaseKey + "%22%7D"));
+    assertFalse(batchQueryConfigUrl.contains("messages="));
+  }
+
+  @Test
+  public void testPrefetchConfigs() throws Exception {
+    String someNamespace = "someNamespace";
+    String anotherNamespace = "anotherNamespace";
+    ApolloConfig someConfig = new ApolloConfig(someAppId, someCluster, someNamespace, "someReleaseKey");
+    someConfig.setConfigurations(ImmutableMap.of("someKey", "someValue"));
+    Type batchResponseType = (Type) ReflectionTestUtils.getField(remoteConfigLongPollService, "m_batchResponseType");
+    HttpResponse<List<ApolloConfig>> batchResponse = new HttpResponse<List<ApolloConfig>>(HttpServletResponse.SC_OK,
+        Lists.newArrayList(someConfig));
+    ArgumentCaptor<HttpRequest> requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+    when(httpUtil.<List<ApolloConfig>>doGet(requestCaptor.capture(), eq(batchResponseType))).thenReturn(batchResponse);
+
+    remoteConfigLongPollService.prefetchConfigs(Lists.newArrayList(someNamespace, anotherNamespace));
+
+    //the full configs are requested for all the namespaces
+    assertTrue(requestCaptor.getValue().getUrl().contains("releaseKeys=%7B%22" + someNamespace + "%22%3A%22-1%22%2C%22"
+        + anotherNamespace + "%22%3A%22-1%22%7D"));
+    assertEquals(someConfig, remoteConfigLongPollService.takePrefetchedConfig(someNamespace));
+    assertNull(remoteConfigLongPollService.takePrefetchedConfig(someNamespace));
+    assertNull(remoteConfigLongPollService.takePrefetchedConfig(anotherNamespace));
+  }
+
+  @Test
+  public void testDiscardPrefetchedConfigs() throws Exception {
+    String someNamespace = "someNamespace";
+    ApolloConfig someConfig = new ApolloConfig(someAppId, someCluster, someNamespace, "someReleaseKey");
+    someConfig.setConfigurations(ImmutableMap.of("someKey", "someValue"));
+    Type batchResponseType = (Type) ReflectionTestUtils.getField(remoteConfigLongPollService, "m_batchResponseType");
+    HttpResponse<List<ApolloConfig>> batchResponse = new HttpResponse<List<ApolloConfig>>(HttpServletResponse.SC_OK,
+        Lists.newArrayList(someConfig));
+    when(httpUtil.<List<ApolloConfig>>doGet(any(HttpRequest.class), eq(batchResponseType))).thenReturn(batchResponse);
+
+    remoteConfigLongPollService.prefetchConfigs(Lists.newArrayList(someNamespace));
+    remoteConfigLongPollService.discardPrefetchedConfigs(Lists.newArrayList(someNamespace));
+
+    assertNull(remoteConfigLongPollService.takePrefetchedConfig(someNamespace));
+  }
+
+  @Test
+  public void testSubmitNotificationStreamNamespace() throws Exception {
+    remoteConfigLongPollService = createNotificationStreamService();
+    RemoteConfigRepository someRepository = mock(RemoteConfigRepository.class);
+    final String someNamespace = "someNamespace";
+
+    ApolloNotificationMessages notificationMessages = new ApolloNotificationMessages();
+    String someKey = "someKey";
+    long someNotificationId = 1;
+    notificationMessages.put(someKey, someNotificationId);
+
+    final ApolloConfigNotification someNotification = new ApolloConfigNotification(someNamespace, someNotificationId);
+    someNotification.setMessages(notificationMessages);
+
+    final AtomicInteger streamCount = new AtomicInteger();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        HttpRequest request = invocation.getArgumentAt(0, HttpRequest.class);
+        HttpEventStreamListener<List<ApolloConfigNotification>> listener = invocation.getArgumentAt(2,
+            HttpEventStreamListener.class);
+
+        assertTrue(request.getUrl().contains(someServerUrl + "/notifications/v3?"));
+        assertTrue(request.getUrl().contains("appId=" + someAppId));
+        assertTrue(request.getUrl().contains(someNamespace));
+
+        if (streamCount.getAndIncrement() == 0) {
+          listener.onEvent(Lists.newArrayList(someNotification));
+        }
+        TimeUnit.MILLISECONDS.sleep(50);
+        return null;
+      }
+    }).when(httpUtil).doGetEventStream(any(HttpRequest.class), eq(responseType), any(HttpEventStreamListener.class));
+
+    final SettableFuture<Boolean> onNotified = SettableFuture.create();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        onNotified.set(true);
+        return null;
+      }
+    }).when(someRepository).onLongPollNotified(any(ServiceDTO.class), any(ApolloNotificationMessages.class));
+
+    remoteConfigLongPollService.submit(someNamespace, someRepository);
+
+    onNotified.get(5000, TimeUnit.MILLISECONDS);
+
+    remoteConfigLongPollService.stopLongPollingRefresh();
+
+    final ArgumentCaptor<ApolloNotificationMessages> captor = ArgumentCaptor.forClass(ApolloNotificationMessages.class);
+    verify(someRepository, times(1)).onLongPollNotified(any(ServiceDTO.class), captor.capture());
+    assertEquals(someNotificationId, captor.getValue().get(someKey).longValue());
+    verify(httpUtil, never()).doGet(any(HttpRequest.class), eq(responseType));
+  }
+
+  @Test
+  public void testSubmitNotificationStreamNamespaceWhileStreaming() throws Exception {
+    remoteConfigLongPollService = createNotificationStreamService();
+    final String someNamespace = "someNamespace";
+    final String anotherNamespace = "anotherNamespace";
+
+    final CountDownLatch firstStreamOpened = new CountDownLatch(1);
+    final SettableFuture<String> secondStreamUrl = SettableFuture.create();
+    final AtomicInteger streamCount = new AtomicInteger();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        HttpRequest request = invocation.getArgumentAt(0, HttpRequest.class);
+        HttpEventStreamListener<List<ApolloConfigNotification>> listener = invocation.getArgumentAt(2,
+            HttpEventStreamListener.class);
+
+        if (streamCount.getAndIncrement() > 0) {
+          secondStreamUrl.set(request.getUrl());
+          TimeUnit.MILLISECONDS.sleep(50);
+          return null;
+        }
+        //the stream stays open until it's closed by the client
+        final CountDownLatch streamClosed = new CountDownLatch(1);
+        listener.onOpen(new Closeable() {
+          @Override
+          public void close() {
+            streamClosed.countDown();
+          }
+        });
+        firstStreamOpened.countDown();
+        streamClosed.await(5000, TimeUnit.MILLISECONDS);
+        return null;
+      }
+    }).when(httpUtil).doGetEventStream(any(HttpRequest.class), eq(responseType), any(HttpEventStreamListener.class));
+
+    remoteConfigLongPollService.submit(someNamespace, mock(RemoteConfigRepository.class));
+    assertTrue(firstStreamOpened.await(5000, TimeUnit.MILLISECONDS));
+
+    remoteConfigLongPollService.submit(anotherNamespace, mock(RemoteConfigRepository.class));
+
+    //reconnected at once instead of waiting for the next heartbeat
+    String url = secondStreamUrl.get(5000, TimeUnit.MILLISECONDS);
+
+    remoteConfigLongPollService.stopLongPollingRefresh();
+
+    assertTrue(url.contains(someNamespace));
+    assertTrue(url.contains(anotherNamespace));
+  }
+
+  @Test
+  public void testSubmitNotificationStreamNamespaceFallbackToLongPolling() throws Exception {
+    remoteConfigLongPollService = createNotificationStreamService();
+    RemoteConfigRepository someRepository = mock(RemoteConfigRepository.class);
+    final String someNamespace = "someNamespace";
+
+    doThrow(new ApolloConfigStatusCodeException(HttpServletResponse.SC_NOT_FOUND, "some error")).when(httpUtil)
+        .doGetEventStream(any(HttpRequest.class), eq(responseType), any(HttpEventStreamListener.class));
+
+    when(pollResponse.getStatusCode()).thenReturn(HttpServletResponse.SC_NOT_MODIFIED);
+    final SettableFuture<Boolean> longPollFinished = SettableFuture.create();
+
+    doAnswer(new Answer<HttpResponse<List<ApolloConfigNotification>>>() {
+      @Override
+      public HttpResponse<List<ApolloConfigNotification>> answer(InvocationOnMock invocation)
+          throws Throwable {
+        TimeUnit.MILLISECONDS.sleep(50);
+        HttpRequest request = invocation.getArgumentAt(0, HttpRequest.class);
+
+        assertTrue(request.getUrl().contains(someServerUrl + "/notifications/v2?"));
+
+        longPollFinished.set(true);
+        return pollResponse;
+      }
+    }).when(httpUtil).doGet(any(HttpRequest.class), eq(responseType));
+
+    remoteConfigLongPollService.submit(someNamespace, someRepository);
+
+    longPollFinished.get(5000, TimeUnit.MILLISECONDS);
+
+    remoteConfigLongPollService.stopLongPollingRefresh();
+
+    verify(httpUtil, times(1))
+        .doGetEventStream(any(HttpRequest.class), eq(responseType), any(HttpEventStreamListener.class));
+  }
+
+  @Test
+  public void testAssembleNotificationStreamUrl() throws Exception {
+    String someNamespace = "someName";
+    long someNotificationId = 1;
+    Map<String, Long> notificationsMap = ImmutableMap.of(someNamespace, someNotificationId);
+
+    String notificationStreamUrl =
+        remoteConfigLongPollService
+            .assembleNotificationStreamUrl(someServerUrl, someAppId, someCluster, null, notificationsMap);
+
+    assertTrue(notificationStreamUrl.contains(someServerUrl + "/notifications/v3?"));
+    assertTrue(notificationStreamUrl.contains("appId=" + someAppId));
+    assertTrue(notificationStreamUrl.contains("cluster=" + someCluster));
+    assertTrue(notificationStreamUrl.contains(
+        "notifications=%5B%7B%22namespaceName%22%3A%22" + someNamespace
+            + "%22%2C%22notificationId%22%3A" + 1 + "%7D%5D"));
+  }
+
+  private RemoteConfigLongPollService createNotificationStreamService() {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil() {
+      @Override
+      public boolean isNotificationStreamEnabled() {
+        return true;
+      }
+    });
+    return new RemoteConfigLongPollService();
+  }
+
   public static class MockConfigUtil extends ConfigUtil {
     @Override
     public String getAppId() {
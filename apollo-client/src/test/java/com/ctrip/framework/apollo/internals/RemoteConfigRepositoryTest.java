@@ -13,6 +13,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import java.io.File;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +44,7 @@ import com.ctrip.framework.apollo.util.http.HttpUtil;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.net.UrlEscapers;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.gson.Gson;
@@ -150,6 +152,38 @@ public class RemoteConfigRepositoryTest {
     remoteConfigLongPollService.stopLongPollingRefresh();
   }
 
+  @Test
+  public void testLoadDeltaConfig() throws Exception {
+    Map<String, String> configurations = ImmutableMap.of("someKey", "someValue", "anotherKey", "anotherValue",
+        "yetAnotherKey", "yetAnotherValue");
+    ApolloConfig someApolloConfig = assembleApolloConfig(configurations);
+
+    when(someResponse.getStatusCode()).thenReturn(200);
+    when(someResponse.getBody()).thenReturn(someApolloConfig);
+
+    RemoteConfigRepository remoteConfigRepository = new RemoteConfigRepository(someNamespace);
+
+    ApolloConfig deltaApolloConfig = new ApolloConfig("appId", "cluster", someNamespace, "2");
+    deltaApolloConfig.setBaseReleaseKey(someApolloConfig.getReleaseKey());
+    deltaApolloConfig.setChangedConfigurations(ImmutableMap.of("someKey", "newValue", "newKey", "newValue"));
+    deltaApolloConfig.setDeletedKeys(Sets.newHashSet("anotherKey"));
+
+    when(someResponse.getBody()).thenReturn(deltaApolloConfig);
+
+    remoteConfigRepository.sync();
+
+    remoteConfigLongPollService.stopLongPollingRefresh();
+
+    Properties config = remoteConfigRepository.getConfig();
+    assertEquals(ImmutableMap.of("someKey", "newValue", "newKey", "newValue", "yetAnotherKey", "yetAnotherValue"),
+        config);
+
+    final ArgumentCaptor<HttpRequest> httpRequestArgumentCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+    verify(httpUtil, times(2)).doGet(httpRequestArgumentCaptor.capture(), eq(ApolloConfig.class));
+
+    assertTrue(httpRequestArgumentCaptor.getValue().getUrl().contains("delta=true"));
+  }
+
   @Test
   public void testLongPollingRefresh() throws Exception {
     Map<String, String> configurations = ImmutableMap.of("someKey", "someValue");
@@ -227,7 +261,7 @@ public class RemoteConfigRepositoryTest {
 
     String queryConfigUrl = remoteConfigRepository
         .assembleQueryConfigUrl(someUri, someAppId, someCluster, someNamespace, null, notificationMessages,
-            someApolloConfig);
+            someApolloConfig, false);
 
     remoteConfigLongPollService.stopLongPollingRefresh();
     assertTrue(queryConfigUrl
@@ -239,6 +273,61 @@ public class RemoteConfigRepositoryTest {
         .contains("messages=" + UrlEscapers.urlFormParameterEscaper().escape(gson.toJson(notificationMessages))));
   }
 
+  @Test
+  public void testResumeFromLocalSnapshot() throws Exception {
+    final File someCacheRoot = new File("src/test/resources/snapshot-cache-root");
+    File someConfigDir = new File(someCacheRoot, "config-cache");
+    someConfigDir.mkdirs();
+    String someReleaseKey = "someReleaseKey";
+    long someNotificationId = 10;
+    Properties someProperties = new Properties();
+    someProperties.setProperty("someKey", "someValue");
+    String someWatchedKey = "someApp+someCluster+" + someNamespace;
+    ApolloNotificationMessages someNotificationMessages = new ApolloNotificationMessages();
+    someNotificationMessages.put(someWatchedKey, someNotificationId);
+    new LocalConfigSnapshot(someReleaseKey, someNotificationId, someNotificationMessages, someProperties)
+        .writeTo(new File(someConfigDir, "someApp+someCluster+" + someNamespace + ".snapshot"));
+
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil() {
+      @Override
+      public boolean isLocalCacheSnapshotEnabled() {
+        return true;
+      }
+
+      @Override
+      public String getDefaultLocalCacheDir() {
+        return someCacheRoot.getPath();
+      }
+    });
+    remoteConfigLongPollService = new RemoteConfigLongPollService();
+    MockInjector.setInstance(RemoteConfigLongPollService.class, remoteConfigLongPollService);
+
+    when(someResponse.getStatusCode()).thenReturn(304);
+
+    try {
+      RemoteConfigRepository remoteConfigRepository = new RemoteConfigRepository(someNamespace);
+      remoteConfigLongPollService.stopLongPollingRefresh();
+
+      ArgumentCaptor<HttpRequest> requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+      verify(httpUtil, times(1)).doGet(requestCaptor.capture(), eq(ApolloConfig.class));
+
+      //the release key of the snapshot is sent, so the unchanged config is not loaded again
+      assertTrue(requestCaptor.getValue().getUrl().contains("releaseKey=" + someReleaseKey));
+      assertTrue(requestCaptor.getValue().getUrl().contains("messages="));
+      assertEquals(someProperties, remoteConfigRepository.getConfig());
+      assertEquals(someReleaseKey, remoteConfigRepository.getReleaseKey());
+      assertEquals(someNotificationId, remoteConfigRepository.getNotificationId());
+      assertEquals(someNotificationMessages.getDetails(),
+          remoteConfigRepository.getNotificationMessages().getDetails());
+    } finally {
+      for (File file : someConfigDir.listFiles()) {
+        file.delete();
+      }
+      someConfigDir.delete();
+      someCacheRoot.delete();
+    }
+  }
+
   private ApolloConfig assembleApolloConfig(Map<String, String> configurations) {
     String someAppId = "appId";
     String someClusterName = "cluster";
@@ -16,9 +16,11 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.build.MockInjector;
 import com.ctrip.framework.apollo.enums.PropertyChangeType;
 import com.ctrip.framework.apollo.model.ConfigChange;
 import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.SettableFuture;
 
@@ -35,6 +37,9 @@ public class SimpleConfigTest {
   @Before
   public void setUp() throws Exception {
     someNamespace = "someName";
+    MockInjector.reset();
+    MockInjector.setInstance(ConfigUtil.class, new ConfigUtil());
+    MockInjector.setInstance(ConfigChangeDispatcher.class, new ConfigChangeDispatcher());
   }
 
   @Test
@@ -30,6 +30,9 @@ import org.springframework.context.annotation.ComponentScan.Filter;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.context.annotation.ImportResource;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.stereotype.Component;
 
 public class JavaConfigPlaceholderAutoUpdateTest extends AbstractSpringIntegrationTest {
@@ -792,6 +795,31 @@ public class JavaConfigPlaceholderAutoUpdateTest extends AbstractSpringIntegrati
     assertEquals(someNewValue, bean.getNestedProperty());
   }
 
+  @Test
+  public void testAutoUpdateWithConversionService() throws Exception {
+    int initialTimeout = 1000;
+    int newTimeout = 1001;
+
+    Properties properties = assembleProperties(TIMEOUT_PROPERTY, String.valueOf(initialTimeout));
+
+    SimpleConfig config = prepareConfig(ConfigConsts.NAMESPACE_APPLICATION, properties);
+
+    AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(
+        ConversionServiceConfig.class);
+
+    TestConversionServiceBean bean = context.getBean(TestConversionServiceBean.class);
+
+    assertEquals(initialTimeout, bean.getTimeout().getMillis());
+
+    Properties newProperties = assembleProperties(TIMEOUT_PROPERTY, String.valueOf(newTimeout));
+
+    config.onRepositoryChange(ConfigConsts.NAMESPACE_APPLICATION, newProperties);
+
+    TimeUnit.MILLISECONDS.sleep(100);
+
+    assertEquals(newTimeout, bean.getTimeout().getMillis());
+  }
+
   @Test
   public void testAutoUpdateWithAllKindsOfDataTypes() throws Exception {
     int someInt = 1000;
@@ -1133,6 +1161,48 @@ public class JavaConfigPlaceholderAutoUpdateTest extends AbstractSpringIntegrati
     }
   }
 
+  @Configuration
+  @EnableApolloConfig
+  static class ConversionServiceConfig {
+    @Bean
+    ConversionService conversionService() {
+      DefaultConversionService conversionService = new DefaultConversionService();
+      conversionService.addConverter(new Converter<String, Timeout>() {
+        @Override
+        public Timeout convert(String source) {
+          return new Timeout(Long.parseLong(source));
+        }
+      });
+      return conversionService;
+    }
+
+    @Bean
+    TestConversionServiceBean testConversionServiceBean() {
+      return new TestConversionServiceBean();
+    }
+  }
+
+  static class Timeout {
+    private final long millis;
+
+    Timeout(long millis) {
+      this.millis = millis;
+    }
+
+    public long getMillis() {
+      return millis;
+    }
+  }
+
+  static class TestConversionServiceBean {
+    @Value("${timeout:100}")
+    private Timeout timeout;
+
+    public Timeout getTimeout() {
+      return timeout;
+    }
+  }
+
   static class TestJavaConfigBean {
 
     @Value("${timeout:100}")
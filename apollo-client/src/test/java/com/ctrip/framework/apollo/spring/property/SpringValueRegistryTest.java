@@ -0,0 +1,87 @@
+package com.ctrip.framework.apollo.spring.property;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.spring.annotation.SpringValueProcessor;
+import com.ctrip.framework.apollo.spring.util.SpringInjector;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.collect.Lists;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.Collections;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+
+public class SpringValueRegistryTest {
+  private SpringValueRegistry springValueRegistry;
+  private BeanFactory someBeanFactory;
+  private Field someField;
+
+  @Before
+  public void setUp() throws Exception {
+    MockInjector.reset();
+    MockInjector.setInstance(ConfigUtil.class, new ConfigUtil());
+    springValueRegistry = new SpringValueRegistry();
+    someBeanFactory = mock(BeanFactory.class);
+    someField = SomeBean.class.getDeclaredField("value");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    MockInjector.reset();
+  }
+
+  @Test
+  public void testGetSpringValuesOfMultipleKeys() throws Exception {
+    SpringValueProcessor springValueProcessor = new SpringValueProcessor();
+    springValueProcessor.setBeanFactory(someBeanFactory);
+    springValueProcessor.postProcessBeforeInitialization(new SomeBean(), "someBean");
+    SpringValueRegistry registry = SpringInjector.getInstance(SpringValueRegistry.class);
+
+    //the field of ${a}.${b} is registered with both keys as one spring value
+    Collection<SpringValue> springValuesOfA = registry.get(someBeanFactory, "a");
+    assertEquals(1, springValuesOfA.size());
+    assertEquals(2, registry.get(someBeanFactory, "b").size());
+    assertTrue(registry.get(someBeanFactory, "b").containsAll(springValuesOfA));
+
+    //so it is updated once when both keys are changed
+    Collection<SpringValue> springValues = registry.get(someBeanFactory, Lists.newArrayList("a", "b", "c"));
+    assertEquals(2, springValues.size());
+  }
+
+  @Test
+  public void testGetSpringValuesOfUnknownBeanFactory() throws Exception {
+    assertNull(springValueRegistry.get(someBeanFactory, "a"));
+    assertTrue(springValueRegistry.get(someBeanFactory, Lists.newArrayList("a")).isEmpty());
+  }
+
+  @Test
+  public void testInjectedFrom() throws Exception {
+    SomeBean someBean = new SomeBean();
+    SpringValue someValue = new SpringValue(Collections.singleton("a"), "${a}", someBean, "someBean", someField, false);
+
+    assertFalse(someValue.isInjectedFrom("1"));
+
+    someValue.update("1");
+    someValue.setInjectedFrom("1");
+
+    assertTrue(someValue.isInjectedFrom("1"));
+    assertFalse(someValue.isInjectedFrom("2"));
+    assertEquals("1", someBean.value);
+  }
+
+  private static class SomeBean {
+    @Value("${a}.${b}")
+    private String value;
+    @Value("${b}")
+    private String anotherValue;
+  }
+}
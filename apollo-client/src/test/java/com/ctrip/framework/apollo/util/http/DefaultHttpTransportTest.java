@@ -0,0 +1,105 @@
+package com.ctrip.framework.apollo.util.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.ctrip.framework.apollo.BaseIntegrationTest;
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DefaultHttpTransportTest extends BaseIntegrationTest {
+  private static final String SOME_PATH = "/configs";
+  private DefaultHttpTransport transport;
+  private List<String> acceptEncodings;
+  private Server server;
+
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    transport = new DefaultHttpTransport();
+    acceptEncodings = Lists.newCopyOnWriteArrayList();
+  }
+
+  @Test
+  public void testDoGetWithGzipResponse() throws Exception {
+    ApolloConfig someConfig = new ApolloConfig(someAppId, someClusterName, "application", "someReleaseKey");
+    someConfig.setConfigurations(ImmutableMap.of("someKey", "someValue"));
+
+    server = startServerWithHandlers(mockConfigServerHandler(HttpServletResponse.SC_OK, gson.toJson(someConfig)));
+
+    HttpResponse<ApolloConfig> response = transport.doGet(new HttpRequest(configUrl()), ApolloConfig.class);
+
+    assertEquals(200, response.getStatusCode());
+    assertEquals(someConfig.getReleaseKey(), response.getBody().getReleaseKey());
+    assertEquals("someValue", response.getBody().getConfigurations().get("someKey"));
+    assertEquals("gzip", acceptEncodings.get(0));
+  }
+
+  @Test
+  public void testDoGetWith304Response() throws Exception {
+    server = startServerWithHandlers(mockConfigServerHandler(HttpServletResponse.SC_NOT_MODIFIED, null));
+
+    HttpResponse<ApolloConfig> response = transport.doGet(new HttpRequest(configUrl()), ApolloConfig.class);
+
+    assertEquals(304, response.getStatusCode());
+    assertNull(response.getBody());
+  }
+
+  @Test
+  public void testDoGetWithErrorResponse() throws Exception {
+    server = startServerWithHandlers(mockConfigServerHandler(HttpServletResponse.SC_NOT_FOUND, "some error"));
+
+    try {
+      transport.doGet(new HttpRequest(configUrl()), ApolloConfig.class);
+      fail("Should throw status code exception");
+    } catch (ApolloConfigStatusCodeException ex) {
+      assertEquals(404, ex.getStatusCode());
+    }
+  }
+
+  private String configUrl() {
+    return String.format("http://localhost:%d%s/%s/%s", ((ServerConnector) server.getConnectors()[0]).getLocalPort(),
+        SOME_PATH, someAppId, someClusterName);
+  }
+
+  private ContextHandler mockConfigServerHandler(final int statusCode, final String body) {
+    ContextHandler context = new ContextHandler(SOME_PATH);
+    context.setHandler(new AbstractHandler() {
+      @Override
+      public void handle(String target, Request baseRequest, HttpServletRequest request,
+                         HttpServletResponse response) throws IOException, ServletException {
+        acceptEncodings.add(String.valueOf(request.getHeader("Accept-Encoding")));
+
+        response.setStatus(statusCode);
+        if (body != null) {
+          response.setContentType("application/json;charset=UTF-8");
+          response.setHeader("Content-Encoding", "gzip");
+          OutputStreamWriter writer = new OutputStreamWriter(new GZIPOutputStream(response.getOutputStream()),
+              StandardCharsets.UTF_8);
+          writer.write(body);
+          writer.close();
+        }
+        baseRequest.setHandled(true);
+      }
+    });
+    return context;
+  }
+}
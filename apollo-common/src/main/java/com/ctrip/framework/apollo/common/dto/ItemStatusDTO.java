@@ -0,0 +1,57 @@
+package com.ctrip.framework.apollo.common.dto;
+
+/**
+ * An item with its change against the latest release of its namespace
+ */
+public class ItemStatusDTO {
+
+  private ItemDTO item;
+
+  private boolean modified;
+
+  private boolean deleted;
+
+  private String oldValue;
+
+  private String newValue;
+
+  public ItemDTO getItem() {
+    return item;
+  }
+
+  public void setItem(ItemDTO item) {
+    this.item = item;
+  }
+
+  public boolean isModified() {
+    return modified;
+  }
+
+  public void setModified(boolean modified) {
+    this.modified = modified;
+  }
+
+  public boolean isDeleted() {
+    return deleted;
+  }
+
+  public void setDeleted(boolean deleted) {
+    this.deleted = deleted;
+  }
+
+  public String getOldValue() {
+    return oldValue;
+  }
+
+  public void setOldValue(String oldValue) {
+    this.oldValue = oldValue;
+  }
+
+  public String getNewValue() {
+    return newValue;
+  }
+
+  public void setNewValue(String newValue) {
+    this.newValue = newValue;
+  }
+}
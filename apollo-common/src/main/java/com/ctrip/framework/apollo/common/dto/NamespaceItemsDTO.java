@@ -0,0 +1,39 @@
+package com.ctrip.framework.apollo.common.dto;
+
+import java.util.List;
+
+/**
+ * A namespace with its items, including the items deleted since the latest release
+ */
+public class NamespaceItemsDTO {
+
+  private NamespaceDTO baseInfo;
+
+  private List<ItemStatusDTO> items;
+
+  private int itemModifiedCnt;
+
+  public NamespaceDTO getBaseInfo() {
+    return baseInfo;
+  }
+
+  public void setBaseInfo(NamespaceDTO baseInfo) {
+    this.baseInfo = baseInfo;
+  }
+
+  public List<ItemStatusDTO> getItems() {
+    return items;
+  }
+
+  public void setItems(List<ItemStatusDTO> items) {
+    this.items = items;
+  }
+
+  public int getItemModifiedCnt() {
+    return itemModifiedCnt;
+  }
+
+  public void setItemModifiedCnt(int itemModifiedCnt) {
+    this.itemModifiedCnt = itemModifiedCnt;
+  }
+}
@@ -6,6 +6,8 @@ import com.ctrip.framework.apollo.biz.message.ReleaseMessageScanner;
 import com.ctrip.framework.apollo.configservice.controller.ConfigFileController;
 import com.ctrip.framework.apollo.configservice.controller.NotificationController;
 import com.ctrip.framework.apollo.configservice.controller.NotificationControllerV2;
+import com.ctrip.framework.apollo.configservice.controller.NotificationControllerV3;
+import com.ctrip.framework.apollo.configservice.service.ConfigResponseCache;
 import com.ctrip.framework.apollo.configservice.service.ReleaseMessageServiceWithCache;
 import com.ctrip.framework.apollo.configservice.service.config.ConfigService;
 import com.ctrip.framework.apollo.configservice.service.config.ConfigServiceWithCache;
@@ -49,23 +51,29 @@ public class ConfigServiceAutoConfiguration {
     private final NotificationController notificationController;
     private final ConfigFileController configFileController;
     private final NotificationControllerV2 notificationControllerV2;
+    private final NotificationControllerV3 notificationControllerV3;
     private final GrayReleaseRulesHolder grayReleaseRulesHolder;
     private final ReleaseMessageServiceWithCache releaseMessageServiceWithCache;
     private final ConfigService configService;
+    private final ConfigResponseCache configResponseCache;
 
     public MessageScannerConfiguration(
         final NotificationController notificationController,
         final ConfigFileController configFileController,
         final NotificationControllerV2 notificationControllerV2,
+        final NotificationControllerV3 notificationControllerV3,
         final GrayReleaseRulesHolder grayReleaseRulesHolder,
         final ReleaseMessageServiceWithCache releaseMessageServiceWithCache,
-        final ConfigService configService) {
+        final ConfigService configService,
+        final ConfigResponseCache configResponseCache) {
       this.notificationController = notificationController;
       this.configFileController = configFileController;
       this.notificationControllerV2 = notificationControllerV2;
+      this.notificationControllerV3 = notificationControllerV3;
       this.grayReleaseRulesHolder = grayReleaseRulesHolder;
       this.releaseMessageServiceWithCache = releaseMessageServiceWithCache;
       this.configService = configService;
+      this.configResponseCache = configResponseCache;
     }
 
     @Bean
@@ -77,9 +85,11 @@ public class ConfigServiceAutoConfiguration {
       releaseMessageScanner.addMessageListener(grayReleaseRulesHolder);
       //2. handle server cache
       releaseMessageScanner.addMessageListener(configService);
+      releaseMessageScanner.addMessageListener(configResponseCache);
       releaseMessageScanner.addMessageListener(configFileController);
       //3. notify clients
       releaseMessageScanner.addMessageListener(notificationControllerV2);
+      releaseMessageScanner.addMessageListener(notificationControllerV3);
       releaseMessageScanner.addMessageListener(notificationController);
       return releaseMessageScanner;
     }
@@ -1,35 +1,13 @@
 package com.ctrip.framework.apollo.configservice.controller;
 
-<<<<<<< HEAD
-=======
-import java.io.IOException;
-import java.lang.reflect.Type;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
-
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestMethod;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
-
->>>>>>> e3c1cd89d7fedf9412b5d1f3ccd920c216106dfd
 import com.ctrip.framework.apollo.biz.entity.Release;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.ctrip.framework.apollo.configservice.service.AppNamespaceServiceWithCache;
+import com.ctrip.framework.apollo.configservice.service.ConfigResponseCache;
 import com.ctrip.framework.apollo.configservice.service.config.ConfigService;
 import com.ctrip.framework.apollo.configservice.util.InstanceConfigAuditUtil;
 import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
+import com.ctrip.framework.apollo.configservice.util.ResponseCompressionUtil;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfig;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
@@ -38,8 +16,14 @@ import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -50,9 +34,13 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -61,34 +49,45 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/configs")
 public class ConfigController {
+  private static final Logger logger = LoggerFactory.getLogger(ConfigController.class);
   private static final Splitter X_FORWARDED_FOR_SPLITTER = Splitter.on(",").omitEmptyStrings()
       .trimResults();
+  private static final Splitter RELEASE_KEY_SPLITTER = Splitter.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)
+      .omitEmptyStrings();
   private final ConfigService configService;
   private final AppNamespaceServiceWithCache appNamespaceService;
   private final NamespaceUtil namespaceUtil;
   private final InstanceConfigAuditUtil instanceConfigAuditUtil;
+  private final ConfigResponseCache configResponseCache;
+  private final ResponseCompressionUtil responseCompressionUtil;
   private final Gson gson;
+  private final HttpHeaders jsonResponseHeaders;
+  private final HttpHeaders compressedJsonResponseHeaders;
 
   private static final Type configurationTypeReference = new TypeToken<Map<String, String>>() {
       }.getType();
-<<<<<<< HEAD
 
   public ConfigController(
       final ConfigService configService,
       final AppNamespaceServiceWithCache appNamespaceService,
       final NamespaceUtil namespaceUtil,
       final InstanceConfigAuditUtil instanceConfigAuditUtil,
+      final ConfigResponseCache configResponseCache,
+      final ResponseCompressionUtil responseCompressionUtil,
       final Gson gson) {
     this.configService = configService;
     this.appNamespaceService = appNamespaceService;
     this.namespaceUtil = namespaceUtil;
     this.instanceConfigAuditUtil = instanceConfigAuditUtil;
+    this.configResponseCache = configResponseCache;
+    this.responseCompressionUtil = responseCompressionUtil;
     this.gson = gson;
+    jsonResponseHeaders = new HttpHeaders();
+    jsonResponseHeaders.add("Content-Type", "application/json;charset=UTF-8");
+    jsonResponseHeaders.add("Vary", "Accept-Encoding");
+    compressedJsonResponseHeaders = ResponseCompressionUtil.compressedHeaders(jsonResponseHeaders);
   }
 
-  @GetMapping(value = "/{appId}/{clusterName}/{namespace:.+}")
-=======
-  private static final Logger logger = LoggerFactory.getLogger(ConfigController.class);
   /**
    *
    *  http://ip:port/configs/appid/cluster/namespace?dataCenter=dataCenterStr&ip=ipStr
@@ -100,24 +99,42 @@ public class ConfigController {
    *
    *  这个接口是补偿机制接口，每5分钟，客户端主动从服务端获取一次配置。
    *
+   *  delta=true时，如果能找到客户端releaseKey对应的版本，只返回新增、修改和删除的配置
+   *
    */
-  @RequestMapping(value = "/{appId}/{clusterName}/{namespace:.+}", method = RequestMethod.GET)
->>>>>>> e3c1cd89d7fedf9412b5d1f3ccd920c216106dfd
-  public ApolloConfig queryConfig(@PathVariable String appId, @PathVariable String clusterName,
-                                  @PathVariable String namespace,
-                                  @RequestParam(value = "dataCenter", required = false) String dataCenter,
-                                  @RequestParam(value = "releaseKey", defaultValue = "-1") String clientSideReleaseKey,
-                                  @RequestParam(value = "ip", required = false) String clientIp,
-                                  @RequestParam(value = "messages", required = false) String messagesAsString,
+  @GetMapping(value = "/{appId}/{clusterName}/{namespace:.+}")
+  public ResponseEntity<byte[]> queryConfigAsJson(@PathVariable String appId, @PathVariable String clusterName,
+                                                  @PathVariable String namespace,
+                                                  @RequestParam(value = "dataCenter", required = false) String dataCenter,
+                                                  @RequestParam(value = "releaseKey", defaultValue = "-1") String clientSideReleaseKey,
+                                                  @RequestParam(value = "ip", required = false) String clientIp,
+                                                  @RequestParam(value = "messages", required = false) String messagesAsString,
+                                                  @RequestParam(value = "delta", defaultValue = "false") boolean delta,
+                                                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+    ApolloConfig apolloConfig = queryConfig(appId, clusterName, namespace, dataCenter, clientSideReleaseKey, clientIp,
+        messagesAsString, delta, request, response);
+
+    //404 or 304, the status is already set
+    if (apolloConfig == null) {
+      return null;
+    }
+
+    //the serialized response is cached, so we don't need to serialize the configurations for every request
+    byte[] body = configResponseCache.getResponse(apolloConfig);
+
+    if (responseCompressionUtil.shouldCompress(request, body.length)) {
+      return new ResponseEntity<>(configResponseCache.getCompressedResponse(apolloConfig, body),
+          compressedJsonResponseHeaders, HttpStatus.OK);
+    }
+
+    return new ResponseEntity<>(body, jsonResponseHeaders, HttpStatus.OK);
+  }
+
+  public ApolloConfig queryConfig(String appId, String clusterName, String namespace, String dataCenter,
+                                  String clientSideReleaseKey, String clientIp, String messagesAsString, boolean delta,
                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
     SimpleDateFormat myFmt=new SimpleDateFormat("yyyy年MM月dd日 HH时mm分ss秒");
     logger.info("---------------------------------------------------------------------queryConfig--------->>"+String.valueOf(myFmt.format(new Date())));
-    String originalNamespace = namespace;
-    //namespace去掉.properties后缀
-    namespace = namespaceUtil.filterNamespaceName(namespace);
-    //fix the character case issue, such as FX.apollo <-> fx.apollo
-    namespace = namespaceUtil.normalizeNamespace(appId, namespace);
-
     //如果clientIp不存在，则拿到请求的ip
     if (Strings.isNullOrEmpty(clientIp)) {
       clientIp = tryToGetClientIp(request);
@@ -127,6 +144,83 @@ public class ConfigController {
     //key="appId+cluster+namespace"  value=通知id
     ApolloNotificationMessages clientMessages = transformMessages(messagesAsString);
 
+    ApolloConfig apolloConfig = doQueryConfig(appId, clusterName, namespace, dataCenter,
+        clientSideReleaseKey, clientIp, clientMessages, delta);
+
+    //私有和公共配置都找不到
+    if (apolloConfig == null) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND,String.format("Could not load configurations with appId: %s, clusterName: %s, namespace: %s",appId, clusterName, namespace));
+      return null;
+    }
+
+    //客户端版本和服务器版本一致，返回304
+    if (isNotModified(apolloConfig)) {
+      // Client side configuration is the same with server side, return 304
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return null;
+    }
+
+    return apolloConfig;
+  }
+
+  /**
+   * Query the configurations of multiple namespaces in one request.
+   *
+   *  http://ip:port/configs/appid/cluster?dataCenter=dataCenterStr&ip=ipStr
+   *  &messages=messagesStr&releaseKeys={"application":"20181101155641-af002bf0f95b6782","FX.apollo":"-1"}
+   *
+   * @param releaseKeysAsString json map of namespace -> client side release key
+   * @return one entry for each namespace found, with null configurations if the client side release key is up to date,
+   * namespaces which could not be found are omitted
+   */
+  @GetMapping(value = "/{appId}/{clusterName:.+}")
+  public List<ApolloConfig> queryConfigs(@PathVariable String appId, @PathVariable String clusterName,
+                                         @RequestParam(value = "releaseKeys") String releaseKeysAsString,
+                                         @RequestParam(value = "dataCenter", required = false) String dataCenter,
+                                         @RequestParam(value = "ip", required = false) String clientIp,
+                                         @RequestParam(value = "messages", required = false) String messagesAsString,
+                                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Map<String, String> clientSideReleaseKeys = transformReleaseKeys(releaseKeysAsString);
+
+    if (clientSideReleaseKeys == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, String.format("Invalid format of releaseKeys: %s",
+          releaseKeysAsString));
+      return null;
+    }
+
+    if (Strings.isNullOrEmpty(clientIp)) {
+      clientIp = tryToGetClientIp(request);
+    }
+
+    ApolloNotificationMessages clientMessages = transformMessages(messagesAsString);
+
+    List<ApolloConfig> apolloConfigs = Lists.newArrayListWithCapacity(clientSideReleaseKeys.size());
+    for (Map.Entry<String, String> entry : clientSideReleaseKeys.entrySet()) {
+      String clientSideReleaseKey = Strings.isNullOrEmpty(entry.getValue()) ? "-1" : entry.getValue();
+      ApolloConfig apolloConfig = doQueryConfig(appId, clusterName, entry.getKey(), dataCenter,
+          clientSideReleaseKey, clientIp, clientMessages, false);
+      if (apolloConfig != null) {
+        apolloConfigs.add(apolloConfig);
+      }
+    }
+
+    return apolloConfigs;
+  }
+
+  /**
+   * @return null if no configuration is found, the config with null configurations if the client side release key
+   * is up to date, the config with delta configurations if delta is requested and the client side releases are found,
+   * otherwise the config with merged configurations
+   */
+  private ApolloConfig doQueryConfig(String appId, String clusterName, String namespace, String dataCenter,
+                                     String clientSideReleaseKey, String clientIp,
+                                     ApolloNotificationMessages clientMessages, boolean delta) {
+    String originalNamespace = namespace;
+    //namespace去掉.properties后缀
+    namespace = namespaceUtil.filterNamespaceName(namespace);
+    //fix the character case issue, such as FX.apollo <-> fx.apollo
+    namespace = namespaceUtil.normalizeNamespace(appId, namespace);
+
     List<Release> releases = Lists.newLinkedList();
 
     String appClusterNameLoaded = clusterName;
@@ -156,7 +250,6 @@ public class ConfigController {
 
     //私有和公共配置都找不到
     if (releases.isEmpty()) {
-      response.sendError(HttpServletResponse.SC_NOT_FOUND,String.format("Could not load configurations with appId: %s, clusterName: %s, namespace: %s",appId, clusterName, originalNamespace));
       Tracer.logEvent("Apollo.Config.NotFound",assembleKey(appId, clusterName, originalNamespace, dataCenter));
       return null;
     }
@@ -165,21 +258,90 @@ public class ConfigController {
 
     String mergedReleaseKey = releases.stream().map(Release::getReleaseKey).collect(Collectors.joining(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR));
 
-    //客户端版本和服务器版本一致，返回304
+    ApolloConfig apolloConfig = new ApolloConfig(appId, appClusterNameLoaded, originalNamespace,mergedReleaseKey);
+
+    //客户端版本和服务器版本一致，不返回配置内容
     if (mergedReleaseKey.equals(clientSideReleaseKey)) {
-      // Client side configuration is the same with server side, return 304
-      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
       Tracer.logEvent("Apollo.Config.NotModified",assembleKey(appId, appClusterNameLoaded, originalNamespace, dataCenter));
-      return null;
+      return apolloConfig;
+    }
+    Map<String, String> mergedConfigurations = mergeReleaseConfigurations(releases);
+
+    //请求增量时，返回相对于客户端版本的变化
+    if (delta && fillDeltaConfigurations(apolloConfig, clientSideReleaseKey, releases, mergedConfigurations)) {
+      Tracer.logEvent("Apollo.Config.FoundDelta", assembleKey(appId, appClusterNameLoaded, originalNamespace,
+          dataCenter));
+      return apolloConfig;
     }
+
     //不一致时，返回当前版本的配置
-    ApolloConfig apolloConfig = new ApolloConfig(appId, appClusterNameLoaded, originalNamespace,mergedReleaseKey);
-    apolloConfig.setConfigurations(mergeReleaseConfigurations(releases));
+    apolloConfig.setConfigurations(mergedConfigurations);
 
     Tracer.logEvent("Apollo.Config.Found", assembleKey(appId, appClusterNameLoaded,originalNamespace, dataCenter));
     return apolloConfig;
   }
 
+  /**
+   * Fill the changes between the client side releases and the current configurations
+   *
+   * @param currentReleases the releases the current configurations are merged from
+   * @return false if the client side releases could not be found, don't belong to the same namespaces as the current
+   * releases or the delta is not smaller than the full payload, so the full configurations should be returned
+   */
+  private boolean fillDeltaConfigurations(ApolloConfig apolloConfig, String clientSideReleaseKey,
+                                          List<Release> currentReleases, Map<String, String> currentConfigurations) {
+    if (Strings.isNullOrEmpty(clientSideReleaseKey) || "-1".equals(clientSideReleaseKey)) {
+      return false;
+    }
+
+    List<String> clientSideReleaseKeys = RELEASE_KEY_SPLITTER.splitToList(clientSideReleaseKey);
+    if (clientSideReleaseKeys.size() != currentReleases.size()) {
+      return false;
+    }
+
+    List<Release> clientSideReleases = Lists.newLinkedList();
+    Iterator<Release> currentReleaseIterator = currentReleases.iterator();
+    for (String releaseKey : clientSideReleaseKeys) {
+      Release release = configService.findReleaseByReleaseKey(releaseKey);
+      //the delta should only reveal the changes of the requested namespace
+      if (release == null || !isSameNamespace(release, currentReleaseIterator.next())) {
+        return false;
+      }
+      clientSideReleases.add(release);
+    }
+
+    Map<String, String> clientSideConfigurations = mergeReleaseConfigurations(clientSideReleases);
+
+    Map<String, String> changedConfigurations = Maps.newHashMap();
+    for (Map.Entry<String, String> entry : currentConfigurations.entrySet()) {
+      if (!Objects.equals(entry.getValue(), clientSideConfigurations.get(entry.getKey()))) {
+        changedConfigurations.put(entry.getKey(), entry.getValue());
+      }
+    }
+
+    Set<String> deletedKeys = Sets.newHashSet(Sets.difference(clientSideConfigurations.keySet(),
+        currentConfigurations.keySet()));
+
+    if (changedConfigurations.size() + deletedKeys.size() >= currentConfigurations.size()) {
+      return false;
+    }
+
+    apolloConfig.setBaseReleaseKey(clientSideReleaseKey);
+    apolloConfig.setChangedConfigurations(changedConfigurations);
+    apolloConfig.setDeletedKeys(deletedKeys);
+    return true;
+  }
+
+  private boolean isSameNamespace(Release release, Release anotherRelease) {
+    return Objects.equals(release.getAppId(), anotherRelease.getAppId())
+        && Objects.equals(release.getClusterName(), anotherRelease.getClusterName())
+        && Objects.equals(release.getNamespaceName(), anotherRelease.getNamespaceName());
+  }
+
+  private boolean isNotModified(ApolloConfig apolloConfig) {
+    return apolloConfig.getConfigurations() == null && apolloConfig.getChangedConfigurations() == null;
+  }
+
   private boolean namespaceBelongsToAppId(String appId, String namespaceName) {
     //Every app has an 'application' namespace
     //每一个app都有一个叫application的namespace，所以返回true
@@ -224,11 +386,7 @@ public class ConfigController {
    * Release in lower index override those in higher index
    */
   Map<String, String> mergeReleaseConfigurations(List<Release> releases) {
-    Map<String, String> result = Maps.newHashMap();
-    for (Release release : Lists.reverse(releases)) {
-      result.putAll(gson.fromJson(release.getConfigurations(), configurationTypeReference));
-    }
-    return result;
+    return configResponseCache.getMergedConfigurations(releases);
   }
 
   private String assembleKey(String appId, String cluster, String namespace, String dataCenter) {
@@ -272,4 +430,14 @@ public class ConfigController {
 
     return notificationMessages;
   }
+
+  Map<String, String> transformReleaseKeys(String releaseKeysAsString) {
+    try {
+      return gson.fromJson(releaseKeysAsString, configurationTypeReference);
+    } catch (Throwable ex) {
+      Tracer.logError(ex);
+    }
+
+    return null;
+  }
 }
@@ -5,6 +5,7 @@ import com.ctrip.framework.apollo.biz.grayReleaseRule.GrayReleaseRulesHolder;
 import com.ctrip.framework.apollo.biz.message.ReleaseMessageListener;
 import com.ctrip.framework.apollo.biz.message.Topics;
 import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
+import com.ctrip.framework.apollo.configservice.util.ResponseCompressionUtil;
 import com.ctrip.framework.apollo.configservice.util.WatchKeysUtil;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfig;
@@ -37,10 +38,12 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -59,6 +62,8 @@ public class ConfigFileController implements ReleaseMessageListener {
   private final HttpHeaders jsonResponseHeaders;
   private final ResponseEntity<String> NOT_FOUND_RESPONSE;
   private Cache<String, String> localCache;
+  //keyed by the identity of the cached results, so the encoded ones are collected along with them
+  private final Cache<String, EncodedResult> encodedResults = CacheBuilder.newBuilder().weakKeys().build();
   private final Multimap<String, String>
       watchedKeys2CacheKey = Multimaps.synchronizedSetMultimap(HashMultimap.create());
   private final Multimap<String, String>
@@ -69,12 +74,14 @@ public class ConfigFileController implements ReleaseMessageListener {
   private final NamespaceUtil namespaceUtil;
   private final WatchKeysUtil watchKeysUtil;
   private final GrayReleaseRulesHolder grayReleaseRulesHolder;
+  private final ResponseCompressionUtil responseCompressionUtil;
 
   public ConfigFileController(
       final ConfigController configController,
       final NamespaceUtil namespaceUtil,
       final WatchKeysUtil watchKeysUtil,
-      final GrayReleaseRulesHolder grayReleaseRulesHolder) {
+      final GrayReleaseRulesHolder grayReleaseRulesHolder,
+      final ResponseCompressionUtil responseCompressionUtil) {
     localCache = CacheBuilder.newBuilder()
         .expireAfterWrite(EXPIRE_AFTER_WRITE, TimeUnit.MINUTES)
         .weigher((Weigher<String, String>) (key, value) -> value == null ? 0 : value.length())
@@ -96,13 +103,16 @@ public class ConfigFileController implements ReleaseMessageListener {
         .build();
     propertiesResponseHeaders = new HttpHeaders();
     propertiesResponseHeaders.add("Content-Type", "text/plain;charset=UTF-8");
+    propertiesResponseHeaders.add("Vary", "Accept-Encoding");
     jsonResponseHeaders = new HttpHeaders();
     jsonResponseHeaders.add("Content-Type", "application/json;charset=UTF-8");
+    jsonResponseHeaders.add("Vary", "Accept-Encoding");
     NOT_FOUND_RESPONSE = new ResponseEntity<>(HttpStatus.NOT_FOUND);
     this.configController = configController;
     this.namespaceUtil = namespaceUtil;
     this.watchKeysUtil = watchKeysUtil;
     this.grayReleaseRulesHolder = grayReleaseRulesHolder;
+    this.responseCompressionUtil = responseCompressionUtil;
   }
 
   @GetMapping(value = "/{appId}/{clusterName}/{namespace:.+}")
@@ -123,6 +133,10 @@ public class ConfigFileController implements ReleaseMessageListener {
       return NOT_FOUND_RESPONSE;
     }
 
+    if (tryWriteCompressedResult(result, propertiesResponseHeaders, request, response)) {
+      return null;
+    }
+
     return new ResponseEntity<>(result, propertiesResponseHeaders, HttpStatus.OK);
   }
 
@@ -143,9 +157,42 @@ public class ConfigFileController implements ReleaseMessageListener {
       return NOT_FOUND_RESPONSE;
     }
 
+    if (tryWriteCompressedResult(result, jsonResponseHeaders, request, response)) {
+      return null;
+    }
+
     return new ResponseEntity<>(result, jsonResponseHeaders, HttpStatus.OK);
   }
 
+  /**
+   * Write the gzipped result if the client accepts it, the encoded results are cached along with the results
+   *
+   * @return whether the result is written
+   */
+  private boolean tryWriteCompressedResult(String result, HttpHeaders headers, HttpServletRequest request,
+                                           HttpServletResponse response) throws IOException {
+    EncodedResult encodedResult;
+    try {
+      encodedResult = encodedResults.get(result, () -> new EncodedResult(result.getBytes(StandardCharsets.UTF_8)));
+    } catch (ExecutionException ex) {
+      Tracer.logError(ex);
+      return false;
+    }
+
+    if (!responseCompressionUtil.shouldCompress(request, encodedResult.content.length)) {
+      return false;
+    }
+
+    byte[] compressedContent = encodedResult.getCompressedContent();
+
+    response.setStatus(HttpServletResponse.SC_OK);
+    ResponseCompressionUtil.compressedHeaders(headers).forEach((name, values) -> values.forEach(
+        value -> response.addHeader(name, value)));
+    response.setContentLength(compressedContent.length);
+    response.getOutputStream().write(compressedContent);
+    return true;
+  }
+
   String queryConfig(ConfigFileOutputFormat outputFormat, String appId, String clusterName,
                      String namespace, String dataCenter, String clientIp,
                      HttpServletRequest request,
@@ -216,7 +263,7 @@ public class ConfigFileController implements ReleaseMessageListener {
                             HttpServletRequest request,
                             HttpServletResponse response) throws IOException {
     ApolloConfig apolloConfig = configController.queryConfig(appId, clusterName, namespace,
-        dataCenter, "-1", clientIp, null, request, response);
+        dataCenter, "-1", clientIp, null, false, request, response);
 
     if (apolloConfig == null || apolloConfig.getConfigurations() == null) {
       return null;
@@ -271,6 +318,28 @@ public class ConfigFileController implements ReleaseMessageListener {
     }
   }
 
+  /**
+   * The utf-8 bytes of a result, and the gzipped ones once requested
+   */
+  private static class EncodedResult {
+    private final byte[] content;
+    private volatile byte[] compressedContent;
+
+    EncodedResult(byte[] content) {
+      this.content = content;
+    }
+
+    byte[] getCompressedContent() {
+      byte[] compressed = compressedContent;
+      if (compressed == null) {
+        //compressing the same content concurrently is harmless
+        compressed = ResponseCompressionUtil.gzip(content);
+        compressedContent = compressed;
+      }
+      return compressed;
+    }
+  }
+
   enum ConfigFileOutputFormat {
     PROPERTIES("properties"), JSON("json");
 
@@ -0,0 +1,220 @@
+package com.ctrip.framework.apollo.configservice.controller;
+
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.biz.message.ReleaseMessageListener;
+import com.ctrip.framework.apollo.biz.message.Topics;
+import com.ctrip.framework.apollo.biz.utils.EntityManagerUtil;
+import com.ctrip.framework.apollo.common.exception.BadRequestException;
+import com.ctrip.framework.apollo.configservice.service.ReleaseMessageServiceWithCache;
+import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
+import com.ctrip.framework.apollo.configservice.util.NotificationFanOutScheduler;
+import com.ctrip.framework.apollo.configservice.util.WatchKeyRegistry;
+import com.ctrip.framework.apollo.configservice.util.WatchKeysUtil;
+import com.ctrip.framework.apollo.configservice.wrapper.NotificationStreamWrapper;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams the notifications over a connection which stays open, instead of one long polling request per change.
+ *
+ * The notifications are sent as server sent events, whose data is the same as the response of /notifications/v2.
+ */
+@RestController
+@RequestMapping("/notifications/v3")
+public class NotificationControllerV3 implements ReleaseMessageListener {
+  private static final Logger logger = LoggerFactory.getLogger(NotificationControllerV3.class);
+  private static final long HEARTBEAT_INTERVAL_IN_SECONDS = 30;
+  private static final Type notificationsTypeReference =
+      new TypeToken<List<ApolloConfigNotification>>() {
+      }.getType();
+
+  private final WatchKeyRegistry<NotificationStreamWrapper> streamRegistry = new WatchKeyRegistry<>();
+  //stream -> watched keys, for heartbeats and cleaning up the streams closed silently
+  private final Map<NotificationStreamWrapper, Set<String>> streams = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService heartbeatExecutorService;
+
+  private final WatchKeysUtil watchKeysUtil;
+  private final ReleaseMessageServiceWithCache releaseMessageService;
+  private final EntityManagerUtil entityManagerUtil;
+  private final NamespaceUtil namespaceUtil;
+  private final Gson gson;
+  private final NotificationFanOutScheduler notificationFanOutScheduler;
+
+  public NotificationControllerV3(
+      final WatchKeysUtil watchKeysUtil,
+      final ReleaseMessageServiceWithCache releaseMessageService,
+      final EntityManagerUtil entityManagerUtil,
+      final NamespaceUtil namespaceUtil,
+      final Gson gson,
+      final NotificationFanOutScheduler notificationFanOutScheduler) {
+    this.watchKeysUtil = watchKeysUtil;
+    this.releaseMessageService = releaseMessageService;
+    this.entityManagerUtil = entityManagerUtil;
+    this.namespaceUtil = namespaceUtil;
+    this.gson = gson;
+    this.notificationFanOutScheduler = notificationFanOutScheduler;
+    heartbeatExecutorService = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("NotificationControllerV3", true));
+    heartbeatExecutorService.scheduleWithFixedDelay(this::sendHeartbeats, HEARTBEAT_INTERVAL_IN_SECONDS,
+        HEARTBEAT_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
+  }
+
+  @GetMapping
+  public SseEmitter streamNotifications(
+      @RequestParam(value = "appId") String appId,
+      @RequestParam(value = "cluster") String cluster,
+      @RequestParam(value = "notifications") String notificationsAsString,
+      @RequestParam(value = "dataCenter", required = false) String dataCenter,
+      @RequestParam(value = "ip", required = false) String clientIp) {
+    List<ApolloConfigNotification> notifications = null;
+
+    try {
+      notifications = gson.fromJson(notificationsAsString, notificationsTypeReference);
+    } catch (Throwable ex) {
+      Tracer.logError(ex);
+    }
+
+    if (CollectionUtils.isEmpty(notifications)) {
+      throw new BadRequestException("Invalid format of notifications: " + notificationsAsString);
+    }
+
+    NotificationStreamWrapper stream = new NotificationStreamWrapper(gson);
+    Set<String> namespaces = Sets.newHashSet();
+    Map<String, Long> clientSideNotifications = Maps.newHashMap();
+    Map<String, ApolloConfigNotification> filteredNotifications =
+        NotificationControllerV2.filterNotifications(namespaceUtil, appId, notifications);
+
+    for (Map.Entry<String, ApolloConfigNotification> notificationEntry : filteredNotifications.entrySet()) {
+      String normalizedNamespace = notificationEntry.getKey();
+      ApolloConfigNotification notification = notificationEntry.getValue();
+      namespaces.add(normalizedNamespace);
+      clientSideNotifications.put(normalizedNamespace, notification.getNotificationId());
+      stream.recordNotificationId(normalizedNamespace, notification.getNotificationId());
+      if (!Objects.equals(notification.getNamespaceName(), normalizedNamespace)) {
+        stream.recordNamespaceNameNormalizedResult(notification.getNamespaceName(), normalizedNamespace);
+      }
+    }
+
+    if (CollectionUtils.isEmpty(namespaces)) {
+      throw new BadRequestException("Invalid format of notifications: " + notificationsAsString);
+    }
+
+    Multimap<String, String> watchedKeysMap =
+        watchKeysUtil.assembleAllWatchKeys(appId, cluster, namespaces, dataCenter);
+
+    Set<String> watchedKeys = Sets.newHashSet(watchedKeysMap.values());
+
+    //register before the check, so that the messages in between are not missed
+    stream.onTimeout(() -> NotificationControllerV2.logWatchedKeys(watchedKeys, "Apollo.NotificationStream.TimeOutKeys"));
+    stream.onError(() -> unregister(stream));
+    stream.onCompletion(() -> {
+      unregister(stream);
+      NotificationControllerV2.logWatchedKeys(watchedKeys, "Apollo.NotificationStream.CompletedKeys");
+    });
+
+    streams.put(stream, watchedKeys);
+    for (String key : watchedKeys) {
+      streamRegistry.register(key, stream);
+    }
+
+    NotificationControllerV2.logWatchedKeys(watchedKeys, "Apollo.NotificationStream.RegisteredKeys");
+    logger.debug("Streaming {} to appId: {}, cluster: {}, namespace: {}, datacenter: {}",
+        watchedKeys, appId, cluster, namespaces, dataCenter);
+
+    List<ReleaseMessage> latestReleaseMessages =
+        releaseMessageService.findLatestReleaseMessagesGroupByMessages(watchedKeys);
+
+    //the stream would hold the db connection for a very long time otherwise
+    entityManagerUtil.closeEntityManager();
+
+    List<ApolloConfigNotification> newNotifications =
+        NotificationControllerV2.getApolloConfigNotifications(namespaces, clientSideNotifications, watchedKeysMap,
+            latestReleaseMessages);
+
+    if (!CollectionUtils.isEmpty(newNotifications)) {
+      stream.send(newNotifications);
+    }
+
+    return stream.getEmitter();
+  }
+
+  private void unregister(NotificationStreamWrapper stream) {
+    Set<String> watchedKeys = streams.remove(stream);
+    if (watchedKeys == null) {
+      return;
+    }
+    for (String key : watchedKeys) {
+      streamRegistry.unregister(key, stream);
+    }
+  }
+
+  private void sendHeartbeats() {
+    for (NotificationStreamWrapper stream : streams.keySet()) {
+      try {
+        stream.sendHeartbeat();
+        if (stream.isClosed()) {
+          unregister(stream);
+        }
+      } catch (Throwable ex) {
+        logger.debug("Send heartbeat failed", ex);
+      }
+    }
+  }
+
+  @Override
+  public void handleMessage(ReleaseMessage message, String channel) {
+    logger.info("message received - channel: {}, message: {}", channel, message);
+
+    String content = message.getMessage();
+    if (!Topics.APOLLO_RELEASE_TOPIC.equals(channel) || Strings.isNullOrEmpty(content)) {
+      return;
+    }
+
+    String changedNamespace = NotificationControllerV2.retrieveNamespaceFromReleaseMessage.apply(content);
+
+    if (Strings.isNullOrEmpty(changedNamespace)) {
+      logger.error("message format invalid - {}", content);
+      return;
+    }
+
+    List<NotificationStreamWrapper> results = streamRegistry.snapshot(content);
+    if (results.isEmpty()) {
+      return;
+    }
+
+    ApolloConfigNotification configNotification = new ApolloConfigNotification(changedNamespace, message.getId());
+    configNotification.addMessage(content, message.getId());
+
+    logger.debug("Stream notification to {} clients for key {}", results.size(), content);
+    notificationFanOutScheduler.fanOut(content, results, stream -> stream.send(configNotification));
+  }
+
+  int getStreamCount() {
+    return streams.size();
+  }
+}
@@ -0,0 +1,55 @@
+package com.ctrip.framework.apollo.configservice.controller;
+
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.biz.message.ReleaseMessageScanner;
+import com.ctrip.framework.apollo.metaservice.service.DiscoveryService;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.netflix.appinfo.InstanceInfo;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Receives the release messages pushed by admin services
+ */
+@RestController
+@RequestMapping("/release-messages")
+public class ReleaseMessageController {
+  private final ReleaseMessageScanner releaseMessageScanner;
+  private final DiscoveryService discoveryService;
+
+  public ReleaseMessageController(
+      final ReleaseMessageScanner releaseMessageScanner,
+      final DiscoveryService discoveryService) {
+    this.releaseMessageScanner = releaseMessageScanner;
+    this.discoveryService = discoveryService;
+  }
+
+  @PostMapping
+  public void receive(@RequestBody ReleaseMessage message, HttpServletRequest request,
+      HttpServletResponse response) throws IOException {
+    String remoteAddr = request.getRemoteAddr();
+    if (!isAdminServiceAddress(remoteAddr)) {
+      Tracer.logEvent("Apollo.ReleaseMessage.Rejected", remoteAddr);
+      response.sendError(HttpServletResponse.SC_FORBIDDEN,
+          String.format("%s is not a registered admin service", remoteAddr));
+      return;
+    }
+    releaseMessageScanner.receive(message);
+  }
+
+  private boolean isAdminServiceAddress(String remoteAddr) {
+    for (InstanceInfo instance : discoveryService.getAdminServiceInstances()) {
+      if (Objects.equals(instance.getIPAddr(), remoteAddr)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,228 @@
+package com.ctrip.framework.apollo.configservice.service;
+
+import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.biz.message.ReleaseMessageListener;
+import com.ctrip.framework.apollo.biz.message.Topics;
+import com.ctrip.framework.apollo.biz.utils.ReleaseMessageKeyGenerator;
+import com.ctrip.framework.apollo.configservice.util.ResponseCompressionUtil;
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of the merged configurations and the serialized config responses, keyed by the merged release key.
+ *
+ * Since releases are never modified once created, the entries never become stale, the release messages are only used
+ * to evict the entries of the releases which are replaced.
+ */
+@Service
+public class ConfigResponseCache implements ReleaseMessageListener {
+  private static final Logger logger = LoggerFactory.getLogger(ConfigResponseCache.class);
+  private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
+  private static final long MAX_CACHE_SIZE = 50 * 1024 * 1024; // 50MB
+  private static final long EXPIRE_AFTER_ACCESS = 30;
+  private static final Type configurationTypeReference = new TypeToken<Map<String, String>>() {
+  }.getType();
+
+  private final Cache<String, ConfigResponseCacheEntry> localCache;
+  private final Multimap<String, String>
+      watchedKeys2CacheKey = Multimaps.synchronizedSetMultimap(HashMultimap.create());
+  private final Multimap<String, String>
+      cacheKey2WatchedKeys = Multimaps.synchronizedSetMultimap(HashMultimap.create());
+  private final Gson gson;
+
+  public ConfigResponseCache(final Gson gson) {
+    this.gson = gson;
+    localCache = CacheBuilder.newBuilder()
+        .expireAfterAccess(EXPIRE_AFTER_ACCESS, TimeUnit.MINUTES)
+        //the serialized responses are roughly the same size as the configurations
+        .weigher((String key, ConfigResponseCacheEntry value) -> value.getWeight() * 2)
+        .maximumWeight(MAX_CACHE_SIZE)
+        .removalListener(notification -> {
+          String cacheKey = notification.getKey();
+          //create a new list to avoid ConcurrentModificationException
+          List<String> watchedKeys = new ArrayList<>(cacheKey2WatchedKeys.get(cacheKey));
+          for (String watchedKey : watchedKeys) {
+            watchedKeys2CacheKey.remove(watchedKey, cacheKey);
+          }
+          cacheKey2WatchedKeys.removeAll(cacheKey);
+        })
+        .build();
+  }
+
+  /**
+   * Get the merged configurations of releases, release in lower index override those in higher index
+   *
+   * @return the immutable merged configurations
+   */
+  public Map<String, String> getMergedConfigurations(List<Release> releases) {
+    //releases not persisted yet could not be identified
+    if (releases.stream().anyMatch(release -> Strings.isNullOrEmpty(release.getReleaseKey()))) {
+      return mergeReleaseConfigurations(releases);
+    }
+
+    String cacheKey = assembleCacheKey(releases);
+    ConfigResponseCacheEntry entry = localCache.getIfPresent(cacheKey);
+
+    if (entry == null) {
+      Tracer.logEvent("ConfigResponse.Cache.Miss", cacheKey);
+      entry = new ConfigResponseCacheEntry(mergeReleaseConfigurations(releases), releases.stream()
+          .mapToInt(release -> Strings.nullToEmpty(release.getConfigurations()).length()).sum());
+
+      localCache.put(cacheKey, entry);
+
+      for (Release release : releases) {
+        String watchedKey = ReleaseMessageKeyGenerator.generate(Strings.nullToEmpty(release.getAppId()),
+            Strings.nullToEmpty(release.getClusterName()), Strings.nullToEmpty(release.getNamespaceName()));
+        watchedKeys2CacheKey.put(watchedKey, cacheKey);
+        cacheKey2WatchedKeys.put(cacheKey, watchedKey);
+      }
+    }
+
+    return entry.getConfigurations();
+  }
+
+  /**
+   * Get the serialized json response of the config, the config's release key should be the merged release key
+   */
+  public byte[] getResponse(ApolloConfig apolloConfig) {
+    ConfigResponseCacheEntry entry = localCache.getIfPresent(apolloConfig.getReleaseKey());
+
+    //delta responses or responses whose configurations are not cached
+    if (apolloConfig.getConfigurations() == null || entry == null ||
+        entry.getConfigurations() != apolloConfig.getConfigurations()) {
+      return serialize(apolloConfig);
+    }
+
+    return entry.getResponses().computeIfAbsent(assembleResponseKey(apolloConfig),
+        key -> new CachedResponse(serialize(apolloConfig))).getContent();
+  }
+
+  /**
+   * Get the gzipped response of the config, which is compressed only once if the response is cached
+   *
+   * @param response the serialized response returned by {@link #getResponse(ApolloConfig)}
+   */
+  public byte[] getCompressedResponse(ApolloConfig apolloConfig, byte[] response) {
+    ConfigResponseCacheEntry entry = localCache.getIfPresent(Strings.nullToEmpty(apolloConfig.getReleaseKey()));
+    CachedResponse cachedResponse = entry == null ? null : entry.getResponses().get(assembleResponseKey(apolloConfig));
+
+    if (cachedResponse == null || cachedResponse.getContent() != response) {
+      return ResponseCompressionUtil.gzip(response);
+    }
+
+    return cachedResponse.getCompressedContent();
+  }
+
+  private String assembleResponseKey(ApolloConfig apolloConfig) {
+    return STRING_JOINER.join(apolloConfig.getAppId(), apolloConfig.getCluster(), apolloConfig.getNamespaceName());
+  }
+
+  private byte[] serialize(ApolloConfig apolloConfig) {
+    return gson.toJson(apolloConfig).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private Map<String, String> mergeReleaseConfigurations(List<Release> releases) {
+    Map<String, String> result = Maps.newHashMap();
+    for (Release release : Lists.reverse(releases)) {
+      result.putAll(gson.fromJson(release.getConfigurations(), configurationTypeReference));
+    }
+    return ImmutableMap.copyOf(result);
+  }
+
+  private String assembleCacheKey(List<Release> releases) {
+    return releases.stream().map(Release::getReleaseKey)
+        .collect(Collectors.joining(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR));
+  }
+
+  @Override
+  public void handleMessage(ReleaseMessage message, String channel) {
+    String content = message.getMessage();
+    if (!Topics.APOLLO_RELEASE_TOPIC.equals(channel) || Strings.isNullOrEmpty(content)) {
+      return;
+    }
+
+    if (!watchedKeys2CacheKey.containsKey(content)) {
+      return;
+    }
+
+    //create a new list to avoid ConcurrentModificationException
+    List<String> cacheKeys = new ArrayList<>(watchedKeys2CacheKey.get(content));
+
+    for (String cacheKey : cacheKeys) {
+      logger.debug("invalidate cache key: {}", cacheKey);
+      localCache.invalidate(cacheKey);
+    }
+  }
+
+  private static class ConfigResponseCacheEntry {
+    private final Map<String, String> configurations;
+    private final int weight;
+    //appId+cluster+namespace -> serialized response
+    private final ConcurrentMap<String, CachedResponse> responses;
+
+    ConfigResponseCacheEntry(Map<String, String> configurations, int weight) {
+      this.configurations = configurations;
+      this.weight = weight;
+      this.responses = Maps.newConcurrentMap();
+    }
+
+    Map<String, String> getConfigurations() {
+      return configurations;
+    }
+
+    int getWeight() {
+      return weight;
+    }
+
+    ConcurrentMap<String, CachedResponse> getResponses() {
+      return responses;
+    }
+  }
+
+  private static class CachedResponse {
+    private final byte[] content;
+    private volatile byte[] compressedContent;
+
+    CachedResponse(byte[] content) {
+      this.content = content;
+    }
+
+    byte[] getContent() {
+      return content;
+    }
+
+    byte[] getCompressedContent() {
+      //compressing twice in a race is harmless
+      if (compressedContent == null) {
+        compressedContent = ResponseCompressionUtil.gzip(content);
+      }
+      return compressedContent;
+    }
+  }
+}
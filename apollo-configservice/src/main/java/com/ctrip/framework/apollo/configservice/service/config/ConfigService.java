@@ -23,4 +23,12 @@ public interface ConfigService extends ReleaseMessageListener {
    */
   Release loadConfig(String clientAppId, String clientIp, String configAppId, String
       configClusterName, String configNamespace, String dataCenter, ApolloNotificationMessages clientMessages);
+
+  /**
+   * Find release by release key, the release is not necessarily active
+   *
+   * @param releaseKey the release key
+   * @return the Release, or null if not found
+   */
+  Release findReleaseByReleaseKey(String releaseKey);
 }
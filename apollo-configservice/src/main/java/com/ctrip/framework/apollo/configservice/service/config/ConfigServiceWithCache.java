@@ -6,6 +6,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import com.ctrip.framework.apollo.biz.entity.Release;
 import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
@@ -42,6 +43,9 @@ public class ConfigServiceWithCache extends AbstractConfigService {
   private static final String TRACER_EVENT_CACHE_LOAD_ID = "ConfigCache.LoadFromDBById";
   private static final String TRACER_EVENT_CACHE_GET = "ConfigCache.Get";
   private static final String TRACER_EVENT_CACHE_GET_ID = "ConfigCache.GetById";
+  private static final String TRACER_EVENT_CACHE_LOAD_RELEASE_KEY = "ConfigCache.LoadFromDBByReleaseKey";
+  private static final String TRACER_EVENT_CACHE_GET_RELEASE_KEY = "ConfigCache.GetByReleaseKey";
+  private static final long DEFAULT_RELEASE_KEY_CACHE_SIZE = 10000;
   private static final Splitter STRING_SPLITTER =
       Splitter.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR).omitEmptyStrings();
 
@@ -55,6 +59,8 @@ public class ConfigServiceWithCache extends AbstractConfigService {
 
   private LoadingCache<Long, Optional<Release>> configIdCache;
 
+  private LoadingCache<String, Optional<Release>> releaseKeyCache;
+
   private ConfigCacheEntry nullConfigCacheEntry;
 
   public ConfigServiceWithCache() {
@@ -120,6 +126,34 @@ public class ConfigServiceWithCache extends AbstractConfigService {
             }
           }
         });
+    //releases are never modified once created, so the cache entries don't need invalidation
+    releaseKeyCache = CacheBuilder.newBuilder()
+        .maximumSize(DEFAULT_RELEASE_KEY_CACHE_SIZE)
+        .expireAfterAccess(DEFAULT_EXPIRED_AFTER_ACCESS_IN_MINUTES, TimeUnit.MINUTES)
+        .build(new CacheLoader<String, Optional<Release>>() {
+          @Override
+          public Optional<Release> load(String key) throws Exception {
+            Transaction transaction = Tracer.newTransaction(TRACER_EVENT_CACHE_LOAD_RELEASE_KEY, key);
+            try {
+              List<Release> releases = releaseService.findByReleaseKeys(Sets.newHashSet(key));
+
+              transaction.setStatus(Transaction.SUCCESS);
+
+              return releases.isEmpty() ? Optional.empty() : Optional.of(releases.get(0));
+            } catch (Throwable ex) {
+              transaction.setStatus(ex);
+              throw ex;
+            } finally {
+              transaction.complete();
+            }
+          }
+        });
+  }
+
+  @Override
+  public Release findReleaseByReleaseKey(String releaseKey) {
+    Tracer.logEvent(TRACER_EVENT_CACHE_GET_RELEASE_KEY, releaseKey);
+    return releaseKeyCache.getUnchecked(releaseKey).orElse(null);
   }
 
   @Override
@@ -5,7 +5,12 @@ import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 import com.ctrip.framework.apollo.biz.service.ReleaseService;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
 
+import com.google.common.collect.Sets;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.CollectionUtils;
+
+import java.util.List;
 
 /**
  * config service with no cache
@@ -29,6 +34,12 @@ public class DefaultConfigService extends AbstractConfigService {
         configNamespace);
   }
 
+  @Override
+  public Release findReleaseByReleaseKey(String releaseKey) {
+    List<Release> releases = releaseService.findByReleaseKeys(Sets.newHashSet(releaseKey));
+    return CollectionUtils.isEmpty(releases) ? null : releases.get(0);
+  }
+
   @Override
   public void handleMessage(ReleaseMessage message, String channel) {
     // since there is no cache, so do nothing
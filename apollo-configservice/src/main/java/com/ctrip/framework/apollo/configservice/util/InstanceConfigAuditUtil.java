@@ -5,8 +5,9 @@ import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Queues;
+import com.google.common.collect.Maps;
 
+import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.Instance;
 import com.ctrip.framework.apollo.biz.entity.InstanceConfig;
 import com.ctrip.framework.apollo.biz.service.InstanceService;
@@ -14,157 +15,257 @@ import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.tracer.Tracer;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Audits the configs loaded by the instances.
+ *
+ * The audits are coalesced in memory by instance and namespace, so that only the latest one of each is written, and
+ * flushed periodically with multi-row upserts. The pending audits are bounded, the audits of new instance and
+ * namespace pairs are dropped when exceeded, which is published along with the lag of the flushes. The audits of the
+ * failed batches are re-queued within the bound.
+ *
  * @author Jason Song(song_s@ctrip.com)
  */
 @Service
-public class InstanceConfigAuditUtil implements InitializingBean {
-  private static final int INSTANCE_CONFIG_AUDIT_MAX_SIZE = 10000;
+public class InstanceConfigAuditUtil implements InitializingBean, DisposableBean {
+  private static final Logger logger = LoggerFactory.getLogger(InstanceConfigAuditUtil.class);
   private static final int INSTANCE_CACHE_MAX_SIZE = 50000;
   private static final int INSTANCE_CONFIG_CACHE_MAX_SIZE = 50000;
-  private static final long OFFER_TIME_LAST_MODIFIED_TIME_THRESHOLD_IN_MILLI = TimeUnit.MINUTES.toMillis(10);//10 minutes
   private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
-  private final ExecutorService auditExecutorService;
-  private final AtomicBoolean auditStopped;
-  private BlockingQueue<InstanceConfigAuditModel> audits = Queues.newLinkedBlockingQueue
-      (INSTANCE_CONFIG_AUDIT_MAX_SIZE);
+  private final ScheduledExecutorService auditExecutorService;
+  private final ConcurrentMap<String, InstanceConfigAuditModel> audits = Maps.newConcurrentMap();
+  private final Counter droppedAuditCounter;
+  private final AtomicLong droppedAudits = new AtomicLong();
+  private long publishedDroppedAudits;
+  private final AtomicLong lastFlushLagInMilli = new AtomicLong();
   private Cache<String, Long> instanceCache;
   private Cache<String, String> instanceConfigReleaseKeyCache;
 
   private final InstanceService instanceService;
+  private final BizConfig bizConfig;
 
-  public InstanceConfigAuditUtil(final InstanceService instanceService) {
+  public InstanceConfigAuditUtil(final InstanceService instanceService, final BizConfig bizConfig) {
     this.instanceService = instanceService;
-    auditExecutorService = Executors.newSingleThreadExecutor(
+    this.bizConfig = bizConfig;
+    auditExecutorService = Executors.newSingleThreadScheduledExecutor(
         ApolloThreadFactory.create("InstanceConfigAuditUtil", true));
-    auditStopped = new AtomicBoolean(false);
     instanceCache = CacheBuilder.newBuilder().expireAfterAccess(1, TimeUnit.HOURS)
         .maximumSize(INSTANCE_CACHE_MAX_SIZE).build();
     instanceConfigReleaseKeyCache = CacheBuilder.newBuilder().expireAfterWrite(1, TimeUnit.DAYS)
         .maximumSize(INSTANCE_CONFIG_CACHE_MAX_SIZE).build();
+    //published to the meter registries of the actuator
+    droppedAuditCounter = Metrics.counter("apollo.instance-config-audit.dropped");
+    Metrics.gauge("apollo.instance-config-audit.pending", audits, Map::size);
+    Metrics.gauge("apollo.instance-config-audit.lag", lastFlushLagInMilli);
   }
 
   public boolean audit(String appId, String clusterName, String dataCenter, String
       ip, String configAppId, String configClusterName, String configNamespace, String releaseKey) {
-    return this.audits.offer(new InstanceConfigAuditModel(appId, clusterName, dataCenter, ip,
-        configAppId, configClusterName, configNamespace, releaseKey));
+    InstanceConfigAuditModel auditModel = new InstanceConfigAuditModel(appId, clusterName, dataCenter, ip,
+        configAppId, configClusterName, configNamespace, releaseKey);
+    String auditKey = assembleAuditKey(auditModel);
+
+    //the bound is checked loosely, the concurrent audits may exceed it slightly
+    if (audits.size() >= bizConfig.instanceConfigAuditMaxSize() && !audits.containsKey(auditKey)) {
+      droppedAudits.incrementAndGet();
+      droppedAuditCounter.increment();
+      return false;
+    }
+
+    //the latest audit of the same instance and namespace wins
+    audits.put(auditKey, auditModel);
+    return true;
   }
 
-  void doAudit(InstanceConfigAuditModel auditModel) {
-    String instanceCacheKey = assembleInstanceKey(auditModel.getAppId(), auditModel
-        .getClusterName(), auditModel.getIp(), auditModel.getDataCenter());
-    Long instanceId = instanceCache.getIfPresent(instanceCacheKey);
-    if (instanceId == null) {
-      instanceId = prepareInstanceId(auditModel);
-      instanceCache.put(instanceCacheKey, instanceId);
+  void flush() {
+    if (audits.isEmpty()) {
+      return;
     }
 
-    //load instance config release key from cache, and check if release key is the same
-    String instanceConfigCacheKey = assembleInstanceConfigKey(instanceId, auditModel
-        .getConfigAppId(), auditModel.getConfigNamespace());
-    String cacheReleaseKey = instanceConfigReleaseKeyCache.getIfPresent(instanceConfigCacheKey);
+    List<InstanceConfigAuditModel> auditModels = Lists.newArrayListWithCapacity(audits.size());
+    long oldestOfferTime = Long.MAX_VALUE;
+    for (Map.Entry<String, InstanceConfigAuditModel> entry : audits.entrySet()) {
+      InstanceConfigAuditModel auditModel = entry.getValue();
+      //the audit replaced concurrently stays pending until the next flush
+      if (!audits.remove(entry.getKey(), auditModel)) {
+        continue;
+      }
+      auditModels.add(auditModel);
+      oldestOfferTime = Math.min(oldestOfferTime, auditModel.getOfferTime().getTime());
+    }
 
-    //if release key is the same, then skip audit
-    if (cacheReleaseKey != null && Objects.equals(cacheReleaseKey, auditModel.getReleaseKey())) {
-      return;
+    for (List<InstanceConfigAuditModel> batch : Lists.partition(auditModels, bizConfig.instanceConfigAuditBatch())) {
+      try {
+        doAudit(batch);
+      } catch (Throwable ex) {
+        Tracer.logError(ex);
+        int requeued = requeue(batch);
+        logger.error("Failed to audit {} instance configs, {} of them will be retried by the next flush",
+            batch.size(), requeued, ex);
+      }
+    }
+
+    lastFlushLagInMilli.set(System.currentTimeMillis() - oldestOfferTime);
+  }
+
+  /**
+   * Put the audits back unless they are audited again meanwhile, the bound of the pending audits still applies
+   *
+   * @return the number of audits re-queued
+   */
+  private int requeue(List<InstanceConfigAuditModel> auditModels) {
+    int requeued = 0;
+    for (InstanceConfigAuditModel auditModel : auditModels) {
+      if (audits.size() >= bizConfig.instanceConfigAuditMaxSize()) {
+        droppedAudits.incrementAndGet();
+        droppedAuditCounter.increment();
+        continue;
+      }
+      if (audits.putIfAbsent(assembleAuditKey(auditModel), auditModel) == null) {
+        requeued++;
+      }
     }
+    return requeued;
+  }
 
-    instanceConfigReleaseKeyCache.put(instanceConfigCacheKey, auditModel.getReleaseKey());
-
-    //if release key is not the same or cannot find in cache, then do audit
-    InstanceConfig instanceConfig = instanceService.findInstanceConfig(instanceId, auditModel
-        .getConfigAppId(), auditModel.getConfigNamespace());
-
-    if (instanceConfig != null) {
-      if (!Objects.equals(instanceConfig.getReleaseKey(), auditModel.getReleaseKey())) {
-        instanceConfig.setConfigClusterName(auditModel.getConfigClusterName());
-        instanceConfig.setReleaseKey(auditModel.getReleaseKey());
-        instanceConfig.setReleaseDeliveryTime(auditModel.getOfferTime());
-      } else if (offerTimeAndLastModifiedTimeCloseEnough(auditModel.getOfferTime(),
-          instanceConfig.getDataChangeLastModifiedTime())) {
-        //when releaseKey is the same, optimize to reduce writes if the record was updated not long ago
-        return;
+  void doAudit(List<InstanceConfigAuditModel> auditModels) {
+    prepareInstanceIds(auditModels);
+
+    List<InstanceConfig> instanceConfigs = Lists.newArrayListWithCapacity(auditModels.size());
+    List<String> instanceConfigCacheKeys = Lists.newArrayListWithCapacity(auditModels.size());
+    for (InstanceConfigAuditModel auditModel : auditModels) {
+      Long instanceId = instanceCache.getIfPresent(assembleInstanceKey(auditModel));
+      if (instanceId == null) {
+        //should not happen unless the instance is deleted concurrently, it will be audited again by the next load
+        continue;
       }
-      //we need to update no matter the release key is the same or not, to ensure the
-      //last modified time is updated each day
+
+      //load instance config release key from cache, and check if release key is the same
+      String instanceConfigCacheKey = assembleInstanceConfigKey(instanceId, auditModel
+          .getConfigAppId(), auditModel.getConfigNamespace());
+      String cacheReleaseKey = instanceConfigReleaseKeyCache.getIfPresent(instanceConfigCacheKey);
+
+      //if release key is the same, then skip audit, the cache expires each day to ensure the last modified time
+      //is updated each day
+      if (cacheReleaseKey != null && Objects.equals(cacheReleaseKey, auditModel.getReleaseKey())) {
+        continue;
+      }
+
+      InstanceConfig instanceConfig = new InstanceConfig();
+      instanceConfig.setInstanceId(instanceId);
+      instanceConfig.setConfigAppId(auditModel.getConfigAppId());
+      instanceConfig.setConfigClusterName(auditModel.getConfigClusterName());
+      instanceConfig.setConfigNamespaceName(auditModel.getConfigNamespace());
+      instanceConfig.setReleaseKey(auditModel.getReleaseKey());
+      instanceConfig.setReleaseDeliveryTime(auditModel.getOfferTime());
       instanceConfig.setDataChangeLastModifiedTime(auditModel.getOfferTime());
-      instanceService.updateInstanceConfig(instanceConfig);
+      instanceConfigs.add(instanceConfig);
+      instanceConfigCacheKeys.add(instanceConfigCacheKey);
+    }
+
+    if (instanceConfigs.isEmpty()) {
       return;
     }
 
-    instanceConfig = new InstanceConfig();
-    instanceConfig.setInstanceId(instanceId);
-    instanceConfig.setConfigAppId(auditModel.getConfigAppId());
-    instanceConfig.setConfigClusterName(auditModel.getConfigClusterName());
-    instanceConfig.setConfigNamespaceName(auditModel.getConfigNamespace());
-    instanceConfig.setReleaseKey(auditModel.getReleaseKey());
-    instanceConfig.setReleaseDeliveryTime(auditModel.getOfferTime());
-    instanceConfig.setDataChangeCreatedTime(auditModel.getOfferTime());
-
-    try {
-      instanceService.createInstanceConfig(instanceConfig);
-    } catch (DataIntegrityViolationException ex) {
-      //concurrent insertion, safe to ignore
+    instanceService.upsertInstanceConfigs(instanceConfigs);
+
+    //cache the release keys only after they are written, so that the failed ones are retried by the next audits
+    for (int i = 0; i < instanceConfigs.size(); i++) {
+      instanceConfigReleaseKeyCache.put(instanceConfigCacheKeys.get(i), instanceConfigs.get(i).getReleaseKey());
     }
   }
 
-  private boolean offerTimeAndLastModifiedTimeCloseEnough(Date offerTime, Date lastModifiedTime) {
-    return (offerTime.getTime() - lastModifiedTime.getTime()) <
-        OFFER_TIME_LAST_MODIFIED_TIME_THRESHOLD_IN_MILLI;
-  }
+  private void prepareInstanceIds(List<InstanceConfigAuditModel> auditModels) {
+    Map<String, Instance> missingInstances = Maps.newLinkedHashMap();
+    for (InstanceConfigAuditModel auditModel : auditModels) {
+      String instanceCacheKey = assembleInstanceKey(auditModel);
+      if (missingInstances.containsKey(instanceCacheKey)
+          || instanceCache.getIfPresent(instanceCacheKey) != null) {
+        continue;
+      }
+      Instance instance = new Instance();
+      instance.setAppId(auditModel.getAppId());
+      instance.setClusterName(auditModel.getClusterName());
+      instance.setDataCenter(auditModel.getDataCenter());
+      instance.setIp(auditModel.getIp());
+      missingInstances.put(instanceCacheKey, instance);
+    }
 
-  private long prepareInstanceId(InstanceConfigAuditModel auditModel) {
-    Instance instance = instanceService.findInstance(auditModel.getAppId(), auditModel
-        .getClusterName(), auditModel.getDataCenter(), auditModel.getIp());
-    if (instance != null) {
-      return instance.getId();
+    if (missingInstances.isEmpty()) {
+      return;
     }
-    instance = new Instance();
-    instance.setAppId(auditModel.getAppId());
-    instance.setClusterName(auditModel.getClusterName());
-    instance.setDataCenter(auditModel.getDataCenter());
-    instance.setIp(auditModel.getIp());
-
-
-    try {
-      return instanceService.createInstance(instance).getId();
-    } catch (DataIntegrityViolationException ex) {
-      //return the one exists
-      return instanceService.findInstance(instance.getAppId(), instance.getClusterName(),
-          instance.getDataCenter(), instance.getIp()).getId();
+
+    for (Instance instance : instanceService.upsertInstances(missingInstances.values())) {
+      instanceCache.put(assembleInstanceKey(instance.getAppId(), instance.getClusterName(), instance.getIp(),
+          instance.getDataCenter()), instance.getId());
     }
   }
 
   @Override
   public void afterPropertiesSet() throws Exception {
-    auditExecutorService.submit(() -> {
-      while (!auditStopped.get() && !Thread.currentThread().isInterrupted()) {
-        try {
-          InstanceConfigAuditModel model = audits.poll();
-          if (model == null) {
-            TimeUnit.SECONDS.sleep(1);
-            continue;
-          }
-          doAudit(model);
-        } catch (Throwable ex) {
-          Tracer.logError(ex);
-        }
+    long interval = bizConfig.instanceConfigAuditFlushIntervalInMilli();
+    auditExecutorService.scheduleWithFixedDelay(() -> {
+      try {
+        flush();
+        publishDroppedAudits();
+      } catch (Throwable ex) {
+        Tracer.logError(ex);
       }
-    });
+    }, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    auditExecutorService.shutdown();
+    //write the pending audits before shutting down
+    flush();
+  }
+
+  private void publishDroppedAudits() {
+    long totalDropped = droppedAudits.get();
+    if (totalDropped > publishedDroppedAudits) {
+      Tracer.logEvent("Apollo.InstanceConfigAudit.Dropped", String.valueOf(totalDropped - publishedDroppedAudits));
+      publishedDroppedAudits = totalDropped;
+    }
+  }
+
+  public int getPendingAuditCount() {
+    return audits.size();
+  }
+
+  public long getDroppedAuditCount() {
+    return droppedAudits.get();
+  }
+
+  public long getLastFlushLagInMilli() {
+    return lastFlushLagInMilli.get();
+  }
+
+  private String assembleAuditKey(InstanceConfigAuditModel auditModel) {
+    return STRING_JOINER.join(assembleInstanceKey(auditModel), auditModel.getConfigAppId(),
+        auditModel.getConfigNamespace());
+  }
+
+  private String assembleInstanceKey(InstanceConfigAuditModel auditModel) {
+    return assembleInstanceKey(auditModel.getAppId(), auditModel.getClusterName(), auditModel.getIp(),
+        auditModel.getDataCenter());
   }
 
   private String assembleInstanceKey(String appId, String cluster, String ip, String datacenter) {
@@ -0,0 +1,131 @@
+package com.ctrip.framework.apollo.configservice.util;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.util.concurrent.RateLimiter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Notifies the watchers of a release message.
+ *
+ * Small watcher sets are notified in the caller thread. Large ones are notified by several workers sharing a token
+ * bucket of this node, whose rate is raised when needed so that each fan-out finishes within the configured time
+ * budget.
+ */
+@Component
+public class NotificationFanOutScheduler {
+  private static final Logger logger = LoggerFactory.getLogger(NotificationFanOutScheduler.class);
+  private final ExecutorService fanOutExecutorService;
+  private final RateLimiter rateLimiter;
+  private final Timer fanOutTimer;
+  private final AtomicLong completedFanOuts = new AtomicLong();
+  private final AtomicLong lastFanOutDurationInMilli = new AtomicLong();
+  private final BizConfig bizConfig;
+  private int activeFanOuts;
+
+  public NotificationFanOutScheduler(final BizConfig bizConfig) {
+    this.bizConfig = bizConfig;
+    //the concurrent fan-outs share the workers, so the threads are bounded no matter how many keys are released
+    fanOutExecutorService = Executors.newFixedThreadPool(bizConfig.releaseMessageNotificationWorkers(),
+        ApolloThreadFactory.create("NotificationFanOutScheduler", true));
+    rateLimiter = RateLimiter.create(1);
+    fanOutTimer = Metrics.timer("apollo.long-poll.fan-out");
+  }
+
+  public <T> void fanOut(String watchKey, List<T> watchers, Consumer<T> notifier) {
+    int batch = bizConfig.releaseMessageNotificationBatch();
+    if (watchers.size() <= batch) {
+      watchers.forEach(notifier);
+      return;
+    }
+
+    int workers = Math.max(1, Math.min(bizConfig.releaseMessageNotificationWorkers(),
+        (watchers.size() + batch - 1) / batch));
+    double rate = onFanOutStarted(watchers.size());
+    logger.debug("Async notify {} clients for key {} with {} workers at rate {}", watchers.size(), watchKey, workers,
+        rate);
+
+    long start = System.nanoTime();
+    AtomicInteger cursor = new AtomicInteger();
+    AtomicInteger remainingWorkers = new AtomicInteger(workers);
+
+    for (int i = 0; i < workers; i++) {
+      fanOutExecutorService.submit(() -> {
+        try {
+          int index;
+          while ((index = cursor.getAndIncrement()) < watchers.size()) {
+            rateLimiter.acquire();
+            notify(watchers.get(index), notifier);
+          }
+        } finally {
+          if (remainingWorkers.decrementAndGet() == 0) {
+            onFanOutCompleted(watchKey, watchers.size(), System.nanoTime() - start);
+          }
+        }
+      });
+    }
+  }
+
+  private <T> void notify(T watcher, Consumer<T> notifier) {
+    try {
+      notifier.accept(watcher);
+    } catch (Throwable ex) {
+      logger.error("Notify {} failed", watcher, ex);
+      Tracer.logError(ex);
+    }
+  }
+
+  private synchronized double onFanOutStarted(int size) {
+    double requiredRate = bizConfig.releaseMessageNotificationRate();
+    int maxDuration = bizConfig.releaseMessageNotificationMaxDurationInMilli();
+    if (maxDuration > 0) {
+      requiredRate = Math.max(requiredRate, size * 1000.0 / maxDuration);
+    }
+
+    //concurrent fan-outs share the highest rate until all of them complete
+    if (activeFanOuts++ == 0 || requiredRate > rateLimiter.getRate()) {
+      rateLimiter.setRate(requiredRate);
+    }
+    return rateLimiter.getRate();
+  }
+
+  private void onFanOutCompleted(String watchKey, int size, long durationInNanos) {
+    synchronized (this) {
+      activeFanOuts--;
+    }
+    //published to the meter registries of the actuator
+    fanOutTimer.record(durationInNanos, TimeUnit.NANOSECONDS);
+    lastFanOutDurationInMilli.set(TimeUnit.NANOSECONDS.toMillis(durationInNanos));
+    completedFanOuts.incrementAndGet();
+    Tracer.logEvent("Apollo.LongPoll.FanOut", watchKey);
+    logger.debug("Async notified {} clients for key {} in {} ms", size, watchKey,
+        TimeUnit.NANOSECONDS.toMillis(durationInNanos));
+  }
+
+  @PreDestroy
+  public void stop() {
+    fanOutExecutorService.shutdown();
+  }
+
+  public long getCompletedFanOuts() {
+    return completedFanOuts.get();
+  }
+
+  public long getLastFanOutDurationInMilli() {
+    return lastFanOutDurationInMilli.get();
+  }
+}
@@ -0,0 +1,101 @@
+package com.ctrip.framework.apollo.configservice.util;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Splitter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Negotiates the gzip encoding of the config responses, the compressed payloads are expected to be cached by the
+ * callers, so that each payload is compressed once instead of per request
+ */
+@Component
+public class ResponseCompressionUtil {
+  private static final String GZIP = "gzip";
+  private static final String ANY_ENCODING = "*";
+  private static final Splitter CODINGS_SPLITTER = Splitter.on(',').omitEmptyStrings().trimResults();
+  private static final Splitter PARAMETERS_SPLITTER = Splitter.on(';').trimResults();
+
+  private final BizConfig bizConfig;
+
+  public ResponseCompressionUtil(final BizConfig bizConfig) {
+    this.bizConfig = bizConfig;
+  }
+
+  public boolean shouldCompress(HttpServletRequest request, int contentLength) {
+    if (!bizConfig.isConfigResponseCompressionEnabled()
+        || contentLength < bizConfig.configResponseCompressionMinSize()) {
+      return false;
+    }
+    return acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+  }
+
+  /**
+   * Check the Accept-Encoding header, gzip is accepted when it's listed, or matched by *, with a non-zero q-value
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    Double gzipQuality = null;
+    Double anyQuality = null;
+    for (String coding : CODINGS_SPLITTER.split(acceptEncoding)) {
+      Iterator<String> parts = PARAMETERS_SPLITTER.split(coding).iterator();
+      String name = parts.next();
+      if (GZIP.equalsIgnoreCase(name)) {
+        gzipQuality = parseQuality(parts);
+      } else if (ANY_ENCODING.equals(name)) {
+        anyQuality = parseQuality(parts);
+      }
+    }
+    if (gzipQuality != null) {
+      return gzipQuality > 0;
+    }
+    return anyQuality != null && anyQuality > 0;
+  }
+
+  private static double parseQuality(Iterator<String> parameters) {
+    while (parameters.hasNext()) {
+      String parameter = parameters.next();
+      if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2).trim());
+        } catch (NumberFormatException ex) {
+          //an invalid q-value is treated as not acceptable
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  /**
+   * @return the headers of the compressed response, based on the headers of the uncompressed one
+   */
+  public static HttpHeaders compressedHeaders(HttpHeaders headers) {
+    HttpHeaders compressedHeaders = new HttpHeaders();
+    compressedHeaders.putAll(headers);
+    compressedHeaders.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+    return compressedHeaders;
+  }
+
+  public static byte[] gzip(byte[] content) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(32, content.length / 4));
+    try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+      gzipOutputStream.write(content);
+    } catch (IOException ex) {
+      //never happens for in memory streams
+      Tracer.logError(ex);
+      throw new UncheckedIOException(ex);
+    }
+    return outputStream.toByteArray();
+  }
+}
@@ -0,0 +1,77 @@
+package com.ctrip.framework.apollo.configservice.util;
+
+import com.google.common.collect.Lists;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent registry of the watchers of each watch key, e.g. the long polling requests.
+ *
+ * Each watch key owns its own concurrent set, so registrations and completions of different keys never contend with
+ * each other, and unregistering a watcher is O(1). Empty sets are removed so that the registry does not grow with the
+ * keys ever watched.
+ *
+ * @param <T> the watcher type, which should use identity equality
+ */
+public class WatchKeyRegistry<T> {
+  private final ConcurrentMap<String, Set<T>> watchers = new ConcurrentHashMap<>();
+  private final AtomicInteger size = new AtomicInteger();
+
+  public void register(String watchKey, T watcher) {
+    watchers.compute(watchKey, (key, keyWatchers) -> {
+      if (keyWatchers == null) {
+        keyWatchers = ConcurrentHashMap.newKeySet();
+      }
+      if (keyWatchers.add(watcher)) {
+        size.incrementAndGet();
+      }
+      return keyWatchers;
+    });
+  }
+
+  public void unregister(String watchKey, T watcher) {
+    watchers.computeIfPresent(watchKey, (key, keyWatchers) -> {
+      if (keyWatchers.remove(watcher)) {
+        size.decrementAndGet();
+      }
+      return keyWatchers.isEmpty() ? null : keyWatchers;
+    });
+  }
+
+  public boolean containsKey(String watchKey) {
+    return watchers.containsKey(watchKey);
+  }
+
+  /**
+   * @return the live view of the watchers of the watch key
+   */
+  public Collection<T> get(String watchKey) {
+    Set<T> keyWatchers = watchers.get(watchKey);
+    return keyWatchers == null ? Collections.emptySet() : Collections.unmodifiableSet(keyWatchers);
+  }
+
+  /**
+   * @return a snapshot of the watchers of the watch key, which is safe to iterate asynchronously
+   */
+  public List<T> snapshot(String watchKey) {
+    Set<T> keyWatchers = watchers.get(watchKey);
+    return keyWatchers == null ? Collections.emptyList() : Lists.newArrayList(keyWatchers);
+  }
+
+  /**
+   * @return the number of the (watch key, watcher) registrations
+   */
+  public int size() {
+    return size.get();
+  }
+
+  public int keySize() {
+    return watchers.size();
+  }
+}
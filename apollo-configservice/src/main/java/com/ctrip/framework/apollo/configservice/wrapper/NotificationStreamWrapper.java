@@ -0,0 +1,128 @@
+package com.ctrip.framework.apollo.configservice.wrapper;
+
+import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A notification stream which stays open and pushes the notifications as server sent events
+ */
+public class NotificationStreamWrapper {
+  private static final Logger logger = LoggerFactory.getLogger(NotificationStreamWrapper.class);
+  public static final String NOTIFICATIONS_EVENT = "notifications";
+  private static final long TIMEOUT = 10 * 60 * 1000;//10 minutes
+
+  private final SseEmitter emitter;
+  private final Gson gson;
+  private final Map<String, String> normalizedNamespaceNameToOriginalNamespaceName;
+  //normalized namespace name -> the latest notification id sent to client
+  private final Map<String, Long> notificationIds;
+  private volatile boolean closed;
+
+  public NotificationStreamWrapper(Gson gson) {
+    this.emitter = new SseEmitter(TIMEOUT);
+    this.gson = gson;
+    this.normalizedNamespaceNameToOriginalNamespaceName = Maps.newHashMap();
+    this.notificationIds = Maps.newHashMap();
+  }
+
+  public void recordNamespaceNameNormalizedResult(String originalNamespaceName, String normalizedNamespaceName) {
+    normalizedNamespaceNameToOriginalNamespaceName.put(normalizedNamespaceName, originalNamespaceName);
+  }
+
+  public synchronized void recordNotificationId(String normalizedNamespaceName, long notificationId) {
+    notificationIds.put(normalizedNamespaceName, notificationId);
+  }
+
+  public void onCompletion(Runnable completionCallback) {
+    emitter.onCompletion(() -> {
+      closed = true;
+      completionCallback.run();
+    });
+  }
+
+  public void onTimeout(Runnable timeoutCallback) {
+    emitter.onTimeout(() -> {
+      closed = true;
+      timeoutCallback.run();
+    });
+  }
+
+  public void onError(Runnable errorCallback) {
+    emitter.onError(ex -> {
+      closed = true;
+      errorCallback.run();
+    });
+  }
+
+  public void send(ApolloConfigNotification notification) {
+    send(Lists.newArrayList(notification));
+  }
+
+  /**
+   * Send the notifications which are newer than those sent before, the namespace name is used as a key in client side,
+   * so we have to send the original one instead of the normalized one
+   */
+  public synchronized void send(List<ApolloConfigNotification> notifications) {
+    if (closed) {
+      return;
+    }
+    List<ApolloConfigNotification> toSend = Lists.newArrayList();
+    for (ApolloConfigNotification notification : notifications) {
+      String namespaceName = notification.getNamespaceName();
+      Long notificationId = notificationIds.get(namespaceName);
+      if (notificationId != null && notificationId >= notification.getNotificationId()) {
+        continue;
+      }
+      notificationIds.put(namespaceName, notification.getNotificationId());
+
+      ApolloConfigNotification copy = new ApolloConfigNotification(
+          normalizedNamespaceNameToOriginalNamespaceName.getOrDefault(namespaceName, namespaceName),
+          notification.getNotificationId());
+      copy.setMessages(notification.getMessages());
+      toSend.add(copy);
+    }
+
+    if (toSend.isEmpty()) {
+      return;
+    }
+
+    try {
+      emitter.send(SseEmitter.event().name(NOTIFICATIONS_EVENT).data(gson.toJson(toSend)));
+    } catch (Throwable ex) {
+      //the stream is closed by client, the error callback would clean it up
+      closed = true;
+      logger.debug("Send notifications failed", ex);
+    }
+  }
+
+  /**
+   * Keep the connection alive, so that the client could detect broken connections with read timeout
+   */
+  public synchronized void sendHeartbeat() {
+    if (closed) {
+      return;
+    }
+    try {
+      emitter.send(SseEmitter.event().comment("heartbeat"));
+    } catch (Throwable ex) {
+      closed = true;
+      logger.debug("Send heartbeat failed", ex);
+    }
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  public SseEmitter getEmitter() {
+    return emitter;
+  }
+}
@@ -3,6 +3,8 @@ package com.ctrip.framework.apollo.configservice.controller;
 import com.ctrip.framework.apollo.biz.entity.Release;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.ctrip.framework.apollo.configservice.service.AppNamespaceServiceWithCache;
+import com.ctrip.framework.apollo.configservice.service.ConfigResponseCache;
+import com.ctrip.framework.apollo.configservice.util.ResponseCompressionUtil;
 import com.ctrip.framework.apollo.configservice.service.config.ConfigService;
 import com.ctrip.framework.apollo.configservice.util.InstanceConfigAuditUtil;
 import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
@@ -12,6 +14,7 @@ import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import org.junit.Before;
@@ -22,10 +25,13 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -60,12 +66,15 @@ public class ConfigControllerTest {
   private InstanceConfigAuditUtil instanceConfigAuditUtil;
   @Mock
   private HttpServletRequest someRequest;
+  @Mock
+  private ResponseCompressionUtil responseCompressionUtil;
   private Gson gson = new Gson();
 
   @Before
   public void setUp() throws Exception {
     configController = spy(new ConfigController(
-        configService, appNamespaceService, namespaceUtil, instanceConfigAuditUtil, gson
+        configService, appNamespaceService, namespaceUtil, instanceConfigAuditUtil, new ConfigResponseCache(gson),
+        responseCompressionUtil, gson
     ));
 
     someAppId = "1";
@@ -104,7 +113,7 @@ public class ConfigControllerTest {
 
     ApolloConfig result = configController.queryConfig(someAppId, someClusterName,
         defaultNamespaceName, someDataCenter, someClientSideReleaseKey,
-        someClientIp, someMessagesAsString, someRequest, someResponse);
+        someClientIp, someMessagesAsString, false, someRequest, someResponse);
 
     verify(configService, times(1)).loadConfig(someAppId, someClientIp, someAppId, someClusterName,
         defaultNamespaceName, someDataCenter, someNotificationMessages);
@@ -116,6 +125,139 @@ public class ConfigControllerTest {
         someClientIp, someAppId, someClusterName, defaultNamespaceName, someServerSideNewReleaseKey);
   }
 
+  @Test
+  public void testQueryConfigWithDelta() throws Exception {
+    String someClientSideReleaseKey = "1";
+    String someServerSideNewReleaseKey = "2";
+    HttpServletResponse someResponse = mock(HttpServletResponse.class);
+    Release someClientSideRelease = mock(Release.class);
+
+    when(configService.loadConfig(someAppId, someClientIp, someAppId, someClusterName, defaultNamespaceName,
+        someDataCenter, someNotificationMessages)).thenReturn(someRelease);
+    when(someRelease.getReleaseKey()).thenReturn(someServerSideNewReleaseKey);
+    when(someRelease.getNamespaceName()).thenReturn(defaultNamespaceName);
+    when(someRelease.getConfigurations())
+        .thenReturn("{\"apollo.bar\": \"foo\", \"apollo.baz\": \"foo\", \"apollo.qux\": \"foo\", "
+            + "\"apollo.foo\": \"bar\", \"apollo.new\": \"new\"}");
+    when(configService.findReleaseByReleaseKey(someClientSideReleaseKey)).thenReturn(someClientSideRelease);
+    when(someClientSideRelease.getConfigurations())
+        .thenReturn("{\"apollo.bar\": \"foo\", \"apollo.baz\": \"foo\", \"apollo.qux\": \"foo\", "
+            + "\"apollo.foo\": \"foo\", \"apollo.old\": \"old\"}");
+    mockReleaseNamespace(someRelease, someAppId, someClusterName, defaultNamespaceName);
+    mockReleaseNamespace(someClientSideRelease, someAppId, someClusterName, defaultNamespaceName);
+
+    ApolloConfig result = configController.queryConfig(someAppId, someClusterName,
+        defaultNamespaceName, someDataCenter, someClientSideReleaseKey,
+        someClientIp, someMessagesAsString, true, someRequest, someResponse);
+
+    assertEquals(someServerSideNewReleaseKey, result.getReleaseKey());
+    assertNull(result.getConfigurations());
+    assertEquals(someClientSideReleaseKey, result.getBaseReleaseKey());
+    assertEquals(ImmutableMap.of("apollo.foo", "bar", "apollo.new", "new"), result.getChangedConfigurations());
+    assertEquals(Sets.newHashSet("apollo.old"), result.getDeletedKeys());
+  }
+
+  @Test
+  public void testQueryConfigWithDeltaAndClientSideReleaseOfAnotherNamespace() throws Exception {
+    String someClientSideReleaseKey = "1";
+    String someServerSideNewReleaseKey = "2";
+    HttpServletResponse someResponse = mock(HttpServletResponse.class);
+    Release anotherNamespaceRelease = mock(Release.class);
+
+    when(configService.loadConfig(someAppId, someClientIp, someAppId, someClusterName, defaultNamespaceName,
+        someDataCenter, someNotificationMessages)).thenReturn(someRelease);
+    when(someRelease.getReleaseKey()).thenReturn(someServerSideNewReleaseKey);
+    when(someRelease.getConfigurations()).thenReturn("{\"apollo.bar\": \"foo\", \"apollo.baz\": \"foo\"}");
+    mockReleaseNamespace(someRelease, someAppId, someClusterName, defaultNamespaceName);
+    when(configService.findReleaseByReleaseKey(someClientSideReleaseKey)).thenReturn(anotherNamespaceRelease);
+    mockReleaseNamespace(anotherNamespaceRelease, someAppId, someClusterName, "anotherNamespace");
+
+    ApolloConfig result = configController.queryConfig(someAppId, someClusterName,
+        defaultNamespaceName, someDataCenter, someClientSideReleaseKey,
+        someClientIp, someMessagesAsString, true, someRequest, someResponse);
+
+    assertNull(result.getBaseReleaseKey());
+    assertNull(result.getDeletedKeys());
+    assertEquals("foo", result.getConfigurations().get("apollo.bar"));
+  }
+
+  @Test
+  public void testQueryConfigWithDeltaAndClientSideReleaseNotFound() throws Exception {
+    String someClientSideReleaseKey = "1";
+    String someServerSideNewReleaseKey = "2";
+    HttpServletResponse someResponse = mock(HttpServletResponse.class);
+
+    when(configService.loadConfig(someAppId, someClientIp, someAppId, someClusterName, defaultNamespaceName,
+        someDataCenter, someNotificationMessages)).thenReturn(someRelease);
+    when(someRelease.getReleaseKey()).thenReturn(someServerSideNewReleaseKey);
+    when(someRelease.getNamespaceName()).thenReturn(defaultNamespaceName);
+
+    ApolloConfig result = configController.queryConfig(someAppId, someClusterName,
+        defaultNamespaceName, someDataCenter, someClientSideReleaseKey,
+        someClientIp, someMessagesAsString, true, someRequest, someResponse);
+
+    verify(configService, times(1)).findReleaseByReleaseKey(someClientSideReleaseKey);
+    assertEquals("foo", result.getConfigurations().get("apollo.bar"));
+    assertNull(result.getChangedConfigurations());
+  }
+
+  @Test
+  public void testQueryConfigs() throws Exception {
+    String someClientSideReleaseKey = "1";
+    String someServerSideNewReleaseKey = "2";
+    String somePublicReleaseKey = "3";
+    String someNotFoundNamespaceName = "someNotFoundNamespace";
+    String someAppOwnNamespaceName = "someAppOwnNamespace";
+    HttpServletResponse someResponse = mock(HttpServletResponse.class);
+    AppNamespace someAppOwnNamespace = mock(AppNamespace.class);
+    Map<String, String> clientSideReleaseKeys = ImmutableMap.of(defaultNamespaceName, someClientSideReleaseKey,
+        somePublicNamespaceName, somePublicReleaseKey, someNotFoundNamespaceName, "-1");
+
+    when(namespaceUtil.filterNamespaceName(someNotFoundNamespaceName)).thenReturn(someAppOwnNamespaceName);
+    when(namespaceUtil.normalizeNamespace(someAppId, someAppOwnNamespaceName)).thenReturn(someAppOwnNamespaceName);
+    when(appNamespaceService.findByAppIdAndNamespace(someAppId, someAppOwnNamespaceName))
+        .thenReturn(someAppOwnNamespace);
+    when(configService.loadConfig(someAppId, someClientIp, someAppId, someClusterName, defaultNamespaceName,
+        someDataCenter, someNotificationMessages)).thenReturn(someRelease);
+    when(someRelease.getReleaseKey()).thenReturn(someServerSideNewReleaseKey);
+    when(someRelease.getNamespaceName()).thenReturn(defaultNamespaceName);
+    AppNamespace somePublicAppNamespace =
+        assemblePublicAppNamespace("somePublicAppId", somePublicNamespaceName);
+    when(appNamespaceService.findPublicNamespaceByName(somePublicNamespaceName))
+        .thenReturn(somePublicAppNamespace);
+    when(configService.loadConfig(someAppId, someClientIp, somePublicAppNamespace.getAppId(), someClusterName,
+        somePublicNamespaceName, someDataCenter, someNotificationMessages)).thenReturn(somePublicRelease);
+    when(somePublicRelease.getReleaseKey()).thenReturn(somePublicReleaseKey);
+
+    List<ApolloConfig> result = configController.queryConfigs(someAppId, someClusterName,
+        gson.toJson(clientSideReleaseKeys), someDataCenter, someClientIp, someMessagesAsString, someRequest,
+        someResponse);
+
+    assertEquals(2, result.size());
+    ApolloConfig someConfig = result.get(0);
+    assertEquals(defaultNamespaceName, someConfig.getNamespaceName());
+    assertEquals(someServerSideNewReleaseKey, someConfig.getReleaseKey());
+    assertEquals("foo", someConfig.getConfigurations().get("apollo.bar"));
+    ApolloConfig somePublicConfig = result.get(1);
+    assertEquals(somePublicNamespaceName, somePublicConfig.getNamespaceName());
+    assertEquals(somePublicReleaseKey, somePublicConfig.getReleaseKey());
+    assertNull(somePublicConfig.getConfigurations());
+    verify(someResponse, never()).sendError(anyInt(), anyString());
+  }
+
+  @Test
+  public void testQueryConfigsWithInvalidReleaseKeys() throws Exception {
+    HttpServletResponse someResponse = mock(HttpServletResponse.class);
+
+    List<ApolloConfig> result = configController.queryConfigs(someAppId, someClusterName, "invalid",
+        someDataCenter, someClientIp, someMessagesAsString, someRequest, someResponse);
+
+    assertNull(result);
+    verify(someResponse, times(1)).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+    verify(configService, never()).loadConfig(anyString(), anyString(), anyString(), anyString(), anyString(),
+        anyString(), any(ApolloNotificationMessages.class));
+  }
+
   @Test
   public void testQueryConfigFile() throws Exception {
     String someClientSideReleaseKey = "1";
@@ -131,7 +273,7 @@ public class ConfigControllerTest {
 
     ApolloConfig result = configController.queryConfig(someAppId, someClusterName,
         someNamespaceName, someDataCenter, someClientSideReleaseKey,
-        someClientIp, someMessagesAsString, someRequest, someResponse);
+        someClientIp, someMessagesAsString, false, someRequest, someResponse);
 
     verify(configService, times(1)).loadConfig(someAppId, someClientIp, someAppId, someClusterName,
         defaultNamespaceName, someDataCenter, someNotificationMessages);
@@ -160,7 +302,7 @@ public class ConfigControllerTest {
 
     ApolloConfig result = configController.queryConfig(someAppId, someClusterName,
         somePrivateNamespaceName, someDataCenter, someClientSideReleaseKey,
-        someClientIp, someMessagesAsString, someRequest, someResponse);
+        someClientIp, someMessagesAsString, false, someRequest, someResponse);
 
     assertEquals(someAppId, result.getAppId());
     assertEquals(someClusterName, result.getCluster());
@@ -178,7 +320,7 @@ public class ConfigControllerTest {
 
     ApolloConfig result = configController.queryConfig(someAppId, someClusterName,
         defaultNamespaceName, someDataCenter, someClientSideReleaseKey,
-        someClientIp, someMessagesAsString, someRequest, someResponse);
+        someClientIp, someMessagesAsString, false, someRequest, someResponse);
 
     assertNull(result);
     verify(someResponse, times(1)).sendError(eq(HttpServletResponse.SC_NOT_FOUND), anyString());
@@ -196,7 +338,7 @@ public class ConfigControllerTest {
 
     ApolloConfig result =
         configController.queryConfig(someAppId, someClusterName, defaultNamespaceName, someDataCenter, String.valueOf
-            (someClientSideReleaseKey), someClientIp, someMessagesAsString, someRequest, someResponse);
+            (someClientSideReleaseKey), someClientIp, someMessagesAsString, false, someRequest, someResponse);
 
     assertNull(result);
     verify(someResponse, times(1)).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
@@ -222,7 +364,7 @@ public class ConfigControllerTest {
     ApolloConfig result =
         configController
             .queryConfig(someAppId, someClusterName, someAppOwnNamespaceName, someDataCenter,
-                someClientSideReleaseKey, someClientIp, someMessagesAsString, someRequest, someResponse);
+                someClientSideReleaseKey, someClientIp, someMessagesAsString, false, someRequest, someResponse);
 
     assertEquals(someServerSideReleaseKey, result.getReleaseKey());
     assertEquals(someAppId, result.getAppId());
@@ -254,7 +396,7 @@ public class ConfigControllerTest {
 
     ApolloConfig result = configController
         .queryConfig(someAppId, someClusterName, somePublicNamespaceName, someDataCenter,
-            someClientSideReleaseKey, someClientIp, someMessagesAsString, someRequest, someResponse);
+            someClientSideReleaseKey, someClientIp, someMessagesAsString, false, someRequest, someResponse);
 
     assertEquals(someServerSideReleaseKey, result.getReleaseKey());
     assertEquals(someAppId, result.getAppId());
@@ -288,7 +430,7 @@ public class ConfigControllerTest {
 
     ApolloConfig result = configController
         .queryConfig(someAppId, someClusterName, someNamespace, someDataCenter,
-            someClientSideReleaseKey, someClientIp, someMessagesAsString, someRequest, someResponse);
+            someClientSideReleaseKey, someClientIp, someMessagesAsString, false, someRequest, someResponse);
 
     assertEquals(someServerSideReleaseKey, result.getReleaseKey());
     assertEquals(someAppId, result.getAppId());
@@ -327,7 +469,7 @@ public class ConfigControllerTest {
     ApolloConfig result =
         configController
             .queryConfig(someAppId, someClusterName, somePublicNamespaceName, someDataCenter,
-                someAppSideReleaseKey, someClientIp, someMessagesAsString, someRequest, someResponse);
+                someAppSideReleaseKey, someClientIp, someMessagesAsString, false, someRequest, someResponse);
 
     assertEquals(Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)
             .join(someAppSideReleaseKey, somePublicAppSideReleaseKey),
@@ -388,7 +530,7 @@ public class ConfigControllerTest {
 
     ApolloConfig result = configController.queryConfig(appId, someClusterName,
         defaultNamespaceName, someDataCenter, someClientSideReleaseKey,
-        someClientIp, someMessagesAsString, someRequest, someResponse);
+        someClientIp, someMessagesAsString, false, someRequest, someResponse);
 
     verify(configService, never()).loadConfig(appId, someClientIp, someAppId, someClusterName, defaultNamespaceName,
         someDataCenter, someNotificationMessages);
@@ -416,7 +558,7 @@ public class ConfigControllerTest {
 
     ApolloConfig result = configController.queryConfig(appId, someClusterName,
         somePublicNamespaceName, someDataCenter, someClientSideReleaseKey,
-        someClientIp, someMessagesAsString, someRequest, someResponse);
+        someClientIp, someMessagesAsString, false, someRequest, someResponse);
 
     verify(configService, never()).loadConfig(appId, someClientIp, appId, someClusterName,
         somePublicNamespaceName, someDataCenter, someNotificationMessages);
@@ -462,4 +604,10 @@ public class ConfigControllerTest {
     appNamespace.setPublic(isPublic);
     return appNamespace;
   }
+
+  private void mockReleaseNamespace(Release release, String appId, String clusterName, String namespaceName) {
+    when(release.getAppId()).thenReturn(appId);
+    when(release.getClusterName()).thenReturn(clusterName);
+    when(release.getNamespaceName()).thenReturn(namespaceName);
+  }
 }
@@ -0,0 +1,69 @@
+package com.ctrip.framework.apollo.configservice.controller;
+
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.biz.message.ReleaseMessageScanner;
+import com.ctrip.framework.apollo.metaservice.service.DiscoveryService;
+import com.google.common.collect.Lists;
+import com.netflix.appinfo.InstanceInfo;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReleaseMessageControllerTest {
+  private ReleaseMessageController controller;
+  @Mock
+  private ReleaseMessageScanner releaseMessageScanner;
+  @Mock
+  private DiscoveryService discoveryService;
+  @Mock
+  private HttpServletRequest request;
+  @Mock
+  private HttpServletResponse response;
+  private ReleaseMessage someMessage;
+
+  @Before
+  public void setUp() throws Exception {
+    controller = new ReleaseMessageController(releaseMessageScanner, discoveryService);
+
+    InstanceInfo someAdminService = mock(InstanceInfo.class);
+    when(someAdminService.getIPAddr()).thenReturn("1.1.1.1");
+    when(discoveryService.getAdminServiceInstances()).thenReturn(Lists.newArrayList(someAdminService));
+
+    someMessage = new ReleaseMessage("someMessage");
+    someMessage.setId(1);
+  }
+
+  @Test
+  public void testReceiveFromAdminService() throws Exception {
+    when(request.getRemoteAddr()).thenReturn("1.1.1.1");
+
+    controller.receive(someMessage, request, response);
+
+    verify(releaseMessageScanner).receive(someMessage);
+    verify(response, never()).sendError(anyInt(), anyString());
+  }
+
+  @Test
+  public void testReceiveFromOtherCaller() throws Exception {
+    when(request.getRemoteAddr()).thenReturn("2.2.2.2");
+
+    controller.receive(someMessage, request, response);
+
+    verify(releaseMessageScanner, never()).receive(someMessage);
+    verify(response).sendError(eq(HttpServletResponse.SC_FORBIDDEN), anyString());
+  }
+}
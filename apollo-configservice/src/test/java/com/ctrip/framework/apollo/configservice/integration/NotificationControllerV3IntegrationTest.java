@@ -0,0 +1,137 @@
+package com.ctrip.framework.apollo.configservice.integration;
+
+import com.ctrip.framework.apollo.configservice.service.ReleaseMessageServiceWithCache;
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.net.UrlEscapers;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NotificationControllerV3IntegrationTest extends AbstractBaseIntegrationTest {
+  @Autowired
+  private Gson gson;
+
+  @Autowired
+  private ReleaseMessageServiceWithCache releaseMessageServiceWithCache;
+
+  private String someAppId;
+  private String someCluster;
+  private String defaultNamespace;
+  private ExecutorService executorService;
+  private Type notificationsType;
+
+  @Before
+  public void setUp() throws Exception {
+    ReflectionTestUtils.invokeMethod(releaseMessageServiceWithCache, "reset");
+    someAppId = "someAppId";
+    someCluster = ConfigConsts.CLUSTER_NAME_DEFAULT;
+    defaultNamespace = ConfigConsts.NAMESPACE_APPLICATION;
+    executorService = Executors.newSingleThreadExecutor();
+    notificationsType = new TypeToken<List<ApolloConfigNotification>>() {
+    }.getType();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    executorService.shutdownNow();
+  }
+
+  @Test(timeout = 5000L)
+  @Sql(scripts = "/integration-test/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testStreamNotificationsWithDefaultNamespace() throws Exception {
+    AtomicBoolean stop = new AtomicBoolean();
+    String key = assembleKey(someAppId, someCluster, defaultNamespace);
+    periodicSendMessage(executorService, key, stop);
+
+    HttpURLConnection connection = openStream(defaultNamespace, ConfigConsts.NOTIFICATION_ID_PLACEHOLDER);
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+      assertEquals(200, connection.getResponseCode());
+      assertTrue(connection.getContentType().startsWith("text/event-stream"));
+
+      List<ApolloConfigNotification> notifications = readNotifications(reader);
+      assertEquals(1, notifications.size());
+      assertEquals(defaultNamespace, notifications.get(0).getNamespaceName());
+      assertTrue(notifications.get(0).getMessages().has(key));
+
+      //the stream stays open and pushes the following changes
+      List<ApolloConfigNotification> anotherNotifications = readNotifications(reader);
+      stop.set(true);
+
+      assertEquals(1, anotherNotifications.size());
+      assertTrue(anotherNotifications.get(0).getNotificationId() > notifications.get(0).getNotificationId());
+    } finally {
+      stop.set(true);
+      connection.disconnect();
+    }
+  }
+
+  @Test(timeout = 5000L)
+  @Sql(scripts = "/integration-test/test-release.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/integration-test/test-release-message.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/integration-test/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testStreamNotificationsWithNotificationIdOutDated() throws Exception {
+    long someOutDatedNotificationId = 1;
+    long newNotificationId = 10;
+
+    HttpURLConnection connection = openStream(defaultNamespace, someOutDatedNotificationId);
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+      List<ApolloConfigNotification> notifications = readNotifications(reader);
+
+      assertEquals(1, notifications.size());
+      assertEquals(defaultNamespace, notifications.get(0).getNamespaceName());
+      assertEquals(newNotificationId, notifications.get(0).getNotificationId());
+      assertNotEquals(ConfigConsts.NOTIFICATION_ID_PLACEHOLDER, notifications.get(0).getNotificationId());
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  private HttpURLConnection openStream(String namespace, long notificationId) throws Exception {
+    String notifications = gson.toJson(Lists.newArrayList(new ApolloConfigNotification(namespace, notificationId)));
+    URL url = new URL(String.format("http://%s/notifications/v3?appId=%s&cluster=%s&notifications=%s", getHostUrl(),
+        someAppId, someCluster, UrlEscapers.urlFormParameterEscaper().escape(notifications)));
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setRequestProperty("Accept", "text/event-stream");
+    connection.connect();
+    return connection;
+  }
+
+  private List<ApolloConfigNotification> readNotifications(BufferedReader reader) throws Exception {
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.startsWith("data:")) {
+        return gson.fromJson(line.substring("data:".length()), notificationsType);
+      }
+    }
+    throw new IllegalStateException("Stream closed");
+  }
+
+  private String assembleKey(String appId, String cluster, String namespace) {
+    return Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR).join(appId, cluster, namespace);
+  }
+}
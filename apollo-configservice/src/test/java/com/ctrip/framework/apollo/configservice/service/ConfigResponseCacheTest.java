@@ -0,0 +1,146 @@
+package com.ctrip.framework.apollo.configservice.service;
+
+import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.biz.message.Topics;
+import com.ctrip.framework.apollo.biz.utils.ReleaseMessageKeyGenerator;
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.io.CharStreams;
+import com.google.gson.Gson;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ConfigResponseCacheTest {
+  private ConfigResponseCache configResponseCache;
+  private Gson gson;
+  private String someAppId;
+  private String someClusterName;
+  private String someNamespaceName;
+  private Release someRelease;
+  private Release anotherRelease;
+
+  @Before
+  public void setUp() throws Exception {
+    gson = new Gson();
+    configResponseCache = new ConfigResponseCache(gson);
+
+    someAppId = "someAppId";
+    someClusterName = "someClusterName";
+    someNamespaceName = "someNamespaceName";
+
+    someRelease = assembleRelease(someAppId, someClusterName, someNamespaceName, "someReleaseKey",
+        ImmutableMap.of("k1", "v1"));
+    anotherRelease = assembleRelease("somePublicAppId", someClusterName, someNamespaceName, "anotherReleaseKey",
+        ImmutableMap.of("k1", "v2", "k2", "v2"));
+  }
+
+  @Test
+  public void testGetMergedConfigurations() throws Exception {
+    List<Release> releases = Lists.newArrayList(someRelease, anotherRelease);
+
+    Map<String, String> result = configResponseCache.getMergedConfigurations(releases);
+
+    assertEquals(ImmutableMap.of("k1", "v1", "k2", "v2"), result);
+    assertSame(result, configResponseCache.getMergedConfigurations(releases));
+  }
+
+  @Test
+  public void testGetMergedConfigurationsAfterReleaseMessage() throws Exception {
+    List<Release> releases = Lists.newArrayList(someRelease, anotherRelease);
+
+    Map<String, String> result = configResponseCache.getMergedConfigurations(releases);
+
+    ReleaseMessage someMessage = new ReleaseMessage(
+        ReleaseMessageKeyGenerator.generate("somePublicAppId", someClusterName, someNamespaceName));
+    configResponseCache.handleMessage(someMessage, Topics.APOLLO_RELEASE_TOPIC);
+
+    Map<String, String> anotherResult = configResponseCache.getMergedConfigurations(releases);
+
+    assertEquals(result, anotherResult);
+    assertNotSame(result, anotherResult);
+  }
+
+  @Test
+  public void testGetResponse() throws Exception {
+    List<Release> releases = Lists.newArrayList(someRelease);
+    ApolloConfig someConfig = new ApolloConfig(someAppId, someClusterName, someNamespaceName,
+        someRelease.getReleaseKey());
+    someConfig.setConfigurations(configResponseCache.getMergedConfigurations(releases));
+
+    byte[] response = configResponseCache.getResponse(someConfig);
+
+    assertEquals(gson.toJson(someConfig), new String(response, StandardCharsets.UTF_8));
+    assertSame(response, configResponseCache.getResponse(someConfig));
+  }
+
+  @Test
+  public void testGetResponseNotCached() throws Exception {
+    ApolloConfig someConfig = new ApolloConfig(someAppId, someClusterName, someNamespaceName,
+        someRelease.getReleaseKey());
+    someConfig.setConfigurations(ImmutableMap.of("k1", "v1"));
+
+    byte[] response = configResponseCache.getResponse(someConfig);
+
+    assertEquals(gson.toJson(someConfig), new String(response, StandardCharsets.UTF_8));
+    assertNotSame(response, configResponseCache.getResponse(someConfig));
+  }
+
+  @Test
+  public void testGetCompressedResponse() throws Exception {
+    List<Release> releases = Lists.newArrayList(someRelease);
+    ApolloConfig someConfig = new ApolloConfig(someAppId, someClusterName, someNamespaceName,
+        someRelease.getReleaseKey());
+    someConfig.setConfigurations(configResponseCache.getMergedConfigurations(releases));
+    byte[] response = configResponseCache.getResponse(someConfig);
+
+    byte[] compressedResponse = configResponseCache.getCompressedResponse(someConfig, response);
+
+    assertEquals(gson.toJson(someConfig), gunzip(compressedResponse));
+    assertSame(compressedResponse, configResponseCache.getCompressedResponse(someConfig, response));
+  }
+
+  @Test
+  public void testGetCompressedResponseNotCached() throws Exception {
+    ApolloConfig someConfig = new ApolloConfig(someAppId, someClusterName, someNamespaceName,
+        someRelease.getReleaseKey());
+    someConfig.setConfigurations(ImmutableMap.of("k1", "v1"));
+    byte[] response = configResponseCache.getResponse(someConfig);
+
+    byte[] compressedResponse = configResponseCache.getCompressedResponse(someConfig, response);
+
+    assertEquals(gson.toJson(someConfig), gunzip(compressedResponse));
+    assertNotSame(compressedResponse, configResponseCache.getCompressedResponse(someConfig, response));
+  }
+
+  private String gunzip(byte[] content) throws Exception {
+    try (Reader reader = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(content)),
+        StandardCharsets.UTF_8)) {
+      return CharStreams.toString(reader);
+    }
+  }
+
+  private Release assembleRelease(String appId, String clusterName, String namespaceName, String releaseKey,
+                                  Map<String, String> configurations) {
+    Release release = new Release();
+    release.setAppId(appId);
+    release.setClusterName(clusterName);
+    release.setNamespaceName(namespaceName);
+    release.setReleaseKey(releaseKey);
+    release.setConfigurations(gson.toJson(configurations));
+    return release;
+  }
+}
@@ -1,20 +1,28 @@
 package com.ctrip.framework.apollo.configservice.util;
 
+import com.google.common.collect.Lists;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.Instance;
 import com.ctrip.framework.apollo.biz.entity.InstanceConfig;
 import com.ctrip.framework.apollo.biz.service.InstanceService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.BlockingQueue;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 /**
@@ -26,7 +34,9 @@ public class InstanceConfigAuditUtilTest {
 
   @Mock
   private InstanceService instanceService;
-  private BlockingQueue<InstanceConfigAuditUtil.InstanceConfigAuditModel> audits;
+  @Mock
+  private BizConfig bizConfig;
+  private Map<String, InstanceConfigAuditUtil.InstanceConfigAuditModel> audits;
 
   private String someAppId;
   private String someConfigClusterName;
@@ -41,9 +51,9 @@ public class InstanceConfigAuditUtilTest {
 
   @Before
   public void setUp() throws Exception {
-    instanceConfigAuditUtil = new InstanceConfigAuditUtil(instanceService);
+    instanceConfigAuditUtil = new InstanceConfigAuditUtil(instanceService, bizConfig);
 
-    audits = (BlockingQueue<InstanceConfigAuditUtil.InstanceConfigAuditModel>)
+    audits = (Map<String, InstanceConfigAuditUtil.InstanceConfigAuditModel>)
         ReflectionTestUtils.getField(instanceConfigAuditUtil, "audits");
 
     someAppId = "someAppId";
@@ -62,32 +72,154 @@ public class InstanceConfigAuditUtilTest {
 
   @Test
   public void testAudit() throws Exception {
+    when(bizConfig.instanceConfigAuditMaxSize()).thenReturn(10);
+
     boolean result = instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter,
         someIp, someConfigAppId, someConfigClusterName, someConfigNamespace, someReleaseKey);
 
-    InstanceConfigAuditUtil.InstanceConfigAuditModel audit = audits.poll();
+    InstanceConfigAuditUtil.InstanceConfigAuditModel audit = audits.values().iterator().next();
 
     assertTrue(result);
+    assertEquals(1, audits.size());
     assertTrue(Objects.equals(someAuditModel, audit));
   }
 
+  @Test
+  public void testAuditCoalesced() throws Exception {
+    String anotherReleaseKey = "anotherReleaseKey";
+    when(bizConfig.instanceConfigAuditMaxSize()).thenReturn(10);
+
+    instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter,
+        someIp, someConfigAppId, someConfigClusterName, someConfigNamespace, someReleaseKey);
+    instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter,
+        someIp, someConfigAppId, someConfigClusterName, someConfigNamespace, anotherReleaseKey);
+
+    assertEquals(1, instanceConfigAuditUtil.getPendingAuditCount());
+    assertEquals(anotherReleaseKey, audits.values().iterator().next().getReleaseKey());
+  }
+
+  @Test
+  public void testAuditDroppedWhenFull() throws Exception {
+    String anotherConfigNamespace = "anotherConfigNamespace";
+    when(bizConfig.instanceConfigAuditMaxSize()).thenReturn(1);
+
+    assertTrue(instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter,
+        someIp, someConfigAppId, someConfigClusterName, someConfigNamespace, someReleaseKey));
+    assertFalse(instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter,
+        someIp, someConfigAppId, someConfigClusterName, anotherConfigNamespace, someReleaseKey));
+    //the pending one could still be updated
+    assertTrue(instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter,
+        someIp, someConfigAppId, someConfigClusterName, someConfigNamespace, someReleaseKey));
+
+    assertEquals(1, instanceConfigAuditUtil.getPendingAuditCount());
+    assertEquals(1, instanceConfigAuditUtil.getDroppedAuditCount());
+  }
+
   @Test
   public void testDoAudit() throws Exception {
     long someInstanceId = 1;
-    Instance someInstance = mock(Instance.class);
+    Instance someInstance = assembleInstance(someInstanceId);
+
+    when(instanceService.upsertInstances(anyCollection())).thenReturn(Lists.newArrayList(someInstance));
+
+    instanceConfigAuditUtil.doAudit(Lists.newArrayList(someAuditModel));
+    //the same release key is skipped
+    instanceConfigAuditUtil.doAudit(Lists.newArrayList(someAuditModel));
+
+    ArgumentCaptor<Collection> instanceConfigsCaptor = ArgumentCaptor.forClass(Collection.class);
+    verify(instanceService, times(1)).upsertInstances(anyCollection());
+    verify(instanceService, times(1)).upsertInstanceConfigs(instanceConfigsCaptor.capture());
+
+    Collection<InstanceConfig> instanceConfigs = instanceConfigsCaptor.getValue();
+    InstanceConfig instanceConfig = instanceConfigs.iterator().next();
+    assertEquals(1, instanceConfigs.size());
+    assertEquals(someInstanceId, instanceConfig.getInstanceId());
+    assertEquals(someConfigAppId, instanceConfig.getConfigAppId());
+    assertEquals(someConfigClusterName, instanceConfig.getConfigClusterName());
+    assertEquals(someConfigNamespace, instanceConfig.getConfigNamespaceName());
+    assertEquals(someReleaseKey, instanceConfig.getReleaseKey());
+    assertEquals(someAuditModel.getOfferTime(), instanceConfig.getReleaseDeliveryTime());
+  }
+
+  @Test
+  public void testFlushInBatches() throws Exception {
+    String anotherConfigNamespace = "anotherConfigNamespace";
+    when(bizConfig.instanceConfigAuditMaxSize()).thenReturn(10);
+    when(bizConfig.instanceConfigAuditBatch()).thenReturn(1);
+    when(instanceService.upsertInstances(anyCollection())).thenReturn(Lists.newArrayList(assembleInstance(1)));
 
-    when(someInstance.getId()).thenReturn(someInstanceId);
-    when(instanceService.createInstance(any(Instance.class))).thenReturn(someInstance);
+    instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter,
+        someIp, someConfigAppId, someConfigClusterName, someConfigNamespace, someReleaseKey);
+    instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter,
+        someIp, someConfigAppId, someConfigClusterName, anotherConfigNamespace, someReleaseKey);
 
-    instanceConfigAuditUtil.doAudit(someAuditModel);
+    instanceConfigAuditUtil.flush();
 
-    verify(instanceService, times(1)).findInstance(someAppId, someClusterName, someDataCenter,
-        someIp);
-    verify(instanceService, times(1)).createInstance(any(Instance.class));
-    verify(instanceService, times(1)).findInstanceConfig(someInstanceId, someConfigAppId,
-        someConfigNamespace);
-    verify(instanceService, times(1)).createInstanceConfig(any(InstanceConfig.class));
+    //the instance id is cached by the first batch
+    verify(instanceService, times(1)).upsertInstances(anyCollection());
+    verify(instanceService, times(2)).upsertInstanceConfigs(anyCollection());
+    assertEquals(0, instanceConfigAuditUtil.getPendingAuditCount());
   }
 
+  @Test
+  public void testFlushRequeuesFailedBatch() throws Exception {
+    String anotherReleaseKey = "anotherReleaseKey";
+    when(bizConfig.instanceConfigAuditMaxSize()).thenReturn(10);
+    when(bizConfig.instanceConfigAuditBatch()).thenReturn(10);
+    when(instanceService.upsertInstances(anyCollection())).thenThrow(new RuntimeException("some error"))
+        .thenReturn(Lists.newArrayList(assembleInstance(1)));
+
+    instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter,
+        someIp, someConfigAppId, someConfigClusterName, someConfigNamespace, someReleaseKey);
+
+    instanceConfigAuditUtil.flush();
+
+    assertEquals(1, instanceConfigAuditUtil.getPendingAuditCount());
+    assertEquals(someAuditModel, audits.values().iterator().next());
+
+    //the newer audit is not overwritten by the re-queued one
+    instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter,
+        someIp, someConfigAppId, someConfigClusterName, someConfigNamespace, anotherReleaseKey);
+
+    instanceConfigAuditUtil.flush();
+
+    ArgumentCaptor<Collection> instanceConfigsCaptor = ArgumentCaptor.forClass(Collection.class);
+    verify(instanceService, times(1)).upsertInstanceConfigs(instanceConfigsCaptor.capture());
+    InstanceConfig instanceConfig = (InstanceConfig) instanceConfigsCaptor.getValue().iterator().next();
+    assertEquals(anotherReleaseKey, instanceConfig.getReleaseKey());
+    assertEquals(0, instanceConfigAuditUtil.getPendingAuditCount());
+    assertEquals(0, instanceConfigAuditUtil.getDroppedAuditCount());
+  }
 
+  @Test
+  public void testFlushDropsFailedBatchWhenFull() throws Exception {
+    String anotherConfigNamespace = "anotherConfigNamespace";
+    when(bizConfig.instanceConfigAuditMaxSize()).thenReturn(1);
+    when(bizConfig.instanceConfigAuditBatch()).thenReturn(10);
+    when(instanceService.upsertInstances(anyCollection())).thenAnswer(invocation -> {
+      //filled up by another audit while flushing
+      instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter,
+          someIp, someConfigAppId, someConfigClusterName, anotherConfigNamespace, someReleaseKey);
+      throw new RuntimeException("some error");
+    });
+
+    instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter,
+        someIp, someConfigAppId, someConfigClusterName, someConfigNamespace, someReleaseKey);
+
+    instanceConfigAuditUtil.flush();
+
+    assertEquals(1, instanceConfigAuditUtil.getPendingAuditCount());
+    assertEquals(anotherConfigNamespace, audits.values().iterator().next().getConfigNamespace());
+    assertEquals(1, instanceConfigAuditUtil.getDroppedAuditCount());
+  }
+
+  private Instance assembleInstance(long id) {
+    Instance instance = new Instance();
+    instance.setId(id);
+    instance.setAppId(someAppId);
+    instance.setClusterName(someClusterName);
+    instance.setDataCenter(someDataCenter);
+    instance.setIp(someIp);
+    return instance;
+  }
 }
@@ -0,0 +1,115 @@
+package com.ctrip.framework.apollo.configservice.util;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NotificationFanOutSchedulerTest {
+  @Mock
+  private BizConfig bizConfig;
+  private NotificationFanOutScheduler scheduler;
+  private String someWatchKey;
+
+  @Before
+  public void setUp() throws Exception {
+    when(bizConfig.releaseMessageNotificationWorkers()).thenReturn(4);
+    scheduler = new NotificationFanOutScheduler(bizConfig);
+    someWatchKey = "someAppId+someCluster+someNamespace";
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    scheduler.stop();
+  }
+
+  @Test
+  public void testFanOutInCallerThread() throws Exception {
+    when(bizConfig.releaseMessageNotificationBatch()).thenReturn(10);
+    List<Integer> watchers = Lists.newArrayList(1, 2, 3);
+    Set<Thread> notifyingThreads = Sets.newConcurrentHashSet();
+    List<Integer> notified = Lists.newArrayList();
+
+    scheduler.fanOut(someWatchKey, watchers, watcher -> {
+      notifyingThreads.add(Thread.currentThread());
+      notified.add(watcher);
+    });
+
+    assertEquals(watchers, notified);
+    assertEquals(Sets.newHashSet(Thread.currentThread()), notifyingThreads);
+  }
+
+  @Test
+  public void testFanOutWithinMaxDuration() throws Exception {
+    int someBatch = 10;
+    int someRate = 10;
+    int someMaxDuration = 500;
+    int someWorkers = 4;
+    when(bizConfig.releaseMessageNotificationBatch()).thenReturn(someBatch);
+    when(bizConfig.releaseMessageNotificationRate()).thenReturn(someRate);
+    when(bizConfig.releaseMessageNotificationMaxDurationInMilli()).thenReturn(someMaxDuration);
+
+    List<Integer> watchers = Lists.newArrayList();
+    for (int i = 0; i < 100; i++) {
+      watchers.add(i);
+    }
+    Set<Integer> notified = Sets.newConcurrentHashSet();
+    Set<Thread> notifyingThreads = Sets.newConcurrentHashSet();
+    long countBefore = scheduler.getCompletedFanOuts();
+
+    scheduler.fanOut(someWatchKey, watchers, watcher -> {
+      notifyingThreads.add(Thread.currentThread());
+      notified.add(watcher);
+    });
+
+    //at the base rate it would take 10 seconds
+    long deadline = System.currentTimeMillis() + someMaxDuration * 4;
+    while (scheduler.getCompletedFanOuts() == countBefore && System.currentTimeMillis() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+
+    assertEquals(Sets.newHashSet(watchers), notified);
+    assertEquals(countBefore + 1, scheduler.getCompletedFanOuts());
+    assertTrue(scheduler.getLastFanOutDurationInMilli() < someMaxDuration * 2);
+    assertTrue(notifyingThreads.size() <= someWorkers);
+    assertTrue(!notifyingThreads.contains(Thread.currentThread()));
+  }
+
+  @Test
+  public void testFanOutContinuesAfterNotifyFailure() throws Exception {
+    when(bizConfig.releaseMessageNotificationBatch()).thenReturn(1);
+    when(bizConfig.releaseMessageNotificationRate()).thenReturn(1000);
+    when(bizConfig.releaseMessageNotificationWorkers()).thenReturn(1);
+    List<Integer> watchers = Lists.newArrayList(1, 2, 3);
+    Set<Integer> notified = Sets.newConcurrentHashSet();
+    long countBefore = scheduler.getCompletedFanOuts();
+
+    scheduler.fanOut(someWatchKey, watchers, watcher -> {
+      if (watcher == 2) {
+        throw new IllegalStateException("some failure");
+      }
+      notified.add(watcher);
+    });
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (scheduler.getCompletedFanOuts() == countBefore && System.currentTimeMillis() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+
+    assertEquals(Sets.newHashSet(1, 3), notified);
+  }
+}
@@ -0,0 +1,69 @@
+package com.ctrip.framework.apollo.configservice.util;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ResponseCompressionUtilTest {
+  private ResponseCompressionUtil responseCompressionUtil;
+
+  @Mock
+  private BizConfig bizConfig;
+  @Mock
+  private HttpServletRequest someRequest;
+
+  @Before
+  public void setUp() throws Exception {
+    responseCompressionUtil = new ResponseCompressionUtil(bizConfig);
+  }
+
+  @Test
+  public void testShouldCompress() throws Exception {
+    when(bizConfig.isConfigResponseCompressionEnabled()).thenReturn(true);
+    when(bizConfig.configResponseCompressionMinSize()).thenReturn(100);
+    when(someRequest.getHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip, deflate");
+
+    assertTrue(responseCompressionUtil.shouldCompress(someRequest, 100));
+    assertFalse(responseCompressionUtil.shouldCompress(someRequest, 99));
+  }
+
+  @Test
+  public void testShouldNotCompressWhenDisabled() throws Exception {
+    when(bizConfig.isConfigResponseCompressionEnabled()).thenReturn(false);
+
+    assertFalse(responseCompressionUtil.shouldCompress(someRequest, 100));
+  }
+
+  @Test
+  public void testAcceptsGzip() throws Exception {
+    assertTrue(ResponseCompressionUtil.acceptsGzip("gzip"));
+    assertTrue(ResponseCompressionUtil.acceptsGzip("deflate, GZIP;q=0.5"));
+    assertTrue(ResponseCompressionUtil.acceptsGzip("gzip ; q=1.0, identity; q=0.5"));
+    assertTrue(ResponseCompressionUtil.acceptsGzip("*"));
+    assertTrue(ResponseCompressionUtil.acceptsGzip("gzip;q=0.1, *;q=0"));
+  }
+
+  @Test
+  public void testNotAcceptsGzip() throws Exception {
+    assertFalse(ResponseCompressionUtil.acceptsGzip(null));
+    assertFalse(ResponseCompressionUtil.acceptsGzip(""));
+    assertFalse(ResponseCompressionUtil.acceptsGzip("deflate, identity"));
+    assertFalse(ResponseCompressionUtil.acceptsGzip("gzip;q=0"));
+    assertFalse(ResponseCompressionUtil.acceptsGzip("gzip;q=0.000, deflate"));
+    assertFalse(ResponseCompressionUtil.acceptsGzip("gzip;q=0, *"));
+    assertFalse(ResponseCompressionUtil.acceptsGzip("*;q=0"));
+    assertFalse(ResponseCompressionUtil.acceptsGzip("x-gzip-like"));
+    assertFalse(ResponseCompressionUtil.acceptsGzip("gzip;q=invalid"));
+  }
+}
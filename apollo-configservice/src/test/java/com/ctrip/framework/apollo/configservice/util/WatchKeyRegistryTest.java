@@ -0,0 +1,127 @@
+package com.ctrip.framework.apollo.configservice.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WatchKeyRegistryTest {
+  private WatchKeyRegistry<Object> registry;
+  private String someKey;
+  private String anotherKey;
+
+  @Before
+  public void setUp() throws Exception {
+    registry = new WatchKeyRegistry<>();
+    someKey = "someAppId+someCluster+someNamespace";
+    anotherKey = "someAppId+someCluster+anotherNamespace";
+  }
+
+  @Test
+  public void testRegisterAndUnregister() throws Exception {
+    Object someWatcher = new Object();
+    Object anotherWatcher = new Object();
+
+    registry.register(someKey, someWatcher);
+    registry.register(someKey, someWatcher);
+    registry.register(someKey, anotherWatcher);
+    registry.register(anotherKey, someWatcher);
+
+    assertEquals(3, registry.size());
+    assertEquals(2, registry.keySize());
+    assertEquals(2, registry.get(someKey).size());
+    assertTrue(registry.get(anotherKey).contains(someWatcher));
+
+    registry.unregister(someKey, someWatcher);
+    registry.unregister(someKey, someWatcher);
+    registry.unregister(anotherKey, someWatcher);
+
+    assertEquals(1, registry.size());
+    assertFalse(registry.containsKey(anotherKey));
+    assertEquals(Lists.newArrayList(anotherWatcher), registry.snapshot(someKey));
+    assertTrue(registry.snapshot(anotherKey).isEmpty());
+  }
+
+  @Test
+  public void testSnapshotNotAffectedByUnregister() throws Exception {
+    Object someWatcher = new Object();
+    registry.register(someKey, someWatcher);
+
+    List<Object> snapshot = registry.snapshot(someKey);
+    registry.unregister(someKey, someWatcher);
+
+    assertEquals(1, snapshot.size());
+    assertTrue(registry.get(someKey).isEmpty());
+  }
+
+  /**
+   * The pollers register and complete the shared keys concurrently, while some of them stay registered. A
+   * registration must never be lost, e.g. when it races with the removal of the emptied set of its key.
+   */
+  @Test
+  public void testConcurrentPollers() throws Exception {
+    int pollersPerThread = 2000;
+    int threads = 8;
+    int keptEvery = 10;
+    List<String> keys = Lists.newArrayList(someKey, anotherKey, "somePublicAppId+default+somePublicNamespace");
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    CountDownLatch startLatch = new CountDownLatch(1);
+    List<Future<List<Object>>> futures = Lists.newArrayList();
+
+    for (int i = 0; i < threads; i++) {
+      futures.add(executorService.submit(() -> {
+        List<Object> keptPollers = Lists.newArrayList();
+        startLatch.await();
+        for (int j = 0; j < pollersPerThread; j++) {
+          Object poller = new Object();
+          keys.forEach(key -> registry.register(key, poller));
+          for (String key : keys) {
+            assertTrue(registry.get(key).contains(poller));
+            assertTrue(registry.snapshot(key).contains(poller));
+          }
+          if (j % keptEvery == 0) {
+            keptPollers.add(poller);
+            continue;
+          }
+          keys.forEach(key -> registry.unregister(key, poller));
+          for (String key : keys) {
+            assertFalse(registry.get(key).contains(poller));
+          }
+        }
+        return keptPollers;
+      }));
+    }
+
+    startLatch.countDown();
+    Set<Object> keptPollers = Sets.newIdentityHashSet();
+    for (Future<List<Object>> future : futures) {
+      keptPollers.addAll(future.get(1, TimeUnit.MINUTES));
+    }
+    executorService.shutdown();
+
+    assertEquals(threads * pollersPerThread / keptEvery, keptPollers.size());
+    assertEquals(keptPollers.size() * keys.size(), registry.size());
+    assertEquals(keys.size(), registry.keySize());
+    for (String key : keys) {
+      assertEquals(keptPollers, Sets.newHashSet(registry.get(key)));
+    }
+
+    for (Object poller : keptPollers) {
+      keys.forEach(key -> registry.unregister(key, poller));
+    }
+    assertEquals(0, registry.size());
+    assertEquals(0, registry.keySize());
+  }
+}
@@ -1,6 +1,7 @@
 package com.ctrip.framework.apollo.core.dto;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
@@ -17,6 +18,21 @@ public class ApolloConfig {
 
   private String releaseKey;
 
+  /**
+   * the release key which the delta is based on, only set when delivered as delta
+   */
+  private String baseReleaseKey;
+
+  /**
+   * the added or modified configurations compared with base release, only set when delivered as delta
+   */
+  private Map<String, String> changedConfigurations;
+
+  /**
+   * the deleted keys compared with base release, only set when delivered as delta
+   */
+  private Set<String> deletedKeys;
+
   public ApolloConfig() {
   }
 
@@ -50,6 +66,18 @@ public class ApolloConfig {
     return configurations;
   }
 
+  public String getBaseReleaseKey() {
+    return baseReleaseKey;
+  }
+
+  public Map<String, String> getChangedConfigurations() {
+    return changedConfigurations;
+  }
+
+  public Set<String> getDeletedKeys() {
+    return deletedKeys;
+  }
+
   public void setAppId(String appId) {
     this.appId = appId;
   }
@@ -70,6 +98,18 @@ public class ApolloConfig {
     this.configurations = configurations;
   }
 
+  public void setBaseReleaseKey(String baseReleaseKey) {
+    this.baseReleaseKey = baseReleaseKey;
+  }
+
+  public void setChangedConfigurations(Map<String, String> changedConfigurations) {
+    this.changedConfigurations = changedConfigurations;
+  }
+
+  public void setDeletedKeys(Set<String> deletedKeys) {
+    this.deletedKeys = deletedKeys;
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder("ApolloConfig{");
@@ -78,6 +118,11 @@ public class ApolloConfig {
     sb.append(", namespaceName='").append(namespaceName).append('\'');
     sb.append(", configurations=").append(configurations);
     sb.append(", releaseKey='").append(releaseKey).append('\'');
+    if (baseReleaseKey != null) {
+      sb.append(", baseReleaseKey='").append(baseReleaseKey).append('\'');
+      sb.append(", changedConfigurations=").append(changedConfigurations);
+      sb.append(", deletedKeys=").append(deletedKeys);
+    }
     sb.append('}');
     return sb.toString();
   }
@@ -2,6 +2,7 @@ package com.ctrip.framework.apollo.openapi.filter;
 
 import com.ctrip.framework.apollo.openapi.util.ConsumerAuditUtil;
 import com.ctrip.framework.apollo.openapi.util.ConsumerAuthUtil;
+import com.ctrip.framework.apollo.openapi.util.ConsumerRateLimitUtil;
 
 import java.io.IOException;
 
@@ -20,10 +21,15 @@ import javax.servlet.http.HttpServletResponse;
 public class ConsumerAuthenticationFilter implements Filter {
   private ConsumerAuthUtil consumerAuthUtil;
   private ConsumerAuditUtil consumerAuditUtil;
+  private ConsumerRateLimitUtil consumerRateLimitUtil;
 
-  public ConsumerAuthenticationFilter(ConsumerAuthUtil consumerAuthUtil, ConsumerAuditUtil consumerAuditUtil) {
+  private static final int SC_TOO_MANY_REQUESTS = 429;
+
+  public ConsumerAuthenticationFilter(ConsumerAuthUtil consumerAuthUtil, ConsumerAuditUtil consumerAuditUtil,
+      ConsumerRateLimitUtil consumerRateLimitUtil) {
     this.consumerAuthUtil = consumerAuthUtil;
     this.consumerAuditUtil = consumerAuditUtil;
+    this.consumerRateLimitUtil = consumerRateLimitUtil;
   }
 
   @Override
@@ -46,6 +52,11 @@ public class ConsumerAuthenticationFilter implements Filter {
       return;
     }
 
+    if (!consumerRateLimitUtil.tryAcquire(consumerId)) {
+      response.sendError(SC_TOO_MANY_REQUESTS, "Too Many Requests");
+      return;
+    }
+
     consumerAuthUtil.storeConsumerId(request, consumerId);
     consumerAuditUtil.audit(request, consumerId);
 
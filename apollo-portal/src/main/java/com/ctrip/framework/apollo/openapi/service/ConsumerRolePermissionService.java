@@ -2,6 +2,7 @@ package com.ctrip.framework.apollo.openapi.service;
 
 import com.ctrip.framework.apollo.openapi.entity.ConsumerRole;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
+import com.ctrip.framework.apollo.portal.component.RolePermissionCache;
 import com.ctrip.framework.apollo.portal.entity.po.Permission;
 import com.ctrip.framework.apollo.portal.entity.po.RolePermission;
 import com.ctrip.framework.apollo.portal.repository.PermissionRepository;
@@ -21,20 +22,28 @@ public class ConsumerRolePermissionService {
   private final PermissionRepository permissionRepository;
   private final ConsumerRoleRepository consumerRoleRepository;
   private final RolePermissionRepository rolePermissionRepository;
+  private final RolePermissionCache rolePermissionCache;
 
   public ConsumerRolePermissionService(
       final PermissionRepository permissionRepository,
       final ConsumerRoleRepository consumerRoleRepository,
-      final RolePermissionRepository rolePermissionRepository) {
+      final RolePermissionRepository rolePermissionRepository,
+      final RolePermissionCache rolePermissionCache) {
     this.permissionRepository = permissionRepository;
     this.consumerRoleRepository = consumerRoleRepository;
     this.rolePermissionRepository = rolePermissionRepository;
+    this.rolePermissionCache = rolePermissionCache;
   }
 
   /**
    * Check whether user has the permission
    */
   public boolean consumerHasPermission(long consumerId, String permissionType, String targetId) {
+    if (rolePermissionCache.isEnabled()) {
+      Long permissionId = rolePermissionCache.findPermissionId(permissionType, targetId);
+      return permissionId != null && rolePermissionCache.consumerHasPermission(consumerId, permissionId);
+    }
+
     Permission permission =
         permissionRepository.findTopByPermissionTypeAndTargetId(permissionType, targetId);
     if (permission == null) {
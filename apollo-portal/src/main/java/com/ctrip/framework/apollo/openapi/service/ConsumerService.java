@@ -9,6 +9,7 @@ import com.ctrip.framework.apollo.openapi.repository.ConsumerAuditRepository;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerRepository;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerTokenRepository;
+import com.ctrip.framework.apollo.portal.component.RolePermissionCache;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
 import com.ctrip.framework.apollo.portal.entity.po.Role;
@@ -46,6 +47,7 @@ public class ConsumerService {
   private final PortalConfig portalConfig;
   private final RolePermissionService rolePermissionService;
   private final UserService userService;
+  private final RolePermissionCache rolePermissionCache;
 
   public ConsumerService(
       final UserInfoHolder userInfoHolder,
@@ -55,7 +57,8 @@ public class ConsumerService {
       final ConsumerRoleRepository consumerRoleRepository,
       final PortalConfig portalConfig,
       final RolePermissionService rolePermissionService,
-      final UserService userService) {
+      final UserService userService,
+      final RolePermissionCache rolePermissionCache) {
     this.userInfoHolder = userInfoHolder;
     this.consumerTokenRepository = consumerTokenRepository;
     this.consumerRepository = consumerRepository;
@@ -64,6 +67,7 @@ public class ConsumerService {
     this.portalConfig = portalConfig;
     this.rolePermissionService = rolePermissionService;
     this.userService = userService;
+    this.rolePermissionCache = rolePermissionCache;
   }
 
 
@@ -108,12 +112,18 @@ public class ConsumerService {
   }
 
   public Long getConsumerIdByToken(String token) {
+    ConsumerToken consumerToken = getConsumerTokenByToken(token);
+    return consumerToken == null ? null : consumerToken.getConsumerId();
+  }
+
+  /**
+   * @return the consumer token if it exists and is not expired, otherwise null
+   */
+  public ConsumerToken getConsumerTokenByToken(String token) {
     if (Strings.isNullOrEmpty(token)) {
       return null;
     }
-    ConsumerToken consumerToken = consumerTokenRepository.findTopByTokenAndExpiresAfter(token,
-                                                                                        new Date());
-    return consumerToken == null ? null : consumerToken.getConsumerId();
+    return consumerTokenRepository.findTopByTokenAndExpiresAfter(token, new Date());
   }
 
   public Consumer getConsumerByConsumerId(long consumerId) {
@@ -156,6 +166,7 @@ public class ConsumerService {
 
     ConsumerRole createdModifyConsumerRole = consumerRoleRepository.save(namespaceModifyConsumerRole);
     ConsumerRole createdReleaseConsumerRole = consumerRoleRepository.save(namespaceReleaseConsumerRole);
+    rolePermissionCache.invalidateConsumer(consumerId);
 
     return Arrays.asList(createdModifyConsumerRole, createdReleaseConsumerRole);
   }
@@ -180,7 +191,9 @@ public class ConsumerService {
 
     String operator = userInfoHolder.getUser().getUserId();
     ConsumerRole consumerRole = createConsumerRole(consumerId, roleId, operator);
-    return consumerRoleRepository.save(consumerRole);
+    ConsumerRole createdConsumerRole = consumerRoleRepository.save(consumerRole);
+    rolePermissionCache.invalidateConsumer(consumerId);
+    return createdConsumerRole;
   }
 
   @Transactional
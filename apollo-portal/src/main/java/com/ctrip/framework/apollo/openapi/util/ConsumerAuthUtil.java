@@ -1,9 +1,15 @@
 package com.ctrip.framework.apollo.openapi.util;
 
+import com.ctrip.framework.apollo.openapi.entity.ConsumerToken;
 import com.ctrip.framework.apollo.openapi.service.ConsumerService;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.springframework.stereotype.Service;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
@@ -11,14 +17,48 @@ import javax.servlet.http.HttpServletRequest;
 @Service
 public class ConsumerAuthUtil {
   static final String CONSUMER_ID = "ApolloConsumerId";
+  private static final long TOKEN_CACHE_MAX_SIZE = 10000;
   private final ConsumerService consumerService;
+  private final PortalConfig portalConfig;
+  //token -> consumer id, the invalid tokens are cached as well
+  private final Cache<String, CachedConsumerId> tokenCache;
 
-  public ConsumerAuthUtil(final ConsumerService consumerService) {
+  public ConsumerAuthUtil(final ConsumerService consumerService, final PortalConfig portalConfig) {
     this.consumerService = consumerService;
+    this.portalConfig = portalConfig;
+    //each entry carries its own expiry, the max size keeps the random tokens from filling up the memory
+    this.tokenCache = CacheBuilder.newBuilder().maximumSize(TOKEN_CACHE_MAX_SIZE).build();
   }
 
   public Long getConsumerId(String token) {
-    return consumerService.getConsumerIdByToken(token);
+    if (Strings.isNullOrEmpty(token)) {
+      return null;
+    }
+    long now = System.currentTimeMillis();
+    CachedConsumerId cached = tokenCache.getIfPresent(token);
+    if (cached != null && cached.expiresAt > now) {
+      return cached.consumerId;
+    }
+
+    ConsumerToken consumerToken = consumerService.getConsumerTokenByToken(token);
+    if (consumerToken == null) {
+      cacheToken(token, null, now + TimeUnit.SECONDS.toMillis(portalConfig.invalidConsumerTokenCacheSeconds()));
+      return null;
+    }
+    long expiresAt = now + TimeUnit.SECONDS.toMillis(portalConfig.consumerTokenCacheSeconds());
+    if (consumerToken.getExpires() != null) {
+      expiresAt = Math.min(expiresAt, consumerToken.getExpires().getTime());
+    }
+    cacheToken(token, consumerToken.getConsumerId(), expiresAt);
+    return consumerToken.getConsumerId();
+  }
+
+  private void cacheToken(String token, Long consumerId, long expiresAt) {
+    if (expiresAt > System.currentTimeMillis()) {
+      tokenCache.put(token, new CachedConsumerId(consumerId, expiresAt));
+    } else {
+      tokenCache.invalidate(token);
+    }
   }
 
   public void storeConsumerId(HttpServletRequest request, Long consumerId) {
@@ -34,4 +74,15 @@ public class ConsumerAuthUtil {
       throw new IllegalStateException("No consumer id!", ex);
     }
   }
+
+  private static class CachedConsumerId {
+    //null if the token is invalid
+    private final Long consumerId;
+    private final long expiresAt;
+
+    CachedConsumerId(Long consumerId, long expiresAt) {
+      this.consumerId = consumerId;
+      this.expiresAt = expiresAt;
+    }
+  }
 }
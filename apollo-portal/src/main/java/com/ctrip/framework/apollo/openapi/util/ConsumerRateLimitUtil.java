@@ -0,0 +1,56 @@
+package com.ctrip.framework.apollo.openapi.util;
+
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.RateLimiter;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles the open api requests of each consumer in memory, so that an abusive consumer is rejected in the portal
+ * before its requests reach the admin services
+ */
+@Service
+public class ConsumerRateLimitUtil {
+  private static final long RATE_LIMITER_EXPIRE_MINUTES = 10;
+  private final PortalConfig portalConfig;
+  //consumer id -> rate limiter, the limiters of the idle consumers are evicted
+  private final Cache<Long, RateLimiter> rateLimiters;
+
+  public ConsumerRateLimitUtil(final PortalConfig portalConfig) {
+    this.portalConfig = portalConfig;
+    this.rateLimiters = CacheBuilder.newBuilder()
+        .expireAfterAccess(RATE_LIMITER_EXPIRE_MINUTES, TimeUnit.MINUTES).build();
+  }
+
+  /**
+   * @return true if the request of the consumer is allowed, false if it should be throttled
+   */
+  public boolean tryAcquire(long consumerId) {
+    int rateLimit = portalConfig.consumerRateLimit();
+    if (rateLimit <= 0) {
+      return true;
+    }
+
+    RateLimiter rateLimiter;
+    try {
+      rateLimiter = rateLimiters.get(consumerId, () -> RateLimiter.create(rateLimit));
+    } catch (ExecutionException ex) {
+      throw new IllegalStateException(ex.getCause());
+    }
+    //the rate limit is refreshable
+    if (rateLimiter.getRate() != rateLimit) {
+      rateLimiter.setRate(rateLimit);
+    }
+
+    if (rateLimiter.tryAcquire()) {
+      return true;
+    }
+    Tracer.logEvent("Apollo.OpenApi.RateLimited", String.valueOf(consumerId));
+    return false;
+  }
+}
@@ -12,9 +12,11 @@ import com.ctrip.framework.apollo.openapi.dto.OpenReleaseDTO;
 import com.ctrip.framework.apollo.openapi.util.OpenApiBeanUtils;
 import com.ctrip.framework.apollo.portal.entity.model.NamespaceGrayDelReleaseModel;
 import com.ctrip.framework.apollo.portal.entity.model.NamespaceReleaseModel;
+import com.ctrip.framework.apollo.portal.listener.ConfigPublishEvent;
 import com.ctrip.framework.apollo.portal.service.NamespaceBranchService;
 import com.ctrip.framework.apollo.portal.service.ReleaseService;
 import com.ctrip.framework.apollo.portal.spi.UserService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -35,14 +37,17 @@ public class ReleaseController {
   private final ReleaseService releaseService;
   private final UserService userService;
   private final NamespaceBranchService namespaceBranchService;
+  private final ApplicationEventPublisher publisher;
 
   public ReleaseController(
       final ReleaseService releaseService,
       final UserService userService,
-      final NamespaceBranchService namespaceBranchService) {
+      final NamespaceBranchService namespaceBranchService,
+      final ApplicationEventPublisher publisher) {
     this.releaseService = releaseService;
     this.userService = userService;
     this.namespaceBranchService = namespaceBranchService;
+    this.publisher = publisher;
   }
 
   @PreAuthorize(value = "@consumerPermissionValidator.hasReleaseNamespacePermission(#request, #appId, #namespaceName, #env)")
@@ -67,7 +72,19 @@ public class ReleaseController {
     releaseModel.setClusterName(clusterName);
     releaseModel.setNamespaceName(namespaceName);
 
-    return OpenApiBeanUtils.transformFromReleaseDTO(releaseService.publish(releaseModel));
+    ReleaseDTO createdRelease = releaseService.publish(releaseModel);
+
+    ConfigPublishEvent event = ConfigPublishEvent.instance();
+    event.withAppId(appId)
+        .withCluster(clusterName)
+        .withNamespace(namespaceName)
+        .withReleaseId(createdRelease.getId())
+        .setNormalPublishEvent(true)
+        .setEnv(Env.fromString(env));
+
+    publisher.publishEvent(event);
+
+    return OpenApiBeanUtils.transformFromReleaseDTO(createdRelease);
   }
 
   @GetMapping(value = "/apps/{appId}/clusters/{clusterName}/namespaces/{namespaceName}/releases/latest")
@@ -101,6 +118,16 @@ public class ReleaseController {
                 model.getReleaseTitle(), model.getReleaseComment(),
                 model.isEmergencyPublish(), deleteBranch, model.getReleasedBy());
 
+        ConfigPublishEvent event = ConfigPublishEvent.instance();
+        event.withAppId(appId)
+            .withCluster(clusterName)
+            .withNamespace(namespaceName)
+            .withReleaseId(mergedRelease.getId())
+            .setMergeEvent(true)
+            .setEnv(Env.valueOf(env.toUpperCase()));
+
+        publisher.publishEvent(event);
+
         return OpenApiBeanUtils.transformFromReleaseDTO(mergedRelease);
     }
 
@@ -126,7 +153,19 @@ public class ReleaseController {
         releaseModel.setClusterName(branchName);
         releaseModel.setNamespaceName(namespaceName);
 
-        return OpenApiBeanUtils.transformFromReleaseDTO(releaseService.publish(releaseModel));
+        ReleaseDTO createdRelease = releaseService.publish(releaseModel);
+
+        ConfigPublishEvent event = ConfigPublishEvent.instance();
+        event.withAppId(appId)
+            .withCluster(clusterName)
+            .withNamespace(namespaceName)
+            .withReleaseId(createdRelease.getId())
+            .setGrayPublishEvent(true)
+            .setEnv(Env.fromString(env));
+
+        publisher.publishEvent(event);
+
+        return OpenApiBeanUtils.transformFromReleaseDTO(createdRelease);
     }
 
     @PreAuthorize(value = "@consumerPermissionValidator.hasReleaseNamespacePermission(#request, #appId, #namespaceName, #env)")
@@ -152,7 +191,19 @@ public class ReleaseController {
         releaseModel.setClusterName(branchName);
         releaseModel.setNamespaceName(namespaceName);
 
-        return OpenApiBeanUtils.transformFromReleaseDTO(releaseService.publish(releaseModel, releaseModel.getReleasedBy()));
+        ReleaseDTO createdRelease = releaseService.publish(releaseModel, releaseModel.getReleasedBy());
+
+        ConfigPublishEvent event = ConfigPublishEvent.instance();
+        event.withAppId(appId)
+            .withCluster(clusterName)
+            .withNamespace(namespaceName)
+            .withReleaseId(createdRelease.getId())
+            .setGrayPublishEvent(true)
+            .setEnv(Env.valueOf(env.toUpperCase()));
+
+        publisher.publishEvent(event);
+
+        return OpenApiBeanUtils.transformFromReleaseDTO(createdRelease);
     }
 
 }
@@ -10,6 +10,7 @@ import com.ctrip.framework.apollo.common.dto.InstanceDTO;
 import com.ctrip.framework.apollo.common.dto.ItemChangeSets;
 import com.ctrip.framework.apollo.common.dto.ItemDTO;
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
+import com.ctrip.framework.apollo.common.dto.NamespaceItemsDTO;
 import com.ctrip.framework.apollo.common.dto.NamespaceLockDTO;
 import com.ctrip.framework.apollo.common.dto.PageDTO;
 import com.ctrip.framework.apollo.common.dto.ReleaseDTO;
@@ -79,6 +80,12 @@ public class AdminServiceAPI {
       return Arrays.asList(namespaceDTOs);
     }
 
+    public List<NamespaceItemsDTO> findNamespacesWithItems(String appId, Env env, String clusterName) {
+      NamespaceItemsDTO[] namespaces = restTemplate.get(env, "apps/{appId}/clusters/{clusterName}/namespaces-with-items",
+          NamespaceItemsDTO[].class, appId, clusterName);
+      return Arrays.asList(namespaces);
+    }
+
     public NamespaceDTO loadNamespace(String appId, Env env, String clusterName,
         String namespaceName) {
       return
@@ -0,0 +1,293 @@
+package com.ctrip.framework.apollo.portal.component;
+
+import com.ctrip.framework.apollo.common.exception.ServiceException;
+import com.ctrip.framework.apollo.core.enums.Env;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Calls the admin services of multiple envs in parallel, so that an operation spanning the envs takes as long as the
+ * slowest env instead of the sum of them.
+ *
+ * Each call is bounded by the fan out timeout and its failure is returned as the result of its env, so the other envs
+ * still get their results. The reads timed out are interrupted, while the writes are left running with their results
+ * unknown. Each env has a circuit breaker, which opens after the consecutive timeouts or unavailable
+ * admin services reach the threshold, then the calls to the env fail fast until the open duration passes and a trial
+ * call succeeds.
+ *
+ * The calls run in the fan out threads, so the request scoped states, e.g. the current user, should be resolved
+ * before the calls.
+ */
+@Component
+public class EnvFanOutExecutor {
+  private static final int MAX_QUEUE_SIZE = 1000;
+
+  private final PortalConfig portalConfig;
+  private final ExecutorService executorService;
+  private final ConcurrentMap<Env, CircuitBreaker> circuitBreakers = Maps.newConcurrentMap();
+
+  public EnvFanOutExecutor(final PortalConfig portalConfig) {
+    this.portalConfig = portalConfig;
+    int threads = Math.max(1, portalConfig.fanOutThreads());
+    this.executorService = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(MAX_QUEUE_SIZE), ApolloThreadFactory.create("EnvFanOut", true));
+  }
+
+  /**
+   * Calls each env in parallel
+   *
+   * @return the results in the order of the envs
+   */
+  public <T> List<Result<Env, T>> execute(Collection<Env> envs, Function<Env, T> call) {
+    return execute(envs, Function.identity(), call);
+  }
+
+  /**
+   * Calls each target in parallel, e.g. the namespaces of multiple envs
+   *
+   * @param envOf the env of the target, whose circuit breaker and timeout apply to the call
+   * @return the results in the order of the targets
+   */
+  public <K, T> List<Result<K, T>> execute(Collection<K> targets, Function<K, Env> envOf, Function<K, T> call) {
+    return execute(targets, envOf, call, false);
+  }
+
+  /**
+   * Writes to each env in parallel, see {@link #executeWrites(Collection, Function, Function)}
+   *
+   * @return the results in the order of the envs
+   */
+  public <T> List<Result<Env, T>> executeWrites(Collection<Env> envs, Function<Env, T> call) {
+    return executeWrites(envs, Function.identity(), call);
+  }
+
+  /**
+   * Writes to each target in parallel. Unlike the reads, the writes timed out are not interrupted, as they might be
+   * applied by the admin services anyway, instead they keep running and fail with {@link OutcomeUnknownException}.
+   *
+   * @param envOf the env of the target, whose circuit breaker and timeout apply to the call
+   * @return the results in the order of the targets
+   */
+  public <K, T> List<Result<K, T>> executeWrites(Collection<K> targets, Function<K, Env> envOf,
+      Function<K, T> call) {
+    return execute(targets, envOf, call, true);
+  }
+
+  private <K, T> List<Result<K, T>> execute(Collection<K> targets, Function<K, Env> envOf, Function<K, T> call,
+      boolean write) {
+    List<Future<T>> futures = Lists.newArrayListWithCapacity(targets.size());
+    for (K target : targets) {
+      CircuitBreaker circuitBreaker = circuitBreaker(envOf.apply(target));
+      try {
+        futures.add(executorService.submit(() -> circuitBreaker.call(target, call)));
+      } catch (RejectedExecutionException ex) {
+        futures.add(null);
+      }
+    }
+
+    int timeout = portalConfig.fanOutTimeout();
+    //no timeout if it is not positive
+    long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+    List<Result<K, T>> results = Lists.newArrayListWithCapacity(targets.size());
+    int i = 0;
+    for (K target : targets) {
+      Future<T> future = futures.get(i++);
+      results.add(await(target, envOf.apply(target), future, deadline, write));
+    }
+    return results;
+  }
+
+  private <K, T> Result<K, T> await(K target, Env env, Future<T> future, long deadline, boolean write) {
+    if (future == null) {
+      return Result.failure(target, new RejectedExecutionException("Too many calls to the admin services"));
+    }
+    try {
+      T value = deadline == Long.MAX_VALUE ? future.get()
+          : future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      return Result.success(target, value);
+    } catch (ExecutionException ex) {
+      return Result.failure(target, ex.getCause());
+    } catch (TimeoutException ex) {
+      circuitBreaker(env).onFailure();
+      Tracer.logError(String.format("Call to env %s timed out, target: %s", env, target), ex);
+      if (write) {
+        return Result.failure(target, new OutcomeUnknownException(env, ex));
+      }
+      future.cancel(true);
+      return Result.failure(target, ex);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      if (write) {
+        return Result.failure(target, new OutcomeUnknownException(env, ex));
+      }
+      future.cancel(true);
+      return Result.failure(target, ex);
+    }
+  }
+
+  private CircuitBreaker circuitBreaker(Env env) {
+    CircuitBreaker circuitBreaker = circuitBreakers.get(env);
+    if (circuitBreaker == null) {
+      circuitBreakers.putIfAbsent(env, new CircuitBreaker(env));
+      circuitBreaker = circuitBreakers.get(env);
+    }
+    return circuitBreaker;
+  }
+
+  public boolean isCircuitOpen(Env env) {
+    return circuitBreaker(env).isOpen();
+  }
+
+  public static class Result<K, T> {
+    private final K target;
+    private final T value;
+    private final Throwable exception;
+
+    private Result(K target, T value, Throwable exception) {
+      this.target = target;
+      this.value = value;
+      this.exception = exception;
+    }
+
+    static <K, T> Result<K, T> success(K target, T value) {
+      return new Result<>(target, value, null);
+    }
+
+    static <K, T> Result<K, T> failure(K target, Throwable exception) {
+      return new Result<>(target, null, exception);
+    }
+
+    public K getTarget() {
+      return target;
+    }
+
+    public T getValue() {
+      return value;
+    }
+
+    /**
+     * @return the failure of the call, null if it succeeded
+     */
+    public Throwable getException() {
+      return exception;
+    }
+
+    public boolean isSuccess() {
+      return exception == null;
+    }
+
+    /**
+     * @return whether the write was not awaited to complete, so it might succeed or fail
+     */
+    public boolean isOutcomeUnknown() {
+      return exception instanceof OutcomeUnknownException;
+    }
+  }
+
+  public static class CircuitOpenException extends RuntimeException {
+    CircuitOpenException(Env env) {
+      super(String.format("Env %s is unavailable because its recent calls failed", env));
+    }
+  }
+
+  public static class OutcomeUnknownException extends RuntimeException {
+    OutcomeUnknownException(Env env, Throwable cause) {
+      super(String.format("Write to env %s is not completed in time, it might succeed or fail", env), cause);
+    }
+  }
+
+  private class CircuitBreaker {
+    private final Env env;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private boolean trialCallInProgress = false;
+
+    CircuitBreaker(Env env) {
+      this.env = env;
+    }
+
+    <K, T> T call(K target, Function<K, T> call) {
+      if (!tryAcquire()) {
+        throw new CircuitOpenException(env);
+      }
+      try {
+        T value = call.apply(target);
+        onSuccess();
+        return value;
+      } catch (RuntimeException | Error ex) {
+        if (isUnavailable(ex)) {
+          onFailure();
+        } else {
+          //the admin services responded, e.g. with a biz exception
+          onSuccess();
+        }
+        throw ex;
+      }
+    }
+
+    private boolean isUnavailable(Throwable ex) {
+      return ex instanceof ServiceException || ex instanceof ResourceAccessException;
+    }
+
+    synchronized boolean isOpen() {
+      return isTripped() && System.currentTimeMillis() - openedAt < portalConfig.circuitBreakerOpenDuration();
+    }
+
+    /**
+     * @return whether the consecutive failures reach the threshold, the circuit breaker is disabled if the threshold
+     * is not positive
+     */
+    private boolean isTripped() {
+      int failureThreshold = portalConfig.circuitBreakerFailureThreshold();
+      return failureThreshold > 0 && consecutiveFailures >= failureThreshold;
+    }
+
+    /**
+     * Once the open duration passes, only one trial call is allowed until it completes
+     */
+    private synchronized boolean tryAcquire() {
+      if (!isTripped()) {
+        return true;
+      }
+      if (System.currentTimeMillis() - openedAt < portalConfig.circuitBreakerOpenDuration() || trialCallInProgress) {
+        return false;
+      }
+      trialCallInProgress = true;
+      return true;
+    }
+
+    private synchronized void onSuccess() {
+      consecutiveFailures = 0;
+      trialCallInProgress = false;
+    }
+
+    synchronized void onFailure() {
+      consecutiveFailures++;
+      if (isTripped()) {
+        if (consecutiveFailures == portalConfig.circuitBreakerFailureThreshold()) {
+          Tracer.logEvent("Apollo.Portal.EnvCircuitOpen", env.name());
+        }
+        openedAt = System.currentTimeMillis();
+      }
+      trialCallInProgress = false;
+    }
+  }
+}
@@ -5,6 +5,7 @@ import com.ctrip.framework.apollo.core.MetaDomainConsts;
 import com.ctrip.framework.apollo.core.enums.Env;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor.Result;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -88,8 +89,11 @@ public class PortalSettings {
 
     private AdminServiceAPI.HealthAPI healthAPI;
 
+    private EnvFanOutExecutor envFanOutExecutor;
+
     public HealthCheckTask(ApplicationContext context) {
       healthAPI = context.getBean(AdminServiceAPI.HealthAPI.class);
+      envFanOutExecutor = context.getBean(EnvFanOutExecutor.class);
       for (Env env : allEnvs) {
         healthCheckFailedCounter.put(env, 0);
       }
@@ -97,9 +101,14 @@ public class PortalSettings {
 
     public void run() {
 
-      for (Env env : allEnvs) {
+      //check the envs in parallel, so that a dead env won't delay the checks of the others
+      for (Result<Env, Boolean> result : envFanOutExecutor.execute(allEnvs, this::isUp)) {
+        Env env = result.getTarget();
         try {
-          if (isUp(env)) {
+          if (!result.isSuccess()) {
+            throw result.getException();
+          }
+          if (result.getValue()) {
             //revive
             if (!envStatusMark.get(env)) {
               envStatusMark.put(env, true);
@@ -112,7 +121,7 @@ public class PortalSettings {
             handleEnvDown(env);
           }
 
-        } catch (Exception e) {
+        } catch (Throwable e) {
           logger.error("Env health check failed, maybe because of meta server down "
                        + "or configure wrong meta server address. env: {}, meta server address: {}", env,
                        MetaDomainConsts.getDomain(env), e);
@@ -0,0 +1,215 @@
+package com.ctrip.framework.apollo.portal.component;
+
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.openapi.entity.ConsumerRole;
+import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.entity.po.Permission;
+import com.ctrip.framework.apollo.portal.entity.po.RolePermission;
+import com.ctrip.framework.apollo.portal.entity.po.UserRole;
+import com.ctrip.framework.apollo.portal.repository.PermissionRepository;
+import com.ctrip.framework.apollo.portal.repository.RolePermissionRepository;
+import com.ctrip.framework.apollo.portal.repository.UserRoleRepository;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Caches the user/consumer -> role -> permission graph, so that the permission checks are answered from memory
+ * instead of three queries each.
+ *
+ * The entries changed by this portal are invalidated once the transaction commits, and the entries are reloaded in
+ * the background after the refresh interval when they are accessed, so the changes made by the other portals are
+ * visible after at most one refresh interval.
+ */
+@Component
+public class RolePermissionCache {
+  private static final long MAX_SIZE = 100000;
+  private static final long EXPIRE_AFTER_ACCESS_IN_MINUTES = 60;
+
+  private final PortalConfig portalConfig;
+  private final PermissionRepository permissionRepository;
+  private final UserRoleRepository userRoleRepository;
+  private final RolePermissionRepository rolePermissionRepository;
+  private final ConsumerRoleRepository consumerRoleRepository;
+
+  //permissionType + targetId -> permission id
+  private final LoadingCache<Map.Entry<String, String>, Optional<Long>> permissionIds;
+  //userId -> role ids
+  private final LoadingCache<String, Set<Long>> userRoleIds;
+  //consumerId -> role ids
+  private final LoadingCache<Long, Set<Long>> consumerRoleIds;
+  //roleId -> permission ids
+  private final LoadingCache<Long, Set<Long>> rolePermissionIds;
+
+  public RolePermissionCache(
+      final PortalConfig portalConfig,
+      final PermissionRepository permissionRepository,
+      final UserRoleRepository userRoleRepository,
+      final RolePermissionRepository rolePermissionRepository,
+      final ConsumerRoleRepository consumerRoleRepository) {
+    this.portalConfig = portalConfig;
+    this.permissionRepository = permissionRepository;
+    this.userRoleRepository = userRoleRepository;
+    this.rolePermissionRepository = rolePermissionRepository;
+    this.consumerRoleRepository = consumerRoleRepository;
+
+    ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(
+        ApolloThreadFactory.create("RolePermissionCache", true));
+    int refreshInterval = portalConfig.permissionCacheRefreshInterval();
+
+    permissionIds = newCache(refreshInterval).build(CacheLoader.asyncReloading(
+        new CacheLoader<Map.Entry<String, String>, Optional<Long>>() {
+          @Override
+          public Optional<Long> load(Map.Entry<String, String> key) {
+            Permission permission = permissionRepository.findTopByPermissionTypeAndTargetId(key.getKey(),
+                key.getValue());
+            return permission == null ? Optional.empty() : Optional.of(permission.getId());
+          }
+        }, reloadExecutor));
+
+    userRoleIds = newCache(refreshInterval).build(CacheLoader.asyncReloading(
+        new CacheLoader<String, Set<Long>>() {
+          @Override
+          public Set<Long> load(String userId) {
+            return userRoleRepository.findByUserId(userId).stream().map(UserRole::getRoleId)
+                .collect(Collectors.collectingAndThen(Collectors.toSet(), ImmutableSet::copyOf));
+          }
+        }, reloadExecutor));
+
+    consumerRoleIds = newCache(refreshInterval).build(CacheLoader.asyncReloading(
+        new CacheLoader<Long, Set<Long>>() {
+          @Override
+          public Set<Long> load(Long consumerId) {
+            return consumerRoleRepository.findByConsumerId(consumerId).stream().map(ConsumerRole::getRoleId)
+                .collect(Collectors.collectingAndThen(Collectors.toSet(), ImmutableSet::copyOf));
+          }
+        }, reloadExecutor));
+
+    rolePermissionIds = newCache(refreshInterval).build(CacheLoader.asyncReloading(
+        new CacheLoader<Long, Set<Long>>() {
+          @Override
+          public Set<Long> load(Long roleId) {
+            return loadAll(ImmutableSet.of(roleId)).get(roleId);
+          }
+
+          @Override
+          public Map<Long, Set<Long>> loadAll(Iterable<? extends Long> roleIds) {
+            Set<Long> roleIdSet = ImmutableSet.copyOf(roleIds);
+            Map<Long, Set<Long>> result = rolePermissionRepository.findByRoleIdIn(roleIdSet).stream()
+                .collect(Collectors.groupingBy(RolePermission::getRoleId,
+                    Collectors.mapping(RolePermission::getPermissionId, Collectors.toSet())));
+            Map<Long, Set<Long>> permissionIdsByRole = Maps.newHashMapWithExpectedSize(roleIdSet.size());
+            for (Long roleId : roleIdSet) {
+              Set<Long> permissionIds = result.get(roleId);
+              permissionIdsByRole.put(roleId, permissionIds == null ? ImmutableSet.of()
+                  : ImmutableSet.copyOf(permissionIds));
+            }
+            return permissionIdsByRole;
+          }
+        }, reloadExecutor));
+  }
+
+  public boolean isEnabled() {
+    return portalConfig.isPermissionCacheEnabled();
+  }
+
+  /**
+   * @return the id of the permission, null if the permission does not exist
+   */
+  public Long findPermissionId(String permissionType, String targetId) {
+    return permissionIds.getUnchecked(Maps.immutableEntry(permissionType, targetId)).orElse(null);
+  }
+
+  public boolean userHasPermission(String userId, long permissionId) {
+    return rolesHavePermission(userRoleIds.getUnchecked(userId), permissionId);
+  }
+
+  public boolean consumerHasPermission(long consumerId, long permissionId) {
+    return rolesHavePermission(consumerRoleIds.getUnchecked(consumerId), permissionId);
+  }
+
+  private boolean rolesHavePermission(Set<Long> roleIds, long permissionId) {
+    if (roleIds.isEmpty()) {
+      return false;
+    }
+    try {
+      for (Set<Long> permissionIds : rolePermissionIds.getAll(roleIds).values()) {
+        if (permissionIds.contains(permissionId)) {
+          return true;
+        }
+      }
+    } catch (ExecutionException ex) {
+      throw new UncheckedExecutionException(ex.getCause());
+    }
+    return false;
+  }
+
+  public void invalidateUsers(Collection<String> userIds) {
+    afterCommit(() -> userRoleIds.invalidateAll(userIds));
+  }
+
+  public void invalidateConsumer(long consumerId) {
+    afterCommit(() -> consumerRoleIds.invalidate(consumerId));
+  }
+
+  public void invalidateRole(long roleId) {
+    afterCommit(() -> rolePermissionIds.invalidate(roleId));
+  }
+
+  public void invalidatePermissions(Collection<Permission> permissions) {
+    Set<Map.Entry<String, String>> keys = permissions.stream()
+        .map(permission -> Maps.immutableEntry(permission.getPermissionType(), permission.getTargetId()))
+        .collect(Collectors.toSet());
+    afterCommit(() -> permissionIds.invalidateAll(keys));
+  }
+
+  public void invalidateAll() {
+    afterCommit(() -> {
+      permissionIds.invalidateAll();
+      userRoleIds.invalidateAll();
+      consumerRoleIds.invalidateAll();
+      rolePermissionIds.invalidateAll();
+    });
+  }
+
+  /**
+   * Invalidates after the transaction commits, otherwise the entries might be reloaded with the uncommitted data
+   * before that
+   */
+  private void afterCommit(Runnable invalidation) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      invalidation.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+      @Override
+      public void afterCommit() {
+        invalidation.run();
+      }
+    });
+  }
+
+  private static CacheBuilder<Object, Object> newCache(int refreshIntervalInSeconds) {
+    return CacheBuilder.newBuilder()
+        .maximumSize(MAX_SIZE)
+        .expireAfterAccess(EXPIRE_AFTER_ACCESS_IN_MINUTES, TimeUnit.MINUTES)
+        .refreshAfterWrite(Math.max(1, refreshIntervalInSeconds), TimeUnit.SECONDS);
+  }
+}
@@ -98,6 +98,34 @@ public class PortalConfig extends RefreshableConfig {
     return getIntProperty("api.readTimeout", 10000);
   }
 
+  /**
+   * The threads to call the admin services of multiple envs in parallel, it takes effect after restart
+   */
+  public int fanOutThreads() {
+    return getIntProperty("api.fanOutThreads", 20);
+  }
+
+  /**
+   * The milliseconds to wait for the admin services of multiple envs, the slower envs are returned as failures
+   */
+  public int fanOutTimeout() {
+    return getIntProperty("api.fanOutTimeout", 15000);
+  }
+
+  /**
+   * The consecutive failures to stop calling the admin services of an env, 0 to disable the circuit breaker
+   */
+  public int circuitBreakerFailureThreshold() {
+    return getIntProperty("api.circuitBreakerFailureThreshold", 5);
+  }
+
+  /**
+   * The milliseconds to stop calling the admin services of an env once its circuit breaker opens
+   */
+  public int circuitBreakerOpenDuration() {
+    return getIntProperty("api.circuitBreakerOpenDuration", 30000);
+  }
+
   public List<Organization> organizations() {
 
     String organizations = getValue("organizations");
@@ -180,6 +208,65 @@ public class PortalConfig extends RefreshableConfig {
     return getBooleanProperty(SystemRoleManagerService.MANAGE_APP_MASTER_LIMIT_SWITCH_KEY, false);
   }
 
+  public boolean isPermissionCacheEnabled() {
+    return getBooleanProperty("permission.cache.enabled", false);
+  }
+
+  /**
+   * The interval in seconds to reload the cached permissions, so that the changes made by the other portals are
+   * visible, it takes effect after restart
+   */
+  public int permissionCacheRefreshInterval() {
+    return getIntProperty("permission.cache.refresh-interval", 10);
+  }
+
+  /**
+   * The seconds to cache a valid consumer token, the cached token is evicted earlier if it expires before that, 0 to
+   * disable the cache
+   */
+  public int consumerTokenCacheSeconds() {
+    return getIntProperty("consumer.token.cache-seconds", 60);
+  }
+
+  /**
+   * The seconds to cache an invalid consumer token, so that the requests with bad tokens don't hit the database
+   */
+  public int invalidConsumerTokenCacheSeconds() {
+    return getIntProperty("consumer.token.invalid-cache-seconds", 10);
+  }
+
+  /**
+   * The max open api requests per second of each consumer, 0 for unlimited
+   */
+  public int consumerRateLimit() {
+    return getIntProperty("consumer.rate-limit", 0);
+  }
+
+  /**
+   * Whether to build the in-memory search index of the apps, app namespaces and released configs, it takes effect
+   * after restart
+   */
+  public boolean isConfigSearchIndexEnabled() {
+    return getBooleanProperty("config.search.index.enabled", false);
+  }
+
+  /**
+   * The interval in seconds to rebuild the search index of the apps and app namespaces, so that the changes made by
+   * the other portals are visible, it takes effect after restart
+   */
+  public int configSearchAppIndexRebuildInterval() {
+    return getIntProperty("config.search.index.app-rebuild-interval", 300);
+  }
+
+  /**
+   * The interval in seconds to rebuild the search index of the released configs, so that the releases made by the
+   * other portals are visible, each rebuild loads the latest releases of all the namespaces from the admin services,
+   * it takes effect after restart
+   */
+  public int configSearchItemIndexRebuildInterval() {
+    return getIntProperty("config.search.index.item-rebuild-interval", 300);
+  }
+
   /***
    * The following configurations are used in ctrip profile
    **/
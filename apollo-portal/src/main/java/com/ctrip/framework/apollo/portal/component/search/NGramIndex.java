@@ -0,0 +1,254 @@
+package com.ctrip.framework.apollo.portal.component.search;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * An in-memory inverted index of the trigrams of the documents' texts, which answers the case insensitive substring
+ * queries.
+ *
+ * The documents get increasing ids, so each posting list is sorted by appending. A query looks up the rarest trigram
+ * of it and verifies the candidates against their texts, so there are no false positives and the cost is bounded by
+ * the rarest posting list instead of the number of the documents. The queries shorter than a trigram scan the texts
+ * until the limit is reached. The removed documents are skipped lazily and the index is compacted once they outnumber
+ * the live ones.
+ */
+public class NGramIndex<T> {
+  private static final int GRAM_SIZE = 3;
+  private static final int MIN_COMPACTION_SIZE = 1024;
+  //the texts are truncated, so that a few huge values won't blow up the index
+  private static final int MAX_TEXT_LENGTH = 256;
+  //separates the texts of a document, so that a query won't match across them
+  private static final char TEXT_SEPARATOR = '\u0000';
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<T, Integer> documentIds = Maps.newHashMap();
+  private final Map<String, Postings> postings = Maps.newHashMap();
+  //document id -> entry, null if the document is removed
+  private final List<Entry<T>> entries = Lists.newArrayList();
+  private int removedCount = 0;
+
+  /**
+   * Adds the document, or replaces its texts if it is indexed already
+   */
+  public void put(T document, String... texts) {
+    String text = normalize(texts);
+
+    lock.writeLock().lock();
+    try {
+      doRemove(document);
+      index(new Entry<>(document, text));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(T document) {
+    lock.writeLock().lock();
+    try {
+      doRemove(document);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the documents matching the predicate, which scans all the documents
+   */
+  public void removeIf(Predicate<T> predicate) {
+    lock.writeLock().lock();
+    try {
+      List<T> toRemove = documentIds.keySet().stream().filter(predicate).collect(Collectors.toList());
+      for (T document : toRemove) {
+        doRemove(document);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      documentIds.clear();
+      postings.clear();
+      entries.clear();
+      removedCount = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return documentIds.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the documents with any text containing the query, in the order they are indexed
+   */
+  public List<T> search(String query, int limit) {
+    String normalizedQuery = query.toLowerCase(Locale.ROOT);
+    if (normalizedQuery.isEmpty() || limit <= 0) {
+      return Collections.emptyList();
+    }
+
+    lock.readLock().lock();
+    try {
+      List<T> result = Lists.newArrayList();
+      if (normalizedQuery.length() < GRAM_SIZE) {
+        for (Entry<T> entry : entries) {
+          if (entry != null && entry.text.contains(normalizedQuery) && addAndCheckFull(result, entry, limit)) {
+            break;
+          }
+        }
+        return result;
+      }
+
+      Postings candidates = rarestPostings(normalizedQuery);
+      if (candidates == null) {
+        return result;
+      }
+      for (int i = 0; i < candidates.size; i++) {
+        Entry<T> entry = entries.get(candidates.ids[i]);
+        if (entry != null && entry.text.contains(normalizedQuery) && addAndCheckFull(result, entry, limit)) {
+          break;
+        }
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private boolean addAndCheckFull(List<T> result, Entry<T> entry, int limit) {
+    result.add(entry.document);
+    return result.size() >= limit;
+  }
+
+  /**
+   * @return the shortest posting list of the query's trigrams, null if any of them is not indexed
+   */
+  private Postings rarestPostings(String normalizedQuery) {
+    Postings rarest = null;
+    for (int i = 0; i + GRAM_SIZE <= normalizedQuery.length(); i++) {
+      Postings documentsOfGram = postings.get(normalizedQuery.substring(i, i + GRAM_SIZE));
+      if (documentsOfGram == null) {
+        return null;
+      }
+      if (rarest == null || documentsOfGram.size < rarest.size) {
+        rarest = documentsOfGram;
+      }
+    }
+    return rarest;
+  }
+
+  private void doRemove(T document) {
+    Integer id = documentIds.remove(document);
+    if (id == null) {
+      return;
+    }
+    entries.set(id, null);
+    removedCount++;
+    if (removedCount >= MIN_COMPACTION_SIZE && removedCount > documentIds.size()) {
+      compact();
+    }
+  }
+
+  /**
+   * Reassigns the ids of the live documents and rebuilds the posting lists
+   */
+  private void compact() {
+    List<Entry<T>> liveEntries = Lists.newArrayListWithCapacity(documentIds.size());
+    for (Entry<T> entry : entries) {
+      if (entry != null) {
+        liveEntries.add(entry);
+      }
+    }
+    documentIds.clear();
+    postings.clear();
+    entries.clear();
+    removedCount = 0;
+
+    for (Entry<T> entry : liveEntries) {
+      index(entry);
+    }
+  }
+
+  private void index(Entry<T> entry) {
+    int id = entries.size();
+    entries.add(entry);
+    documentIds.put(entry.document, id);
+    for (String gram : grams(entry.text)) {
+      Postings documentsOfGram = postings.get(gram);
+      if (documentsOfGram == null) {
+        documentsOfGram = new Postings();
+        postings.put(gram, documentsOfGram);
+      }
+      documentsOfGram.add(id);
+    }
+  }
+
+  private static String normalize(String... texts) {
+    StringBuilder sb = new StringBuilder();
+    for (String text : texts) {
+      if (text == null) {
+        continue;
+      }
+      if (sb.length() > 0) {
+        sb.append(TEXT_SEPARATOR);
+      }
+      sb.append(text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text);
+    }
+    return sb.toString().toLowerCase(Locale.ROOT);
+  }
+
+  private static Set<String> grams(String text) {
+    Set<String> grams = Sets.newHashSet();
+    for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+      grams.add(text.substring(i, i + GRAM_SIZE));
+    }
+    return grams;
+  }
+
+  private static class Entry<T> {
+    private final T document;
+    private final String text;
+
+    Entry(T document, String text) {
+      this.document = document;
+      this.text = text;
+    }
+  }
+
+  /**
+   * The ids of the documents containing a trigram, kept as a growable int array to save the boxing
+   */
+  private static class Postings {
+    private int[] ids = new int[4];
+    private int size = 0;
+
+    void add(int id) {
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      ids[size++] = id;
+    }
+  }
+}
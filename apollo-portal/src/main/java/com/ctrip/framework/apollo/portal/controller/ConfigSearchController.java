@@ -0,0 +1,43 @@
+package com.ctrip.framework.apollo.portal.controller;
+
+import com.ctrip.framework.apollo.common.exception.BadRequestException;
+import com.ctrip.framework.apollo.core.enums.Env;
+import com.ctrip.framework.apollo.portal.entity.vo.ConfigSearchResult;
+import com.ctrip.framework.apollo.portal.service.ConfigSearchService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class ConfigSearchController {
+
+  private final ConfigSearchService configSearchService;
+
+  public ConfigSearchController(final ConfigSearchService configSearchService) {
+    this.configSearchService = configSearchService;
+  }
+
+  @GetMapping("/search/app-namespaces")
+  public List<ConfigSearchResult> searchAppNamespaces(@RequestParam("query") String query) {
+    if (!configSearchService.isAppIndexReady()) {
+      throw new BadRequestException("The config search index is not enabled or not ready yet");
+    }
+    return configSearchService.searchAppNamespaces(query);
+  }
+
+  /**
+   * The configs of all the apps are searched, so only the super admins are allowed
+   */
+  @PreAuthorize(value = "@permissionValidator.isSuperAdmin()")
+  @GetMapping("/envs/{env}/search/items")
+  public List<ConfigSearchResult> searchItems(@PathVariable String env, @RequestParam("query") String query) {
+    if (!configSearchService.isItemIndexReady()) {
+      throw new BadRequestException("The config search index is not enabled or not ready yet");
+    }
+    return configSearchService.searchItems(Env.valueOf(env), query);
+  }
+}
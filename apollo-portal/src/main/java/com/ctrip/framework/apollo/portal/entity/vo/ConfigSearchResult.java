@@ -0,0 +1,74 @@
+package com.ctrip.framework.apollo.portal.entity.vo;
+
+import java.util.Objects;
+
+/**
+ * Where the searched app namespace or config key is, the env, cluster and key are null for an app namespace
+ */
+public class ConfigSearchResult {
+  private final String env;
+  private final String appId;
+  private final String clusterName;
+  private final String namespaceName;
+  private final String key;
+
+  public ConfigSearchResult(String env, String appId, String clusterName, String namespaceName, String key) {
+    this.env = env;
+    this.appId = appId;
+    this.clusterName = clusterName;
+    this.namespaceName = namespaceName;
+    this.key = key;
+  }
+
+  public String getEnv() {
+    return env;
+  }
+
+  public String getAppId() {
+    return appId;
+  }
+
+  public String getClusterName() {
+    return clusterName;
+  }
+
+  public String getNamespaceName() {
+    return namespaceName;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ConfigSearchResult that = (ConfigSearchResult) o;
+    return Objects.equals(env, that.env) &&
+        Objects.equals(appId, that.appId) &&
+        Objects.equals(clusterName, that.clusterName) &&
+        Objects.equals(namespaceName, that.namespaceName) &&
+        Objects.equals(key, that.key);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(env, appId, clusterName, namespaceName, key);
+  }
+
+  @Override
+  public String toString() {
+    return "ConfigSearchResult{" +
+        "env='" + env + '\'' +
+        ", appId='" + appId + '\'' +
+        ", clusterName='" + clusterName + '\'' +
+        ", namespaceName='" + namespaceName + '\'' +
+        ", key='" + key + '\'' +
+        '}';
+  }
+}
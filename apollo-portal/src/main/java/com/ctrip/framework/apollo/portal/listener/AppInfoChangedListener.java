@@ -4,6 +4,8 @@ import com.ctrip.framework.apollo.common.dto.AppDTO;
 import com.ctrip.framework.apollo.common.utils.BeanUtils;
 import com.ctrip.framework.apollo.core.enums.Env;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor.Result;
 import com.ctrip.framework.apollo.portal.component.PortalSettings;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import org.slf4j.Logger;
@@ -19,10 +21,13 @@ public class AppInfoChangedListener {
 
   private final AdminServiceAPI.AppAPI appAPI;
   private final PortalSettings portalSettings;
+  private final EnvFanOutExecutor envFanOutExecutor;
 
-  public AppInfoChangedListener(final AdminServiceAPI.AppAPI appAPI, final PortalSettings portalSettings) {
+  public AppInfoChangedListener(final AdminServiceAPI.AppAPI appAPI, final PortalSettings portalSettings,
+      final EnvFanOutExecutor envFanOutExecutor) {
     this.appAPI = appAPI;
     this.portalSettings = portalSettings;
+    this.envFanOutExecutor = envFanOutExecutor;
   }
 
   @EventListener
@@ -31,12 +36,15 @@ public class AppInfoChangedListener {
     String appId = appDTO.getAppId();
 
     List<Env> envs = portalSettings.getActiveEnvs();
-    for (Env env : envs) {
-      try {
-        appAPI.updateApp(env, appDTO);
-      } catch (Throwable e) {
-        logger.error("Update app's info failed. Env = {}, AppId = {}", env, appId, e);
-        Tracer.logError(String.format("Update app's info failed. Env = %s, AppId = %s", env, appId), e);
+    for (Result<Env, ?> result : envFanOutExecutor.executeWrites(envs, env -> {
+      appAPI.updateApp(env, appDTO);
+      return null;
+    })) {
+      if (!result.isSuccess()) {
+        Env env = result.getTarget();
+        logger.error("Update app's info failed. Env = {}, AppId = {}", env, appId, result.getException());
+        Tracer.logError(String.format("Update app's info failed. Env = %s, AppId = %s", env, appId),
+            result.getException());
       }
     }
   }
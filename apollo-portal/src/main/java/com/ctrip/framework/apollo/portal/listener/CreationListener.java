@@ -5,6 +5,8 @@ import com.ctrip.framework.apollo.common.dto.AppNamespaceDTO;
 import com.ctrip.framework.apollo.common.utils.BeanUtils;
 import com.ctrip.framework.apollo.core.enums.Env;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor.Result;
 import com.ctrip.framework.apollo.portal.component.PortalSettings;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import org.slf4j.Logger;
@@ -22,26 +24,29 @@ public class CreationListener {
   private final PortalSettings portalSettings;
   private final AdminServiceAPI.AppAPI appAPI;
   private final AdminServiceAPI.NamespaceAPI namespaceAPI;
+  private final EnvFanOutExecutor envFanOutExecutor;
 
   public CreationListener(
       final PortalSettings portalSettings,
       final AdminServiceAPI.AppAPI appAPI,
-      final AdminServiceAPI.NamespaceAPI namespaceAPI) {
+      final AdminServiceAPI.NamespaceAPI namespaceAPI,
+      final EnvFanOutExecutor envFanOutExecutor) {
     this.portalSettings = portalSettings;
     this.appAPI = appAPI;
     this.namespaceAPI = namespaceAPI;
+    this.envFanOutExecutor = envFanOutExecutor;
   }
 
   @EventListener
   public void onAppCreationEvent(AppCreationEvent event) {
     AppDTO appDTO = BeanUtils.transform(AppDTO.class, event.getApp());
     List<Env> envs = portalSettings.getActiveEnvs();
-    for (Env env : envs) {
-      try {
-        appAPI.createApp(env, appDTO);
-      } catch (Throwable e) {
-        logger.error("Create app failed. appId = {}, env = {})", appDTO.getAppId(), env, e);
-        Tracer.logError(String.format("Create app failed. appId = %s, env = %s", appDTO.getAppId(), env), e);
+    for (Result<Env, AppDTO> result : envFanOutExecutor.executeWrites(envs, env -> appAPI.createApp(env, appDTO))) {
+      if (!result.isSuccess()) {
+        Env env = result.getTarget();
+        logger.error("Create app failed. appId = {}, env = {})", appDTO.getAppId(), env, result.getException());
+        Tracer.logError(String.format("Create app failed. appId = %s, env = %s", appDTO.getAppId(), env),
+            result.getException());
       }
     }
   }
@@ -50,12 +55,14 @@ public class CreationListener {
   public void onAppNamespaceCreationEvent(AppNamespaceCreationEvent event) {
     AppNamespaceDTO appNamespace = BeanUtils.transform(AppNamespaceDTO.class, event.getAppNamespace());
     List<Env> envs = portalSettings.getActiveEnvs();
-    for (Env env : envs) {
-      try {
-        namespaceAPI.createAppNamespace(env, appNamespace);
-      } catch (Throwable e) {
-        logger.error("Create appNamespace failed. appId = {}, env = {}", appNamespace.getAppId(), env, e);
-        Tracer.logError(String.format("Create appNamespace failed. appId = %s, env = %s", appNamespace.getAppId(), env), e);
+    for (Result<Env, AppNamespaceDTO> result : envFanOutExecutor
+        .executeWrites(envs, env -> namespaceAPI.createAppNamespace(env, appNamespace))) {
+      if (!result.isSuccess()) {
+        Env env = result.getTarget();
+        logger.error("Create appNamespace failed. appId = {}, env = {}", appNamespace.getAppId(), env,
+            result.getException());
+        Tracer.logError(String.format("Create appNamespace failed. appId = %s, env = %s", appNamespace.getAppId(), env),
+            result.getException());
       }
     }
   }
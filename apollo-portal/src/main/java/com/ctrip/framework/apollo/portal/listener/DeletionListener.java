@@ -5,6 +5,8 @@ import com.ctrip.framework.apollo.common.dto.AppNamespaceDTO;
 import com.ctrip.framework.apollo.common.utils.BeanUtils;
 import com.ctrip.framework.apollo.core.enums.Env;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor.Result;
 import com.ctrip.framework.apollo.portal.component.PortalSettings;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import org.slf4j.Logger;
@@ -22,14 +24,17 @@ public class DeletionListener {
   private final PortalSettings portalSettings;
   private final AdminServiceAPI.AppAPI appAPI;
   private final AdminServiceAPI.NamespaceAPI namespaceAPI;
+  private final EnvFanOutExecutor envFanOutExecutor;
 
   public DeletionListener(
       final PortalSettings portalSettings,
       final AdminServiceAPI.AppAPI appAPI,
-      final AdminServiceAPI.NamespaceAPI namespaceAPI) {
+      final AdminServiceAPI.NamespaceAPI namespaceAPI,
+      final EnvFanOutExecutor envFanOutExecutor) {
     this.portalSettings = portalSettings;
     this.appAPI = appAPI;
     this.namespaceAPI = namespaceAPI;
+    this.envFanOutExecutor = envFanOutExecutor;
   }
 
   @EventListener
@@ -39,12 +44,14 @@ public class DeletionListener {
     String operator = appDTO.getDataChangeLastModifiedBy();
 
     List<Env> envs = portalSettings.getActiveEnvs();
-    for (Env env : envs) {
-      try {
-        appAPI.deleteApp(env, appId, operator);
-      } catch (Throwable e) {
-        logger.error("Delete app failed. Env = {}, AppId = {}", env, appId, e);
-        Tracer.logError(String.format("Delete app failed. Env = %s, AppId = %s", env, appId), e);
+    for (Result<Env, ?> result : envFanOutExecutor.executeWrites(envs, env -> {
+      appAPI.deleteApp(env, appId, operator);
+      return null;
+    })) {
+      if (!result.isSuccess()) {
+        Env env = result.getTarget();
+        logger.error("Delete app failed. Env = {}, AppId = {}", env, appId, result.getException());
+        Tracer.logError(String.format("Delete app failed. Env = %s, AppId = %s", env, appId), result.getException());
       }
     }
   }
@@ -57,13 +64,17 @@ public class DeletionListener {
     String namespaceName = appNamespace.getName();
     String operator = appNamespace.getDataChangeLastModifiedBy();
 
-    for (Env env : envs) {
-      try {
-        namespaceAPI.deleteAppNamespace(env, appId, namespaceName, operator);
-      } catch (Throwable e) {
-        logger.error("Delete appNamespace failed. appId = {}, namespace = {}, env = {}", appId, namespaceName, env, e);
+    for (Result<Env, ?> result : envFanOutExecutor.executeWrites(envs, env -> {
+      namespaceAPI.deleteAppNamespace(env, appId, namespaceName, operator);
+      return null;
+    })) {
+      if (!result.isSuccess()) {
+        Env env = result.getTarget();
+        logger.error("Delete appNamespace failed. appId = {}, namespace = {}, env = {}", appId, namespaceName, env,
+            result.getException());
         Tracer.logError(String
-            .format("Delete appNamespace failed. appId = %s, namespace = %s, env = %s", appId, namespaceName, env), e);
+            .format("Delete appNamespace failed. appId = %s, namespace = %s, env = %s", appId, namespaceName, env),
+            result.getException());
       }
     }
   }
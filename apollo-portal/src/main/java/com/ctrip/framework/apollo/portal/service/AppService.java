@@ -15,6 +15,7 @@ import com.ctrip.framework.apollo.portal.spi.UserInfoHolder;
 import com.ctrip.framework.apollo.portal.spi.UserService;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -22,7 +23,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class AppService {
@@ -36,6 +41,7 @@ public class AppService {
   private final RolePermissionService rolePermissionService;
   private final FavoriteService favoriteService;
   private final UserService userService;
+  private final ConfigSearchService configSearchService;
 
   public AppService(
       final UserInfoHolder userInfoHolder,
@@ -46,7 +52,8 @@ public class AppService {
       final RoleInitializationService roleInitializationService,
       final RolePermissionService rolePermissionService,
       final FavoriteService favoriteService,
-      final UserService userService) {
+      final UserService userService,
+      final ConfigSearchService configSearchService) {
     this.userInfoHolder = userInfoHolder;
     this.appAPI = appAPI;
     this.appRepository = appRepository;
@@ -56,6 +63,7 @@ public class AppService {
     this.rolePermissionService = rolePermissionService;
     this.favoriteService = favoriteService;
     this.userService = userService;
+    this.configSearchService = configSearchService;
   }
 
 
@@ -73,7 +81,26 @@ public class AppService {
     return new PageDTO<>(apps.getContent(), pageable, apps.getTotalElements());
   }
 
+  /**
+   * Searches the apps from the search index if it is ready, so the apps created, renamed or deleted through the other
+   * portals could be missing from or stay in the result until the next rebuild of the index, which runs every
+   * config.search.index.app-rebuild-interval seconds
+   */
   public PageDTO<App> searchByAppIdOrAppName(String query, Pageable pageable) {
+    //on a miss, the app might be just created through another portal and not indexed yet, so the database is queried
+    List<String> appIds = configSearchService.isAppIndexReady() ? configSearchService.searchApps(query) : null;
+    if (appIds != null && !appIds.isEmpty()) {
+      int fromIndex = (int) Math.min(pageable.getOffset(), appIds.size());
+      int toIndex = Math.min(fromIndex + pageable.getPageSize(), appIds.size());
+      List<String> pagedAppIds = appIds.subList(fromIndex, toIndex);
+
+      //keep the order of the search result
+      Map<String, App> apps = findByAppIds(Sets.newHashSet(pagedAppIds)).stream()
+          .collect(Collectors.toMap(App::getAppId, Function.identity()));
+      List<App> content = pagedAppIds.stream().map(apps::get).filter(Objects::nonNull).collect(Collectors.toList());
+      return new PageDTO<>(content, pageable, appIds.size());
+    }
+
     Page<App> apps = appRepository.findByAppIdContainingOrNameContaining(query, query, pageable);
 
     return new PageDTO<>(apps.getContent(), pageable, apps.getTotalElements());
@@ -0,0 +1,361 @@
+package com.ctrip.framework.apollo.portal.service;
+
+import com.ctrip.framework.apollo.common.constants.GsonType;
+import com.ctrip.framework.apollo.common.dto.ClusterDTO;
+import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
+import com.ctrip.framework.apollo.common.dto.ReleaseDTO;
+import com.ctrip.framework.apollo.common.entity.App;
+import com.ctrip.framework.apollo.common.entity.AppNamespace;
+import com.ctrip.framework.apollo.core.enums.Env;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.component.search.NGramIndex;
+import com.ctrip.framework.apollo.portal.entity.vo.ConfigSearchResult;
+import com.ctrip.framework.apollo.portal.listener.AppCreationEvent;
+import com.ctrip.framework.apollo.portal.listener.AppDeletionEvent;
+import com.ctrip.framework.apollo.portal.listener.AppInfoChangedEvent;
+import com.ctrip.framework.apollo.portal.listener.AppNamespaceCreationEvent;
+import com.ctrip.framework.apollo.portal.listener.AppNamespaceDeletionEvent;
+import com.ctrip.framework.apollo.portal.listener.ConfigPublishEvent;
+import com.ctrip.framework.apollo.portal.repository.AppNamespaceRepository;
+import com.ctrip.framework.apollo.portal.repository.AppRepository;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Searches the apps, the app namespaces and the released config keys and values of all the envs from the in-memory
+ * n-gram indexes, instead of scanning the database.
+ *
+ * The indexes are built in the background on startup, the apps and app namespaces from the portal database and the
+ * released configs from the admin services of each env, then they are kept current by the app, app namespace and
+ * config publish events of this portal. The changes made through the other portals, or directly to the admin services,
+ * are picked up by the periodic rebuild of the indexes, so the search results could lag behind them by up to the
+ * rebuild interval. The rebuild of the item index only reloads the namespaces whose latest release is changed.
+ */
+@Service
+public class ConfigSearchService {
+  private static final Logger logger = LoggerFactory.getLogger(ConfigSearchService.class);
+  private static final int MAX_ITEM_SEARCH_RESULTS = 200;
+
+  private final PortalConfig portalConfig;
+  private final AppRepository appRepository;
+  private final AppNamespaceRepository appNamespaceRepository;
+  private final AdminServiceAPI.ClusterAPI clusterAPI;
+  private final AdminServiceAPI.NamespaceAPI namespaceAPI;
+  private final AdminServiceAPI.ReleaseAPI releaseAPI;
+
+  private final Gson gson = new Gson();
+  //app id -> app id and name
+  private final NGramIndex<String> appIndex = new NGramIndex<>();
+  private final NGramIndex<ConfigSearchResult> appNamespaceIndex = new NGramIndex<>();
+  private final ConcurrentMap<Env, NGramIndex<ConfigSearchResult>> itemIndexes = Maps.newConcurrentMap();
+  //namespace -> its indexed items, only accessed by the item index executor
+  private final Map<ConfigSearchResult, Set<ConfigSearchResult>> namespaceItems = Maps.newHashMap();
+  //namespace -> the id of its indexed release, only accessed by the item index executor
+  private final Map<ConfigSearchResult, Long> namespaceReleaseIds = Maps.newHashMap();
+
+  private ScheduledExecutorService appIndexExecutor;
+  private ScheduledExecutorService itemIndexExecutor;
+  private volatile boolean appIndexReady = false;
+  private volatile boolean itemIndexReady = false;
+
+  public ConfigSearchService(
+      final PortalConfig portalConfig,
+      final AppRepository appRepository,
+      final AppNamespaceRepository appNamespaceRepository,
+      final AdminServiceAPI.ClusterAPI clusterAPI,
+      final AdminServiceAPI.NamespaceAPI namespaceAPI,
+      final AdminServiceAPI.ReleaseAPI releaseAPI) {
+    this.portalConfig = portalConfig;
+    this.appRepository = appRepository;
+    this.appNamespaceRepository = appNamespaceRepository;
+    this.clusterAPI = clusterAPI;
+    this.namespaceAPI = namespaceAPI;
+    this.releaseAPI = releaseAPI;
+  }
+
+  @PostConstruct
+  public void init() {
+    if (!portalConfig.isConfigSearchIndexEnabled()) {
+      return;
+    }
+    appIndexExecutor = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("ConfigSearchAppIndex", true));
+    itemIndexExecutor = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("ConfigSearchItemIndex", true));
+
+    int appIndexRebuildInterval = Math.max(1, portalConfig.configSearchAppIndexRebuildInterval());
+    appIndexExecutor.scheduleWithFixedDelay(this::buildAppIndex, 0, appIndexRebuildInterval, TimeUnit.SECONDS);
+    int itemIndexRebuildInterval = Math.max(1, portalConfig.configSearchItemIndexRebuildInterval());
+    itemIndexExecutor.scheduleWithFixedDelay(this::buildItemIndex, 0, itemIndexRebuildInterval, TimeUnit.SECONDS);
+  }
+
+  public boolean isAppIndexReady() {
+    return appIndexReady;
+  }
+
+  public boolean isItemIndexReady() {
+    return itemIndexReady;
+  }
+
+  /**
+   * @return the ids of the apps whose id or name contains the query
+   */
+  public List<String> searchApps(String query) {
+    return appIndex.search(query, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @return the app namespaces whose name contains the query
+   */
+  public List<ConfigSearchResult> searchAppNamespaces(String query) {
+    return appNamespaceIndex.search(query, MAX_ITEM_SEARCH_RESULTS);
+  }
+
+  /**
+   * @return the released configs of the env whose key or value contains the query, the releases made through the other
+   * portals are visible after the next rebuild of the item index
+   */
+  public List<ConfigSearchResult> searchItems(Env env, String query) {
+    return itemIndex(env).search(query, MAX_ITEM_SEARCH_RESULTS);
+  }
+
+  @EventListener
+  public void onAppCreation(AppCreationEvent event) {
+    submitAppIndexTask(() -> indexApp(event.getApp()));
+  }
+
+  @EventListener
+  public void onAppInfoChanged(AppInfoChangedEvent event) {
+    submitAppIndexTask(() -> indexApp(event.getApp()));
+  }
+
+  @EventListener
+  public void onAppDeletion(AppDeletionEvent event) {
+    String appId = event.getApp().getAppId();
+    submitAppIndexTask(() -> {
+      appIndex.remove(appId);
+      //the app namespaces are deleted along with the app
+      appNamespaceIndex.removeIf(appNamespace -> appId.equals(appNamespace.getAppId()));
+    });
+    submitItemIndexTask(() -> removeNamespaceItems(namespaceKey -> appId.equals(namespaceKey.getAppId())));
+  }
+
+  @EventListener
+  public void onAppNamespaceCreation(AppNamespaceCreationEvent event) {
+    AppNamespace appNamespace = event.getAppNamespace();
+    submitAppIndexTask(() -> appNamespaceIndex.put(appNamespaceKey(appNamespace), appNamespace.getName()));
+  }
+
+  @EventListener
+  public void onAppNamespaceDeletion(AppNamespaceDeletionEvent event) {
+    AppNamespace appNamespace = event.getAppNamespace();
+    submitAppIndexTask(() -> appNamespaceIndex.remove(appNamespaceKey(appNamespace)));
+    submitItemIndexTask(() -> removeNamespaceItems(namespaceKey -> appNamespace.getAppId()
+        .equals(namespaceKey.getAppId()) && appNamespace.getName().equals(namespaceKey.getNamespaceName())));
+  }
+
+  @EventListener
+  public void onConfigPublish(ConfigPublishEvent event) {
+    ConfigPublishEvent.ConfigPublishInfo publishInfo = event.getConfigPublishInfo();
+    submitItemIndexTask(() -> indexNamespace(publishInfo.getEnv(), publishInfo.getAppId(),
+        publishInfo.getClusterName(), publishInfo.getNamespaceName()));
+  }
+
+  private void buildAppIndex() {
+    Transaction transaction = Tracer.newTransaction("Apollo.Portal", "BuildAppSearchIndex");
+    try {
+      Set<String> appIds = Sets.newHashSet();
+      for (App app : appRepository.findAll()) {
+        indexApp(app);
+        appIds.add(app.getAppId());
+      }
+      Set<ConfigSearchResult> appNamespaceKeys = Sets.newHashSet();
+      for (AppNamespace appNamespace : appNamespaceRepository.findAll()) {
+        ConfigSearchResult appNamespaceKey = appNamespaceKey(appNamespace);
+        appNamespaceIndex.put(appNamespaceKey, appNamespace.getName());
+        appNamespaceKeys.add(appNamespaceKey);
+      }
+      //on rebuild, remove the ones deleted through the other portals
+      appIndex.removeIf(appId -> !appIds.contains(appId));
+      appNamespaceIndex.removeIf(appNamespaceKey -> !appNamespaceKeys.contains(appNamespaceKey));
+      appIndexReady = true;
+      transaction.addData("AppCount", appIndex.size());
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (Throwable ex) {
+      logger.error("Build app search index failed", ex);
+      transaction.setStatus(ex);
+    } finally {
+      transaction.complete();
+    }
+  }
+
+  private void buildItemIndex() {
+    Transaction transaction = Tracer.newTransaction("Apollo.Portal", "BuildItemSearchIndex");
+    try {
+      List<String> appIds = Lists.newArrayList();
+      for (App app : appRepository.findAll()) {
+        appIds.add(app.getAppId());
+      }
+      Set<ConfigSearchResult> namespaceKeys = Sets.newHashSet();
+      for (Env env : portalConfig.portalSupportedEnvs()) {
+        for (String appId : appIds) {
+          indexAppReleases(env, appId, namespaceKeys);
+        }
+      }
+      //on rebuild, remove the ones deleted through the other portals
+      removeNamespaceItems(namespaceKey -> !namespaceKeys.contains(namespaceKey));
+      itemIndexReady = true;
+      transaction.addData("ItemCount", itemIndexes.values().stream().mapToInt(NGramIndex::size).sum());
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (Throwable ex) {
+      logger.error("Build item search index failed", ex);
+      transaction.setStatus(ex);
+    } finally {
+      transaction.complete();
+    }
+  }
+
+  private void indexApp(App app) {
+    appIndex.put(app.getAppId(), app.getAppId(), app.getName());
+  }
+
+  /**
+   * Indexes the latest releases of all the namespaces of the app in the env, and collects the keys of them, or of the
+   * indexed ones if the app could not be loaded, so that they won't be removed on an outage of the env
+   */
+  private void indexAppReleases(Env env, String appId, Set<ConfigSearchResult> namespaceKeys) {
+    try {
+      for (ClusterDTO cluster : clusterAPI.findClustersByApp(appId, env)) {
+        for (NamespaceDTO namespace : namespaceAPI.findNamespaceByCluster(appId, env, cluster.getName())) {
+          namespaceKeys.add(indexNamespace(env, appId, cluster.getName(), namespace.getNamespaceName()));
+        }
+      }
+    } catch (Throwable ex) {
+      //the app might not exist in the env
+      Tracer.logError(String.format("Index app %s of env %s failed", appId, env), ex);
+      for (ConfigSearchResult namespaceKey : namespaceItems.keySet()) {
+        if (env.name().equals(namespaceKey.getEnv()) && appId.equals(namespaceKey.getAppId())) {
+          namespaceKeys.add(namespaceKey);
+        }
+      }
+    }
+  }
+
+  /**
+   * Indexes the latest release of the namespace unless it is indexed already
+   *
+   * @return the key of the namespace
+   */
+  private ConfigSearchResult indexNamespace(Env env, String appId, String clusterName, String namespaceName) {
+    ConfigSearchResult namespaceKey = new ConfigSearchResult(env.name(), appId, clusterName, namespaceName, null);
+
+    ReleaseDTO latestRelease = releaseAPI.loadLatestRelease(appId, env, clusterName, namespaceName);
+    //the release ids start from 1
+    long latestReleaseId = latestRelease == null ? 0 : latestRelease.getId();
+    Long indexedReleaseId = namespaceReleaseIds.get(namespaceKey);
+    if (indexedReleaseId != null && indexedReleaseId == latestReleaseId) {
+      return namespaceKey;
+    }
+
+    Map<String, String> configurations = Collections.emptyMap();
+    if (latestRelease != null) {
+      configurations = gson.fromJson(latestRelease.getConfigurations(), GsonType.CONFIG);
+    }
+
+    NGramIndex<ConfigSearchResult> itemIndex = itemIndex(env);
+    Set<ConfigSearchResult> oldItems = namespaceItems.remove(namespaceKey);
+    Set<ConfigSearchResult> newItems = configurations.keySet().stream()
+        .map(key -> new ConfigSearchResult(env.name(), appId, clusterName, namespaceName, key))
+        .collect(Collectors.toSet());
+    if (oldItems != null) {
+      for (ConfigSearchResult oldItem : oldItems) {
+        if (!newItems.contains(oldItem)) {
+          itemIndex.remove(oldItem);
+        }
+      }
+    }
+    for (Map.Entry<String, String> configuration : configurations.entrySet()) {
+      itemIndex.put(new ConfigSearchResult(env.name(), appId, clusterName, namespaceName, configuration.getKey()),
+          configuration.getKey(), configuration.getValue());
+    }
+    namespaceItems.put(namespaceKey, newItems);
+    namespaceReleaseIds.put(namespaceKey, latestReleaseId);
+    return namespaceKey;
+  }
+
+  /**
+   * Removes the items of the namespaces, across all the envs and clusters, whose key matches the predicate
+   */
+  private void removeNamespaceItems(Predicate<ConfigSearchResult> namespaceFilter) {
+    Iterator<Map.Entry<ConfigSearchResult, Set<ConfigSearchResult>>> iterator = namespaceItems.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<ConfigSearchResult, Set<ConfigSearchResult>> entry = iterator.next();
+      ConfigSearchResult namespaceKey = entry.getKey();
+      if (!namespaceFilter.test(namespaceKey)) {
+        continue;
+      }
+      NGramIndex<ConfigSearchResult> itemIndex = itemIndex(Env.valueOf(namespaceKey.getEnv()));
+      for (ConfigSearchResult item : entry.getValue()) {
+        itemIndex.remove(item);
+      }
+      iterator.remove();
+      namespaceReleaseIds.remove(namespaceKey);
+    }
+  }
+
+  private NGramIndex<ConfigSearchResult> itemIndex(Env env) {
+    NGramIndex<ConfigSearchResult> itemIndex = itemIndexes.get(env);
+    if (itemIndex == null) {
+      itemIndexes.putIfAbsent(env, new NGramIndex<>());
+      itemIndex = itemIndexes.get(env);
+    }
+    return itemIndex;
+  }
+
+  private ConfigSearchResult appNamespaceKey(AppNamespace appNamespace) {
+    return new ConfigSearchResult(null, appNamespace.getAppId(), null, appNamespace.getName(), null);
+  }
+
+  private void submitAppIndexTask(Runnable task) {
+    if (appIndexExecutor != null) {
+      appIndexExecutor.submit(() -> runIndexTask(task));
+    }
+  }
+
+  private void submitItemIndexTask(Runnable task) {
+    if (itemIndexExecutor != null) {
+      itemIndexExecutor.submit(() -> runIndexTask(task));
+    }
+  }
+
+  private void runIndexTask(Runnable task) {
+    try {
+      task.run();
+    } catch (Throwable ex) {
+      Tracer.logError("Update config search index failed", ex);
+    }
+  }
+}
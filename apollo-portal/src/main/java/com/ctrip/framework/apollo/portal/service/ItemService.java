@@ -10,6 +10,8 @@ import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.core.enums.Env;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor.Result;
 import com.ctrip.framework.apollo.portal.component.txtresolver.ConfigTextResolver;
 import com.ctrip.framework.apollo.portal.constant.TracerEventType;
 import com.ctrip.framework.apollo.portal.entity.model.NamespaceTextModel;
@@ -17,6 +19,7 @@ import com.ctrip.framework.apollo.portal.entity.vo.ItemDiffs;
 import com.ctrip.framework.apollo.portal.entity.vo.NamespaceIdentifier;
 import com.ctrip.framework.apollo.portal.spi.UserInfoHolder;
 import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Throwables;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -35,18 +38,21 @@ public class ItemService {
   private final AdminServiceAPI.ItemAPI itemAPI;
   private final ConfigTextResolver fileTextResolver;
   private final ConfigTextResolver propertyResolver;
+  private final EnvFanOutExecutor envFanOutExecutor;
 
   public ItemService(
       final UserInfoHolder userInfoHolder,
       final AdminServiceAPI.NamespaceAPI namespaceAPI,
       final AdminServiceAPI.ItemAPI itemAPI,
       final @Qualifier("fileTextResolver") ConfigTextResolver fileTextResolver,
-      final @Qualifier("propertyResolver") ConfigTextResolver propertyResolver) {
+      final @Qualifier("propertyResolver") ConfigTextResolver propertyResolver,
+      final EnvFanOutExecutor envFanOutExecutor) {
     this.userInfoHolder = userInfoHolder;
     this.namespaceAPI = namespaceAPI;
     this.itemAPI = itemAPI;
     this.fileTextResolver = fileTextResolver;
     this.propertyResolver = propertyResolver;
+    this.envFanOutExecutor = envFanOutExecutor;
   }
 
 
@@ -115,35 +121,53 @@ public class ItemService {
   }
 
   public void syncItems(List<NamespaceIdentifier> comparedNamespaces, List<ItemDTO> sourceItems) {
-    List<ItemDiffs> itemDiffs = compare(comparedNamespaces, sourceItems);
-    for (ItemDiffs itemDiff : itemDiffs) {
-      NamespaceIdentifier namespaceIdentifier = itemDiff.getNamespace();
-      ItemChangeSets changeSets = itemDiff.getDiffs();
-      changeSets.setDataChangeLastModifiedBy(userInfoHolder.getUser().getUserId());
-
-      String appId = namespaceIdentifier.getAppId();
-      Env env = namespaceIdentifier.getEnv();
-      String clusterName = namespaceIdentifier.getClusterName();
-      String namespaceName = namespaceIdentifier.getNamespaceName();
-
-      itemAPI.updateItemsByChangeSet(appId, env, clusterName, namespaceName, changeSets);
+    String operator = userInfoHolder.getUser().getUserId();
+
+    List<ItemDiffs> itemDiffs = new LinkedList<>();
+    for (Result<NamespaceIdentifier, ItemChangeSets> result : parseChangeSets(comparedNamespaces, sourceItems)) {
+      ItemDiffs itemDiff = toItemDiffs(result);
+      //don't sync the other namespaces partially if any of them can't be compared
+      if (itemDiff == null) {
+        throw Throwables.propagate(result.getException());
+      }
+      itemDiff.getDiffs().setDataChangeLastModifiedBy(operator);
+      itemDiffs.add(itemDiff);
+    }
 
-      Tracer.logEvent(TracerEventType.SYNC_NAMESPACE, String.format("%s+%s+%s+%s", appId, env, clusterName, namespaceName));
+    List<Result<ItemDiffs, Void>> results = envFanOutExecutor.executeWrites(itemDiffs,
+        itemDiff -> itemDiff.getNamespace().getEnv(), itemDiff -> {
+          NamespaceIdentifier namespace = itemDiff.getNamespace();
+          itemAPI.updateItemsByChangeSet(namespace.getAppId(), namespace.getEnv(), namespace.getClusterName(),
+              namespace.getNamespaceName(), itemDiff.getDiffs());
+          return null;
+        });
+
+    Throwable failure = null;
+    for (Result<ItemDiffs, Void> result : results) {
+      NamespaceIdentifier namespace = result.getTarget().getNamespace();
+      if (!result.isSuccess()) {
+        failure = result.getException();
+        continue;
+      }
+      Tracer.logEvent(TracerEventType.SYNC_NAMESPACE, String.format("%s+%s+%s+%s", namespace.getAppId(),
+          namespace.getEnv(), namespace.getClusterName(), namespace.getNamespaceName()));
+    }
+    if (failure != null) {
+      throw Throwables.propagate(failure);
     }
   }
 
+  /**
+   * Compares the namespaces in parallel
+   */
   public List<ItemDiffs> compare(List<NamespaceIdentifier> comparedNamespaces, List<ItemDTO> sourceItems) {
 
     List<ItemDiffs> result = new LinkedList<>();
 
-    for (NamespaceIdentifier namespace : comparedNamespaces) {
-
-      ItemDiffs itemDiffs = new ItemDiffs(namespace);
-      try {
-        itemDiffs.setDiffs(parseChangeSets(namespace, sourceItems));
-      } catch (BadRequestException e) {
-        itemDiffs.setDiffs(new ItemChangeSets());
-        itemDiffs.setExtInfo("该集群下没有名为 " + namespace.getNamespaceName() + " 的namespace");
+    for (Result<NamespaceIdentifier, ItemChangeSets> changeSets : parseChangeSets(comparedNamespaces, sourceItems)) {
+      ItemDiffs itemDiffs = toItemDiffs(changeSets);
+      if (itemDiffs == null) {
+        throw Throwables.propagate(changeSets.getException());
       }
       result.add(itemDiffs);
     }
@@ -151,6 +175,29 @@ public class ItemService {
     return result;
   }
 
+  private List<Result<NamespaceIdentifier, ItemChangeSets>> parseChangeSets(
+      List<NamespaceIdentifier> comparedNamespaces, List<ItemDTO> sourceItems) {
+    return envFanOutExecutor.execute(comparedNamespaces, NamespaceIdentifier::getEnv,
+        namespace -> parseChangeSets(namespace, sourceItems));
+  }
+
+  /**
+   * @return the diffs of the namespace, null if it failed to be compared
+   */
+  private ItemDiffs toItemDiffs(Result<NamespaceIdentifier, ItemChangeSets> changeSets) {
+    NamespaceIdentifier namespace = changeSets.getTarget();
+    ItemDiffs itemDiffs = new ItemDiffs(namespace);
+    if (changeSets.isSuccess()) {
+      itemDiffs.setDiffs(changeSets.getValue());
+    } else if (changeSets.getException() instanceof BadRequestException) {
+      itemDiffs.setDiffs(new ItemChangeSets());
+      itemDiffs.setExtInfo("该集群下没有名为 " + namespace.getNamespaceName() + " 的namespace");
+    } else {
+      return null;
+    }
+    return itemDiffs;
+  }
+
   private long getNamespaceId(NamespaceIdentifier namespaceIdentifier) {
     String appId = namespaceIdentifier.getAppId();
     String clusterName = namespaceIdentifier.getClusterName();
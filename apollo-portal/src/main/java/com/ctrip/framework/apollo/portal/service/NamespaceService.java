@@ -2,7 +2,9 @@ package com.ctrip.framework.apollo.portal.service;
 
 import com.ctrip.framework.apollo.common.constants.GsonType;
 import com.ctrip.framework.apollo.common.dto.ItemDTO;
+import com.ctrip.framework.apollo.common.dto.ItemStatusDTO;
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
+import com.ctrip.framework.apollo.common.dto.NamespaceItemsDTO;
 import com.ctrip.framework.apollo.common.dto.ReleaseDTO;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
@@ -11,6 +13,8 @@ import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.core.enums.Env;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor.Result;
 import com.ctrip.framework.apollo.portal.component.PortalSettings;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.constant.RoleType;
@@ -27,13 +31,15 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
 
 @Service
 public class NamespaceService {
@@ -51,6 +57,7 @@ public class NamespaceService {
   private final InstanceService instanceService;
   private final NamespaceBranchService branchService;
   private final RolePermissionService rolePermissionService;
+  private final EnvFanOutExecutor envFanOutExecutor;
 
   public NamespaceService(
       final PortalConfig portalConfig,
@@ -62,7 +69,8 @@ public class NamespaceService {
       final AppNamespaceService appNamespaceService,
       final InstanceService instanceService,
       final @Lazy NamespaceBranchService branchService,
-      final RolePermissionService rolePermissionService) {
+      final RolePermissionService rolePermissionService,
+      final EnvFanOutExecutor envFanOutExecutor) {
     this.portalConfig = portalConfig;
     this.portalSettings = portalSettings;
     this.userInfoHolder = userInfoHolder;
@@ -73,6 +81,7 @@ public class NamespaceService {
     this.instanceService = instanceService;
     this.branchService = branchService;
     this.rolePermissionService = rolePermissionService;
+    this.envFanOutExecutor = envFanOutExecutor;
   }
 
 
@@ -135,6 +144,42 @@ public class NamespaceService {
    * load cluster all namespace info with items
    */
   public List<NamespaceBO> findNamespaceBOs(String appId, Env env, String clusterName) {
+    List<NamespaceItemsDTO> namespaces;
+    try {
+      namespaces = namespaceAPI.findNamespacesWithItems(appId, env, clusterName);
+    } catch (HttpClientErrorException e) {
+      //the admin service is older than the portal and doesn't support loading the items of the cluster at once
+      if (e.getStatusCode() != HttpStatus.NOT_FOUND) {
+        throw e;
+      }
+      return findNamespaceBOsOneByOne(appId, env, clusterName);
+    }
+    if (namespaces == null || namespaces.size() == 0) {
+      throw new BadRequestException("namespaces not exist");
+    }
+
+    Map<String, AppNamespace> appNamespaces = BeanUtils.mapByKey("name", appNamespaceService.findByAppId(appId));
+
+    List<NamespaceBO> namespaceBOs = new LinkedList<>();
+    for (NamespaceItemsDTO namespace : namespaces) {
+      NamespaceBO namespaceBO = new NamespaceBO();
+      namespaceBO.setBaseInfo(namespace.getBaseInfo());
+      fillAppNamespaceProperties(namespaceBO, appNamespaces.get(namespace.getBaseInfo().getNamespaceName()));
+
+      List<ItemBO> itemBOs = new LinkedList<>();
+      for (ItemStatusDTO itemStatus : namespace.getItems()) {
+        itemBOs.add(transformItemStatus2BO(itemStatus));
+      }
+      namespaceBO.setItems(itemBOs);
+      namespaceBO.setItemModifiedCnt(namespace.getItemModifiedCnt());
+
+      namespaceBOs.add(namespaceBO);
+    }
+
+    return namespaceBOs;
+  }
+
+  private List<NamespaceBO> findNamespaceBOsOneByOne(String appId, Env env, String clusterName) {
 
     List<NamespaceDTO> namespaces = namespaceAPI.findNamespaceByCluster(appId, env, clusterName);
     if (namespaces == null || namespaces.size() == 0) {
@@ -198,10 +243,16 @@ public class NamespaceService {
   public Map<String, Map<String, Boolean>> getNamespacesPublishInfo(String appId) {
     Map<String, Map<String, Boolean>> result = Maps.newHashMap();
 
-    Set<Env> envs = portalConfig.publishTipsSupportedEnvs();
-    for (Env env : envs) {
-      if (portalSettings.isEnvActive(env)) {
-        result.put(env.toString(), namespaceAPI.getNamespacePublishInfo(env, appId));
+    List<Env> envs = portalConfig.publishTipsSupportedEnvs().stream().filter(portalSettings::isEnvActive)
+        .collect(Collectors.toList());
+    for (Result<Env, Map<String, Boolean>> envResult : envFanOutExecutor
+        .execute(envs, env -> namespaceAPI.getNamespacePublishInfo(env, appId))) {
+      if (envResult.isSuccess()) {
+        result.put(envResult.getTarget().toString(), envResult.getValue());
+      } else {
+        //the publish info of the other envs is still returned
+        Tracer.logError(String.format("Load namespace publish info failed. appId = %s, env = %s", appId,
+            envResult.getTarget()), envResult.getException());
       }
     }
 
@@ -260,6 +311,15 @@ public class NamespaceService {
     AppNamespace appNamespace =
         appNamespaceService
             .findByAppIdAndName(namespaceDTO.getAppId(), namespaceDTO.getNamespaceName());
+    fillAppNamespaceProperties(namespace, appNamespace);
+  }
+
+  /**
+   * @param appNamespace the app namespace found under the namespace's app, null if not found
+   */
+  private void fillAppNamespaceProperties(NamespaceBO namespace, AppNamespace appNamespace) {
+
+    NamespaceDTO namespaceDTO = namespace.getBaseInfo();
     //再从公共的app namespace里面找
     if (appNamespace == null) {
       appNamespace = appNamespaceService.findPublicAppNamespace(namespaceDTO.getNamespaceName());
@@ -306,6 +366,16 @@ public class NamespaceService {
     return deletedItems;
   }
 
+  private ItemBO transformItemStatus2BO(ItemStatusDTO itemStatus) {
+    ItemBO itemBO = new ItemBO();
+    itemBO.setItem(itemStatus.getItem());
+    itemBO.setModified(itemStatus.isModified());
+    itemBO.setDeleted(itemStatus.isDeleted());
+    itemBO.setOldValue(itemStatus.getOldValue());
+    itemBO.setNewValue(itemStatus.getNewValue());
+    return itemBO;
+  }
+
   private ItemBO transformItem2BO(ItemDTO itemDTO, Map<String, String> releaseItems) {
     String key = itemDTO.getKey();
     ItemBO itemBO = new ItemBO();
@@ -1,6 +1,7 @@
 package com.ctrip.framework.apollo.portal.spi.defaultimpl;
 
 import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
+import com.ctrip.framework.apollo.portal.component.RolePermissionCache;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
 import com.ctrip.framework.apollo.portal.entity.po.Permission;
@@ -45,6 +46,8 @@ public class DefaultRolePermissionService implements RolePermissionService {
     private PortalConfig portalConfig;
     @Autowired
     private ConsumerRoleRepository consumerRoleRepository;
+    @Autowired
+    private RolePermissionCache rolePermissionCache;
 
     /**
      * Create role with permissions, note that role name should be unique
@@ -66,6 +69,7 @@ public class DefaultRolePermissionService implements RolePermissionService {
                 return rolePermission;
             }).collect(Collectors.toList());
             rolePermissionRepository.saveAll(rolePermissions);
+            rolePermissionCache.invalidateRole(createdRole.getId());
         }
 
         return createdRole;
@@ -99,6 +103,7 @@ public class DefaultRolePermissionService implements RolePermissionService {
         }).collect(Collectors.toList());
 
         userRoleRepository.saveAll(toCreate);
+        rolePermissionCache.invalidateUsers(toAssignUserIds);
         return toAssignUserIds;
     }
 
@@ -120,6 +125,7 @@ public class DefaultRolePermissionService implements RolePermissionService {
         }
 
         userRoleRepository.saveAll(existedUserRoles);
+        rolePermissionCache.invalidateUsers(userIds);
     }
 
     /**
@@ -154,6 +160,12 @@ public class DefaultRolePermissionService implements RolePermissionService {
      * Check whether user has the permission
      */
     public boolean userHasPermission(String userId, String permissionType, String targetId) {
+        if (rolePermissionCache.isEnabled()) {
+            Long permissionId = rolePermissionCache.findPermissionId(permissionType, targetId);
+            return permissionId != null
+                && (isSuperAdmin(userId) || rolePermissionCache.userHasPermission(userId, permissionId));
+        }
+
         Permission permission =
                 permissionRepository.findTopByPermissionTypeAndTargetId(permissionType, targetId);
         if (permission == null) {
@@ -213,7 +225,9 @@ public class DefaultRolePermissionService implements RolePermissionService {
         Preconditions.checkState(current == null,
                 "Permission with permissionType %s targetId %s already exists!", permissionType, targetId);
 
-        return permissionRepository.save(permission);
+        Permission createdPermission = permissionRepository.save(permission);
+        rolePermissionCache.invalidatePermissions(Collections.singleton(createdPermission));
+        return createdPermission;
     }
 
     /**
@@ -236,6 +250,7 @@ public class DefaultRolePermissionService implements RolePermissionService {
         }
 
         Iterable<Permission> results = permissionRepository.saveAll(permissions);
+        rolePermissionCache.invalidatePermissions(permissions);
         return StreamSupport.stream(results.spliterator(), false).collect(Collectors.toSet());
     }
 
@@ -264,6 +279,8 @@ public class DefaultRolePermissionService implements RolePermissionService {
             // 5. delete Consumer Role
             consumerRoleRepository.batchDeleteByRoleIds(roleIds, operator);
         }
+
+        rolePermissionCache.invalidateAll();
     }
 
     @Transactional
@@ -291,5 +308,7 @@ public class DefaultRolePermissionService implements RolePermissionService {
             // 5. delete Consumer Role
             consumerRoleRepository.batchDeleteByRoleIds(roleIds, operator);
         }
+
+        rolePermissionCache.invalidateAll();
     }
 }
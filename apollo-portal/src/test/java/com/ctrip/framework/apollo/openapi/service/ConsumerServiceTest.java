@@ -8,6 +8,7 @@ import com.ctrip.framework.apollo.openapi.repository.ConsumerRepository;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerTokenRepository;
 import com.ctrip.framework.apollo.portal.AbstractUnitTest;
+import com.ctrip.framework.apollo.portal.component.RolePermissionCache;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
 import com.ctrip.framework.apollo.portal.entity.po.Role;
@@ -55,6 +56,8 @@ public class ConsumerServiceTest extends AbstractUnitTest {
   private ConsumerRoleRepository consumerRoleRepository;
   @Mock
   private RolePermissionService rolePermissionService;
+  @Mock
+  private RolePermissionCache rolePermissionCache;
   @Spy
   @InjectMocks
   private ConsumerService consumerService;
@@ -216,6 +219,7 @@ public class ConsumerServiceTest extends AbstractUnitTest {
     verify(consumerRoleRepository).save(namespaceEnvModifyConsumerRole);
     verify(consumerRoleRepository).save(namespaceReleaseConsumerRole);
     verify(consumerRoleRepository).save(namespaceEnvReleaseConsumerRole);
+    verify(rolePermissionCache, times(2)).invalidateConsumer(consumerId);
 
 
   }
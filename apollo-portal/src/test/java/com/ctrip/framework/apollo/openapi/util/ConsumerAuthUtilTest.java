@@ -1,6 +1,8 @@
 package com.ctrip.framework.apollo.openapi.util;
 
+import com.ctrip.framework.apollo.openapi.entity.ConsumerToken;
 import com.ctrip.framework.apollo.openapi.service.ConsumerService;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -8,8 +10,10 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.Date;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.*;
 
 /**
@@ -21,11 +25,13 @@ public class ConsumerAuthUtilTest {
   @Mock
   private ConsumerService consumerService;
   @Mock
+  private PortalConfig portalConfig;
+  @Mock
   private HttpServletRequest request;
 
   @Before
   public void setUp() throws Exception {
-    consumerAuthUtil = new ConsumerAuthUtil(consumerService);
+    consumerAuthUtil = new ConsumerAuthUtil(consumerService, portalConfig);
   }
 
   @Test
@@ -33,10 +39,60 @@ public class ConsumerAuthUtilTest {
     String someToken = "someToken";
     Long someConsumerId = 1L;
 
-    when(consumerService.getConsumerIdByToken(someToken)).thenReturn(someConsumerId);
+    when(portalConfig.consumerTokenCacheSeconds()).thenReturn(60);
+    when(consumerService.getConsumerTokenByToken(someToken))
+        .thenReturn(createConsumerToken(someConsumerId, someToken, new Date(System.currentTimeMillis() + 60000)));
+
+    assertEquals(someConsumerId, consumerAuthUtil.getConsumerId(someToken));
+    assertEquals(someConsumerId, consumerAuthUtil.getConsumerId(someToken));
+    verify(consumerService, times(1)).getConsumerTokenByToken(someToken);
+  }
+
+  @Test
+  public void testGetConsumerIdWithInvalidToken() throws Exception {
+    String someInvalidToken = "someInvalidToken";
+
+    when(portalConfig.invalidConsumerTokenCacheSeconds()).thenReturn(10);
+
+    assertNull(consumerAuthUtil.getConsumerId(someInvalidToken));
+    assertNull(consumerAuthUtil.getConsumerId(someInvalidToken));
+    verify(consumerService, times(1)).getConsumerTokenByToken(someInvalidToken);
+
+    assertNull(consumerAuthUtil.getConsumerId(null));
+    verify(consumerService, never()).getConsumerTokenByToken(null);
+  }
+
+  @Test
+  public void testGetConsumerIdWithTokenExpired() throws Exception {
+    String someToken = "someToken";
+    Long someConsumerId = 1L;
+
+    when(portalConfig.consumerTokenCacheSeconds()).thenReturn(60);
+    //the token expires before the cache does
+    when(consumerService.getConsumerTokenByToken(someToken))
+        .thenReturn(createConsumerToken(someConsumerId, someToken, new Date(System.currentTimeMillis() + 100)));
+
+    assertEquals(someConsumerId, consumerAuthUtil.getConsumerId(someToken));
+
+    Thread.sleep(200);
+    when(consumerService.getConsumerTokenByToken(someToken)).thenReturn(null);
+
+    assertNull(consumerAuthUtil.getConsumerId(someToken));
+    verify(consumerService, times(2)).getConsumerTokenByToken(someToken);
+  }
+
+  @Test
+  public void testGetConsumerIdWithCacheDisabled() throws Exception {
+    String someToken = "someToken";
+    Long someConsumerId = 1L;
+
+    when(portalConfig.consumerTokenCacheSeconds()).thenReturn(0);
+    when(consumerService.getConsumerTokenByToken(someToken))
+        .thenReturn(createConsumerToken(someConsumerId, someToken, new Date(System.currentTimeMillis() + 60000)));
 
     assertEquals(someConsumerId, consumerAuthUtil.getConsumerId(someToken));
-    verify(consumerService, times(1)).getConsumerIdByToken(someToken);
+    assertEquals(someConsumerId, consumerAuthUtil.getConsumerId(someToken));
+    verify(consumerService, times(2)).getConsumerTokenByToken(someToken);
   }
 
   @Test
@@ -71,4 +127,11 @@ public class ConsumerAuthUtilTest {
     consumerAuthUtil.retrieveConsumerId(request);
   }
 
+  private ConsumerToken createConsumerToken(long consumerId, String token, Date expires) {
+    ConsumerToken consumerToken = new ConsumerToken();
+    consumerToken.setConsumerId(consumerId);
+    consumerToken.setToken(token);
+    consumerToken.setExpires(expires);
+    return consumerToken;
+  }
 }
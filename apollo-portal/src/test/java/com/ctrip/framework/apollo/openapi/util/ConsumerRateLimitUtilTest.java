@@ -0,0 +1,48 @@
+package com.ctrip.framework.apollo.openapi.util;
+
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConsumerRateLimitUtilTest {
+  private ConsumerRateLimitUtil consumerRateLimitUtil;
+  @Mock
+  private PortalConfig portalConfig;
+
+  @Before
+  public void setUp() throws Exception {
+    consumerRateLimitUtil = new ConsumerRateLimitUtil(portalConfig);
+  }
+
+  @Test
+  public void testTryAcquire() throws Exception {
+    long someConsumerId = 1;
+    long anotherConsumerId = 2;
+
+    when(portalConfig.consumerRateLimit()).thenReturn(1);
+
+    assertTrue(consumerRateLimitUtil.tryAcquire(someConsumerId));
+    assertFalse(consumerRateLimitUtil.tryAcquire(someConsumerId));
+    //the consumers are throttled separately
+    assertTrue(consumerRateLimitUtil.tryAcquire(anotherConsumerId));
+  }
+
+  @Test
+  public void testTryAcquireWithoutRateLimit() throws Exception {
+    long someConsumerId = 1;
+
+    when(portalConfig.consumerRateLimit()).thenReturn(0);
+
+    for (int i = 0; i < 100; i++) {
+      assertTrue(consumerRateLimitUtil.tryAcquire(someConsumerId));
+    }
+  }
+}
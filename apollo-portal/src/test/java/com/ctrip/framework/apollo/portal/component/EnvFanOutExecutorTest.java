@@ -0,0 +1,173 @@
+package com.ctrip.framework.apollo.portal.component;
+
+import com.ctrip.framework.apollo.common.exception.BadRequestException;
+import com.ctrip.framework.apollo.common.exception.ServiceException;
+import com.ctrip.framework.apollo.core.enums.Env;
+import com.ctrip.framework.apollo.portal.AbstractUnitTest;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor.CircuitOpenException;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor.OutcomeUnknownException;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor.Result;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class EnvFanOutExecutorTest extends AbstractUnitTest {
+
+  @Mock
+  private PortalConfig portalConfig;
+
+  private EnvFanOutExecutor envFanOutExecutor;
+
+  @Before
+  public void setUp() throws Exception {
+    when(portalConfig.fanOutThreads()).thenReturn(4);
+    when(portalConfig.fanOutTimeout()).thenReturn(5000);
+    when(portalConfig.circuitBreakerFailureThreshold()).thenReturn(2);
+    when(portalConfig.circuitBreakerOpenDuration()).thenReturn(60000);
+
+    envFanOutExecutor = new EnvFanOutExecutor(portalConfig);
+  }
+
+  @Test
+  public void testExecuteInParallel() throws Exception {
+    List<Env> envs = Lists.newArrayList(Env.DEV, Env.FAT, Env.UAT, Env.PRO);
+    CountDownLatch allStarted = new CountDownLatch(envs.size());
+
+    List<Result<Env, String>> results = envFanOutExecutor.execute(envs, env -> {
+      allStarted.countDown();
+      try {
+        //would time out if the envs were called one by one
+        assertTrue(allStarted.await(1, TimeUnit.SECONDS));
+      } catch (InterruptedException ex) {
+        throw new IllegalStateException(ex);
+      }
+      return env.name();
+    });
+
+    assertEquals(envs.size(), results.size());
+    for (int i = 0; i < envs.size(); i++) {
+      assertEquals(envs.get(i), results.get(i).getTarget());
+      assertTrue(results.get(i).isSuccess());
+      assertEquals(envs.get(i).name(), results.get(i).getValue());
+    }
+  }
+
+  @Test
+  public void testPartialFailure() throws Exception {
+    List<Result<Env, String>> results = envFanOutExecutor.execute(Lists.newArrayList(Env.DEV, Env.FAT), env -> {
+      if (env == Env.FAT) {
+        throw new BadRequestException("bad request");
+      }
+      return env.name();
+    });
+
+    assertTrue(results.get(0).isSuccess());
+    assertEquals(Env.DEV.name(), results.get(0).getValue());
+    assertFalse(results.get(1).isSuccess());
+    assertTrue(results.get(1).getException() instanceof BadRequestException);
+    //the admin service responded, so the circuit stays closed
+    assertFalse(envFanOutExecutor.isCircuitOpen(Env.FAT));
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    when(portalConfig.fanOutTimeout()).thenReturn(100);
+    CountDownLatch neverReleased = new CountDownLatch(1);
+
+    List<Result<Env, String>> results = envFanOutExecutor.execute(Lists.newArrayList(Env.DEV, Env.FAT), env -> {
+      if (env == Env.FAT) {
+        try {
+          neverReleased.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return env.name();
+    });
+
+    assertTrue(results.get(0).isSuccess());
+    assertTrue(results.get(1).getException() instanceof TimeoutException);
+    assertFalse(results.get(1).isOutcomeUnknown());
+  }
+
+  @Test
+  public void testWriteTimeout() throws Exception {
+    when(portalConfig.fanOutTimeout()).thenReturn(100);
+    CountDownLatch released = new CountDownLatch(1);
+    CountDownLatch written = new CountDownLatch(1);
+    AtomicBoolean interrupted = new AtomicBoolean();
+
+    Result<Env, String> result = envFanOutExecutor.executeWrites(Lists.newArrayList(Env.DEV), env -> {
+      try {
+        released.await();
+      } catch (InterruptedException ex) {
+        interrupted.set(true);
+      }
+      written.countDown();
+      return env.name();
+    }).get(0);
+
+    assertTrue(result.isOutcomeUnknown());
+    assertTrue(result.getException() instanceof OutcomeUnknownException);
+
+    //the write keeps running
+    released.countDown();
+    assertTrue(written.await(1, TimeUnit.SECONDS));
+    assertFalse(interrupted.get());
+  }
+
+  @Test
+  public void testCircuitOpen() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    List<Env> envs = Lists.newArrayList(Env.DEV);
+
+    for (int i = 0; i < 2; i++) {
+      Result<Env, ?> result = envFanOutExecutor.execute(envs, (Env env) -> {
+        calls.incrementAndGet();
+        throw new ServiceException("admin service unavailable");
+      }).get(0);
+      assertTrue(result.getException() instanceof ServiceException);
+    }
+    assertTrue(envFanOutExecutor.isCircuitOpen(Env.DEV));
+
+    Result<Env, String> result = envFanOutExecutor.execute(envs, env -> {
+      calls.incrementAndGet();
+      return env.name();
+    }).get(0);
+
+    assertTrue(result.getException() instanceof CircuitOpenException);
+    assertEquals(2, calls.get());
+    assertFalse(envFanOutExecutor.isCircuitOpen(Env.FAT));
+  }
+
+  @Test
+  public void testCircuitClosedAfterTrialCallSucceeds() throws Exception {
+    when(portalConfig.circuitBreakerOpenDuration()).thenReturn(0);
+    List<Env> envs = Lists.newArrayList(Env.DEV);
+
+    for (int i = 0; i < 2; i++) {
+      envFanOutExecutor.execute(envs, (Env env) -> {
+        throw new ServiceException("admin service unavailable");
+      });
+    }
+
+    Result<Env, String> result = envFanOutExecutor.execute(envs, Env::name).get(0);
+
+    assertTrue(result.isSuccess());
+    assertFalse(envFanOutExecutor.isCircuitOpen(Env.DEV));
+  }
+}
@@ -0,0 +1,147 @@
+package com.ctrip.framework.apollo.portal.component;
+
+import com.ctrip.framework.apollo.openapi.entity.ConsumerRole;
+import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
+import com.ctrip.framework.apollo.portal.AbstractUnitTest;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.entity.po.Permission;
+import com.ctrip.framework.apollo.portal.entity.po.RolePermission;
+import com.ctrip.framework.apollo.portal.entity.po.UserRole;
+import com.ctrip.framework.apollo.portal.repository.PermissionRepository;
+import com.ctrip.framework.apollo.portal.repository.RolePermissionRepository;
+import com.ctrip.framework.apollo.portal.repository.UserRoleRepository;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RolePermissionCacheTest extends AbstractUnitTest {
+
+  @Mock
+  private PortalConfig portalConfig;
+  @Mock
+  private PermissionRepository permissionRepository;
+  @Mock
+  private UserRoleRepository userRoleRepository;
+  @Mock
+  private RolePermissionRepository rolePermissionRepository;
+  @Mock
+  private ConsumerRoleRepository consumerRoleRepository;
+
+  private RolePermissionCache rolePermissionCache;
+
+  private String somePermissionType = "ModifyNamespace";
+  private String someTargetId = "someApp+application";
+  private long somePermissionId = 1;
+  private long someRoleId = 2;
+  private String someUserId = "someUser";
+  private long someConsumerId = 3;
+
+  @Before
+  public void setUp() throws Exception {
+    when(portalConfig.permissionCacheRefreshInterval()).thenReturn(60);
+    when(permissionRepository.findTopByPermissionTypeAndTargetId(somePermissionType, someTargetId))
+        .thenReturn(createPermission(somePermissionId, somePermissionType, someTargetId));
+    when(rolePermissionRepository.findByRoleIdIn(any()))
+        .thenReturn(Lists.newArrayList(createRolePermission(someRoleId, somePermissionId)));
+
+    rolePermissionCache = new RolePermissionCache(portalConfig, permissionRepository, userRoleRepository,
+        rolePermissionRepository, consumerRoleRepository);
+  }
+
+  @Test
+  public void testUserHasPermission() throws Exception {
+    when(userRoleRepository.findByUserId(someUserId))
+        .thenReturn(Lists.newArrayList(createUserRole(someUserId, someRoleId)));
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(somePermissionId, (long) rolePermissionCache.findPermissionId(somePermissionType, someTargetId));
+      assertTrue(rolePermissionCache.userHasPermission(someUserId, somePermissionId));
+      assertFalse(rolePermissionCache.userHasPermission(someUserId, somePermissionId + 1));
+    }
+
+    verify(permissionRepository, times(1)).findTopByPermissionTypeAndTargetId(somePermissionType, someTargetId);
+    verify(userRoleRepository, times(1)).findByUserId(someUserId);
+    verify(rolePermissionRepository, times(1)).findByRoleIdIn(any());
+  }
+
+  @Test
+  public void testPermissionNotExists() throws Exception {
+    assertNull(rolePermissionCache.findPermissionId(somePermissionType, "anotherTargetId"));
+    assertNull(rolePermissionCache.findPermissionId(somePermissionType, "anotherTargetId"));
+
+    verify(permissionRepository, times(1)).findTopByPermissionTypeAndTargetId(somePermissionType, "anotherTargetId");
+  }
+
+  @Test
+  public void testInvalidateUsers() throws Exception {
+    when(userRoleRepository.findByUserId(someUserId)).thenReturn(Collections.emptyList());
+
+    assertFalse(rolePermissionCache.userHasPermission(someUserId, somePermissionId));
+
+    when(userRoleRepository.findByUserId(someUserId))
+        .thenReturn(Lists.newArrayList(createUserRole(someUserId, someRoleId)));
+
+    assertFalse(rolePermissionCache.userHasPermission(someUserId, somePermissionId));
+
+    rolePermissionCache.invalidateUsers(Collections.singleton(someUserId));
+
+    assertTrue(rolePermissionCache.userHasPermission(someUserId, somePermissionId));
+    verify(userRoleRepository, times(2)).findByUserId(someUserId);
+  }
+
+  @Test
+  public void testConsumerHasPermission() throws Exception {
+    when(consumerRoleRepository.findByConsumerId(someConsumerId)).thenReturn(Collections.emptyList());
+
+    assertFalse(rolePermissionCache.consumerHasPermission(someConsumerId, somePermissionId));
+
+    when(consumerRoleRepository.findByConsumerId(someConsumerId))
+        .thenReturn(Lists.newArrayList(createConsumerRole(someConsumerId, someRoleId)));
+    rolePermissionCache.invalidateConsumer(someConsumerId);
+
+    assertTrue(rolePermissionCache.consumerHasPermission(someConsumerId, somePermissionId));
+    assertTrue(rolePermissionCache.consumerHasPermission(someConsumerId, somePermissionId));
+    verify(consumerRoleRepository, times(2)).findByConsumerId(someConsumerId);
+  }
+
+  private Permission createPermission(long id, String permissionType, String targetId) {
+    Permission permission = new Permission();
+    permission.setId(id);
+    permission.setPermissionType(permissionType);
+    permission.setTargetId(targetId);
+    return permission;
+  }
+
+  private RolePermission createRolePermission(long roleId, long permissionId) {
+    RolePermission rolePermission = new RolePermission();
+    rolePermission.setRoleId(roleId);
+    rolePermission.setPermissionId(permissionId);
+    return rolePermission;
+  }
+
+  private UserRole createUserRole(String userId, long roleId) {
+    UserRole userRole = new UserRole();
+    userRole.setUserId(userId);
+    userRole.setRoleId(roleId);
+    return userRole;
+  }
+
+  private ConsumerRole createConsumerRole(long consumerId, long roleId) {
+    ConsumerRole consumerRole = new ConsumerRole();
+    consumerRole.setConsumerId(consumerId);
+    consumerRole.setRoleId(roleId);
+    return consumerRole;
+  }
+}
@@ -0,0 +1,73 @@
+package com.ctrip.framework.apollo.portal.component.search;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NGramIndexTest {
+  private NGramIndex<String> index;
+
+  @Before
+  public void setUp() throws Exception {
+    index = new NGramIndex<>();
+    index.put("someApp", "someApp", "Some Application");
+    index.put("anotherApp", "anotherApp", "Another Service");
+    index.put("thirdApp", "thirdApp", null);
+  }
+
+  @Test
+  public void testSearch() throws Exception {
+    assertEquals(Lists.newArrayList("someApp", "anotherApp", "thirdApp"), index.search("app", 10));
+    assertEquals(Lists.newArrayList("someApp"), index.search("APPLICATION", 10));
+    assertEquals(Lists.newArrayList("anotherApp"), index.search("other", 10));
+    assertEquals(Lists.newArrayList("someApp", "anotherApp"), index.search("app", 2));
+    assertTrue(index.search("notExisted", 10).isEmpty());
+  }
+
+  @Test
+  public void testSearchWithShortQuery() throws Exception {
+    assertEquals(Lists.newArrayList("someApp", "anotherApp", "thirdApp"), index.search("p", 10));
+    assertEquals(Lists.newArrayList("anotherApp", "thirdApp"), index.search("th", 10));
+    assertTrue(index.search("", 10).isEmpty());
+  }
+
+  @Test
+  public void testSearchNotAcrossTexts() throws Exception {
+    //someApp + Some Application
+    assertTrue(index.search("appsome", 10).isEmpty());
+    assertTrue(index.search("pps", 10).isEmpty());
+  }
+
+  @Test
+  public void testPutAndRemove() throws Exception {
+    index.put("someApp", "someApp", "Renamed");
+
+    assertTrue(index.search("application", 10).isEmpty());
+    assertEquals(Lists.newArrayList("anotherApp", "someApp"), index.search("e", 10));
+
+    index.remove("anotherApp");
+    index.removeIf(document -> document.startsWith("third"));
+
+    assertEquals(Lists.newArrayList("someApp"), index.search("app", 10));
+    assertEquals(1, index.size());
+  }
+
+  @Test
+  public void testCompaction() throws Exception {
+    for (int i = 0; i < 3000; i++) {
+      index.put("key" + i, "key" + i, "value" + i);
+    }
+    for (int i = 0; i < 2500; i++) {
+      index.remove("key" + i);
+    }
+
+    assertEquals(503, index.size());
+    assertEquals(Collections.singletonList("key2999"), index.search("value2999", 10));
+    assertEquals(500, index.search("key", 1000).size());
+  }
+}
@@ -0,0 +1,204 @@
+package com.ctrip.framework.apollo.portal.service;
+
+import com.ctrip.framework.apollo.common.dto.ClusterDTO;
+import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
+import com.ctrip.framework.apollo.common.dto.ReleaseDTO;
+import com.ctrip.framework.apollo.common.entity.App;
+import com.ctrip.framework.apollo.common.entity.AppNamespace;
+import com.ctrip.framework.apollo.core.enums.Env;
+import com.ctrip.framework.apollo.portal.AbstractUnitTest;
+import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.entity.vo.ConfigSearchResult;
+import com.ctrip.framework.apollo.portal.listener.AppDeletionEvent;
+import com.ctrip.framework.apollo.portal.listener.ConfigPublishEvent;
+import com.ctrip.framework.apollo.portal.repository.AppNamespaceRepository;
+import com.ctrip.framework.apollo.portal.repository.AppRepository;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConfigSearchServiceTest extends AbstractUnitTest {
+
+  @Mock
+  private PortalConfig portalConfig;
+  @Mock
+  private AppRepository appRepository;
+  @Mock
+  private AppNamespaceRepository appNamespaceRepository;
+  @Mock
+  private AdminServiceAPI.ClusterAPI clusterAPI;
+  @Mock
+  private AdminServiceAPI.NamespaceAPI namespaceAPI;
+  @Mock
+  private AdminServiceAPI.ReleaseAPI releaseAPI;
+
+  private ConfigSearchService configSearchService;
+
+  private String someAppId = "someApp";
+  private String someClusterName = "default";
+  private String someNamespaceName = "application";
+  private Env someEnv = Env.DEV;
+  private AtomicLong releaseIds = new AtomicLong();
+
+  @Before
+  public void setUp() throws Exception {
+    App someApp = new App();
+    someApp.setAppId(someAppId);
+    someApp.setName("Some Application");
+    AppNamespace someAppNamespace = new AppNamespace();
+    someAppNamespace.setAppId(someAppId);
+    someAppNamespace.setName(someNamespaceName);
+    ClusterDTO someCluster = new ClusterDTO();
+    someCluster.setName(someClusterName);
+    NamespaceDTO someNamespace = new NamespaceDTO();
+    someNamespace.setNamespaceName(someNamespaceName);
+
+    when(portalConfig.isConfigSearchIndexEnabled()).thenReturn(true);
+    when(portalConfig.configSearchAppIndexRebuildInterval()).thenReturn(300);
+    when(portalConfig.configSearchItemIndexRebuildInterval()).thenReturn(300);
+    when(portalConfig.portalSupportedEnvs()).thenReturn(Collections.singletonList(someEnv));
+    when(appRepository.findAll()).thenReturn(Collections.singletonList(someApp));
+    when(appNamespaceRepository.findAll()).thenReturn(Collections.singletonList(someAppNamespace));
+    when(clusterAPI.findClustersByApp(someAppId, someEnv)).thenReturn(Collections.singletonList(someCluster));
+    when(namespaceAPI.findNamespaceByCluster(someAppId, someEnv, someClusterName))
+        .thenReturn(Collections.singletonList(someNamespace));
+    when(releaseAPI.loadLatestRelease(someAppId, someEnv, someClusterName, someNamespaceName))
+        .thenReturn(createRelease("{\"timeout\":\"100\",\"jdbc.url\":\"jdbc:mysql://localhost\"}"));
+
+    configSearchService = new ConfigSearchService(portalConfig, appRepository, appNamespaceRepository, clusterAPI,
+        namespaceAPI, releaseAPI);
+    configSearchService.init();
+
+    waitUntil(() -> configSearchService.isAppIndexReady() && configSearchService.isItemIndexReady());
+  }
+
+  @Test
+  public void testSearch() throws Exception {
+    assertEquals(Collections.singletonList(someAppId), configSearchService.searchApps("application"));
+    assertEquals(Collections.singletonList(new ConfigSearchResult(null, someAppId, null, someNamespaceName, null)),
+        configSearchService.searchAppNamespaces("applic"));
+    assertEquals(Collections.singletonList(itemOf("jdbc.url")), configSearchService.searchItems(someEnv, "mysql"));
+    assertEquals(Collections.singletonList(itemOf("timeout")), configSearchService.searchItems(someEnv, "timeout"));
+    assertTrue(configSearchService.searchItems(Env.PRO, "timeout").isEmpty());
+  }
+
+  @Test
+  public void testOnConfigPublish() throws Exception {
+    when(releaseAPI.loadLatestRelease(someAppId, someEnv, someClusterName, someNamespaceName))
+        .thenReturn(createRelease("{\"timeout\":\"200\",\"redis.host\":\"localhost\"}"));
+
+    configSearchService.onConfigPublish(ConfigPublishEvent.instance().withAppId(someAppId)
+        .withCluster(someClusterName).withNamespace(someNamespaceName).setNormalPublishEvent(true).setEnv(someEnv));
+
+    waitUntil(() -> configSearchService.searchItems(someEnv, "mysql").isEmpty());
+    assertEquals(Lists.newArrayList(itemOf("timeout"), itemOf("redis.host")),
+        configSearchService.searchItems(someEnv, "o"));
+  }
+
+  @Test
+  public void testOnAppDeletion() throws Exception {
+    App someApp = new App();
+    someApp.setAppId(someAppId);
+
+    configSearchService.onAppDeletion(new AppDeletionEvent(someApp));
+
+    waitUntil(() -> configSearchService.searchApps(someAppId).isEmpty()
+        && configSearchService.searchAppNamespaces(someNamespaceName).isEmpty()
+        && configSearchService.searchItems(someEnv, "timeout").isEmpty());
+  }
+
+  @Test
+  public void testRebuildAppIndex() throws Exception {
+    when(portalConfig.configSearchAppIndexRebuildInterval()).thenReturn(1);
+    ConfigSearchService anotherConfigSearchService = new ConfigSearchService(portalConfig, appRepository,
+        appNamespaceRepository, clusterAPI, namespaceAPI, releaseAPI);
+    anotherConfigSearchService.init();
+    waitUntil(() -> anotherConfigSearchService.searchApps(someAppId).equals(Collections.singletonList(someAppId)));
+
+    //the app is deleted and another one is created through another portal
+    when(appRepository.findAll()).thenReturn(Collections.singletonList(createApp("anotherApp")));
+    when(appNamespaceRepository.findAll()).thenReturn(Collections.emptyList());
+
+    waitUntil(() -> anotherConfigSearchService.searchApps(someAppId).isEmpty()
+        && anotherConfigSearchService.searchApps("anotherApp").equals(Collections.singletonList("anotherApp"))
+        && anotherConfigSearchService.searchAppNamespaces(someNamespaceName).isEmpty());
+  }
+
+  @Test
+  public void testRebuildItemIndex() throws Exception {
+    when(portalConfig.configSearchItemIndexRebuildInterval()).thenReturn(1);
+    ConfigSearchService anotherConfigSearchService = new ConfigSearchService(portalConfig, appRepository,
+        appNamespaceRepository, clusterAPI, namespaceAPI, releaseAPI);
+    anotherConfigSearchService.init();
+    waitUntil(() -> anotherConfigSearchService.searchItems(someEnv, "timeout")
+        .equals(Collections.singletonList(itemOf("timeout"))));
+
+    //the namespace is released through another portal
+    when(releaseAPI.loadLatestRelease(someAppId, someEnv, someClusterName, someNamespaceName))
+        .thenReturn(createRelease("{\"redis.host\":\"localhost\"}"));
+
+    waitUntil(() -> anotherConfigSearchService.searchItems(someEnv, "timeout").isEmpty()
+        && anotherConfigSearchService.searchItems(someEnv, "redis")
+        .equals(Collections.singletonList(itemOf("redis.host"))));
+
+    //the namespace is deleted through another portal
+    when(namespaceAPI.findNamespaceByCluster(someAppId, someEnv, someClusterName))
+        .thenReturn(Collections.emptyList());
+
+    waitUntil(() -> anotherConfigSearchService.searchItems(someEnv, "redis").isEmpty());
+  }
+
+  @Test
+  public void testRebuildItemIndexWhenEnvIsDown() throws Exception {
+    when(portalConfig.configSearchItemIndexRebuildInterval()).thenReturn(1);
+    ConfigSearchService anotherConfigSearchService = new ConfigSearchService(portalConfig, appRepository,
+        appNamespaceRepository, clusterAPI, namespaceAPI, releaseAPI);
+    anotherConfigSearchService.init();
+    waitUntil(() -> anotherConfigSearchService.searchItems(someEnv, "timeout")
+        .equals(Collections.singletonList(itemOf("timeout"))));
+
+    when(clusterAPI.findClustersByApp(someAppId, someEnv)).thenThrow(new RuntimeException("env is down"));
+    verify(clusterAPI, timeout(5000).atLeast(3)).findClustersByApp(someAppId, someEnv);
+
+    assertEquals(Collections.singletonList(itemOf("timeout")),
+        anotherConfigSearchService.searchItems(someEnv, "timeout"));
+  }
+
+  private App createApp(String appId) {
+    App app = new App();
+    app.setAppId(appId);
+    return app;
+  }
+
+  private ConfigSearchResult itemOf(String key) {
+    return new ConfigSearchResult(someEnv.name(), someAppId, someClusterName, someNamespaceName, key);
+  }
+
+  private ReleaseDTO createRelease(String configurations) {
+    ReleaseDTO release = new ReleaseDTO();
+    release.setId(releaseIds.incrementAndGet());
+    release.setConfigurations(configurations);
+    return release;
+  }
+
+  private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+    while (!condition.getAsBoolean()) {
+      assertTrue("Timed out waiting for the search index", System.currentTimeMillis() < deadline);
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+  }
+}
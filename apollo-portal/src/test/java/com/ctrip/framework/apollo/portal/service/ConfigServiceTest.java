@@ -8,6 +8,8 @@ import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.core.enums.Env;
 import com.ctrip.framework.apollo.portal.AbstractUnitTest;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
+import com.ctrip.framework.apollo.portal.component.EnvFanOutExecutor;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.spi.UserInfoHolder;
 import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
 import com.ctrip.framework.apollo.portal.component.txtresolver.PropertyResolver;
@@ -40,6 +42,8 @@ public class ConfigServiceTest extends AbstractUnitTest {
   private PropertyResolver resolver;
   @Mock
   private UserInfoHolder userInfoHolder;
+  @Mock
+  private PortalConfig portalConfig;
 
   @InjectMocks
   private ItemService configService;
@@ -47,6 +51,7 @@ public class ConfigServiceTest extends AbstractUnitTest {
   @Before
   public void setup() {
     ReflectionTestUtils.setField(configService, "propertyResolver", resolver);
+    ReflectionTestUtils.setField(configService, "envFanOutExecutor", new EnvFanOutExecutor(portalConfig));
   }
 
   @Test
@@ -1,7 +1,9 @@
 package com.ctrip.framework.apollo.portal.service;
 
 import com.ctrip.framework.apollo.common.dto.ItemDTO;
+import com.ctrip.framework.apollo.common.dto.ItemStatusDTO;
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
+import com.ctrip.framework.apollo.common.dto.NamespaceItemsDTO;
 import com.ctrip.framework.apollo.common.dto.ReleaseDTO;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
@@ -18,13 +20,18 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -93,6 +100,9 @@ public class NamespaceServiceTest extends AbstractUnitTest {
     when(appNamespaceService.findByAppIdAndName(testAppId, testNamespaceName))
         .thenReturn(applicationAppNamespace);
     when(appNamespaceService.findPublicAppNamespace("hermes")).thenReturn(hermesAppNamespace);
+    //the admin service doesn't support loading the items of the cluster at once
+    when(namespaceAPI.findNamespacesWithItems(testAppId, Env.DEV, testClusterName))
+        .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
     when(namespaceAPI.findNamespaceByCluster(testAppId, Env.DEV, testClusterName)).thenReturn(namespaces);
     when(releaseService.loadLatestRelease(testAppId, Env.DEV, testClusterName,
                                           testNamespaceName)).thenReturn(someRelease);
@@ -111,6 +121,49 @@ public class NamespaceServiceTest extends AbstractUnitTest {
 
   }
 
+  @Test
+  public void testFindNamespaceWithItems() {
+    AppNamespace applicationAppNamespace = createAppNamespace(testAppId, testNamespaceName, false);
+    AppNamespace hermesAppNamespace = createAppNamespace("someOtherAppId", "hermes", true);
+
+    ItemStatusDTO unmodifiedItem = createItemStatus("a", false, false);
+    ItemStatusDTO modifiedItem = createItemStatus("b", true, false);
+    ItemStatusDTO deletedItem = createItemStatus("c", true, true);
+
+    NamespaceItemsDTO application = new NamespaceItemsDTO();
+    application.setBaseInfo(createNamespace(testAppId, testClusterName, testNamespaceName));
+    application.setItems(Arrays.asList(unmodifiedItem, modifiedItem, deletedItem));
+    application.setItemModifiedCnt(2);
+    NamespaceItemsDTO hermes = new NamespaceItemsDTO();
+    hermes.setBaseInfo(createNamespace(testAppId, testClusterName, "hermes"));
+    hermes.setItems(Collections.emptyList());
+
+    when(namespaceAPI.findNamespacesWithItems(testAppId, testEnv, testClusterName))
+        .thenReturn(Arrays.asList(application, hermes));
+    when(appNamespaceService.findByAppId(testAppId)).thenReturn(Collections.singletonList(applicationAppNamespace));
+    when(appNamespaceService.findPublicAppNamespace("hermes")).thenReturn(hermesAppNamespace);
+
+    List<NamespaceBO> namespaceBOs = namespaceService.findNamespaceBOs(testAppId, testEnv, testClusterName);
+
+    assertEquals(2, namespaceBOs.size());
+    NamespaceBO applicationBO = namespaceBOs.get(0);
+    assertEquals(testNamespaceName, applicationBO.getBaseInfo().getNamespaceName());
+    assertEquals(2, applicationBO.getItemModifiedCnt());
+    assertEquals(3, applicationBO.getItems().size());
+    assertEquals("a", applicationBO.getItems().get(0).getItem().getKey());
+    assertFalse(applicationBO.getItems().get(0).isModified());
+    assertTrue(applicationBO.getItems().get(1).isModified());
+    assertTrue(applicationBO.getItems().get(2).isDeleted());
+    assertFalse(applicationBO.isPublic());
+    NamespaceBO hermesBO = namespaceBOs.get(1);
+    assertTrue(hermesBO.isPublic());
+    assertEquals("someOtherAppId", hermesBO.getParentAppId());
+
+    verify(namespaceAPI, never()).findNamespaceByCluster(testAppId, testEnv, testClusterName);
+    verify(itemService, never()).findItems(testAppId, testEnv, testClusterName, testNamespaceName);
+    verify(releaseService, never()).loadLatestRelease(testAppId, testEnv, testClusterName, testNamespaceName);
+  }
+
   @Test
   public void testDeletePrivateNamespace() {
     String operator = "user";
@@ -219,6 +272,16 @@ public class NamespaceServiceTest extends AbstractUnitTest {
     return instance;
   }
 
+  private ItemStatusDTO createItemStatus(String key, boolean modified, boolean deleted) {
+    ItemStatusDTO instance = new ItemStatusDTO();
+
+    instance.setItem(new ItemDTO(key, "someValue", "", 1));
+    instance.setModified(modified);
+    instance.setDeleted(deleted);
+
+    return instance;
+  }
+
   private UserInfo createUser(String userId) {
     UserInfo instance = new UserInfo();
 